@@ -0,0 +1,53 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulizer.assembler.representation.Instruction;
+import simulizer.simulation.data.representation.DataConverter;
+import simulizer.simulation.data.representation.Word;
+import simulizer.simulation.exceptions.InstructionException;
+
+/**
+ * Measures ALU.execute for a selection of arithmetic, logical, shift and branch instructions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ALUBenchmark {
+	@Param({"add", "addu", "sub", "mul", "div", "and", "or", "slt", "sll", "beq"})
+	public String instructionName;
+
+	private ALU alu;
+	private Instruction instruction;
+	private Optional<Word> first;
+	private Optional<Word> second;
+
+	@Setup
+	public void setup() {
+		alu = new ALU();
+		instruction = Instruction.valueOf(instructionName);
+		first = Optional.of(new Word(DataConverter.encodeAsSigned(123456)));
+		second = Optional.of(new Word(DataConverter.encodeAsSigned(7)));
+	}
+
+	@Benchmark
+	public Word execute() throws InstructionException {
+		return alu.execute(instruction, first, second);
+	}
+}
@@ -0,0 +1,87 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulizer.assembler.Assembler;
+import simulizer.assembler.ProgramGenerator;
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.Statement;
+import simulizer.simulation.cpu.user_interaction.BufferIO;
+import simulizer.simulation.exceptions.DecodeException;
+import simulizer.simulation.instructions.InstructionFormat;
+
+/**
+ * Measures decoding statements and machine code, cycling through a generated
+ * program which uses every instruction
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderBenchmark {
+	private CPU cpu;
+	private Decoder decoder;
+	private Address[] addresses;
+	private Statement[] statements;
+	private int[] words;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Program p = Assembler.assemble(new ProgramGenerator(0).generate(1000), null);
+		cpu = new CPU(new BufferIO());
+		cpu.loadProgram(p);
+		decoder = new Decoder(cpu);
+
+		List<Address> a = new ArrayList<>();
+		List<Statement> s = new ArrayList<>();
+		for(Map.Entry<Address, Statement> e : p.textSegment.entrySet()) {
+			a.add(e.getKey());
+			s.add(e.getValue());
+		}
+		addresses = a.toArray(new Address[a.size()]);
+		statements = s.toArray(new Statement[s.size()]);
+		words = new int[addresses.length];
+		for(int i = 0; i < addresses.length; i++) {
+			words[i] = p.textImage[(addresses[i].getValue() - p.textSegmentStart.getValue()) / 4];
+		}
+		next = 0;
+	}
+
+	@TearDown
+	public void tearDown() {
+		cpu.shutdown();
+	}
+
+	@Benchmark
+	public InstructionFormat decodeStatement() throws DecodeException {
+		int i = next;
+		next = (i + 1) % statements.length;
+		return decoder.decode(statements[i].getInstruction(), statements[i].getOperandList());
+	}
+
+	@Benchmark
+	public InstructionFormat decodeMachineCode() throws DecodeException {
+		int i = next;
+		next = (i + 1) % statements.length;
+		return decoder.decode(words[i], addresses[i], statements[i]);
+	}
+}
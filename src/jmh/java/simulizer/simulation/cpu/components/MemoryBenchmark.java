@@ -0,0 +1,106 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulizer.assembler.Assembler;
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.data.representation.DataConverter;
+import simulizer.simulation.exceptions.HeapException;
+import simulizer.simulation.exceptions.MemoryException;
+import simulizer.simulation.exceptions.StackException;
+
+/**
+ * Measures word sized reads and writes to each segment of MainMemory, and growing the heap with sbrk
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+
+	/**
+	 * a memory with a word to access in one of its segments
+	 */
+	@State(Scope.Thread)
+	public static class Segment {
+		@Param({"static", "text", "heap", "stack"})
+		public String segment;
+
+		private MainMemory memory;
+		private int address;
+		private byte[] word;
+
+		@Setup
+		public void setup() throws MemoryException, HeapException, StackException {
+			Program p = Assembler.assemble(".data\nbuf: .space 4096\n.text\nmain:\nli $v0, 10\nsyscall\n", null);
+			Address sp = new Address((int) DataConverter.decodeAsSigned(p.initialSP.getWord()));
+			memory = new MainMemory(p.textSegment, p.textImage, p.dataSegment, p.dataSegmentSize,
+					p.textSegmentStart, p.dataSegmentStart, p.dynamicSegmentStart, sp);
+			word = DataConverter.encodeAsSigned(42);
+
+			switch(segment) {
+				case "static":
+					address = p.dataSegmentStart.getValue() + 64;
+					break;
+				case "text":
+					address = p.textSegmentStart.getValue() + 4;
+					break;
+				case "heap":
+					memory.getHeap().sbrk(4096);
+					address = p.dynamicSegmentStart.getValue() + 64;
+					break;
+				case "stack":
+					memory.writeToMem(sp.getValue(), new byte[64]);
+					address = sp.getValue() - 32;
+					break;
+				default:
+					throw new IllegalArgumentException("unknown segment: " + segment);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Heap {
+		@Param({"4", "4096", "65536"})
+		public int bytes;
+
+		private Address start;
+
+		@Setup
+		public void setup() {
+			start = Assembler.assemble(".text\nmain:\nli $v0, 10\nsyscall\n", null).dynamicSegmentStart;
+		}
+	}
+
+	@Benchmark
+	public byte[] readFromMem(Segment s) throws MemoryException, HeapException, StackException {
+		return s.memory.readFromMem(s.address, 4);
+	}
+
+	@Benchmark
+	public void writeToMem(Segment s) throws MemoryException, HeapException, StackException {
+		if(s.segment.equals("text"))
+			return; // the text segment cannot be written to
+		s.memory.writeToMem(s.address, s.word);
+	}
+
+	@Benchmark
+	public Address sbrk(Heap h) throws HeapException {
+		// a new heap each time, otherwise it would soon reach its maximum size
+		return new DynamicDataSegment(h.start).sbrk(h.bytes);
+	}
+}
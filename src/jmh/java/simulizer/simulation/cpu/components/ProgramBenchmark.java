@@ -0,0 +1,101 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulizer.assembler.Assembler;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.user_interaction.BufferIO;
+import simulizer.utils.FileUtils;
+
+/**
+ * Runs the sample programs from work/code headless at full speed, reporting
+ * the programs and instructions simulated per second. Must be run from the
+ * project directory so that the programs can be found.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramBenchmark {
+	@Param({"bubblesort", "quick-sort", "binary-search", "tower-of-hanoi"})
+	public String program;
+
+	@Param({"non-pipelined", "pipelined"})
+	public String cpuType;
+
+	private Program p;
+	private String input;
+	private BufferIO io;
+	private CPU cpu;
+
+	/**
+	 * the number of instructions executed, reported by JMH as a rate alongside the programs per second
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long instructions;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			instructions = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		StoreProblemLogger log = new StoreProblemLogger();
+		p = Assembler.assemble(FileUtils.getFileContent("work/code/" + program + ".s"), log);
+		if(p == null || !log.getProblems().isEmpty()) {
+			throw new IllegalStateException("work/code/" + program + ".s could not be assembled");
+		}
+
+		switch(program) {
+			case "bubblesort":
+			case "quick-sort":
+				input = "5\n3\n9\n1\n7\n0\n";
+				break;
+			case "binary-search":
+				input = "1\n3\n5\n8\n13\n0\n8\n4\n0\n";
+				break;
+			default:
+				input = "4\n";
+				break;
+		}
+
+		io = new BufferIO();
+		cpu = CPUType.fromSettingName(cpuType).createCPU(io);
+	}
+
+	@TearDown
+	public void tearDown() {
+		cpu.shutdown();
+	}
+
+	@Benchmark
+	public long run(Counters counters) {
+		io.feedInput(input);
+		cpu.loadProgram(p);
+		cpu.runProgram();
+		counters.instructions += cpu.getInstructionsRetired();
+		return cpu.getCycles();
+	}
+}
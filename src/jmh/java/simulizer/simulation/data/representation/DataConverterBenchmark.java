@@ -0,0 +1,72 @@
+package simulizer.simulation.data.representation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding words, which happens several times for
+ * every instruction the simulation executes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataConverterBenchmark {
+	private long value;
+	private byte[] word;
+	private byte[] words;
+	private long[] values;
+
+	@Setup
+	public void setup() {
+		value = -123456789;
+		word = DataConverter.encodeAsSigned(value);
+		values = new long[256];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = i * 7919 - 1000000;
+		}
+		words = DataConverter.encodeArray(values, 4);
+	}
+
+	@Benchmark
+	public byte[] encodeSigned() {
+		return DataConverter.encodeAsSigned(value);
+	}
+
+	@Benchmark
+	public byte[] encodeUnsigned() {
+		return DataConverter.encodeAsUnsigned(value & 0xFFFFFFFFL);
+	}
+
+	@Benchmark
+	public long decodeSigned() {
+		return DataConverter.decodeAsSigned(word);
+	}
+
+	@Benchmark
+	public long decodeUnsigned() {
+		return DataConverter.decodeAsUnsigned(word);
+	}
+
+	@Benchmark
+	public byte[] encodeArray() {
+		return DataConverter.encodeArray(values, 4);
+	}
+
+	@Benchmark
+	public long[] decodeArray() {
+		return DataConverter.decodeArray(words, 4, true);
+	}
+}
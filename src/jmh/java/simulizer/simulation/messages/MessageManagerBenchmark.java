@@ -0,0 +1,73 @@
+package simulizer.simulation.messages;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulizer.assembler.representation.Register;
+import simulizer.simulation.cpu.user_interaction.BufferIO;
+
+/**
+ * Measures how many messages per second the MessageManager can deliver to
+ * its listeners. Each invocation sends a batch of messages and waits for
+ * them all to be processed, as the CPU does between cycles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageManagerBenchmark {
+	private static final int BATCH = 100;
+
+	@Param({"1", "4"})
+	public int listenerCount;
+
+	private MessageManager manager;
+	private LongAdder received;
+	private Message message;
+
+	@Setup
+	public void setup() {
+		manager = new MessageManager(new BufferIO());
+		received = new LongAdder();
+		for(int i = 0; i < listenerCount; i++) {
+			manager.registerListener(new SimulationListener() {
+				@Override
+				public void processRegisterChangedMessage(RegisterChangedMessage m) {
+					received.increment();
+				}
+			});
+		}
+		message = new RegisterChangedMessage(Register.v0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		manager.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long sendAndWait() {
+		for(int i = 0; i < BATCH; i++) {
+			manager.sendMessage(message);
+		}
+		manager.waitForAll();
+		return received.sum();
+	}
+}
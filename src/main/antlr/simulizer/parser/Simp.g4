@@ -175,6 +175,7 @@ DIRECTIVE_ID
     | '.ascii' | '.asciiz'
     | '.byte'  | '.half' | '.word'   // 8, 16, 32 bits
     | '.space'
+    | '.include'
     | IGNORED_DIRECTIVE_ID
     ;
 
@@ -1,6 +1,10 @@
 package simulizer.annotations;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
@@ -11,7 +15,9 @@ import jdk.nashorn.api.scripting.NashornScriptEngine;
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import jdk.nashorn.internal.runtime.ECMAException;
+import simulizer.assembler.representation.Address;
 import simulizer.assembler.representation.Annotation;
+import simulizer.assembler.representation.Program;
 import simulizer.assembler.representation.Register;
 import simulizer.simulation.cpu.user_interaction.IO;
 import simulizer.simulation.cpu.user_interaction.IOStream;
@@ -28,13 +34,31 @@ import simulizer.utils.UIUtils;
 public class AnnotationExecutor {
 
 	private final NashornScriptEngine engine;
+	private final AnnotationClassFilter filter;
 	private final Bindings globals;
 	/**
 	 * Nashorn globals object. flushed every time eval is called.
 	 * elements are manually promoted to globals (which is persistent).
 	 */
 	private ScriptObjectMirror nhGlobals;
+	/**
+	 * the annotations of the program compiled ahead of time, keyed by the address they are bound to
+	 * (null for the initial annotation). So that annotations inside loops are not compiled every time
+	 * they are met.
+	 */
+	private final Map<Address, CompiledAnnotation> compiled;
+	private final AnnotationProfiler profiler;
+	private boolean overBudget; // whether the last annotation executed took longer than the budget
 
+	private static class CompiledAnnotation {
+		final Annotation annotation;
+		final CompiledScript script;
+
+		CompiledAnnotation(Annotation annotation, CompiledScript script) {
+			this.annotation = annotation;
+			this.script = script;
+		}
+	}
 
 	private class AnnotationClassFilter implements ClassFilter {
 		boolean apiLoaded = false;
@@ -53,8 +77,11 @@ public class AnnotationExecutor {
 	 */
 	public AnnotationExecutor() {
 		NashornScriptEngineFactory factory = new NashornScriptEngineFactory();
-		AnnotationClassFilter filter = new AnnotationClassFilter();
+		filter = new AnnotationClassFilter();
 		engine = (NashornScriptEngine) factory.getScriptEngine(filter);
+		compiled = new HashMap<>();
+		profiler = new AnnotationProfiler();
+		overBudget = false;
 
 		// the context to run in, defines the global and engine scopes
 		ScriptContext context = new SimpleScriptContext();
@@ -68,12 +95,21 @@ public class AnnotationExecutor {
 
 		engine.setContext(context);
 
-		Bindings engineLocals = context.getBindings(ScriptContext.ENGINE_SCOPE);
+		newGlobals();
+	}
+
+	/**
+	 * replace the Nashorn globals with a fresh set and load the API into them
+	 */
+	private void newGlobals() {
+		Bindings engineLocals = new SimpleBindings();
+		engine.getContext().setBindings(engineLocals, ScriptContext.ENGINE_SCOPE);
 
 		try {
 			engine.eval(""); // force the creation of NASHORN_GLOBAL
 			nhGlobals = (ScriptObjectMirror) engineLocals.get(NashornScriptEngine.NASHORN_GLOBAL);
 
+			filter.apiLoaded = false;
 			loadAPI();
 			filter.apiLoaded = true; // from now on restrict access to Java classes
 
@@ -82,6 +118,21 @@ public class AnnotationExecutor {
 		}
 	}
 
+	/**
+	 * reset the executor to the state it was in after it was created, so that it can be used for another
+	 * program without creating another script engine.
+	 *
+	 * The Nashorn globals are replaced rather than cleared because variables declared with var and the
+	 * built in functions overridden by the API (eg print) cannot be removed by clearing them. Loading the API
+	 * again is cheap because the engine keeps the classes it compiled the first time.
+	 */
+	public void reset() {
+		globals.clear();
+		compiled.clear();
+		profiler.clear();
+		newGlobals();
+	}
+
 	private void loadAPI() throws ScriptException {
 		exec(FileUtils.getResourceContent("/annotations/load-api.js"));
 
@@ -111,6 +162,16 @@ public class AnnotationExecutor {
 		globals.put(name, obj);
 	}
 
+	/**
+	 * bind a bridge to a name accessible from JavaScript. The calls made on the bridge (and on the models it
+	 * returns) are timed by the profiler as time spent in the bridges
+	 * @param name the name to bind the bridge to
+	 * @param bridge the bridge to bind
+	 */
+	public void bindBridge(String name, Object bridge) {
+		globals.put(name, new TimedObject(bridge, profiler));
+	}
+
 	/**
 	 * retrieve a global object
 	 * @param name the name the object is bound to
@@ -121,6 +182,74 @@ public class AnnotationExecutor {
 		return tClass.cast(globals.get(name));
 	}
 
+	/**
+	 * compile the annotations of a program ahead of executing them.
+	 * Annotations which fail to compile are left to report their errors when they are executed
+	 * @param program the program whose annotations are to be compiled
+	 */
+	public void compile(Program program) {
+		compiled.clear();
+		for(Map.Entry<Address, Annotation> e : program.annotations.entrySet()) {
+			try {
+				compile(e.getKey(), e.getValue());
+			} catch(ScriptException ignored) {
+			}
+		}
+		if(program.initAnnotation != null) {
+			try {
+				compile(null, program.initAnnotation);
+			} catch(ScriptException ignored) {
+			}
+		}
+	}
+
+	private CompiledScript compile(Address address, Annotation annotation) throws ScriptException {
+		CompiledAnnotation c = compiled.get(address);
+		if(c == null || c.annotation != annotation) {
+			c = new CompiledAnnotation(annotation, engine.compile(annotation.code));
+			compiled.put(address, c);
+		}
+		return c.script;
+	}
+
+	/**
+	 * Execute an annotation bound to an address, using the compiled script if it has already been compiled.
+	 * The execution is timed by the profiler
+	 * @param annotation the annotation to execute
+	 * @param address the address the annotation is bound to (null for the initial annotation)
+	 * @return the result of evaulating the script
+	 * @throws ScriptException
+	 * @throws SecurityException
+	 * @throws AnnotationEarlyReturn
+	 * @throws AssertionError
+	 */
+	public Object exec(Annotation annotation, Address address) throws ScriptException, SecurityException, AnnotationEarlyReturn, AssertionError {
+		CompiledScript script = compile(address, annotation);
+
+		profiler.start();
+		long start = System.nanoTime();
+		try {
+			return run(annotation, script);
+		} finally {
+			overBudget = profiler.record(address, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return the profiler which times the annotations executed with exec(Annotation, Address)
+	 */
+	public AnnotationProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * @return whether the last annotation executed took longer than the budget of the profiler
+	 *         (only reported the first time for each annotation)
+	 */
+	public boolean wasOverBudget() {
+		return overBudget;
+	}
+
 	/**
 	 * Execute the javascript code found inside the annotation
 	 * @param annotation the annotation to execute
@@ -131,6 +260,13 @@ public class AnnotationExecutor {
 	 * @throws AssertionError
 	 */
 	public Object exec(Annotation annotation) throws ScriptException, SecurityException, AnnotationEarlyReturn, AssertionError {
+		return run(annotation, null);
+	}
+
+	/**
+	 * @param script the compiled annotation, or null to evaluate the code of the annotation directly
+	 */
+	private Object run(Annotation annotation, CompiledScript script) throws ScriptException, SecurityException, AnnotationEarlyReturn, AssertionError {
 		@SuppressWarnings("UnusedAssignment") // this is actually necessary
 		Object res = null;
 
@@ -138,7 +274,7 @@ public class AnnotationExecutor {
 		// exceptions thrown from java executed from a script are not wrapped
 
 		try {
-			res = engine.eval(annotation.code);
+			res = script == null ? engine.eval(annotation.code) : script.eval();
 		} catch(ScriptException e) {
 			// exceptions thrown from inside the script are wrapped in a ScriptException
 			if (e.getCause() instanceof ECMAException) {
@@ -175,10 +311,16 @@ public class AnnotationExecutor {
 	}
 
 	/**
-	 * set all variables local to a script become global
+	 * set all variables local to a script become global.
+	 * Only the variables assigned by the script are in the Nashorn globals, so only those are copied
 	 */
 	private void promoteToGlobal() {
-		globals.putAll(nhGlobals);
+		if(nhGlobals.isEmpty()) {
+			return;
+		}
+		for(String name : nhGlobals.getOwnKeys(false)) {
+			globals.put(name, nhGlobals.get(name));
+		}
 		nhGlobals.clear();
 	}
 
@@ -189,8 +331,11 @@ public class AnnotationExecutor {
 		try {
 			io.printString(IOStream.DEBUG, "REPL start (call exit() to finish)\n");
 
-			SimulationBridge sim = (SimulationBridge) globals.get("simulation");
-			if(sim == null || sim.cpu == null) {
+			Object sim = globals.get("simulation");
+			if(sim instanceof TimedObject) {
+				sim = ((TimedObject) sim).target;
+			}
+			if(sim == null || ((SimulationBridge) sim).cpu == null) {
 				io.printString(IOStream.DEBUG, "Simulation not running, REPL running in its own engine\n");
 			} else {
 				io.printString(IOStream.DEBUG, "Simulation running, REPL has the same access as annotations\n");
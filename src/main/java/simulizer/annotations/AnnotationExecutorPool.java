@@ -0,0 +1,88 @@
+package simulizer.annotations;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import simulizer.utils.ThreadUtils;
+
+/**
+ * A pool of annotation executors with the API already loaded.
+ *
+ * Creating an executor (starting a script engine and loading the API) is slow, so the executors are created
+ * in the background as soon as the pool is, and are reset and reused rather than created for each program.
+ */
+public class AnnotationExecutorPool {
+	private final BlockingQueue<AnnotationExecutor> idle;
+	private final ExecutorService warmer;
+	private final AtomicInteger warming;
+
+	/**
+	 * create the pool and start creating the executors in the background
+	 * @param size the maximum number of idle executors to keep
+	 */
+	public AnnotationExecutorPool(int size) {
+		idle = new ArrayBlockingQueue<>(size);
+		warmer = Executors.newSingleThreadExecutor(new ThreadUtils.NamedThreadFactory("Annotation-Executor-Pool"));
+		warming = new AtomicInteger(0);
+
+		for(int i = 0; i < size; i++) {
+			warm();
+		}
+	}
+
+	/**
+	 * create an executor in the background and add it to the pool
+	 */
+	private void warm() {
+		warming.incrementAndGet();
+		warmer.submit(() -> {
+			try {
+				idle.offer(new AnnotationExecutor());
+			} finally {
+				warming.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * take an executor from the pool, waiting for one to be created if they are still being created
+	 * @return an executor in a fresh state
+	 */
+	public AnnotationExecutor take() {
+		AnnotationExecutor ex = idle.poll();
+		try {
+			while(ex == null && warming.get() > 0) {
+				ex = idle.poll(10, TimeUnit.MILLISECONDS);
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if(ex == null) {
+			// the pool is empty, so fill it again for next time
+			ex = new AnnotationExecutor();
+			warm();
+		}
+		return ex;
+	}
+
+	/**
+	 * reset an executor which is no longer in use and return it to the pool
+	 * @param ex the executor to return
+	 */
+	public void release(AnnotationExecutor ex) {
+		ex.reset();
+		idle.offer(ex); // discarded if the pool is full
+	}
+
+	/**
+	 * @return the number of executors ready to be taken
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+}
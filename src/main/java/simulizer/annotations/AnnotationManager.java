@@ -5,6 +5,7 @@ import javax.script.ScriptException;
 import simulizer.simulation.cpu.components.CPU;
 import simulizer.simulation.cpu.user_interaction.IO;
 import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.simulation.data.representation.Word;
 import simulizer.simulation.messages.AnnotationMessage;
 import simulizer.ui.WindowManager;
 import simulizer.ui.windows.HighLevelVisualisation;
@@ -13,11 +14,18 @@ import simulizer.utils.UIUtils;
 /**
  * Holds data regarding the processing of annotations and display of visualisations
  *
+ * Annotations are executed one at a time, in the order they are met, on a dedicated thread (see
+ * AnnotationScheduler). With the simulation.asynchronous-annotations setting, annotations which only read the
+ * registers run against a copy of them and catch up while the simulation carries on.
+ *
  * @author mbway
  */
 public class AnnotationManager {
 	private WindowManager wm;
 	private AnnotationExecutor ex;
+	private final AnnotationExecutorPool pool;
+	private final AnnotationScheduler scheduler;
+	private final PerformanceRegions regions;
 	private static final boolean giveDetailedInfo = true;
 
 	DebugBridge debugBridge;
@@ -29,9 +37,13 @@ public class AnnotationManager {
 	public AnnotationManager(WindowManager wm) {
 		this.wm = wm;
 		ex = null;
+		pool = new AnnotationExecutorPool(2); // start loading the executors at startup
+		scheduler = new AnnotationScheduler();
+		regions = new PerformanceRegions();
 
 		debugBridge = new DebugBridge();
 		simulationBridge = new SimulationBridge();
+		simulationBridge.regions = regions;
 		visualisationBridge = new VisualisationBridge();
 
 		vis = null;
@@ -52,6 +64,11 @@ public class AnnotationManager {
 	public synchronized void onNewProgram(CPU cpu) {
 		// refresh for each new program
 		newExecutor();
+		if(cpu.getProgram() != null)
+			ex.compile(cpu.getProgram());
+		scheduler.onNewProgram(cpu.getProgram(), (boolean) wm.getSettings().get("simulation.asynchronous-annotations"));
+		ex.getProfiler().setBudget((int) wm.getSettings().get("simulation.annotation-time-budget"));
+		regions.clear();
 
 		simulationBridge.cpu = cpu;
 	}
@@ -73,23 +90,45 @@ public class AnnotationManager {
 	/**
 	 * handle the end of the program by disabling some access of the bridges
 	 */
-	public void onEndProgram() {
+	public synchronized void onEndProgram() {
+		scheduler.waitForAll();
+		if(simulationBridge.cpu != null)
+			regions.endAll(PerformanceRegions.Counters.read(simulationBridge.cpu));
 		simulationBridge.cpu = null;
 	}
 
 	/**
-	 * create a new annotation executor (with a fresh state)
+	 * @return a table of how long the annotations of the last program took to execute
 	 */
-	public synchronized void newExecutor() {
-		ex = new AnnotationExecutor();
+	public synchronized String getProfileSummary() {
+		if(ex == null)
+			return "";
+		return ex.getProfiler().getSummary(wm.getCPU().getProgram());
+	}
 
-		ex.bindGlobal("debug", debugBridge);
+	/**
+	 * @return a table of the performance counters of each region marked by the annotations of the last program
+	 */
+	public String getRegionSummary() {
+		return regions.getSummary();
+	}
 
-		ex.bindGlobal("simulation", simulationBridge);
-		ex.bindGlobal("sim", simulationBridge);
+	/**
+	 * switch to an annotation executor with a fresh state, returning the previous executor to the pool
+	 */
+	public synchronized void newExecutor() {
+		if(ex != null) {
+			scheduler.waitForAll();
+			pool.release(ex);
+		}
+		ex = pool.take();
+		ex.bindBridge("debug", debugBridge);
 
-		ex.bindGlobal("visualisation", visualisationBridge);
-		ex.bindGlobal("vis", visualisationBridge);
+		ex.bindBridge("simulation", simulationBridge);
+		ex.bindBridge("sim", simulationBridge);
+
+		ex.bindBridge("visualisation", visualisationBridge);
+		ex.bindBridge("vis", visualisationBridge);
 
 		setupBridges();
 	}
@@ -108,8 +147,19 @@ public class AnnotationManager {
 	 * @param msg the message containing the annotation to run
 	 */
 	public synchronized void processAnnotationMessage(AnnotationMessage msg) {
+		AnnotationExecutor executor = ex;
+		scheduler.submit(msg, registers -> execute(executor, msg, registers));
+	}
+
+	/**
+	 * execute an annotation on the annotation thread
+	 * @param registers the copy of the registers for the annotation to read (null to access the CPU registers)
+	 * @throws AsynchronousAccessException if the annotation cannot run behind the simulation
+	 */
+	private void execute(AnnotationExecutor executor, AnnotationMessage msg, Word[] registers) {
+		simulationBridge.registers = registers;
 		try {
-			ex.exec(msg.annotation);
+			executor.exec(msg.annotation, msg.boundAddress);
 		} catch(AnnotationEarlyReturn ignored) {
 		} catch(AssertionError e) {
 			IO io = wm.getIO();
@@ -117,11 +167,20 @@ public class AnnotationManager {
 			io.printString(IOStream.ERROR, "  From " + getAnnotationLineString(msg) + "\n");
 			io.printString(IOStream.ERROR, "  With the code: \"" + e.getMessage().trim() + "\"\n");
 		} catch (ScriptException e) {
+			if(registers != null && AsynchronousAccessException.causedBy(e))
+				throw new AsynchronousAccessException(e.getMessage()); // the scheduler runs it again synchronously
 			IO io = wm.getIO();
 			io.printString(IOStream.ERROR, "Annotation error: " + e.getMessage() + "\n");
 			io.printString(IOStream.ERROR, "  From " + getAnnotationLineString(msg) + "\n");
 			if(giveDetailedInfo)
 				UIUtils.showExceptionDialog(e);
+		} finally {
+			simulationBridge.registers = null;
+			if(executor.wasOverBudget()) {
+				AnnotationProfiler.Profile p = executor.getProfiler().getProfile(msg.boundAddress);
+				wm.getIO().printString(IOStream.DEBUG, String.format("Slow annotation: %s took %.1f ms to execute\n",
+						getAnnotationLineString(msg), p.getMaxNanos() / 1e6));
+			}
 		}
 	}
 }
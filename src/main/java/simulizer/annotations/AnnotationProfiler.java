@@ -0,0 +1,166 @@
+package simulizer.annotations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Program;
+
+/**
+ * Measures how long each annotation of a program takes to execute, and how much of that time is spent
+ * calling the bridges (eg reading memory or loading a visualisation).
+ *
+ * Annotations are identified by the address they are bound to (null for the initial annotation).
+ */
+public class AnnotationProfiler {
+
+	/**
+	 * the timings of a single annotation
+	 */
+	public static class Profile {
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long bridgeNanos;
+		private boolean warned;
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * @return the total time spent inside calls to the bridges
+		 */
+		public long getBridgeNanos() {
+			return bridgeNanos;
+		}
+	}
+
+	private final Map<Address, Profile> profiles;
+	private long budgetNanos;
+
+	// time spent in bridge calls by the annotation currently executing
+	private int bridgeDepth;
+	private long bridgeNanos;
+
+	public AnnotationProfiler() {
+		profiles = new HashMap<>();
+		budgetNanos = 0;
+		bridgeDepth = 0;
+		bridgeNanos = 0;
+	}
+
+	/**
+	 * @param millis the time a single execution of an annotation is expected to take at most (0 for no limit)
+	 */
+	public synchronized void setBudget(long millis) {
+		budgetNanos = millis * 1000000;
+	}
+
+	/**
+	 * forget all of the timings
+	 */
+	public synchronized void clear() {
+		profiles.clear();
+		bridgeDepth = 0;
+		bridgeNanos = 0;
+	}
+
+	/**
+	 * called when an annotation starts to execute
+	 */
+	synchronized void start() {
+		bridgeDepth = 0;
+		bridgeNanos = 0;
+	}
+
+	/**
+	 * record an execution of an annotation (including executions which threw an exception)
+	 * @param address the address the annotation is bound to
+	 * @param nanos the time taken to execute the annotation
+	 * @return true if the annotation took longer than the budget for the first time
+	 */
+	synchronized boolean record(Address address, long nanos) {
+		Profile p = profiles.get(address);
+		if(p == null) {
+			p = new Profile();
+			profiles.put(address, p);
+		}
+		p.count++;
+		p.totalNanos += nanos;
+		p.maxNanos = Math.max(p.maxNanos, nanos);
+		p.bridgeNanos += bridgeNanos;
+		bridgeNanos = 0;
+
+		if(budgetNanos > 0 && nanos > budgetNanos && !p.warned) {
+			p.warned = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * called at the start of a call from an annotation to a bridge (see TimedObject)
+	 * @return the time the call started, to pass to exitBridge
+	 */
+	synchronized long enterBridge() {
+		return bridgeDepth++ == 0 ? System.nanoTime() : -1;
+	}
+
+	/**
+	 * called at the end of a call from an annotation to a bridge
+	 * @param start the time returned by enterBridge
+	 */
+	synchronized void exitBridge(long start) {
+		bridgeDepth--;
+		if(start != -1) {
+			bridgeNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * @param address the address the annotation is bound to (null for the initial annotation)
+	 * @return the timings of the annotation, or null if it has not been executed
+	 */
+	public synchronized Profile getProfile(Address address) {
+		return profiles.get(address);
+	}
+
+	/**
+	 * a table of the timings of each annotation, slowest (in total) first, suitable for printing after a run
+	 * @param program the program the annotations belong to, to find their line numbers
+	 * @return the summary
+	 */
+	public synchronized String getSummary(Program program) {
+		if(profiles.isEmpty()) {
+			return "";
+		}
+		List<Map.Entry<Address, Profile>> entries = new ArrayList<>(profiles.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue().totalNanos, a.getValue().totalNanos));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("Annotations:\n");
+		sb.append(String.format("  %-8s %10s %12s %12s %12s %8s%n", "line", "count", "total (ms)", "mean (us)", "max (ms)", "bridge"));
+		for(Map.Entry<Address, Profile> e : entries) {
+			Profile p = e.getValue();
+			String line = "init";
+			if(e.getKey() != null && program != null && program.lineNumbers.containsKey(e.getKey())) {
+				line = String.valueOf(program.lineNumbers.get(e.getKey()) + 1);
+			}
+			sb.append(String.format("  %-8s %10d %12.2f %12.1f %12.2f %7.0f%%%n", line, p.count,
+					p.totalNanos / 1e6, p.totalNanos / 1e3 / p.count, p.maxNanos / 1e6,
+					p.totalNanos == 0 ? 0 : 100.0 * p.bridgeNanos / p.totalNanos));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,120 @@
+package simulizer.annotations;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Annotation;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.data.representation.Word;
+import simulizer.simulation.messages.AnnotationMessage;
+import simulizer.utils.ThreadUtils;
+import simulizer.utils.UIUtils;
+
+/**
+ * Runs annotations one at a time, in the order they are met, on a dedicated thread. Normally the simulation
+ * waits for each annotation to finish. When running asynchronously, the simulation only waits for annotations
+ * which control it or read its memory. The others are given the copy of the registers taken when they were
+ * met, and catch up while the simulation carries on.
+ *
+ * Which annotations to wait for is decided from their code, which misses calls made through functions defined
+ * in other annotations. The bridges refuse those calls with an AsynchronousAccessException, and the annotation
+ * is then run again against the state of the simulation (which has moved on) and waited for from then on.
+ */
+class AnnotationScheduler {
+	/**
+	 * calls which control the simulation, write registers or memory, read memory (which the simulation
+	 * carries on writing), or read the performance counters (which carry on counting), so cannot run behind it.
+	 * Registers are set through their globals (eg $t0.set(1)) and memory bindings are updated with binding.update()
+	 */
+	private static final Pattern controlsSimulation = Pattern.compile(
+			"\\b(pause|stop|exit|quit|setSpeed|setRegisterS|setRegisterU|writeMem|writeWords" +
+			"|readMem|readMemInto|readWords|readUnsignedWords|readUnsignedWordsFromMem" +
+			"|getCycles|getInstructionsRetired|getStalls|getFlushes|getSimulatedTime|startRegion|endRegion)\\s*\\(" +
+			"|\\$\\w+\\s*\\.\\s*(set|setS|setU)\\s*\\(" +
+			"|\\.\\s*update\\s*\\(");
+
+	private final ExecutorService annotationThread;
+	private final Set<Address> synchronousAddresses; // annotations which must be run synchronously
+	private boolean asynchronous;
+
+	AnnotationScheduler() {
+		annotationThread = Executors.newSingleThreadExecutor(new ThreadUtils.NamedThreadFactory("Annotations"));
+		synchronousAddresses = ConcurrentHashMap.newKeySet(); // added to from the annotation thread
+		asynchronous = false;
+	}
+
+	/**
+	 * @param code the code of an annotation
+	 * @return whether the simulation has to wait for the annotation to finish
+	 */
+	static boolean controlsSimulation(String code) {
+		return controlsSimulation.matcher(code).find();
+	}
+
+	/**
+	 * find the annotations of a new program which must be run synchronously
+	 * @param program the new program (may be null)
+	 * @param asynchronous whether annotations may run behind the simulation
+	 */
+	synchronized void onNewProgram(Program program, boolean asynchronous) {
+		this.asynchronous = asynchronous;
+		synchronousAddresses.clear();
+		if(program != null) {
+			for(Map.Entry<Address, Annotation> a : program.annotations.entrySet()) {
+				if(controlsSimulation(a.getValue().code)) {
+					synchronousAddresses.add(a.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * queue an annotation to run after the annotations before it, waiting for it to finish unless it can run
+	 * asynchronously
+	 * @param msg the message containing the annotation
+	 * @param task runs the annotation, given the copy of the registers to read (null to access the CPU registers).
+	 *             Throws an AsynchronousAccessException if the annotation cannot run behind the simulation
+	 */
+	synchronized void submit(AnnotationMessage msg, Consumer<Word[]> task) {
+		if(asynchronous && msg.registers != null && !synchronousAddresses.contains(msg.boundAddress)) {
+			annotationThread.submit(() -> {
+				try {
+					task.accept(msg.registers);
+				} catch(AsynchronousAccessException e) {
+					synchronousAddresses.add(msg.boundAddress);
+					task.accept(null);
+				}
+			});
+		} else {
+			Future<?> f = annotationThread.submit(() -> task.accept(null));
+			try {
+				f.get();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch(ExecutionException e) {
+				UIUtils.showExceptionDialog(e);
+			}
+		}
+	}
+
+	/**
+	 * wait for the annotations which are running asynchronously to catch up
+	 */
+	void waitForAll() {
+		try {
+			annotationThread.submit(() -> {}).get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException e) {
+			UIUtils.showExceptionDialog(e);
+		}
+	}
+}
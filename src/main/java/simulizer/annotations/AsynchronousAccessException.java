@@ -0,0 +1,25 @@
+package simulizer.annotations;
+
+/**
+ * An exception thrown when an annotation running behind the simulation tries to control it or read state which
+ * has moved on since the annotation was met (see AnnotationScheduler)
+ */
+public class AsynchronousAccessException extends IllegalStateException {
+	private static final long serialVersionUID = -3150958420936532487L;
+
+	public AsynchronousAccessException(String message) {
+		super(message);
+	}
+
+	/**
+	 * @param e an exception thrown while executing an annotation
+	 * @return whether the exception was caused by an asynchronous access
+	 */
+	static boolean causedBy(Throwable e) {
+		for(Throwable t = e; t != null; t = t.getCause()) {
+			if(t instanceof AsynchronousAccessException)
+				return true;
+		}
+		return false;
+	}
+}
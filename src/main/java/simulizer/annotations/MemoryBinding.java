@@ -0,0 +1,54 @@
+package simulizer.annotations;
+
+import simulizer.highlevel.models.ListModel;
+import simulizer.simulation.exceptions.HeapException;
+import simulizer.simulation.exceptions.MemoryException;
+import simulizer.simulation.exceptions.StackException;
+
+/**
+ * Keeps a list model up to date with an array in memory (see SimulationBridge.bindList).
+ * The whole array is read in a single access, but only the elements which have changed are copied into
+ * the model, and the model is only redrawn if something has changed.
+ */
+@SuppressWarnings("unused")
+public class MemoryBinding {
+	private final SimulationBridge sim;
+	private final ListModel model;
+	private final int size;
+	private final boolean signed;
+	private int address;
+	private int count;
+
+	MemoryBinding(SimulationBridge sim, ListModel model, int address, int count, int size, boolean signed) {
+		this.sim = sim;
+		this.model = model;
+		this.address = address;
+		this.count = count;
+		this.size = size;
+		this.signed = signed;
+	}
+
+	/**
+	 * copy the elements which have changed into the model
+	 * @return whether any elements have changed
+	 */
+	public boolean update() throws MemoryException, HeapException, StackException {
+		return model.update(sim.readMem(address, count, size, signed));
+	}
+
+	/**
+	 * move the binding to another array (eg after the array grows), the model is updated the next time update() is called
+	 * @param address the address of the first element of the array
+	 * @param count the number of elements in the array
+	 */
+	public void setRange(int address, int count) {
+		if(count < 0)
+			throw new IllegalArgumentException("The number of elements cannot be negative");
+		this.address = address;
+		this.count = count;
+	}
+
+	public ListModel getModel() {
+		return model;
+	}
+}
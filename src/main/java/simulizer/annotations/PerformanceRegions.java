@@ -0,0 +1,166 @@
+package simulizer.annotations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import simulizer.simulation.cpu.components.CPU;
+
+/**
+ * Accumulates the performance counters of the CPU over named regions of a program, which annotations
+ * mark with startRegion(name) and endRegion(name).
+ *
+ * A region can be entered many times (eg the body of a loop) and the counters of each visit are added
+ * together. Different regions may overlap or nest, but a region cannot be started again before it ends.
+ */
+public class PerformanceRegions {
+
+	/**
+	 * the values of the counters at a point in the program
+	 */
+	public static class Counters {
+		public final long cycles;
+		public final long instructions;
+		public final long stalls;
+		public final long flushes;
+
+		public Counters(long cycles, long instructions, long stalls, long flushes) {
+			this.cycles = cycles;
+			this.instructions = instructions;
+			this.stalls = stalls;
+			this.flushes = flushes;
+		}
+
+		/**
+		 * @param cpu the CPU to read the counters of
+		 * @return the current values of the counters
+		 */
+		public static Counters read(CPU cpu) {
+			return new Counters(cpu.getCycles(), cpu.getInstructionsRetired(), cpu.getPipelineStalls(), cpu.getPipelineFlushes());
+		}
+	}
+
+	/**
+	 * the counters accumulated over every visit to a region
+	 */
+	public static class Region {
+		private long count;
+		private long cycles;
+		private long instructions;
+		private long stalls;
+		private long flushes;
+
+		/**
+		 * @return the number of times the region was ended
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		public long getCycles() {
+			return cycles;
+		}
+
+		public long getInstructions() {
+			return instructions;
+		}
+
+		public long getStalls() {
+			return stalls;
+		}
+
+		public long getFlushes() {
+			return flushes;
+		}
+
+		/**
+		 * @return the average number of cycles per instruction, 0 if no instructions were retired
+		 */
+		public double getCPI() {
+			return instructions == 0 ? 0 : (double) cycles / instructions;
+		}
+	}
+
+	private final Map<String, Region> regions; // in the order they were first started
+	private final Map<String, Counters> open; // the counters when each unfinished region was started
+
+	public PerformanceRegions() {
+		regions = new LinkedHashMap<>();
+		open = new HashMap<>();
+	}
+
+	/**
+	 * forget all of the regions
+	 */
+	public synchronized void clear() {
+		regions.clear();
+		open.clear();
+	}
+
+	/**
+	 * @param name the name of the region
+	 * @param now the current values of the counters
+	 */
+	public synchronized void start(String name, Counters now) {
+		if(open.containsKey(name))
+			throw new IllegalStateException("The region \"" + name + "\" has already been started");
+		if(!regions.containsKey(name))
+			regions.put(name, new Region());
+		open.put(name, now);
+	}
+
+	/**
+	 * @param name the name of the region
+	 * @param now the current values of the counters
+	 */
+	public synchronized void end(String name, Counters now) {
+		Counters start = open.remove(name);
+		if(start == null)
+			throw new IllegalStateException("The region \"" + name + "\" has not been started");
+
+		Region r = regions.get(name);
+		r.count++;
+		r.cycles += now.cycles - start.cycles;
+		r.instructions += now.instructions - start.instructions;
+		r.stalls += now.stalls - start.stalls;
+		r.flushes += now.flushes - start.flushes;
+	}
+
+	/**
+	 * end every region which has been started but not ended, eg when the program exits inside a region
+	 * @param now the current values of the counters
+	 */
+	public synchronized void endAll(Counters now) {
+		for(String name : new ArrayList<>(open.keySet())) {
+			end(name, now);
+		}
+	}
+
+	/**
+	 * @param name the name of the region
+	 * @return the accumulated counters of the region, or null if it has not been started
+	 */
+	public synchronized Region getRegion(String name) {
+		return regions.get(name);
+	}
+
+	/**
+	 * a table of the counters of each region, suitable for printing after a run
+	 * @return the summary
+	 */
+	public synchronized String getSummary() {
+		if(regions.isEmpty()) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("Regions:\n");
+		sb.append(String.format("  %-16s %8s %12s %12s %8s %10s %10s%n", "name", "count", "cycles", "instructions", "CPI", "stalls", "flushes"));
+		for(Map.Entry<String, Region> e : regions.entrySet()) {
+			Region r = e.getValue();
+			sb.append(String.format("  %-16s %8d %12d %12d %8.3f %10d %10d%n", e.getKey(), r.count,
+					r.cycles, r.instructions, r.getCPI(), r.stalls, r.flushes));
+		}
+		return sb.toString();
+	}
+}
@@ -1,8 +1,9 @@
 package simulizer.annotations;
 
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import simulizer.assembler.representation.Register;
+import simulizer.highlevel.models.ListModel;
 import simulizer.simulation.cpu.components.CPU;
-import simulizer.simulation.cpu.components.MainMemory;
 import simulizer.simulation.cpu.user_interaction.IO;
 import simulizer.simulation.data.representation.DataConverter;
 import simulizer.simulation.data.representation.Word;
@@ -24,9 +25,15 @@ public class SimulationBridge {
 	// package-visible Attributes not visible from JavaScript
 	// set package-visible attributes using BridgeFactory
 	CPU cpu = null;
+	Word[] registers = null; // copy of the registers for an annotation running asynchronously
+	PerformanceRegions regions = new PerformanceRegions(); // the counters of the regions of the program
 
-	public void pause() { cpu.pause(); }
+	public void pause() {
+		checkControl();
+		cpu.pause();
+	}
 	public void stop() {
+		checkControl();
 		cpu.stopRunning();
 	}
 
@@ -34,15 +41,100 @@ public class SimulationBridge {
 	 * Technically setting the frequency rather than 'speed'
 	 */
 	public void setSpeed(double freq) {
+		checkControl();
 		cpu.setCycleFreq(freq);
 	}
 
+	/**
+	 * an annotation running behind the simulation would control it at the wrong point
+	 */
+	private void checkControl() {
+		if(registers != null)
+			throw new AsynchronousAccessException("Annotations running asynchronously cannot control the simulation");
+	}
+
+	/**
+	 * @return the CPU, to read the performance counters from
+	 */
+	private CPU getCPU() {
+		if(cpu == null)
+			throw new IllegalStateException();
+		if(registers != null) // the counters have moved on since the annotation was met
+			throw new AsynchronousAccessException("Annotations running asynchronously cannot read the performance counters");
+		return cpu;
+	}
+
+	/**
+	 * @return the number of cycles since the program started, including memory penalties
+	 */
+	public long getCycles() {
+		return getCPU().getCycles();
+	}
+
+	/**
+	 * @return the number of instructions completed since the program started
+	 */
+	public long getInstructionsRetired() {
+		return getCPU().getInstructionsRetired();
+	}
+
+	/**
+	 * @return the number of cycles the pipeline has stalled since the program started
+	 */
+	public long getStalls() {
+		return getCPU().getPipelineStalls();
+	}
+
+	/**
+	 * @return the number of times the pipeline has been flushed since the program started
+	 */
+	public long getFlushes() {
+		return getCPU().getPipelineFlushes();
+	}
+
+	/**
+	 * the time the program would have taken so far on a real processor, which is independent of the speed
+	 * the simulation is running at
+	 * @param frequency the clock frequency of the processor in Hz
+	 * @return the time in seconds
+	 */
+	public double getSimulatedTime(double frequency) {
+		if(frequency <= 0)
+			throw new IllegalArgumentException("The frequency must be positive");
+		return getCPU().getCycles() / frequency;
+	}
+
+	/**
+	 * start counting towards a named region, the counters are accumulated each time the region is visited
+	 * and a summary of every region is printed when the program ends
+	 * @param name the name of the region
+	 */
+	public void startRegion(String name) {
+		regions.start(name, PerformanceRegions.Counters.read(getCPU()));
+	}
+
+	/**
+	 * stop counting towards a named region
+	 * @param name the name of the region
+	 */
+	public void endRegion(String name) {
+		regions.end(name, PerformanceRegions.Counters.read(getCPU()));
+	}
+
 	public Word[] getRegisters() {
+		if(registers != null)
+			return registers;
 		if(cpu == null)
 			throw new IllegalStateException();
 		return cpu.getRegisters();
 	}
 
+	private Word[] getWritableRegisters() {
+		if(registers != null)
+			throw new AsynchronousAccessException("Annotations running asynchronously cannot set registers");
+		return getRegisters();
+	}
+
 	public long getRegisterU(Register r) {
 		Word[] regs = getRegisters();
 		return DataConverter.decodeAsUnsigned(regs[r.getID()].getWord());
@@ -54,22 +146,126 @@ public class SimulationBridge {
 
 	public void setRegisterU(Register r, long val) {
 		Word w = new Word(DataConverter.encodeAsUnsigned(val));
-		getRegisters()[r.getID()] = w;
+		getWritableRegisters()[r.getID()] = w;
 	}
 	public void setRegisterS(Register r, long val) {
 		Word w = new Word(DataConverter.encodeAsSigned(val));
-		getRegisters()[r.getID()] = w;
+		getWritableRegisters()[r.getID()] = w;
 	}
 
 	public List<Long> readUnsignedWordsFromMem(int firstAddress, int lastAddress) throws MemoryException, HeapException, StackException {
-		MainMemory mem = cpu.getMainMemory();
-		List<Long> words = new ArrayList<>();
-
 		assert (lastAddress > firstAddress) && ((lastAddress - firstAddress) % 4 == 0);
-		for(int i = firstAddress; i <= lastAddress; i+=4) {
-			words.add(DataConverter.decodeAsUnsigned(mem.readFromMem(i, 4)));
+		long[] values = readMem(firstAddress, (lastAddress - firstAddress) / 4 + 1, 4, false);
+
+		List<Long> words = new ArrayList<>(values.length);
+		for(long v : values) {
+			words.add(v);
+		}
+		return words;
+	}
+
+	/**
+	 * read consecutive integers from memory in a single access
+	 * @param address the address of the first integer
+	 * @param count the number of integers to read
+	 * @param size the size of each integer in bytes (1, 2 or 4)
+	 * @param signed whether to interpret the integers as signed
+	 * @return the integers
+	 */
+	public long[] readMem(int address, int count, int size, boolean signed) throws MemoryException, HeapException, StackException {
+		if(registers != null)
+			throw new AsynchronousAccessException("Annotations running asynchronously cannot read memory");
+		checkRange(count, size);
+		byte[] data = cpu.getMainMemory().inspectMem(address, count * size);
+		return DataConverter.decodeArray(data, size, signed);
+	}
+
+	/**
+	 * read consecutive integers from memory into an existing JavaScript array (eg an Int32Array),
+	 * reading as many integers as the array has elements
+	 * @param address the address of the first integer
+	 * @param array the JavaScript array to fill
+	 * @param size the size of each integer in bytes (1, 2 or 4)
+	 * @param signed whether to interpret the integers as signed
+	 */
+	public void readMemInto(int address, ScriptObjectMirror array, int size, boolean signed) throws MemoryException, HeapException, StackException {
+		int count = ((Number) array.getMember("length")).intValue();
+		long[] values = readMem(address, count, size, signed);
+		for(int i = 0; i < count; i++) {
+			array.setSlot(i, (double) values[i]);
+		}
+	}
+
+	/**
+	 * @return count signed words starting at address
+	 */
+	public int[] readWords(int address, int count) throws MemoryException, HeapException, StackException {
+		long[] values = readMem(address, count, 4, true);
+		int[] words = new int[values.length];
+		for(int i = 0; i < values.length; i++) {
+			words[i] = (int) values[i];
 		}
 		return words;
 	}
 
+	/**
+	 * @return count unsigned words starting at address
+	 */
+	public long[] readUnsignedWords(int address, int count) throws MemoryException, HeapException, StackException {
+		return readMem(address, count, 4, false);
+	}
+
+	/**
+	 * write consecutive integers to memory in a single access
+	 * @param address the address to write the first integer to
+	 * @param values the integers to write (truncated if they do not fit)
+	 * @param size the size of each integer in bytes (1, 2 or 4)
+	 */
+	public void writeMem(int address, long[] values, int size) throws MemoryException, HeapException, StackException {
+		if(registers != null)
+			throw new AsynchronousAccessException("Annotations running asynchronously cannot write to memory");
+		checkRange(values.length, size);
+		cpu.getMainMemory().modifyMem(address, DataConverter.encodeArray(values, size));
+	}
+
+	/**
+	 * write consecutive words to memory in a single access
+	 */
+	public void writeWords(int address, long[] values) throws MemoryException, HeapException, StackException {
+		writeMem(address, values, 4);
+	}
+
+	/**
+	 * bind a list model to an array of words in memory, call update() on the binding to copy
+	 * the elements which have changed into the model
+	 * @param model the model to keep up to date
+	 * @param address the address of the first element of the array
+	 * @param count the number of elements in the array
+	 * @return the binding
+	 */
+	public MemoryBinding bindList(ListModel model, int address, int count) {
+		return bindList(model, address, count, 4, true);
+	}
+
+	/**
+	 * bind a list model to an array in memory, call update() on the binding to copy
+	 * the elements which have changed into the model
+	 * @param model the model to keep up to date
+	 * @param address the address of the first element of the array
+	 * @param count the number of elements in the array
+	 * @param size the size of each element in bytes (1, 2 or 4)
+	 * @param signed whether to interpret the elements as signed
+	 * @return the binding
+	 */
+	public MemoryBinding bindList(ListModel model, int address, int count, int size, boolean signed) {
+		checkRange(count, size);
+		return new MemoryBinding(this, model, address, count, size, signed);
+	}
+
+	private static void checkRange(int count, int size) {
+		if(size != 1 && size != 2 && size != 4)
+			throw new IllegalArgumentException("The size of each element must be 1, 2 or 4 bytes");
+		if(count < 0)
+			throw new IllegalArgumentException("The number of elements cannot be negative");
+	}
 }
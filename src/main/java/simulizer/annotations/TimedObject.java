@@ -0,0 +1,112 @@
+package simulizer.annotations;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.nashorn.api.scripting.AbstractJSObject;
+import jdk.nashorn.api.scripting.ScriptUtils;
+import simulizer.highlevel.models.DataStructureModel;
+
+/**
+ * Exposes a Java object (a bridge) to annotations, timing every call made on it as time spent in the bridges
+ * (see AnnotationProfiler). The models and memory bindings returned by the calls are exposed in the same way,
+ * so that the time spent updating a visualisation is counted too.
+ */
+final class TimedObject extends AbstractJSObject {
+	// the public methods of each class exposed, by name
+	private static final Map<Class<?>, Map<String, List<Method>>> methods = new ConcurrentHashMap<>();
+
+	final Object target;
+	private final AnnotationProfiler profiler;
+
+	TimedObject(Object target, AnnotationProfiler profiler) {
+		this.target = target;
+		this.profiler = profiler;
+	}
+
+	/**
+	 * a method of the object, called from an annotation
+	 */
+	private class TimedMethod extends AbstractJSObject {
+		private final List<Method> overloads;
+
+		TimedMethod(List<Method> overloads) {
+			this.overloads = overloads;
+		}
+
+		@Override
+		public boolean isFunction() {
+			return true;
+		}
+
+		@Override
+		public Object call(Object thiz, Object... args) {
+			long start = profiler.enterBridge();
+			try {
+				for(Method m : overloads) {
+					if(m.getParameterCount() == args.length) {
+						return wrap(m.invoke(target, convert(m.getParameterTypes(), args)));
+					}
+				}
+				throw new IllegalArgumentException("No version of " + overloads.get(0).getName() + " takes " + args.length + " arguments");
+			} catch(InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if(cause instanceof Error)
+					throw (Error) cause;
+				throw new RuntimeException(cause);
+			} catch(IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				profiler.exitBridge(start);
+			}
+		}
+	}
+
+	private static Object[] convert(Class<?>[] types, Object[] args) {
+		Object[] converted = new Object[args.length];
+		for(int i = 0; i < args.length; i++) {
+			Object arg = args[i] instanceof TimedObject ? ((TimedObject) args[i]).target : args[i];
+			converted[i] = arg == null || types[i].isInstance(arg) ? arg : ScriptUtils.convert(arg, types[i]);
+		}
+		return converted;
+	}
+
+	private Object wrap(Object result) {
+		if(result instanceof DataStructureModel || result instanceof MemoryBinding)
+			return new TimedObject(result, profiler);
+		return result;
+	}
+
+	private static Map<String, List<Method>> methodsOf(Class<?> c) {
+		return methods.computeIfAbsent(c, k -> {
+			Map<String, List<Method>> byName = new HashMap<>();
+			for(Method m : k.getMethods()) {
+				byName.computeIfAbsent(m.getName(), n -> new ArrayList<>()).add(m);
+			}
+			return byName;
+		});
+	}
+
+	@Override
+	public Object getMember(String name) {
+		List<Method> overloads = methodsOf(target.getClass()).get(name);
+		return overloads == null ? null : new TimedMethod(overloads);
+	}
+
+	@Override
+	public boolean hasMember(String name) {
+		return methodsOf(target.getClass()).containsKey(name);
+	}
+
+	@Override
+	public String toString() {
+		return target.toString();
+	}
+}
@@ -1,14 +1,12 @@
 package simulizer.assembler;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import simulizer.assembler.extractor.ProgramExtractor;
@@ -17,7 +15,6 @@ import simulizer.assembler.extractor.problem.ProblemCountLogger;
 import simulizer.assembler.extractor.problem.ProblemLogger;
 import simulizer.assembler.extractor.problem.StoreProblemLogger;
 import simulizer.assembler.representation.*;
-import simulizer.parser.SimpLexer;
 import simulizer.parser.SimpParser;
 import simulizer.simulation.data.representation.DataConverter;
 import simulizer.simulation.data.representation.Word;
@@ -40,15 +37,8 @@ public class Assembler {
 
         input += '\n'; // to parse correctly, must end with a newline
 
-        SimpLexer lexer = new SimpLexer(new ANTLRInputStream(input));
-        SimpParser parser = new SimpParser(new CommonTokenStream(lexer));
-
-        // prevent outputting to the console
-        lexer.removeErrorListeners();
-        parser.removeErrorListeners();
-
         // try to parse a program from the input
-        SimpParser.ProgramContext tree = parser.program();
+        SimpParser.ProgramContext tree = ParserPool.parse(input);
 
         ProgramExtractor extractor = new ProgramExtractor(log);
         ParseTreeWalker.DEFAULT.walk(extractor, tree);
@@ -63,18 +53,54 @@ public class Assembler {
      * @return the assembled program (or null if errors are encountered)
      */
     public static Program assemble(String input, ProblemLogger log) {
+        return assemble(input, log, null);
+    }
+
+    /**
+     * Assemble a program which may include other files, and catch any problem output
+     * @param input the program string to assemble
+     * @param log the logger to send the error messages (may be null)
+     * @param linker assembles and links the files included by the program
+     *               (may be null, in which case including files is a problem)
+     * @return the assembled program (or null if errors are encountered)
+     */
+    public static Program assemble(String input, ProblemLogger log, Linker linker) {
 
         input += '\n'; // to parse correctly, must end with a newline
 
-        SimpLexer lexer = new SimpLexer(new ANTLRInputStream(input));
-        SimpParser parser = new SimpParser(new CommonTokenStream(lexer));
+        if(ParallelAssembler.worthSplitting(input)) {
+            Program p = ParallelAssembler.assemble(input);
+            if(p != null) {
+                return p;
+            }
+            // the program has problems (or could not be split cleanly), which
+            // are found and reported by assembling the program as a whole
+        }
 
-        // prevent outputting to the console
-        lexer.removeErrorListeners();
-        parser.removeErrorListeners();
+        return assembleSequentially(input, log, linker);
+    }
 
+    /**
+     * Assemble a program in a single pass over the whole parse tree
+     * @param input the program string to assemble, ending with a newline
+     * @param log the logger to send the error messages (may be null)
+     * @return the assembled program (or null if errors are encountered)
+     */
+    static Program assembleSequentially(String input, ProblemLogger log) {
+        return assembleSequentially(input, log, null);
+    }
+
+    /**
+     * Assemble a program in a single pass over the whole parse tree, then
+     * link it with any files it includes
+     * @param input the program string to assemble, ending with a newline
+     * @param log the logger to send the error messages (may be null)
+     * @param linker assembles and links the files included by the program (may be null)
+     * @return the assembled program (or null if errors are encountered)
+     */
+    static Program assembleSequentially(String input, ProblemLogger log, Linker linker) {
         // try to parse a program from the input
-        SimpParser.ProgramContext tree = parser.program();
+        SimpParser.ProgramContext tree = ParserPool.parse(input);
 
         ProblemCountLogger counter = new ProblemCountLogger(log);
         ProgramExtractor extractor = new ProgramExtractor(counter);
@@ -84,13 +110,48 @@ public class Assembler {
             return null;
         }
 
+        if(!extractor.includes.isEmpty()) {
+            if(linker == null) {
+                for(Map.Entry<String, Integer> e : extractor.includes.entrySet()) {
+                    counter.logProblem("cannot include \"" + e.getKey() + "\": " +
+                                       "files can only be included by a program which is saved to a file", e.getValue() + 1);
+                }
+                return null;
+            }
+            Program p = linker.link(extractor, input.hashCode(), counter);
+            return counter.problemCount == 0 ? p : null;
+        }
+
+        return buildProgram(extractor, input.hashCode());
+    }
+
+    /**
+     * Perform the second stage of assembling a program: laying out the
+     * segments extracted from a program which contains no problems
+     * @param extractor the extractor which has walked the whole program
+     * @param sourceHash the hash of the source code of the program
+     * @return the assembled program
+     */
+    static Program buildProgram(ProgramExtractor extractor, int sourceHash) {
+        return buildProgram(extractor, dataSegmentBytes(extractor.dataSegment), sourceHash);
+    }
+
+    /**
+     * Perform the second stage of assembling a program, with the initial
+     * contents of the data segment already calculated
+     * @param extractor the extractor which has walked the whole program
+     * @param dataSegment the initial bytes of the variables of the data segment
+     * @param sourceHash the hash of the source code of the program
+     * @return the assembled program
+     */
+    static Program buildProgram(ProgramExtractor extractor, byte[] dataSegment, int sourceHash) {
         Map<Integer, List<String>> reverseTextLabels = reverseMapping(extractor.textSegmentLabels);
         Map<Integer, List<String>> reverseDataLabels = reverseMapping(extractor.dataSegmentLabels);
 
         Program p = new Program();
 
 
-        p.sourceHash = input.hashCode();
+        p.sourceHash = sourceHash;
 
         Address address = new Address(0x00400000); // text segment offset
 
@@ -124,8 +185,6 @@ public class Assembler {
         address = new Address(0x10010000); // (static) data segment skip over the 64KB .extern segment
         p.dataSegmentStart = address;
 
-        List<Byte> tmpDataSegment = new ArrayList<>();
-
         for(int i = 0; i < extractor.dataSegment.size(); i++) {
             Variable v = extractor.dataSegment.get(i);
 
@@ -137,13 +196,6 @@ public class Assembler {
 
             p.dataSegmentVariables.put(address, v);
 
-            byte[] data = variableInitialBytes(v);
-            assert data.length == v.getSize();
-
-            for(byte b : data) {
-                tmpDataSegment.add(b);
-            }
-
             // Antlr line numbers start from 1
             // the convention in simulizer is to start from 0
             p.lineNumbers.put(address, v.getLineNumber());
@@ -151,10 +203,11 @@ public class Assembler {
             address = new Address(address.getValue() + v.getSize());
         }
 
-        p.dataSegment = new byte[tmpDataSegment.size()];
-        for(int i = 0; i < p.dataSegment.length; i++) {
-            p.dataSegment[i] = tmpDataSegment.get(i);
-        }
+        p.dataSegmentSize = address.getValue() - p.dataSegmentStart.getValue();
+        assert dataSegment.length <= p.dataSegmentSize;
+        p.dataSegment = dataSegment;
+
+        p.textImage = MachineCode.encode(p);
 
         p.dynamicSegmentStart = new Address(0x10040000); // start of the dynamic data segment
 
@@ -182,34 +235,73 @@ public class Assembler {
         return rev;
     }
 
-    private static byte[] variableInitialBytes(Variable v) {
-        if(!v.getInitialValue().isPresent()) {
-            return new byte[v.getSize()];
+    /**
+     * the total size of the static data segment
+     * @param variables the variables of the data segment
+     * @return the size of the variables in bytes
+     */
+    static int dataSegmentSize(List<Variable> variables) {
+        int size = 0;
+        for(Variable v : variables) {
+            size += v.getSize();
         }
-        switch(v.getType()) {
-            case Byte: {
-                int val = v.getInitialValue().get().asIntegerOp().value;
-                return new byte[]{(byte) val};
-            }
-            case Half: {
-                int val = v.getInitialValue().get().asIntegerOp().value;
-                return new byte[]{
-                    (byte)((val >> 8) & 0xFF),
-                    (byte)(val & 0xFF)
-                };
+        return size;
+    }
+
+    /**
+     * calculate the initial contents of the static data segment. Only the
+     * variables up to the last one with an initial value are stored, the rest
+     * of the data segment (eg a trailing .space buffer) is initially zero.
+     * @param variables the variables of the data segment
+     * @return the initial bytes of the data segment
+     */
+    static byte[] dataSegmentBytes(List<Variable> variables) {
+        int size = 0;
+        int initialisedSize = 0;
+        for(Variable v : variables) {
+            size += v.getSize();
+            if(hasInitialBytes(v)) {
+                initialisedSize = size;
             }
-            case Word: {
-                int val = v.getInitialValue().get().asIntegerOp().value;
-                return ByteBuffer.allocate(4).putInt(val).array();
+        }
+
+        ByteBuffer dataSegment = ByteBuffer.wrap(new byte[initialisedSize]); // big endian
+        for(Variable v : variables) {
+            if(!dataSegment.hasRemaining()) {
+                break;
             }
+            int start = dataSegment.position();
+            putInitialBytes(v, dataSegment);
+            assert dataSegment.position() == start + v.getSize();
+        }
+        return dataSegment.array();
+    }
+
+    private static boolean hasInitialBytes(Variable v) {
+        return v.getInitialValue().isPresent() && v.getType() != Variable.Type.Space;
+    }
+
+    private static void putInitialBytes(Variable v, ByteBuffer dataSegment) {
+        if(!hasInitialBytes(v)) {
+            // already zero
+            dataSegment.position(dataSegment.position() + v.getSize());
+            return;
+        }
+        switch(v.getType()) {
+            case Byte:
+                dataSegment.put((byte) v.getInitialValue().get().asIntegerOp().value);
+                break;
+            case Half:
+                dataSegment.putShort((short) v.getInitialValue().get().asIntegerOp().value);
+                break;
+            case Word:
+                dataSegment.putInt(v.getInitialValue().get().asIntegerOp().value);
+                break;
             case ASCII:
-            case ASCIIZ: {
+            case ASCIIZ:
                 // null terminator was added earlier so these are equivalent
-                String val = v.getInitialValue().get().asStringOp().value;
-                return val.getBytes(Charset.forName("US-ASCII"));
-            }
-            case Space:
-                return new byte[v.getSize()];
+                dataSegment.put(v.getInitialValue().get().asStringOp().value.getBytes(StandardCharsets.US_ASCII));
+                break;
             default:
                 throw new IllegalArgumentException();
         }
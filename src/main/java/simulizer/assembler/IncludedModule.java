@@ -0,0 +1,82 @@
+package simulizer.assembler;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import simulizer.assembler.extractor.ProgramExtractor;
+import simulizer.assembler.extractor.problem.ProblemCountLogger;
+import simulizer.assembler.extractor.problem.ProblemLogger;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.operand.Operand;
+import simulizer.parser.SimpParser;
+
+/**
+ * A file included by a program, assembled on its own so that it can be
+ * cached and linked into any number of programs.
+ *
+ * Operands refer to labels by name, so a module is relocatable as extracted:
+ * linking only has to move the indices of its labels and annotations. The
+ * labels which the module uses but does not define must be defined by the
+ * program or another module it is linked with.
+ *
+ * Modules are shared between the programs they are linked into, so must not
+ * be modified.
+ */
+final class IncludedModule {
+
+    /**
+     * the segments, labels, annotations and includes of the module
+     */
+    final ProgramExtractor extractor;
+    /**
+     * the initial bytes of the variables of the module
+     */
+    final byte[] dataSegment;
+    final int dataSize;
+    /**
+     * labels used by the module which it does not define
+     */
+    final Set<String> externalLabels;
+
+    private IncludedModule(ProgramExtractor extractor) {
+        this.extractor = extractor;
+        dataSegment = Assembler.dataSegmentBytes(extractor.dataSegment);
+        dataSize = Assembler.dataSegmentSize(extractor.dataSegment);
+
+        Set<String> external = new LinkedHashSet<>();
+        for(Statement s : extractor.textSegment) {
+            for(Operand op : s.getOperandList()) {
+                if(op.getType() == Operand.Type.Address && op.asAddressOp().labelName.isPresent()) {
+                    String label = op.asAddressOp().labelName.get();
+                    if(!extractor.textSegmentLabels.containsKey(label) && !extractor.dataSegmentLabels.containsKey(label)) {
+                        external.add(label);
+                    }
+                }
+            }
+        }
+        externalLabels = Collections.unmodifiableSet(external);
+    }
+
+    /**
+     * assemble an included file. Unlike a program, a module need not have a main label
+     * @param source the contents of the file
+     * @param log the logger to send the error messages (may be null)
+     * @return the module (or null if errors are encountered)
+     */
+    static IncludedModule assemble(String source, ProblemLogger log) {
+        SimpParser.ProgramContext tree = ParserPool.parse(source + '\n');
+
+        ProblemCountLogger counter = new ProblemCountLogger(log);
+        ProgramExtractor extractor = new ProgramExtractor(counter);
+        extractor.requireMain = false;
+        ParseTreeWalker.DEFAULT.walk(extractor, tree);
+
+        if(counter.problemCount != 0) {
+            return null;
+        }
+        return new IncludedModule(extractor);
+    }
+}
@@ -0,0 +1,341 @@
+package simulizer.assembler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import simulizer.assembler.extractor.ProgramExtractor;
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.parser.SimpParser;
+
+/**
+ * Checks a program for problems repeatedly as it is edited, only lexing and
+ * parsing the lines which have changed since the last check.
+ *
+ * Every token of the Simp grammar is contained within a single line, so each
+ * line can be parsed on its own. The parse trees of the lines from the previous
+ * check are kept, and the lines which are unchanged at the start and end of the
+ * program are reused (with their token positions moved if lines were inserted
+ * or removed above them). Extracting the program from the parse trees depends
+ * on the segment and the labels defined so far, so the extractor is run over
+ * the trees of every line, which is cheap compared to parsing. The label maps
+ * it builds are used to check the label definitions across the whole program.
+ *
+ * The program can either be given in full, in which case it is compared with
+ * the previous version line by line, or edited in place using the insertions
+ * and removals reported by the editor so the whole document never needs to
+ * be copied. Edited lines are only parsed once the program is next checked.
+ *
+ * An instance should be used to check successive versions of the same document.
+ */
+public class IncrementalAssembler {
+
+    /**
+     * the parse tree of a single line and where it currently sits in the program
+     */
+    private static class ParsedLine {
+        final String text;
+        SimpParser.ProgramContext tree; // null until the line is parsed
+        List<Token> tokens;
+        int lineNum;  // 1-based, as with Antlr
+        int offset;   // index of the first character of the line in the program
+
+        ParsedLine(String text) {
+            this.text = text;
+            this.tree = null;
+            this.tokens = null;
+            this.lineNum = 1;
+            this.offset = 0;
+        }
+
+        /**
+         * move the tokens of this line so that their positions are relative
+         * to the whole program rather than the line
+         */
+        void moveTo(int lineNum, int offset) {
+            int lineDelta = lineNum - this.lineNum;
+            int offsetDelta = offset - this.offset;
+            if(lineDelta == 0 && offsetDelta == 0) {
+                return;
+            }
+            for(Token t : tokens) {
+                CommonToken ct = (CommonToken) t;
+                ct.setLine(ct.getLine() + lineDelta);
+                if(ct.getStartIndex() >= 0) {
+                    ct.setStartIndex(ct.getStartIndex() + offsetDelta);
+                    ct.setStopIndex(ct.getStopIndex() + offsetDelta);
+                }
+            }
+            this.lineNum = lineNum;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * walks the tree of a single line while leaving the end of the text
+     * segment and program to be signalled once every line has been walked
+     */
+    static class LineWalker extends ParseTreeWalker {
+        @Override
+        protected void exitRule(ParseTreeListener listener, RuleNode r) {
+            if(r instanceof SimpParser.TextSegmentContext || r instanceof SimpParser.ProgramContext) {
+                return;
+            }
+            super.exitRule(listener, r);
+        }
+    }
+
+    static final LineWalker walker = new LineWalker();
+
+    private List<ParsedLine> lines;
+
+    /**
+     * the extractor and problems from the last check
+     */
+    private ProgramExtractor lastExtractor;
+    private List<Problem> lastProblems;
+
+    /**
+     * whether the program has been edited since the last check
+     */
+    private boolean changed;
+
+    /**
+     * the number of lines parsed by the last call to checkForProblems
+     */
+    private int linesParsed;
+
+    public IncrementalAssembler() {
+        lines = new ArrayList<>();
+        lines.add(new ParsedLine(""));
+        linesParsed = 0;
+        lastExtractor = null;
+        lastProblems = null;
+        changed = true;
+    }
+
+    /**
+     * check the next version of the program for problems. Equivalent to
+     * Assembler.checkForProblems, except that problems with the syntax of a
+     * line are reported for that line alone, since each line is parsed separately
+     * @param input the program string to check
+     * @return any problems with the program (empty list if program valid)
+     */
+    public synchronized List<Problem> checkForProblems(String input) {
+        setText(input);
+        return checkForProblems();
+    }
+
+    /**
+     * check the current version of the program for problems, parsing any
+     * lines which have changed since the last check
+     * @return any problems with the program (empty list if program valid)
+     */
+    public synchronized List<Problem> checkForProblems() {
+        StoreProblemLogger log = new StoreProblemLogger();
+        ProgramExtractor extractor = new ProgramExtractor(log);
+
+        linesParsed = 0;
+        int offset = 0;
+        boolean inTextSegment = false;
+        for(int i = 0; i < lines.size(); i++) {
+            ParsedLine line = lines.get(i);
+            if(line.tree == null) {
+                parse(line);
+                linesParsed++;
+            }
+            line.moveTo(i + 1, offset);
+            offset += line.text.length() + 1;
+
+            if(line.tree.children == null) {
+                continue;
+            }
+            for(ParseTree child : line.tree.children) {
+                boolean segment = child instanceof SimpParser.DataSegmentContext ||
+                                  child instanceof SimpParser.TextSegmentContext;
+                if(segment && inTextSegment) {
+                    // the previous text segment ends where the next segment starts
+                    extractor.exitTextSegment(null);
+                    inTextSegment = false;
+                }
+                if(child instanceof SimpParser.TextSegmentContext) {
+                    inTextSegment = true;
+                }
+                walker.walk(extractor, child);
+            }
+        }
+        if(inTextSegment) {
+            extractor.exitTextSegment(null);
+        }
+        extractor.exitProgram(null);
+
+        lastExtractor = extractor;
+        lastProblems = log.getProblems();
+        changed = false;
+        return lastProblems;
+    }
+
+    /**
+     * assemble the current version of the program, parsing any lines which
+     * have changed since the last check. Equivalent to Assembler.assemble
+     * @return the assembled program (or null if the program has problems, or
+     *         includes other files and so must be linked by Assembler.assemble)
+     */
+    public synchronized Program assemble() {
+        if(lastExtractor == null || changed) {
+            checkForProblems();
+        }
+        if(!lastProblems.isEmpty() || !lastExtractor.includes.isEmpty()) {
+            return null;
+        }
+        return Assembler.buildProgram(lastExtractor, (getText() + '\n').hashCode());
+    }
+
+    /**
+     * replace the program, keeping the lines which have not changed at the
+     * start and end of the program from the previous version
+     * @param input the new program string
+     */
+    public synchronized void setText(String input) {
+        String[] newText = input.split("\n", -1);
+
+        int oldSize = lines.size();
+        int maxCommon = Math.min(oldSize, newText.length);
+        int prefix = 0;
+        while(prefix < maxCommon && lines.get(prefix).text.equals(newText[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while(suffix < maxCommon - prefix &&
+              lines.get(oldSize - 1 - suffix).text.equals(newText[newText.length - 1 - suffix])) {
+            suffix++;
+        }
+
+        List<ParsedLine> newLines = new ArrayList<>(newText.length);
+        newLines.addAll(lines.subList(0, prefix));
+        for(int i = prefix; i < newText.length - suffix; i++) {
+            newLines.add(new ParsedLine(newText[i]));
+        }
+        newLines.addAll(lines.subList(oldSize - suffix, oldSize));
+        lines = newLines;
+        changed = true;
+    }
+
+    /**
+     * insert text into the program
+     * @param row the line to insert into (0-based)
+     * @param column the position in the line to insert at
+     * @param text the text to insert, which may span several lines
+     * @return false if the position is not in the program, in which case
+     *         the program is unchanged and should be given in full again
+     */
+    public synchronized boolean insert(int row, int column, String text) {
+        if(row < 0 || row >= lines.size() || column < 0 || column > lines.get(row).text.length()) {
+            return false;
+        }
+        String line = lines.get(row).text;
+        replaceLines(row, row, line.substring(0, column) + text + line.substring(column));
+        return true;
+    }
+
+    /**
+     * remove a range of text from the program
+     * @param startRow the line the range starts on (0-based)
+     * @param startColumn the position in the first line the range starts at
+     * @param endRow the line the range ends on (0-based)
+     * @param endColumn the position in the last line the range ends before
+     * @return false if the range is not in the program, in which case
+     *         the program is unchanged and should be given in full again
+     */
+    public synchronized boolean remove(int startRow, int startColumn, int endRow, int endColumn) {
+        if(startRow < 0 || endRow >= lines.size() || startRow > endRow ||
+           startColumn < 0 || startColumn > lines.get(startRow).text.length() ||
+           endColumn < 0 || endColumn > lines.get(endRow).text.length() ||
+           (startRow == endRow && startColumn > endColumn)) {
+            return false;
+        }
+        replaceLines(startRow, endRow,
+            lines.get(startRow).text.substring(0, startColumn) + lines.get(endRow).text.substring(endColumn));
+        return true;
+    }
+
+    /**
+     * replace the lines from first to last (inclusive) with the given text
+     */
+    private void replaceLines(int first, int last, String text) {
+        changed = true;
+        List<ParsedLine> replaced = lines.subList(first, last + 1);
+        replaced.clear();
+        for(String line : text.split("\n", -1)) {
+            replaced.add(new ParsedLine(line));
+        }
+    }
+
+    /**
+     * @return the current version of the program
+     */
+    public synchronized String getText() {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < lines.size(); i++) {
+            if(i != 0) {
+                sb.append('\n');
+            }
+            sb.append(lines.get(i).text);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * the number of lines which had to be lexed and parsed by the last check
+     * @return the number of changed lines
+     */
+    public int getLinesParsed() {
+        return linesParsed;
+    }
+
+    private static void parse(ParsedLine line) {
+        CommonTokenStream tokens = ParserPool.tokenize(line.text + '\n');
+        SimpParser.ProgramContext tree = ParserPool.parse(tokens);
+
+        List<Token> lineTokens = new ArrayList<>(tokens.getTokens());
+        addMissingTokens(tree, lineTokens);
+
+        // tokens read their text from the input using their position, which is about to change
+        for(Token t : lineTokens) {
+            CommonToken ct = (CommonToken) t;
+            ct.setText(ct.getText());
+        }
+
+        line.tree = tree;
+        line.tokens = lineTokens;
+        line.lineNum = 1;
+        line.offset = 0;
+    }
+
+    /**
+     * find the tokens conjured by the parser to recover from errors, which
+     * are in the tree but not the token stream
+     */
+    private static void addMissingTokens(ParseTree tree, List<Token> tokens) {
+        if(tree instanceof TerminalNode) {
+            Token t = ((TerminalNode) tree).getSymbol();
+            if(t.getTokenIndex() == -1) {
+                tokens.add(t);
+            }
+        } else {
+            for(int i = 0; i < tree.getChildCount(); i++) {
+                addMissingTokens(tree.getChild(i), tokens);
+            }
+        }
+    }
+}
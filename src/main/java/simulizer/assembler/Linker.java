@@ -0,0 +1,231 @@
+package simulizer.assembler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import simulizer.assembler.extractor.ProgramExtractor;
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.ProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.Variable;
+
+/**
+ * Links the files included by a program (with .include directives) into it.
+ *
+ * Each included file is assembled on its own into a module, which is cached
+ * by its contents, and may include other files in turn. A file is only linked
+ * once however many times it is included. The program is laid out first,
+ * followed by the modules in the order they are first included, and the init
+ * annotations of the modules run before that of the program.
+ *
+ * The statements and variables of a module take the line number of the
+ * .include directive in the program, so that running or reporting problems
+ * with an included routine points to where it was included.
+ */
+public class Linker {
+
+    /**
+     * reads included files
+     */
+    @FunctionalInterface
+    public interface SourceReader {
+        /**
+         * @param name the name of the file, as given to the .include directive
+         * @return the contents of the file
+         * @throws IOException if the file cannot be read
+         */
+        String read(String name) throws IOException;
+    }
+
+    private final SourceReader reader;
+    private final ModuleCache cache;
+
+    /**
+     * @param reader reads the included files
+     * @param cache the cache of assembled modules, which may be shared with other linkers
+     */
+    public Linker(SourceReader reader, ModuleCache cache) {
+        this.reader = reader;
+        this.cache = cache;
+    }
+
+    /**
+     * @param directory the directory to find included files in (unless an absolute path is given)
+     * @param cache the cache of assembled modules, which may be shared with other linkers
+     * @return a linker for files in a directory
+     */
+    public static Linker forDirectory(File directory, ModuleCache cache) {
+        return new Linker(name -> {
+            File f = new File(name);
+            if(!f.isAbsolute()) {
+                f = new File(directory, name);
+            }
+            return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+        }, cache);
+    }
+
+    /**
+     * link a program with the files it includes
+     * @param program the extractor which has walked the whole program without problems
+     * @param sourceHash the hash of the source code of the program
+     * @param log the logger to send the error messages
+     * @return the linked program (or null if errors are encountered)
+     */
+    Program link(ProgramExtractor program, int sourceHash, ProblemLogger log) {
+        List<IncludedModule> modules = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>(); // the line each module was included from
+        List<String> names = new ArrayList<>();
+
+        boolean good = true;
+        Set<String> included = new HashSet<>();
+        for(Map.Entry<String, Integer> e : program.includes.entrySet()) {
+            good &= include(e.getKey(), e.getKey(), e.getValue(), included, modules, lines, names, log);
+        }
+        if(!good) {
+            return null;
+        }
+
+        ProgramExtractor merged = new ProgramExtractor(null);
+        if(!append(merged, program, -1, "the program", log)) {
+            good = false;
+        }
+        String initAnnotationCode = "";
+        for(int i = 0; i < modules.size(); i++) {
+            IncludedModule m = modules.get(i);
+            good &= append(merged, m.extractor, lines.get(i), names.get(i), log);
+            initAnnotationCode += m.extractor.initAnnotationCode;
+        }
+        merged.initAnnotationCode = initAnnotationCode + program.initAnnotationCode;
+
+        for(int i = 0; i < modules.size(); i++) {
+            for(String label : modules.get(i).externalLabels) {
+                if(!merged.textSegmentLabels.containsKey(label) && !merged.dataSegmentLabels.containsKey(label)) {
+                    log.logProblem("the label \"" + label + "\" used by the included file \"" + names.get(i) +
+                                   "\" is not defined", lines.get(i) + 1);
+                    good = false;
+                }
+            }
+        }
+        if(!good) {
+            return null;
+        }
+
+        // the initial contents of the data segment, up to the last initialised byte
+        byte[] programData = Assembler.dataSegmentBytes(program.dataSegment);
+        int dataSize = Assembler.dataSegmentSize(program.dataSegment);
+        int initialisedSize = programData.length;
+        for(IncludedModule m : modules) {
+            if(m.dataSegment.length > 0) {
+                initialisedSize = dataSize + m.dataSegment.length;
+            }
+            dataSize += m.dataSize;
+        }
+        byte[] dataSegment = new byte[initialisedSize];
+        System.arraycopy(programData, 0, dataSegment, 0, programData.length);
+        int offset = Assembler.dataSegmentSize(program.dataSegment);
+        for(IncludedModule m : modules) {
+            if(m.dataSegment.length > 0) {
+                System.arraycopy(m.dataSegment, 0, dataSegment, offset, m.dataSegment.length);
+            }
+            offset += m.dataSize;
+        }
+
+        return Assembler.buildProgram(merged, dataSegment, sourceHash);
+    }
+
+    /**
+     * assemble an included file and the files it includes
+     * @param name the name of the file
+     * @param path the chain of includes leading to the file, to describe problems
+     * @param line the line of the program which (indirectly) includes the file
+     * @return false if the file or a file it includes has problems
+     */
+    private boolean include(String name, String path, int line, Set<String> included,
+                            List<IncludedModule> modules, List<Integer> lines, List<String> names,
+                            ProblemLogger log) {
+        String source;
+        try {
+            source = reader.read(name);
+        } catch(IOException e) {
+            log.logProblem("could not read the included file \"" + path + "\": " + e.getMessage(), line + 1);
+            return false;
+        }
+        if(!included.add(ProgramCache.digest(source))) {
+            return true; // already linked
+        }
+
+        IncludedModule m = cache.assemble(source, new ProblemLogger() {
+            @Override
+            public void logProblem(Problem p) {
+                String location = p.lineNum == Problem.NO_LINE_NUM ? "" : " (line " + p.lineNum + ")";
+                log.logProblem("in the included file \"" + path + "\"" + location + ": " + p.message, line + 1);
+            }
+        });
+        if(m == null) {
+            return false;
+        }
+        modules.add(m);
+        lines.add(line);
+        names.add(path);
+
+        boolean good = true;
+        for(String nested : m.extractor.includes.keySet()) {
+            good &= include(nested, path + " > " + nested, line, included, modules, lines, names, log);
+        }
+        return good;
+    }
+
+    /**
+     * add the segments of a program or module to the end of the merged program
+     * @param line the line to give the statements and variables (or -1 to keep their own)
+     * @param name describes the program or module, for problems
+     * @return false if a label is already defined
+     */
+    private static boolean append(ProgramExtractor merged, ProgramExtractor e, int line, String name, ProblemLogger log) {
+        int textOffset = merged.textSegment.size();
+        int dataOffset = merged.dataSegment.size();
+
+        boolean good = appendLabels(merged, e.textSegmentLabels, merged.textSegmentLabels, textOffset, line, name, log);
+        good &= appendLabels(merged, e.dataSegmentLabels, merged.dataSegmentLabels, dataOffset, line, name, log);
+
+        for(Map.Entry<Integer, String> a : e.annotations.entrySet()) {
+            merged.annotations.put(a.getKey() + textOffset, a.getValue());
+        }
+        if(line == -1) {
+            merged.textSegment.addAll(e.textSegment);
+            merged.dataSegment.addAll(e.dataSegment);
+        } else {
+            for(Statement s : e.textSegment) {
+                merged.textSegment.add(new Statement(s.getInstruction(), s.getOperandList(), line));
+            }
+            for(Variable v : e.dataSegment) {
+                merged.dataSegment.add(new Variable(v.getType(), v.getSize(), v.getInitialValue(), line));
+            }
+        }
+        return good;
+    }
+
+    private static boolean appendLabels(ProgramExtractor merged, Map<String, Integer> labels,
+                                        Map<String, Integer> into, int offset, int line, String name,
+                                        ProblemLogger log) {
+        boolean good = true;
+        for(Map.Entry<String, Integer> l : labels.entrySet()) {
+            String label = l.getKey();
+            if(merged.textSegmentLabels.containsKey(label) || merged.dataSegmentLabels.containsKey(label)) {
+                log.logProblem("the label name: \"" + label + "\" defined in " + name + " is taken", line + 1);
+                good = false;
+            } else {
+                into.put(label, l.getValue() + offset);
+            }
+        }
+        return good;
+    }
+}
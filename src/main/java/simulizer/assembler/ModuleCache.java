@@ -0,0 +1,100 @@
+package simulizer.assembler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import simulizer.assembler.extractor.problem.ProblemLogger;
+
+/**
+ * A cache of files included by programs, assembled into modules and keyed by
+ * a SHA-256 hash of their contents, so that a library included by many
+ * programs is only assembled once.
+ *
+ * The most recently used modules are held in memory. Only modules which
+ * assembled without problems are cached, so a module with problems is always
+ * assembled again to report them.
+ */
+public class ModuleCache {
+
+    private final Map<String, IncludedModule> modules;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity the number of modules to hold in memory
+     */
+    public ModuleCache(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        // access ordered, so the eldest entry is the least recently used
+        modules = new LinkedHashMap<String, IncludedModule>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IncludedModule> eldest) {
+                return size() > capacity;
+            }
+        };
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * assemble an included file, or fetch it from the cache if the same
+     * contents have been assembled before
+     * @param source the contents of the file
+     * @param log the logger to send the error messages (may be null)
+     * @return the module (or null if errors are encountered)
+     */
+    IncludedModule assemble(String source, ProblemLogger log) {
+        String key = ProgramCache.digest(source);
+        IncludedModule m;
+        synchronized(this) {
+            m = modules.get(key);
+            if(m == null) {
+                misses++;
+            } else {
+                hits++;
+                return m;
+            }
+        }
+
+        m = IncludedModule.assemble(source, log);
+        if(m != null) {
+            synchronized(this) {
+                modules.putIfAbsent(key, m);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * remove every module from the cache
+     */
+    public synchronized void clear() {
+        modules.clear();
+    }
+
+    /**
+     * @return the number of modules held in memory
+     */
+    public synchronized int size() {
+        return modules.size();
+    }
+
+    /**
+     * @return the number of lookups which found a module
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not find a module
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
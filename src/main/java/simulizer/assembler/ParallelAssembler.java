@@ -0,0 +1,296 @@
+package simulizer.assembler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import simulizer.assembler.extractor.ProgramExtractor;
+import simulizer.assembler.extractor.problem.ProblemCountLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.parser.SimpParser;
+
+/**
+ * Assembles large programs by splitting them into chunks of lines which are
+ * parsed and extracted in parallel on the common fork-join pool, then merged.
+ *
+ * Every token of the Simp grammar is contained within a single line, so a
+ * chunk of lines can be parsed on its own (as with IncrementalAssembler).
+ * Extracting a chunk depends on the segment it starts in, which is found from
+ * the parse trees of the chunks before it. Each chunk is extracted into its
+ * own ProgramExtractor along with the initial contents of its variables, then
+ * the chunks are concatenated, moving the label and annotation indices by the
+ * number of statements and variables before each chunk.
+ *
+ * Rather than resolving labels and annotations which bind across a chunk
+ * boundary, the merged program is only used if every chunk is free of
+ * problems and self contained. Otherwise the program should be assembled as a
+ * whole, which also reports any problems exactly as before. Chunk boundaries
+ * are moved to avoid separating a label from its statement where possible.
+ */
+final class ParallelAssembler {
+
+    /**
+     * programs with fewer lines are not worth splitting
+     */
+    static final int MIN_LINES = 4096;
+    private static final int MIN_CHUNK_LINES = 512;
+    /**
+     * the number of lines a chunk boundary may be moved by to find a good place to split
+     */
+    private static final int MAX_BOUNDARY_SHIFT = 64;
+
+    private enum Segment {
+        NONE,
+        DATA,
+        TEXT
+    }
+
+    private static class Chunk {
+        final String text;
+        final int firstLine; // 1-based, as with Antlr
+
+        SimpParser.ProgramContext tree;
+        Segment startSegment;
+        Segment lastSegment; // the last segment started in this chunk, or NONE
+
+        ProgramExtractor extractor;
+        boolean selfContained;
+        byte[] dataSegment; // the initial bytes of the chunk's variables
+        int dataSize; // the size of the chunk's variables, which may be larger
+
+        Chunk(String text, int firstLine) {
+            this.text = text;
+            this.firstLine = firstLine;
+        }
+
+        void parse() {
+            tree = ParserPool.parse(ParserPool.tokenize(text, firstLine));
+
+            lastSegment = Segment.NONE;
+            if(tree.children != null) {
+                for(ParseTree child : tree.children) {
+                    if(child instanceof SimpParser.DataSegmentContext) {
+                        lastSegment = Segment.DATA;
+                    } else if(child instanceof SimpParser.TextSegmentContext) {
+                        lastSegment = Segment.TEXT;
+                    }
+                }
+            }
+        }
+
+        void extract() {
+            ProblemCountLogger counter = new ProblemCountLogger(null);
+            extractor = new ProgramExtractor(counter);
+
+            boolean inTextSegment = false;
+            if(startSegment == Segment.DATA) {
+                extractor.enterDataSegment(null);
+            } else if(startSegment == Segment.TEXT) {
+                extractor.enterTextSegment(null);
+                inTextSegment = true;
+            }
+
+            if(tree.children != null) {
+                for(ParseTree child : tree.children) {
+                    boolean segment = child instanceof SimpParser.DataSegmentContext ||
+                                      child instanceof SimpParser.TextSegmentContext;
+                    if(segment && inTextSegment) {
+                        // the previous text segment ends where the next segment starts
+                        extractor.exitTextSegment(null);
+                        inTextSegment = false;
+                    }
+                    if(child instanceof SimpParser.TextSegmentContext) {
+                        inTextSegment = true;
+                    }
+                    IncrementalAssembler.walker.walk(extractor, child);
+                }
+            }
+
+            // annotations after the last statement of the chunk bind to it
+            // whatever follows, unless they are waiting for a label
+            if(inTextSegment && extractor.outstandingLabels.isEmpty()) {
+                extractor.pushAnnotations();
+            }
+
+            selfContained = counter.problemCount == 0 &&
+                            extractor.includes.isEmpty() &&
+                            extractor.outstandingLabels.isEmpty() &&
+                            extractor.outstandingAnnotations.isEmpty();
+
+            dataSegment = Assembler.dataSegmentBytes(extractor.dataSegment);
+            dataSize = Assembler.dataSegmentSize(extractor.dataSegment);
+        }
+    }
+
+    private ParallelAssembler() {
+    }
+
+    /**
+     * @param input the program string, ending with a newline
+     * @return whether the program is large enough to benefit from being assembled in parallel
+     */
+    static boolean worthSplitting(String input) {
+        if(ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return false;
+        }
+        int lines = 0;
+        for(int i = input.indexOf('\n'); i != -1; i = input.indexOf('\n', i + 1)) {
+            if(++lines >= MIN_LINES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * assemble a program in parallel
+     * @param input the program string to assemble, ending with a newline
+     * @return the assembled program, identical to assembling the program as a
+     *         whole, or null if the program has problems or could not be split
+     */
+    static Program assemble(String input) {
+        List<Chunk> chunks = split(input);
+
+        forEach(chunks, Chunk::parse);
+
+        Segment segment = Segment.NONE;
+        for(Chunk c : chunks) {
+            c.startSegment = segment;
+            if(c.lastSegment != Segment.NONE) {
+                segment = c.lastSegment;
+            }
+        }
+
+        forEach(chunks, Chunk::extract);
+
+        ProgramExtractor merged = new ProgramExtractor(null);
+        int initialisedSize = 0;
+        int dataSize = 0;
+        for(Chunk c : chunks) {
+            if(!c.selfContained) {
+                return null;
+            }
+            ProgramExtractor e = c.extractor;
+            int textOffset = merged.textSegment.size();
+            int dataOffset = merged.dataSegment.size();
+
+            if(!mergeLabels(merged, e.textSegmentLabels, merged.textSegmentLabels, textOffset) ||
+               !mergeLabels(merged, e.dataSegmentLabels, merged.dataSegmentLabels, dataOffset)) {
+                return null;
+            }
+            for(Map.Entry<Integer, String> a : e.annotations.entrySet()) {
+                merged.annotations.put(a.getKey() + textOffset, a.getValue());
+            }
+            merged.textSegment.addAll(e.textSegment);
+            merged.dataSegment.addAll(e.dataSegment);
+            merged.initAnnotationCode += e.initAnnotationCode;
+            if(c.dataSegment.length > 0) {
+                initialisedSize = dataSize + c.dataSegment.length;
+            }
+            dataSize += c.dataSize;
+        }
+
+        if(!merged.textSegmentLabels.containsKey("main")) {
+            return null;
+        }
+
+        byte[] dataSegment = new byte[initialisedSize];
+        int offset = 0;
+        for(Chunk c : chunks) {
+            if(c.dataSegment.length > 0) {
+                System.arraycopy(c.dataSegment, 0, dataSegment, offset, c.dataSegment.length);
+            }
+            offset += c.dataSize;
+        }
+
+        return Assembler.buildProgram(merged, dataSegment, input.hashCode());
+    }
+
+    /**
+     * add the labels of a chunk to the merged labels
+     * @return false if a label is defined in more than one chunk
+     */
+    private static boolean mergeLabels(ProgramExtractor merged, Map<String, Integer> labels,
+                                       Map<String, Integer> into, int offset) {
+        for(Map.Entry<String, Integer> l : labels.entrySet()) {
+            String name = l.getKey();
+            if(merged.textSegmentLabels.containsKey(name) || merged.dataSegmentLabels.containsKey(name)) {
+                return false;
+            }
+            into.put(name, l.getValue() + offset);
+        }
+        return true;
+    }
+
+    private static void forEach(List<Chunk> chunks, Consumer<Chunk> action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+        for(Chunk c : chunks) {
+            tasks.add(ForkJoinTask.adapt(() -> action.accept(c)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * split a program into chunks of whole lines, with several chunks for
+     * each thread so that the work is balanced between them
+     */
+    private static List<Chunk> split(String input) {
+        int lines = 0;
+        for(int i = input.indexOf('\n'); i != -1; i = input.indexOf('\n', i + 1)) {
+            lines++;
+        }
+        int chunkLines = Math.max(MIN_CHUNK_LINES, lines / (ForkJoinPool.getCommonPoolParallelism() * 4));
+
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        int line = 1;
+        while(start < input.length()) {
+            int end = start;
+            int lastLineStart = start;
+            int count = 0;
+            while(end < input.length() && (count < chunkLines ||
+                    (count < chunkLines + MAX_BOUNDARY_SHIFT && !goodBoundary(input, lastLineStart, end)))) {
+                lastLineStart = end;
+                end = nextLine(input, end);
+                count++;
+            }
+            chunks.add(new Chunk(input.substring(start, end), line));
+            start = end;
+            line += count;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the index of the start of the line after the line containing the given index
+     */
+    private static int nextLine(String input, int index) {
+        int newline = input.indexOf('\n', index);
+        return newline == -1 ? input.length() : newline + 1;
+    }
+
+    /**
+     * whether splitting the program at the given line is unlikely to separate
+     * a label from its statement, or an annotation from the statement before
+     * @param lastLineStart the start of the line before the split
+     * @param splitAt the start of the line after the split
+     */
+    private static boolean goodBoundary(String input, int lastLineStart, int splitAt) {
+        return !contains(input, ':', lastLineStart, splitAt) &&
+               !contains(input, '#', splitAt, nextLine(input, splitAt));
+    }
+
+    private static boolean contains(String input, char c, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(input.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
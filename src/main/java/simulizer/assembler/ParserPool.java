@@ -0,0 +1,106 @@
+package simulizer.assembler;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import simulizer.parser.SimpLexer;
+import simulizer.parser.SimpParser;
+
+/**
+ * Parses Simp programs using a lexer and parser kept for each thread, rather
+ * than creating new ones for every program.
+ *
+ * Programs are first parsed with the faster SLL prediction mode, bailing out
+ * at the first syntax error. Only if that fails is the program parsed again
+ * with full LL prediction and the default error recovery, so that programs
+ * with problems get the same parse tree (and so the same problems) as before.
+ */
+final class ParserPool {
+
+    private static final ThreadLocal<SimpLexer> lexers = ThreadLocal.withInitial(() -> {
+        SimpLexer lexer = new SimpLexer(null);
+        // prevent outputting to the console
+        lexer.removeErrorListeners();
+        return lexer;
+    });
+
+    private static final ThreadLocal<SimpParser> parsers = ThreadLocal.withInitial(() -> {
+        SimpParser parser = new SimpParser(null);
+        // prevent outputting to the console
+        parser.removeErrorListeners();
+        return parser;
+    });
+
+    private ParserPool() {
+    }
+
+    /**
+     * split a program into tokens
+     * @param input the program string (which should end with a newline)
+     * @return every token of the program, which no longer depends on the lexer
+     */
+    static CommonTokenStream tokenize(String input) {
+        return tokenize(input, 1);
+    }
+
+    /**
+     * split part of a program into tokens
+     * @param input the lines of the program (which should end with a newline)
+     * @param firstLine the line number of the first line in the whole program (1-based, as with Antlr)
+     * @return every token of the lines, which no longer depends on the lexer
+     */
+    static CommonTokenStream tokenize(String input, int firstLine) {
+        SimpLexer lexer = lexers.get();
+        lexer.setInputStream(new ANTLRInputStream(input));
+        lexer.setLine(firstLine);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill(); // so the lexer can be reused straight away
+        return tokens;
+    }
+
+    /**
+     * parse a program
+     * @param input the program string (which should end with a newline)
+     * @return the parse tree
+     */
+    static SimpParser.ProgramContext parse(String input) {
+        return parse(tokenize(input));
+    }
+
+    /**
+     * parse a program which has already been split into tokens
+     * @param tokens the tokens of the program
+     * @return the parse tree
+     */
+    static SimpParser.ProgramContext parse(CommonTokenStream tokens) {
+        SimpParser parser = parsers.get();
+        try {
+            try {
+                parser.setTokenStream(tokens);
+                parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+                parser.setErrorHandler(new BailErrorStrategy());
+                SimpParser.ProgramContext tree = parser.program();
+                // EOF is optional in the grammar, so without error recovery the
+                // parse can stop early at an unexpected token rather than failing
+                if(parser.getCurrentToken().getType() == Token.EOF) {
+                    return tree;
+                }
+            } catch(ParseCancellationException e) {
+                // there is a syntax error, or the program needs full context to parse
+            }
+
+            tokens.seek(0);
+            parser.setTokenStream(tokens);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            return parser.program();
+        } finally {
+            parser.setTokenStream(null); // don't hold on to the program
+        }
+    }
+}
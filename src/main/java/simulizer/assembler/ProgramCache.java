@@ -0,0 +1,222 @@
+package simulizer.assembler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import simulizer.assembler.extractor.problem.ProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramImage;
+
+/**
+ * A cache of assembled programs, keyed by a SHA-256 hash of their source code.
+ *
+ * The most recently used programs are held in memory. Optionally the programs
+ * are also written to a directory as program images, so they survive
+ * restarts and can be shared between processes. Only programs which
+ * assembled without problems are cached, so a program with problems is
+ * always assembled again to report them.
+ *
+ * Cached programs are shared between everything which assembles the same
+ * source, so they must not be modified.
+ */
+public class ProgramCache {
+
+    private final Map<String, Program> programs;
+    private File directory; // null if programs are only cached in memory
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity the number of programs to hold in memory
+     */
+    public ProgramCache(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        // access ordered, so the eldest entry is the least recently used
+        programs = new LinkedHashMap<String, Program>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Program> eldest) {
+                return size() > capacity;
+            }
+        };
+        directory = null;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * also store programs on disk
+     * @param directory the directory to store programs in (created if it does not exist),
+     *                  or null to only cache programs in memory
+     */
+    public synchronized void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Assemble a program, or fetch it from the cache if the same source has
+     * been assembled before. Equivalent to Assembler.assemble
+     * @param input the program string to assemble
+     * @param log the logger to send the error messages (may be null)
+     * @return the assembled program (or null if errors are encountered)
+     */
+    public Program assemble(String input, ProblemLogger log) {
+        return assemble(input, log, null);
+    }
+
+    /**
+     * Assemble a program which may include other files, or fetch it from the
+     * cache if the same source has been assembled before. Equivalent to
+     * Assembler.assemble. Programs which include files are not cached here,
+     * since the included files may change (the files themselves are cached
+     * by the linker's ModuleCache)
+     * @param input the program string to assemble
+     * @param log the logger to send the error messages (may be null)
+     * @param linker assembles and links the files included by the program (may be null)
+     * @return the assembled program (or null if errors are encountered)
+     */
+    public Program assemble(String input, ProblemLogger log, Linker linker) {
+        if(linker != null && input.contains(".include")) {
+            return Assembler.assemble(input, log, linker);
+        }
+        String key = digest(input);
+        Program p = get(key);
+        if(p == null) {
+            p = Assembler.assemble(input, log);
+            if(p != null) {
+                put(key, p);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * get a program from the cache
+     * @param key the digest of the program source
+     * @return the program, or null if it is not in the cache
+     */
+    public synchronized Program get(String key) {
+        Program p = programs.get(key);
+        if(p == null && directory != null) {
+            p = readFromDisk(key);
+            if(p != null) {
+                programs.put(key, p);
+            }
+        }
+        if(p == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return p;
+    }
+
+    /**
+     * add an assembled program to the cache
+     * @param key the digest of the program source
+     * @param p the program, which must have assembled without problems
+     */
+    public synchronized void put(String key, Program p) {
+        if(programs.containsKey(key)) {
+            return;
+        }
+        programs.put(key, p);
+        if(directory != null) {
+            writeToDisk(key, p);
+        }
+    }
+
+    /**
+     * add an assembled program to the cache
+     * @param input the source of the program
+     * @param p the program, which must have assembled without problems
+     */
+    public void putSource(String input, Program p) {
+        put(digest(input), p);
+    }
+
+    /**
+     * remove every program from memory (programs stored on disk are kept)
+     */
+    public synchronized void clear() {
+        programs.clear();
+    }
+
+    /**
+     * @return the number of programs held in memory
+     */
+    public synchronized int size() {
+        return programs.size();
+    }
+
+    /**
+     * @return the number of lookups which found a program
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not find a program
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + ProgramImage.EXTENSION);
+    }
+
+    private Program readFromDisk(String key) {
+        File f = fileFor(key);
+        if(!f.isFile()) {
+            return null;
+        }
+        try {
+            return ProgramImage.load(f);
+        } catch(IOException e) {
+            // corrupt or from an incompatible version, it will be replaced
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Program p) {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        try {
+            ProgramImage.save(p, fileFor(key));
+        } catch(IOException e) {
+            // the disk cache is only an optimisation
+        }
+    }
+
+    /**
+     * calculate the key used to identify a program
+     * @param input the source of the program
+     * @return a SHA-256 digest of the source, as a hex string
+     */
+    public static String digest(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for(byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch(NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package simulizer.assembler.extractor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -81,6 +82,18 @@ public class ProgramExtractor extends SimpBaseListener {
 	 */
 	public String initAnnotationCode;
 
+    /**
+     * the files included by the program with .include directives, in the
+     * order they are first included, mapped to the line of that directive
+     */
+    public final Map<String, Integer> includes;
+
+    /**
+     * whether the program must have a main label, which files included by
+     * another program do not
+     */
+    public boolean requireMain;
+
 
     public ProgramExtractor(ProblemLogger log) {
         currentState = State.OUTSIDE;
@@ -96,6 +109,9 @@ public class ProgramExtractor extends SimpBaseListener {
         outstandingLabels = new ArrayList<>();
 		outstandingAnnotations = new ArrayList<>();
 		initAnnotationCode = "";
+
+        includes = new LinkedHashMap<>();
+        requireMain = true;
     }
 
 
@@ -218,7 +234,7 @@ public class ProgramExtractor extends SimpBaseListener {
 
     @Override
     public void exitProgram(SimpParser.ProgramContext ctx) {
-        if(!textSegmentLabels.containsKey("main")) {
+        if(requireMain && !textSegmentLabels.containsKey("main")) {
             log.logProblem("The program has no 'main' label", Problem.NO_LINE_NUM);
         }
         if(!outstandingLabels.isEmpty()) {
@@ -265,6 +281,15 @@ public class ProgramExtractor extends SimpBaseListener {
 
         String directive = ctx.DIRECTIVE_ID().getText();
 
+        if(directive.equals(".include")) {
+            // allowed anywhere, the included file is assembled separately then linked
+            if(operands.size() != 1 || operands.get(0).getType() != Operand.Type.String) {
+                log.logProblem("invalid operand(s) to .include directive. format: .include STRING", ctx);
+            } else {
+                includes.putIfAbsent(operands.get(0).asStringOp().value, startLine(ctx));
+            }
+            return;
+        }
 
         if(currentState == State.DATA_SEGMENT) {
             switch(directive) {
@@ -0,0 +1,381 @@
+package simulizer.assembler.representation;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import simulizer.assembler.representation.operand.AddressOperand;
+import simulizer.assembler.representation.operand.Operand;
+
+/**
+ * MIPS32 machine code for the text segment of a program.
+ *
+ * Every statement occupies a single word of the text segment. A statement for
+ * a real MIPS32 instruction is encoded as that instruction (as SPIM would
+ * encode it) as long as decoding the word gives exactly the same operands, so
+ * immediates must fit in 16 bits, loads and stores must use base-offset
+ * addressing and branches and jumps must be within range of their labels.
+ *
+ * Pseudo-instructions (and real instructions which cannot be encoded in a
+ * single word, such as loading from a label) are expanded into several
+ * instructions by SPIM, which would move every address after them. Instead
+ * they are encoded with the reserved opcode PSEUDO_OPCODE and the index of the
+ * statement in the low 26 bits, so the simulator decodes them from their
+ * statement instead.
+ */
+public class MachineCode {
+
+    /**
+     * an opcode which is reserved in MIPS32, used to refer to a statement
+     */
+    public static final int PSEUDO_OPCODE = 0x3B;
+    public static final int NOP = 0x00000000;
+
+    private static final int SPECIAL  = 0x00;
+    private static final int REGIMM   = 0x01;
+    private static final int SPECIAL2 = 0x1C;
+
+    private enum Format {
+        R,          // op rd, rs, rt
+        SHIFT_VAR,  // op rd, rt, rs
+        SHIFT,      // op rd, rt, shamt
+        JR,         // op rs
+        SYSCALL,
+        BREAK,      // op code
+        I_SIGNED,   // op rt, rs, imm (sign extended)
+        I_UNSIGNED, // op rt, rs, imm (zero extended)
+        LUI,        // op rt, imm
+        BRANCH2,    // op rs, rt, offset
+        BRANCH1,    // op rs, offset
+        JUMP,       // op target
+        LOAD_STORE  // op rt, offset(base)
+    }
+
+    private static class Encoding {
+        final int opcode;
+        final int funct; // the function for SPECIAL and SPECIAL2, rt for REGIMM
+        final Format format;
+
+        Encoding(int opcode, int funct, Format format) {
+            this.opcode = opcode;
+            this.funct = funct;
+            this.format = format;
+        }
+    }
+
+    private static final Map<Instruction, Encoding> encodings = new EnumMap<>(Instruction.class);
+    private static final Instruction[] byOpcode = new Instruction[64];
+    private static final Instruction[] bySpecialFunct = new Instruction[64];
+    private static final Instruction[] bySpecial2Funct = new Instruction[64];
+    private static final Instruction[] byRegimmRt = new Instruction[32];
+
+    private static void add(Instruction i, int opcode, int funct, Format format) {
+        encodings.put(i, new Encoding(opcode, funct, format));
+        switch(opcode) {
+            case SPECIAL:  bySpecialFunct[funct] = i; break;
+            case SPECIAL2: bySpecial2Funct[funct] = i; break;
+            case REGIMM:   byRegimmRt[funct] = i; break;
+            default:       byOpcode[opcode] = i; break;
+        }
+    }
+
+    static {
+        add(Instruction.sll,     SPECIAL,  0x00, Format.SHIFT);
+        add(Instruction.srl,     SPECIAL,  0x02, Format.SHIFT);
+        add(Instruction.sra,     SPECIAL,  0x03, Format.SHIFT);
+        add(Instruction.sllv,    SPECIAL,  0x04, Format.SHIFT_VAR);
+        add(Instruction.srlv,    SPECIAL,  0x06, Format.SHIFT_VAR);
+        add(Instruction.srav,    SPECIAL,  0x07, Format.SHIFT_VAR);
+        add(Instruction.jr,      SPECIAL,  0x08, Format.JR);
+        add(Instruction.syscall, SPECIAL,  0x0C, Format.SYSCALL);
+        add(Instruction.BREAK,   SPECIAL,  0x0D, Format.BREAK);
+        add(Instruction.add,     SPECIAL,  0x20, Format.R);
+        add(Instruction.addu,    SPECIAL,  0x21, Format.R);
+        add(Instruction.sub,     SPECIAL,  0x22, Format.R);
+        add(Instruction.subu,    SPECIAL,  0x23, Format.R);
+        add(Instruction.and,     SPECIAL,  0x24, Format.R);
+        add(Instruction.or,      SPECIAL,  0x25, Format.R);
+        add(Instruction.xor,     SPECIAL,  0x26, Format.R);
+        add(Instruction.nor,     SPECIAL,  0x27, Format.R);
+        add(Instruction.slt,     SPECIAL,  0x2A, Format.R);
+        add(Instruction.sltu,    SPECIAL,  0x2B, Format.R);
+
+        add(Instruction.mul,     SPECIAL2, 0x02, Format.R);
+
+        add(Instruction.bltz,    REGIMM,   0x00, Format.BRANCH1);
+        add(Instruction.bgez,    REGIMM,   0x01, Format.BRANCH1);
+
+        add(Instruction.j,       0x02, 0, Format.JUMP);
+        add(Instruction.jal,     0x03, 0, Format.JUMP);
+        add(Instruction.beq,     0x04, 0, Format.BRANCH2);
+        add(Instruction.bne,     0x05, 0, Format.BRANCH2);
+        add(Instruction.blez,    0x06, 0, Format.BRANCH1);
+        add(Instruction.bgtz,    0x07, 0, Format.BRANCH1);
+        add(Instruction.addi,    0x08, 0, Format.I_SIGNED);
+        add(Instruction.addiu,   0x09, 0, Format.I_SIGNED);
+        add(Instruction.slti,    0x0A, 0, Format.I_SIGNED);
+        add(Instruction.sltiu,   0x0B, 0, Format.I_SIGNED);
+        add(Instruction.andi,    0x0C, 0, Format.I_UNSIGNED);
+        add(Instruction.ori,     0x0D, 0, Format.I_UNSIGNED);
+        add(Instruction.xori,    0x0E, 0, Format.I_UNSIGNED);
+        add(Instruction.lui,     0x0F, 0, Format.LUI);
+        add(Instruction.lb,      0x20, 0, Format.LOAD_STORE);
+        add(Instruction.lh,      0x21, 0, Format.LOAD_STORE);
+        add(Instruction.lw,      0x23, 0, Format.LOAD_STORE);
+        add(Instruction.lbu,     0x24, 0, Format.LOAD_STORE);
+        add(Instruction.lhu,     0x25, 0, Format.LOAD_STORE);
+        add(Instruction.sb,      0x28, 0, Format.LOAD_STORE);
+        add(Instruction.sh,      0x29, 0, Format.LOAD_STORE);
+        add(Instruction.sw,      0x2B, 0, Format.LOAD_STORE);
+    }
+
+    /**
+     * encode the text segment of a program
+     * @param p the program, with its text segment and labels laid out
+     * @return the machine code for each statement, in address order from the start of the text segment
+     */
+    public static int[] encode(Program p) {
+        Map<String, Integer> labels = new HashMap<>();
+        for(Map.Entry<Label, Address> l : p.labels.entrySet()) {
+            labels.put(l.getKey().getName(), l.getValue().getValue());
+        }
+
+        int start = p.textSegmentStart.getValue();
+        int[] image = new int[p.textSegment.size()];
+        for(int i = 0; i < image.length; i++) {
+            int address = start + 4 * i;
+            Statement s = p.textSegment.get(new Address(address));
+            Optional<Integer> word = s == null ? Optional.empty() : encode(s, address, labels);
+            if(word.isPresent() && word.get() == NOP && s.getInstruction() != Instruction.nop) {
+                // sll $zero, $zero, 0 would be decoded as a nop
+                word = Optional.empty();
+            }
+            image[i] = word.orElse((PSEUDO_OPCODE << 26) | i);
+        }
+        return image;
+    }
+
+    /**
+     * encode a single statement
+     * @param s the statement to encode
+     * @param address the address of the statement
+     * @param labels the address of each label
+     * @return the machine code, or empty if the statement has no single word encoding
+     */
+    private static Optional<Integer> encode(Statement s, int address, Map<String, Integer> labels) {
+        if(s.getInstruction() == Instruction.nop) {
+            return Optional.of(NOP);
+        }
+        Encoding e = encodings.get(s.getInstruction());
+        if(e == null) {
+            return Optional.empty();
+        }
+        Operand[] ops = s.getOperandList().toArray(new Operand[s.getOperandList().size()]);
+
+        switch(e.format) {
+            case R:
+                if(isRegister(ops, 0) && isRegister(ops, 1) && isRegister(ops, 2)) {
+                    return Optional.of(rType(e, reg(ops[1]), reg(ops[2]), reg(ops[0]), 0));
+                }
+                break;
+            case SHIFT_VAR:
+                if(isRegister(ops, 0) && isRegister(ops, 1) && isRegister(ops, 2)) {
+                    return Optional.of(rType(e, reg(ops[2]), reg(ops[1]), reg(ops[0]), 0));
+                }
+                break;
+            case SHIFT:
+                if(isRegister(ops, 0) && isRegister(ops, 1) && isInteger(ops, 2, 0, 31)) {
+                    return Optional.of(rType(e, 0, reg(ops[1]), reg(ops[0]), ops[2].asIntegerOp().value));
+                }
+                break;
+            case JR:
+                if(isRegister(ops, 0)) {
+                    return Optional.of(rType(e, reg(ops[0]), 0, 0, 0));
+                }
+                break;
+            case SYSCALL:
+                return Optional.of(rType(e, 0, 0, 0, 0));
+            case BREAK:
+                if(ops.length == 0) {
+                    return Optional.of(rType(e, 0, 0, 0, 0));
+                } else if(isInteger(ops, 0, 0, 0xFFFFF)) {
+                    return Optional.of((ops[0].asIntegerOp().value << 6) | e.funct);
+                }
+                break;
+            case I_SIGNED:
+                if(isRegister(ops, 0) && isRegister(ops, 1) && isInteger(ops, 2, Short.MIN_VALUE, Short.MAX_VALUE)) {
+                    return Optional.of(iType(e.opcode, reg(ops[1]), reg(ops[0]), ops[2].asIntegerOp().value));
+                }
+                break;
+            case I_UNSIGNED:
+                if(isRegister(ops, 0) && isRegister(ops, 1) && isInteger(ops, 2, 0, 0xFFFF)) {
+                    return Optional.of(iType(e.opcode, reg(ops[1]), reg(ops[0]), ops[2].asIntegerOp().value));
+                }
+                break;
+            case LUI:
+                if(isRegister(ops, 0) && isInteger(ops, 1, 0, 0xFFFF)) {
+                    return Optional.of(iType(e.opcode, 0, reg(ops[0]), ops[1].asIntegerOp().value));
+                }
+                break;
+            case BRANCH2:
+                if(isRegister(ops, 0) && isRegister(ops, 1)) {
+                    Optional<Integer> offset = branchOffset(ops, 2, address, labels);
+                    if(offset.isPresent()) {
+                        return Optional.of(iType(e.opcode, reg(ops[0]), reg(ops[1]), offset.get()));
+                    }
+                }
+                break;
+            case BRANCH1:
+                if(isRegister(ops, 0)) {
+                    Optional<Integer> offset = branchOffset(ops, 1, address, labels);
+                    if(offset.isPresent()) {
+                        // REGIMM branches are distinguished by rt
+                        int rt = e.opcode == REGIMM ? e.funct : 0;
+                        return Optional.of(iType(e.opcode, reg(ops[0]), rt, offset.get()));
+                    }
+                }
+                break;
+            case JUMP: {
+                Optional<Integer> target = labelAddress(ops, 0, labels);
+                if(target.isPresent() && (target.get() & 3) == 0 &&
+                   (target.get() & 0xF0000000) == ((address + 4) & 0xF0000000)) {
+                    return Optional.of((e.opcode << 26) | ((target.get() >>> 2) & 0x03FFFFFF));
+                }
+                break;
+            }
+            case LOAD_STORE:
+                if(isRegister(ops, 0) && ops.length == 2 && ops[1].getType() == Operand.Type.Address) {
+                    AddressOperand a = ops[1].asAddressOp();
+                    int offset = a.constant.orElse(0);
+                    if(!a.labelName.isPresent() && offset >= Short.MIN_VALUE && offset <= Short.MAX_VALUE) {
+                        int base = a.register.isPresent() ? a.register.get().getID() : 0;
+                        return Optional.of(iType(e.opcode, base, reg(ops[0]), offset));
+                    }
+                }
+                break;
+        }
+        return Optional.empty();
+    }
+
+    private static int rType(Encoding e, int rs, int rt, int rd, int shamt) {
+        return (e.opcode << 26) | (rs << 21) | (rt << 16) | (rd << 11) | (shamt << 6) | e.funct;
+    }
+
+    private static int iType(int opcode, int rs, int rt, int immediate) {
+        return (opcode << 26) | (rs << 21) | (rt << 16) | (immediate & 0xFFFF);
+    }
+
+    private static boolean isRegister(Operand[] ops, int i) {
+        return i < ops.length && ops[i].getType() == Operand.Type.Register;
+    }
+
+    private static boolean isInteger(Operand[] ops, int i, int min, int max) {
+        if(i >= ops.length || ops[i].getType() != Operand.Type.Integer) {
+            return false;
+        }
+        int value = ops[i].asIntegerOp().value;
+        return value >= min && value <= max;
+    }
+
+    private static int reg(Operand op) {
+        return op.asRegisterOp().value.getID();
+    }
+
+    private static Optional<Integer> labelAddress(Operand[] ops, int i, Map<String, Integer> labels) {
+        if(i >= ops.length || ops[i].getType() != Operand.Type.Address || !ops[i].asAddressOp().labelOnly()) {
+            return Optional.empty();
+        }
+        // an undefined label is left to the simulator
+        return Optional.ofNullable(labels.get(ops[i].asAddressOp().labelName.get()));
+    }
+
+    private static Optional<Integer> branchOffset(Operand[] ops, int i, int address, Map<String, Integer> labels) {
+        Optional<Integer> target = labelAddress(ops, i, labels);
+        if(!target.isPresent() || (target.get() & 3) != 0) {
+            return Optional.empty();
+        }
+        int offset = (target.get() - (address + 4)) >> 2;
+        if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            return Optional.empty();
+        }
+        return Optional.of(offset);
+    }
+
+    /**
+     * the instruction encoded by a word of machine code
+     * @param word the machine code
+     * @return the instruction, or null if the word refers to a statement or is not a supported instruction
+     */
+    public static Instruction instructionOf(int word) {
+        if(word == NOP) {
+            return Instruction.nop;
+        }
+        int opcode = opcode(word);
+        switch(opcode) {
+            case SPECIAL:  return bySpecialFunct[funct(word)];
+            case SPECIAL2: return bySpecial2Funct[funct(word)];
+            case REGIMM:   return byRegimmRt[rt(word)];
+            default:       return byOpcode[opcode];
+        }
+    }
+
+    /**
+     * @param word the machine code of a statement encoded with PSEUDO_OPCODE
+     * @return the index of the statement in the text segment
+     */
+    public static int statementIndex(int word) {
+        return word & 0x03FFFFFF;
+    }
+
+    public static int opcode(int word) {
+        return word >>> 26;
+    }
+    public static int rs(int word) {
+        return (word >>> 21) & 0x1F;
+    }
+    public static int rt(int word) {
+        return (word >>> 16) & 0x1F;
+    }
+    public static int rd(int word) {
+        return (word >>> 11) & 0x1F;
+    }
+    public static int shamt(int word) {
+        return (word >>> 6) & 0x1F;
+    }
+    public static int funct(int word) {
+        return word & 0x3F;
+    }
+
+    /**
+     * the immediate value of an I-type instruction, extended to 32 bits as the instruction requires
+     * @param instruction the instruction encoded by the word
+     * @param word the machine code
+     * @return the immediate value
+     */
+    public static int immediate(Instruction instruction, int word) {
+        Encoding e = encodings.get(instruction);
+        if(e != null && (e.format == Format.I_UNSIGNED || e.format == Format.LUI)) {
+            return word & 0xFFFF;
+        }
+        return (short) word;
+    }
+
+    /**
+     * @param word the machine code of a branch
+     * @param address the address of the branch
+     * @return the address branched to
+     */
+    public static int branchTarget(int word, int address) {
+        return address + 4 + ((short) word << 2);
+    }
+
+    /**
+     * @param word the machine code of a jump
+     * @param address the address of the jump
+     * @return the address jumped to
+     */
+    public static int jumpTarget(int word, int address) {
+        return ((address + 4) & 0xF0000000) | ((word & 0x03FFFFFF) << 2);
+    }
+}
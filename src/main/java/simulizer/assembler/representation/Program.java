@@ -17,6 +17,11 @@ public class Program {
     public final Map<Address, Statement> textSegment;
     public Address textSegmentStart;
     public Address textSegmentLast; // address of the last instruction
+    /**
+     * the machine code of the text segment, one word for each statement
+     * (see MachineCode). May be null, in which case the statements are decoded instead
+     */
+    public int[] textImage;
 
     /**
      * metadata and type information about areas of the static data segment
@@ -25,9 +30,14 @@ public class Program {
     public Address dataSegmentStart;
 
     /**
-     * the initial state of the static data segment
+     * the initial state of the static data segment, up to the end of the last
+     * variable with an initial value. The remaining bytes are initially zero
      */
     public byte[] dataSegment;
+    /**
+     * the size of the static data segment in bytes
+     */
+    public int dataSegmentSize;
     /**
      * the initial value of the break
      */
@@ -56,9 +66,11 @@ public class Program {
     public Program() {
         textSegment = new HashMap<>();
         textSegmentStart = Address.NULL;
+        textImage = null;
         dataSegmentVariables = new HashMap<>();
         dataSegmentStart = Address.NULL;
         dataSegment = null;
+        dataSegmentSize = 0;
         dynamicSegmentStart = Address.NULL;
         labels = new HashMap<>();
         annotations = new HashMap<>();
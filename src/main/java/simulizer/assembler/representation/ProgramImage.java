@@ -0,0 +1,381 @@
+package simulizer.assembler.representation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import simulizer.assembler.representation.operand.AddressOperand;
+import simulizer.assembler.representation.operand.IntegerOperand;
+import simulizer.assembler.representation.operand.Operand;
+import simulizer.assembler.representation.operand.RegisterOperand;
+import simulizer.assembler.representation.operand.StringOperand;
+import simulizer.simulation.data.representation.Word;
+
+/**
+ * a binary representation of an assembled program, which can be loaded
+ * without running the assembler again.
+ *
+ * enum constants are stored by name rather than ordinal so that an image
+ * remains valid if constants are added. Images with a different magic number
+ * or version are rejected. Every value is big-endian and every string is
+ * length-prefixed UTF-8, so an image file can be mapped into memory and read
+ * straight from the mapped buffer.
+ */
+public class ProgramImage {
+
+    /**
+     * the file extension used for program images
+     */
+    public static final String EXTENSION = ".simp-image";
+
+    private static final int MAGIC = 0x53494D50; // "SIMP"
+    private static final int VERSION = 4;
+
+    /**
+     * images smaller than this are read into the heap with a single read
+     * rather than mapped, since mapping a file has a higher fixed cost (and
+     * on Windows a mapped file cannot be replaced until the mapping is freed)
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /**
+     * write a program image to a file. The image is written to a temporary
+     * file first so that other processes never see a partial image
+     * @param p the program to write
+     * @param f the file to write to (replaced if it exists)
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Program p, File f) throws IOException {
+        File dir = f.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(f.getName(), ".tmp", dir);
+        try {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                write(p, out);
+            }
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            // only exists if something went wrong
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * load a program image from a file, either with a single read or by
+     * mapping large files into memory
+     * @param f the file to read
+     * @return the program
+     * @throws IOException if the file cannot be read or does not contain a valid image
+     */
+    public static Program load(File f) throws IOException {
+        try(FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size >= MAP_THRESHOLD) {
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // usually a single read
+            }
+            buffer.flip();
+            return read(buffer);
+        }
+    }
+
+    /**
+     * write a program in the image format
+     * @param p the program to write
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public static void write(Program p, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(p.sourceHash);
+
+        out.writeInt(p.textSegmentStart.getValue());
+        out.writeInt(p.textSegmentLast.getValue());
+        out.writeInt(p.dataSegmentStart.getValue());
+        out.writeInt(p.dynamicSegmentStart.getValue());
+        writeWord(p.initialGP, out);
+        writeWord(p.initialSP, out);
+
+        out.writeInt(p.textSegment.size());
+        for(Map.Entry<Address, Statement> e : p.textSegment.entrySet()) {
+            Statement s = e.getValue();
+            out.writeInt(e.getKey().getValue());
+            writeString(s.getInstruction().name(), out);
+            out.writeInt(s.getLineNumber());
+            out.writeInt(s.getOperandList().size());
+            for(Operand op : s.getOperandList()) {
+                writeOperand(op, out);
+            }
+        }
+
+        out.writeBoolean(p.textImage != null);
+        if(p.textImage != null) {
+            out.writeInt(p.textImage.length);
+            for(int word : p.textImage) {
+                out.writeInt(word);
+            }
+        }
+
+        out.writeInt(p.dataSegmentVariables.size());
+        for(Map.Entry<Address, Variable> e : p.dataSegmentVariables.entrySet()) {
+            Variable v = e.getValue();
+            out.writeInt(e.getKey().getValue());
+            writeString(v.getType().name(), out);
+            out.writeInt(v.getSize());
+            out.writeInt(v.getLineNumber());
+            out.writeBoolean(v.getInitialValue().isPresent());
+            if(v.getInitialValue().isPresent()) {
+                writeOperand(v.getInitialValue().get(), out);
+            }
+        }
+
+        out.writeBoolean(p.dataSegment != null);
+        if(p.dataSegment != null) {
+            out.writeInt(p.dataSegment.length);
+            out.write(p.dataSegment);
+        }
+        out.writeInt(p.dataSegmentSize);
+
+        out.writeInt(p.labels.size());
+        for(Map.Entry<Label, Address> e : p.labels.entrySet()) {
+            Label l = e.getKey();
+            writeString(l.getName(), out);
+            out.writeInt(l.getLineNumber());
+            writeString(l.getType().name(), out);
+            out.writeInt(e.getValue().getValue());
+        }
+
+        out.writeInt(p.annotations.size());
+        for(Map.Entry<Address, Annotation> e : p.annotations.entrySet()) {
+            out.writeInt(e.getKey().getValue());
+            writeString(e.getValue().code, out);
+        }
+
+        out.writeBoolean(p.initAnnotation != null);
+        if(p.initAnnotation != null) {
+            writeString(p.initAnnotation.code, out);
+        }
+
+        out.writeInt(p.lineNumbers.size());
+        for(Map.Entry<Address, Integer> e : p.lineNumbers.entrySet()) {
+            out.writeInt(e.getKey().getValue());
+            out.writeInt(e.getValue());
+        }
+    }
+
+    /**
+     * read a program which was written in the image format
+     * @param in the buffer to read from, starting at its current position
+     * @return the program
+     * @throws IOException if the buffer does not contain a valid image
+     */
+    public static Program read(ByteBuffer in) throws IOException {
+        try {
+            if(in.getInt() != MAGIC) {
+                throw new IOException("not a program image");
+            }
+            int version = in.getInt();
+            if(version != VERSION) {
+                throw new IOException("unsupported program image version: " + version);
+            }
+
+            Program p = new Program();
+            p.sourceHash = in.getInt();
+
+            p.textSegmentStart = new Address(in.getInt());
+            p.textSegmentLast = new Address(in.getInt());
+            p.dataSegmentStart = new Address(in.getInt());
+            p.dynamicSegmentStart = new Address(in.getInt());
+            p.initialGP = readWord(in);
+            p.initialSP = readWord(in);
+
+            int statements = readCount(in);
+            for(int i = 0; i < statements; i++) {
+                Address address = new Address(in.getInt());
+                Instruction instruction = Instruction.valueOf(readString(in));
+                int lineNumber = in.getInt();
+                int numOperands = readCount(in);
+                List<Operand> operands = new ArrayList<>(numOperands);
+                for(int j = 0; j < numOperands; j++) {
+                    operands.add(readOperand(in));
+                }
+                p.textSegment.put(address, new Statement(instruction, operands, lineNumber));
+            }
+
+            if(readBoolean(in)) {
+                p.textImage = new int[readCount(in)];
+                in.asIntBuffer().get(p.textImage);
+                in.position(in.position() + 4 * p.textImage.length);
+            }
+
+            int variables = readCount(in);
+            for(int i = 0; i < variables; i++) {
+                Address address = new Address(in.getInt());
+                Variable.Type type = Variable.Type.valueOf(readString(in));
+                int size = in.getInt();
+                int lineNumber = in.getInt();
+                Optional<Operand> initialValue = readBoolean(in) ? Optional.of(readOperand(in)) : Optional.empty();
+                p.dataSegmentVariables.put(address, new Variable(type, size, initialValue, lineNumber));
+            }
+
+            if(readBoolean(in)) {
+                p.dataSegment = new byte[readCount(in)];
+                in.get(p.dataSegment);
+            }
+            p.dataSegmentSize = in.getInt();
+            if(p.dataSegmentSize < 0 || (p.dataSegment != null && p.dataSegment.length > p.dataSegmentSize)) {
+                throw new IOException("invalid data segment size");
+            }
+
+            int labels = readCount(in);
+            for(int i = 0; i < labels; i++) {
+                String name = readString(in);
+                int lineNumber = in.getInt();
+                Label.Type type = Label.Type.valueOf(readString(in));
+                p.labels.put(new Label(name, lineNumber, type), new Address(in.getInt()));
+            }
+
+            int annotations = readCount(in);
+            for(int i = 0; i < annotations; i++) {
+                Address address = new Address(in.getInt());
+                p.annotations.put(address, new Annotation(readString(in)));
+            }
+
+            if(readBoolean(in)) {
+                p.initAnnotation = new Annotation(readString(in));
+            }
+
+            int lineNumbers = readCount(in);
+            for(int i = 0; i < lineNumbers; i++) {
+                Address address = new Address(in.getInt());
+                p.lineNumbers.put(address, in.getInt());
+            }
+
+            return p;
+        } catch(BufferUnderflowException e) {
+            throw new IOException("truncated program image", e);
+        } catch(IllegalArgumentException e) {
+            // an enum constant which no longer exists
+            throw new IOException("invalid program image: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeOperand(Operand op, DataOutputStream out) throws IOException {
+        out.writeByte(op.getType().ordinal());
+        switch(op.getType()) {
+            case Integer:
+                out.writeInt(op.asIntegerOp().value);
+                break;
+            case String:
+                writeString(op.asStringOp().value, out);
+                break;
+            case Register:
+                writeString(op.asRegisterOp().value.name(), out);
+                break;
+            case Address: {
+                AddressOperand a = op.asAddressOp();
+                out.writeBoolean(a.labelName.isPresent());
+                if(a.labelName.isPresent()) {
+                    writeString(a.labelName.get(), out);
+                }
+                out.writeBoolean(a.constant.isPresent());
+                if(a.constant.isPresent()) {
+                    out.writeInt(a.constant.get());
+                }
+                out.writeBoolean(a.register.isPresent());
+                if(a.register.isPresent()) {
+                    writeString(a.register.get().name(), out);
+                }
+                break;
+            }
+        }
+    }
+
+    private static Operand readOperand(ByteBuffer in) throws IOException {
+        int type = in.get() & 0xFF;
+        if(type >= Operand.Type.values().length) {
+            throw new IOException("invalid operand type: " + type);
+        }
+        switch(Operand.Type.values()[type]) {
+            case Integer:
+                return new IntegerOperand(in.getInt());
+            case String:
+                return new StringOperand(readString(in));
+            case Register:
+                return new RegisterOperand(Register.valueOf(readString(in)));
+            case Address: {
+                Optional<String> labelName = readBoolean(in) ? Optional.of(readString(in)) : Optional.empty();
+                Optional<Integer> constant = readBoolean(in) ? Optional.of(in.getInt()) : Optional.empty();
+                Optional<Register> register = readBoolean(in) ? Optional.of(Register.valueOf(readString(in))) : Optional.empty();
+                return new AddressOperand(labelName, constant, register);
+            }
+            default:
+                throw new IOException("invalid operand type: " + type);
+        }
+    }
+
+    private static void writeWord(Word w, DataOutputStream out) throws IOException {
+        out.writeBoolean(w != null);
+        if(w != null) {
+            out.write(w.getWord());
+        }
+    }
+
+    private static Word readWord(ByteBuffer in) throws IOException {
+        if(!readBoolean(in)) {
+            return null;
+        }
+        byte[] bytes = new byte[4];
+        in.get(bytes);
+        return new Word(bytes);
+    }
+
+    private static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    /**
+     * read the number of items which follow, each of which takes at least a
+     * byte, so a corrupt count cannot cause a huge allocation
+     */
+    private static int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if(count < 0 || count > in.remaining()) {
+            throw new IOException("invalid count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * strings are written as length-prefixed UTF-8 rather than with writeUTF,
+     * which is limited to 64KB (which annotations may exceed) and cannot be
+     * read from a buffer
+     */
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[readCount(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -131,7 +131,7 @@ public class ProgramStringBuilder {
                 sb.append("\n\n");
             }
 
-            sb.append("## Raw Data Segment (as hex) ##\n");
+            sb.append("## Raw Data Segment (as hex, ").append(p.dataSegmentSize).append(" bytes) ##\n");
             sb.append(DatatypeConverter.printHexBinary(p.dataSegment));
 
             sb.append("\n\n");
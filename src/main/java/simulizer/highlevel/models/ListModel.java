@@ -50,6 +50,39 @@ public class ListModel extends DataStructureModel {
 		notifyObservers(new ListAction());
 	}
 
+	/**
+	 * Updates the list with new values. Only the elements which have changed are copied and the visualiser
+	 * is only notified if something has changed. Unlike setList, the markers are kept.
+	 * 
+	 * @param values
+	 *            the new values of the list
+	 * @return whether the list has changed
+	 */
+	public boolean update(long[] values) {
+		boolean changed = false;
+		synchronized (list) {
+			synchronized (markers) {
+				if (values.length != list.length) {
+					list = Arrays.copyOf(values, values.length);
+					size = values.length;
+					changed = true;
+				} else {
+					for (int i = 0; i < values.length; i++) {
+						if (list[i] != values[i]) {
+							list[i] = values[i];
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+		if (changed) {
+			setChanged();
+			notifyObservers(new UpdateAction());
+		}
+		return changed;
+	}
+
 	/**
 	 * Checks whether an index exists. Will print error if invalid.
 	 * 
@@ -233,6 +266,18 @@ public class ListModel extends DataStructureModel {
 		}
 	}
 
+	/**
+	 * Elements of the list changed action (markers are kept)
+	 *
+	 * @author mbway
+	 */
+	public class UpdateAction extends ModelAction<long[]> {
+
+		private UpdateAction() {
+			super(getList(), false);
+		}
+	}
+
 	/**
 	 * Defines a Swap Action
 	 *
@@ -1,6 +1,7 @@
 package simulizer.lowlevel.models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Observer;
@@ -26,36 +27,54 @@ public class PipelineHistoryModel {
 
 	/**
 	 * Represents a single state in the pipeline. This has public fields
-	 * for accessing the fetch, decode, and execute addresses, as well as
-	 * lists of the addresses before (waiting) and after (complete) the
-	 * pipeline. There is also information about whether or not the stage
-	 * represents a jump instruction, and whether it has a hazard.
+	 * for accessing the address in each stage of the pipeline (the first
+	 * stage being fetch), as well as lists of the addresses before (waiting)
+	 * and after (complete) the pipeline. There is also information about
+	 * whether or not the stage represents a jump instruction, and whether
+	 * it has a hazard.
 	 *
 	 * @author Kelsey McKenna
 	 *
 	 */
 	public class PipelineState {
 		public final List<Address> before;
-		public final Address fetched;
-		public final Address decoded;
-		public final Address executed;
+		public final Address[] stages;
+		public final int width;
 		public final List<Address> after;
 		public final boolean isJump;
 		public final Optional<PipelineHazardMessage.Hazard> hazard;
 
-		PipelineState(List<Address> before, Address fetch, Address decode, Address execute, List<Address> after, boolean isJump) {
+		PipelineState(List<Address> before, Address[] stages, int width, List<Address> after, boolean isJump) {
 			this.before = before;
-			this.fetched = fetch;
-			this.decoded = decode;
-			this.executed = execute;
+			this.stages = stages;
+			this.width = width;
 			this.after = after;
 			this.isJump = isJump;
 
-			if (fetch == null || decode == null || execute == null) {
+			if (Arrays.asList(stages).contains(null)) {
 				if (currentHazard == null) this.hazard = Optional.empty();
 				else this.hazard = Optional.of(currentHazard);
 			} else this.hazard = Optional.empty();
 		}
+
+		/**
+		 * @return the address in the first (fetch) stage, the earliest if the stage holds several instructions
+		 */
+		public Address getFetched() {
+			for (int i = 0; i < width; ++i)
+				if (stages[i] != null) return stages[i];
+			return null;
+		}
+
+		/**
+		 * @return the addresses in the last stage, i.e. the instructions leaving the pipeline, latest first
+		 */
+		public List<Address> getCompleted() {
+			List<Address> completed = new ArrayList<>(width);
+			for (int i = stages.length - 1; i >= stages.length - width; --i)
+				if (stages[i] != null) completed.add(stages[i]);
+			return completed;
+		}
 	}
 
 	public List<PipelineState> getHistory() {
@@ -83,9 +102,11 @@ public class PipelineHistoryModel {
 	public void processPipelineStateMessage(final PipelineStateMessage m) {
 		if (size() >= MAX_SIZE) return;
 
-		final Address fetched = m.getFetched();
-		final Address decoded = m.getDecoded();
-		final Address executed = m.getExecuted();
+		final Address[] stages = m.getStages();
+		final int width = m.getWidth();
+		Address fetched = null;
+		for (int i = 0; i < width && fetched == null; ++i)
+			fetched = stages[i];
 
 		List<Address> before = new ArrayList<>(3);
 		List<Address> after = new ArrayList<>(3);
@@ -99,12 +120,13 @@ public class PipelineHistoryModel {
 				before.add(new Address(currentFetchAddress + 4 * i));
 
 			// -- Get the addresses after the pipeline
-			// It *is* a jump if the current fetch address is not equal to `last` or `last + 4`
+			// It *is* a jump if the current fetch address is not equal to `last` or one of the
+			// next `width` instructions after it
 			if (history.size() > 0) {
-				Address lastFetch = history.get(history.size() - 1).fetched;
+				Address lastFetch = history.get(history.size() - 1).getFetched();
 				if (lastFetch != null) {
-					int lastFetchAddress = lastFetch.getValue();
-					isJump = currentFetchAddress != lastFetchAddress && currentFetchAddress != lastFetchAddress + 4;
+					int step = currentFetchAddress - lastFetch.getValue();
+					isJump = step != 0 && (step < 4 || step > 4 * width);
 				}
 			}
 		}
@@ -118,14 +140,16 @@ public class PipelineHistoryModel {
 			// and stop looking if you reach a jump instruction
 			PipelineState state;
 			for (int i = history.size() - 1; i >= 0 && count < 3 && !(state = history.get(i)).isJump; --i) {
-				if (state.executed != null) {
-					after.add(state.executed);
-					++count;
+				for (Address completed : state.getCompleted()) {
+					if (count < 3) {
+						after.add(completed);
+						++count;
+					}
 				}
 			}
 		}
 
-		PipelineState nextState = new PipelineState(before, fetched, decoded, executed, after, isJump);
+		PipelineState nextState = new PipelineState(before, stages, width, after, isJump);
 		history.add(nextState);
 		notifyObservers(nextState);
 	}
@@ -71,7 +71,47 @@ public class Settings {
 		settings.add(new ObjectSetting("simulation", "CPU Simulation")
 						.add(new DoubleSetting("default-CPU-frequency", "Default CPU cycle frequency", "Default number of cycles (runs of fetch+decode+execute) per second (Hz)", 4, 0, Integer.MAX_VALUE))
 						.add(new BooleanSetting("zero-memory", "Zero Memory", "Sets whether memory should be zeroed"))
-						.add(new BooleanSetting("pipelined", "Use Pipelined CPU", "Sets whether to use the pipelined CPU or not", false))
+						.add(new StringSetting("cpu-type", "CPU Type", "The model of CPU to simulate. Supported: non-pipelined, pipelined (3 stage), five-stage (5 stage pipeline), dual-issue (3 stage, 2 instructions per cycle), out-of-order (Tomasulo style dynamic scheduling)", "non-pipelined"))
+						.add(new BooleanSetting("asynchronous-annotations", "Asynchronous Annotations", "Run annotations against a copy of the registers while the simulation carries on, rather than waiting for each one. Annotations which pause or stop the simulation, set registers or access memory are still waited for", false))
+						.add(new IntegerSetting("annotation-time-budget", "Annotation Time Budget", "Warn in the debug output when a single annotation takes longer than this to execute (milliseconds, 0 to never warn)", 100, 0, Integer.MAX_VALUE))
+						.add(new ObjectSetting("cache", "L1 Caches", "Simulated caches in front of main memory, which add miss penalties to the cycle count")
+							.add(new ObjectSetting("instruction", "Instruction Cache")
+								.add(new BooleanSetting("enabled", "Enabled", "Simulate an L1 instruction cache", false))
+								.add(new IntegerSetting("size", "Size", "Capacity of the cache in bytes (power of 2)", 1024, 1, Integer.MAX_VALUE))
+								.add(new IntegerSetting("line-size", "Line Size", "Number of bytes in each line (power of 2)", 16, 1, Integer.MAX_VALUE))
+								.add(new IntegerSetting("associativity", "Associativity", "Number of lines in each set, 1 for a direct mapped cache (power of 2)", 2, 1, Integer.MAX_VALUE))
+								.add(new StringSetting("replacement", "Replacement Policy", "Which line of a set to evict. Supported: lru, fifo, random", "lru"))
+								.add(new IntegerSetting("miss-penalty", "Miss Penalty", "Number of cycles charged for each access to main memory", 10, 0, Integer.MAX_VALUE)))
+							.add(new ObjectSetting("data", "Data Cache")
+								.add(new BooleanSetting("enabled", "Enabled", "Simulate an L1 data cache", false))
+								.add(new IntegerSetting("size", "Size", "Capacity of the cache in bytes (power of 2)", 1024, 1, Integer.MAX_VALUE))
+								.add(new IntegerSetting("line-size", "Line Size", "Number of bytes in each line (power of 2)", 16, 1, Integer.MAX_VALUE))
+								.add(new IntegerSetting("associativity", "Associativity", "Number of lines in each set, 1 for a direct mapped cache (power of 2)", 2, 1, Integer.MAX_VALUE))
+								.add(new StringSetting("replacement", "Replacement Policy", "Which line of a set to evict. Supported: lru, fifo, random", "lru"))
+								.add(new StringSetting("write-policy", "Write Policy", "How writes are handled. Supported: write-back, write-through", "write-back"))
+								.add(new IntegerSetting("miss-penalty", "Miss Penalty", "Number of cycles charged for each access to main memory", 10, 0, Integer.MAX_VALUE))))
+						.add(new ObjectSetting("mmu", "Virtual Memory", "Simulated MMU translating the addresses of loads and stores, which adds TLB miss and page fault penalties to the cycle count")
+							.add(new BooleanSetting("enabled", "Enabled", "Simulate address translation for loads and stores", false))
+							.add(new IntegerSetting("page-size", "Page Size", "Number of bytes in a page (power of 2)", 4096, 16, Integer.MAX_VALUE))
+							.add(new IntegerSetting("physical-frames", "Physical Frames", "Number of pages which fit in physical memory", 256, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("tlb-entries", "TLB Entries", "Number of translations held in the TLB (power of 2)", 16, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("tlb-associativity", "TLB Associativity", "Number of entries in each set of the TLB, equal to the number of entries for a fully associative TLB (power of 2)", 4, 1, Integer.MAX_VALUE))
+							.add(new StringSetting("tlb-replacement", "TLB Replacement Policy", "Which TLB entry of a set to evict. Supported: lru, fifo, random", "lru"))
+							.add(new IntegerSetting("tlb-miss-penalty", "TLB Miss Penalty", "Number of cycles taken to walk the page table", 20, 0, Integer.MAX_VALUE))
+							.add(new IntegerSetting("page-fault-penalty", "Page Fault Penalty", "Number of cycles taken to bring a page into physical memory", 1000, 0, Integer.MAX_VALUE)))
+						.add(new ObjectSetting("out-of-order", "Out of Order CPU", "Configuration of the out-of-order CPU type")
+							.add(new IntegerSetting("rob-size", "Reorder Buffer Size", "Number of instructions which can be in flight", 16, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("rs-size", "Reservation Station Size", "Number of instructions which can wait for each kind of functional unit", 4, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("dispatch-width", "Dispatch Width", "Number of instructions dispatched per cycle", 2, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("commit-width", "Commit Width", "Number of instructions committed per cycle", 2, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("integer-units", "Integer Units", "Number of integer ALUs", 2, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("multiply-latency", "Multiply Latency", "Number of cycles taken by a multiplication", 4, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("divide-latency", "Divide Latency", "Number of cycles taken by a division or remainder", 12, 1, Integer.MAX_VALUE))
+							.add(new IntegerSetting("memory-latency", "Memory Latency", "Number of cycles taken by a load or store", 2, 1, Integer.MAX_VALUE)))
+					);
+		settings.add(new ObjectSetting("assembler", "Assembler")
+					.add(new IntegerSetting("cache-size", "Program cache size", "Number of assembled programs to keep in memory, so that unchanged programs are not assembled again", 16, 0, Integer.MAX_VALUE))
+					.add(new StringSetting("cache-directory", "Program cache directory", "Directory to also store assembled programs in, so they are kept between runs of Simulizer (optional)", ""))
 					);
 		settings.add(new ObjectSetting("editor", "Editor")
 					.add(new StringSetting("font-family", "Font family", "Font family (optional). Supports all installed monospace fonts, use single quotes for names with spaces. Separate multiple choices with commas", "monospace"))
@@ -84,7 +124,8 @@ public class Settings {
 					.add(new BooleanSetting("vim-mode", "Vim mode", "Vim keybindings for the editor", false))
 					.add(new BooleanSetting("wrap", "Wrap long lines", "Wrap long lines", false))
 					.add(new BooleanSetting("continuous-assembly", "Continuous Assembly", "Repeatedly assemble the program behind the scenes as you type, and highlight problems in the editor", true))
-					.add(new IntegerSetting("continuous-assembly-refresh-period", "Continuous Assembly Period", "The time between refreshing the highlighted problems by assembling the program (milliseconds)", 1500, 1, Integer.MAX_VALUE))
+					.add(new IntegerSetting("continuous-assembly-refresh-period", "Continuous Assembly Period", "How long to wait after the last change to the program before assembling it and refreshing the highlighted problems (milliseconds)", 1500, 1, Integer.MAX_VALUE))
+					.add(new BooleanSetting("incremental-assembly", "Incremental Assembly", "Only re-parse the lines which have changed since the last continuous assembly, which keeps the highlighted problems responsive for large programs", true))
 					);
 		settings.add(new ObjectSetting("splash-screen", "Splash Screen")
 					.add(new BooleanSetting("enabled", "Show splash screen", "Toggles whether the splash screen is shown on launch", true))
@@ -101,12 +142,37 @@ public class Settings {
 				);
 		// @formatter:on
 
+		migrate(jsonObject);
+
 		// Loads all the values from jsonObject
 		for (SettingValue<?> setting : settings.getValue()) {
 			loadFromJson(jsonObject, setting);
 		}
 	}
 
+	/**
+	 * convert settings saved by older versions to their current form
+	 * 
+	 * @param jsonObject
+	 *            the loaded json file, which is modified
+	 */
+	private static void migrate(JsonObject jsonObject) {
+		JsonElement simulation = jsonObject.get("simulation");
+		if (simulation == null || !simulation.isJsonObject())
+			return;
+		JsonObject sim = simulation.getAsJsonObject();
+
+		// the boolean "pipelined" setting was replaced by "cpu-type"
+		JsonElement pipelined = sim.remove("pipelined");
+		if (pipelined != null && !sim.has("cpu-type")) {
+			try {
+				sim.addProperty("cpu-type", pipelined.getAsBoolean() ? "pipelined" : "non-pipelined");
+			} catch (Exception e) {
+				// Setting was of invalid type, ignoring
+			}
+		}
+	}
+
 	private void loadFromJson(JsonObject jsonObject, SettingValue<?> setting) {
 		JsonElement element = jsonObject.get(setting.getJsonName());
 
@@ -0,0 +1,182 @@
+package simulizer.simulation.cpu.cache;
+
+import java.util.Random;
+
+/**this class models a set associative cache
+ * only the tags are stored, the data itself always lives in main memory,
+ * so the cache affects timing and statistics but never the results of a program
+ */
+public class Cache {
+
+	private final CacheConfig config;
+	private final int offsetBits;//bits of an address selecting a byte in a line
+	private final int setBits;//bits of an address selecting a set
+
+	//one entry per line, indexed by set * associativity + way
+	private final long[] tags;
+	private final boolean[] valid;
+	private final boolean[] dirty;
+	private final long[] stamps;//time of last use (LRU) or time of loading (FIFO)
+	private final CacheStatistics[] owners;//statistics of the label whose access loaded each line (may be null)
+
+	private long time;//incremented on each access, used for the stamps
+	private final Random random;
+	private final CacheStatistics statistics;
+
+	/**creates an empty cache
+	 *
+	 * @param config the geometry and policies of the cache
+	 */
+	public Cache(CacheConfig config) {
+		this.config = config;
+		this.offsetBits = Integer.numberOfTrailingZeros(config.lineSize);
+		this.setBits = Integer.numberOfTrailingZeros(config.getSetCount());
+
+		int lines = config.getSetCount() * config.associativity;
+		this.tags = new long[lines];
+		this.valid = new boolean[lines];
+		this.dirty = new boolean[lines];
+		this.stamps = new long[lines];
+		this.owners = new CacheStatistics[lines];
+		this.random = new Random(0);//fixed seed so runs are repeatable
+		this.statistics = new CacheStatistics();
+		this.time = 0;
+	}
+
+	/**simulates an access to a range of bytes, which may span multiple lines
+	 *
+	 * @param address the first byte accessed
+	 * @param length the number of bytes accessed
+	 * @param write whether the access is a write
+	 * @param labelStatistics additional statistics to record the access in (may be null).
+	 *                        Lines loaded by the access record their eviction here too
+	 * @return the number of cycles spent waiting for main memory
+	 */
+	public int access(int address, int length, boolean write, CacheStatistics labelStatistics) {
+		long first = Integer.toUnsignedLong(address) >>> offsetBits;
+		long last = (Integer.toUnsignedLong(address) + Math.max(length, 1) - 1) >>> offsetBits;
+		int penalty = 0;
+		for (long line = first; line <= last; line++) {
+			penalty += accessLine(line, write, labelStatistics);
+		}
+		return penalty;
+	}
+
+	/**simulates an access to a single line
+	 *
+	 * @param line the address of the line (the byte address without the offset bits)
+	 * @param write whether the access is a write
+	 * @param labelStatistics additional statistics to record the access in (may be null)
+	 * @return the number of cycles spent waiting for main memory
+	 */
+	private int accessLine(long line, boolean write, CacheStatistics labelStatistics) {
+		time++;
+		int set = (int) (line & ((1L << setBits) - 1));
+		long tag = line >>> setBits;
+		int base = set * config.associativity;
+		boolean writeThrough = config.writePolicy == WritePolicy.WRITE_THROUGH;
+
+		for (int way = base; way < base + config.associativity; way++) {
+			if (valid[way] && tags[way] == tag) {//hit
+				record(labelStatistics, true);
+				if (config.replacement == ReplacementPolicy.LRU) {
+					stamps[way] = time;
+				}
+				if (write && !writeThrough) {
+					dirty[way] = true;
+				}
+				return write && writeThrough ? config.missPenalty : 0;
+			}
+		}
+
+		record(labelStatistics, false);
+		if (write && writeThrough) {//no write allocate
+			return config.missPenalty;
+		}
+
+		int penalty = config.missPenalty;
+		int victim = chooseVictim(base);
+		if (valid[victim]) {
+			boolean writeBack = dirty[victim];
+			statistics.recordEviction(writeBack);
+			if (owners[victim] != null) {//the label whose data is evicted, not the label causing the eviction
+				owners[victim].recordEviction(writeBack);
+			}
+			if (writeBack) {
+				penalty += config.missPenalty;
+			}
+		}
+		tags[victim] = tag;
+		valid[victim] = true;
+		dirty[victim] = write;
+		stamps[victim] = time;
+		owners[victim] = labelStatistics;
+		return penalty;
+	}
+
+	/**chooses the line of a set to be replaced, preferring an invalid line
+	 *
+	 * @param base the index of the first line in the set
+	 * @return the index of the line to replace
+	 */
+	private int chooseVictim(int base) {
+		int victim = base;
+		for (int way = base; way < base + config.associativity; way++) {
+			if (!valid[way]) {
+				return way;
+			}
+			if (stamps[way] < stamps[victim]) {
+				victim = way;
+			}
+		}
+		if (config.replacement == ReplacementPolicy.RANDOM) {
+			return base + random.nextInt(config.associativity);
+		}
+		return victim;//the oldest stamp, which is last use for LRU and load time for FIFO
+	}
+
+	/**removes the line holding an address from the cache (without writing it back)
+	 * used when the data the line refers to is no longer valid, eg a TLB entry for an evicted page
+	 * @param address any address within the line
+	 */
+	public void invalidate(int address) {
+		long line = Integer.toUnsignedLong(address) >>> offsetBits;
+		int set = (int) (line & ((1L << setBits) - 1));
+		long tag = line >>> setBits;
+		int base = set * config.associativity;
+		for (int way = base; way < base + config.associativity; way++) {
+			if (valid[way] && tags[way] == tag) {
+				valid[way] = false;
+				dirty[way] = false;
+				owners[way] = null;
+			}
+		}
+	}
+
+	private void record(CacheStatistics labelStatistics, boolean hit) {
+		if (hit) {
+			statistics.recordHit();
+		} else {
+			statistics.recordMiss();
+		}
+		if (labelStatistics != null) {
+			if (hit) {
+				labelStatistics.recordHit();
+			} else {
+				labelStatistics.recordMiss();
+			}
+		}
+	}
+
+	public CacheConfig getConfig() {
+		return config;
+	}
+
+	/**the statistics for every access made to the cache since it was created
+	 *
+	 * @return the statistics
+	 */
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+}
@@ -0,0 +1,64 @@
+package simulizer.simulation.cpu.cache;
+
+/**describes the geometry and policies of a single set associative cache
+ * a direct mapped cache has an associativity of 1 and a fully associative
+ * cache has an associativity of size / lineSize
+ */
+public class CacheConfig {
+
+	public final int size;//total capacity in bytes
+	public final int lineSize;//bytes per line
+	public final int associativity;//lines per set
+	public final ReplacementPolicy replacement;
+	public final WritePolicy writePolicy;
+	public final int missPenalty;//cycles charged for each access to main memory
+
+	/**creates a new cache configuration
+	 *
+	 * @param size the capacity of the cache in bytes
+	 * @param lineSize the number of bytes in a line
+	 * @param associativity the number of lines in each set
+	 * @param replacement how to choose a line to evict
+	 * @param writePolicy how writes are handled
+	 * @param missPenalty the number of cycles taken to access main memory
+	 * @throws IllegalArgumentException if the geometry does not describe a valid cache
+	 */
+	public CacheConfig(int size, int lineSize, int associativity, ReplacementPolicy replacement,
+			WritePolicy writePolicy, int missPenalty) {
+		if (!isPowerOfTwo(size) || !isPowerOfTwo(lineSize) || !isPowerOfTwo(associativity)) {
+			throw new IllegalArgumentException("Cache size, line size and associativity must be powers of 2");
+		}
+		if (lineSize * associativity > size) {
+			throw new IllegalArgumentException("Cache of " + size + " bytes cannot hold a set of "
+					+ associativity + " lines of " + lineSize + " bytes");
+		}
+		if (missPenalty < 0) {
+			throw new IllegalArgumentException("Miss penalty cannot be negative");
+		}
+		this.size = size;
+		this.lineSize = lineSize;
+		this.associativity = associativity;
+		this.replacement = replacement;
+		this.writePolicy = writePolicy;
+		this.missPenalty = missPenalty;
+	}
+
+	/**the number of sets in the cache
+	 *
+	 * @return size / (lineSize * associativity)
+	 */
+	public int getSetCount() {
+		return size / (lineSize * associativity);
+	}
+
+	private static boolean isPowerOfTwo(int n) {
+		return n > 0 && (n & (n - 1)) == 0;
+	}
+
+	@Override
+	public String toString() {
+		return size + "B, " + lineSize + "B lines, " + associativity + "-way, "
+				+ replacement.getSettingName() + ", " + writePolicy.getSettingName()
+				+ ", " + missPenalty + " cycle miss penalty";
+	}
+}
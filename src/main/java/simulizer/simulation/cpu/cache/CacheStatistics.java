@@ -0,0 +1,65 @@
+package simulizer.simulation.cpu.cache;
+
+/**counts the outcome of accesses made to a cache
+ */
+public class CacheStatistics {
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long writeBacks;//dirty lines written back to memory
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public long getWriteBacks() {
+		return writeBacks;
+	}
+
+	/**the total number of line accesses
+	 *
+	 * @return hits + misses
+	 */
+	public long getAccesses() {
+		return hits + misses;
+	}
+
+	/**the proportion of accesses which hit
+	 *
+	 * @return the hit rate, 0 if there have been no accesses
+	 */
+	public double getHitRate() {
+		long accesses = getAccesses();
+		return accesses == 0 ? 0 : (double) hits / accesses;
+	}
+
+	void recordHit() {
+		hits++;
+	}
+
+	void recordMiss() {
+		misses++;
+	}
+
+	void recordEviction(boolean writtenBack) {
+		evictions++;
+		if (writtenBack) {
+			writeBacks++;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d accesses, %d hits, %d misses (%.1f%% hit rate), %d evictions, %d write backs",
+				getAccesses(), hits, misses, getHitRate() * 100, evictions, writeBacks);
+	}
+}
@@ -0,0 +1,155 @@
+package simulizer.simulation.cpu.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Label;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.Statement;
+import simulizer.simulation.cpu.components.MainMemory;
+import simulizer.simulation.exceptions.HeapException;
+import simulizer.simulation.exceptions.MemoryException;
+import simulizer.simulation.exceptions.StackException;
+
+/**main memory with an L1 instruction cache in front of the text segment
+ * and an L1 data cache in front of the rest of memory
+ * the caches only model timing: every access still reads and writes main memory,
+ * the cycles spent waiting for memory are collected to be charged to the cpu
+ */
+public class CachedMainMemory extends MainMemory {
+
+	private final Cache instructionCache;//null if there is no instruction cache
+	private final Cache dataCache;//null if there is no data cache
+
+	private final TreeMap<Integer, String> variableStarts;//address of each labelled static variable -> its label
+	private final int endOfStaticData;
+	private final Map<String, CacheStatistics> labelStatistics;
+
+	private long stallCycles;//penalty cycles not yet charged to the cpu
+
+	/**creates main memory for a program with caches in front of it
+	 *
+	 * @param program the program being run
+	 * @param stackPointer the initial stack pointer
+	 * @param instructionConfig the instruction cache configuration, null for no instruction cache
+	 * @param dataConfig the data cache configuration, null for no data cache
+	 */
+	public CachedMainMemory(Program program, Address stackPointer, CacheConfig instructionConfig, CacheConfig dataConfig) {
+		super(program.textSegment, program.textImage, program.dataSegment, program.dataSegmentSize, program.textSegmentStart, program.dataSegmentStart,
+				program.dynamicSegmentStart, stackPointer);
+		this.instructionCache = instructionConfig == null ? null : new Cache(instructionConfig);
+		this.dataCache = dataConfig == null ? null : new Cache(dataConfig);
+		this.stallCycles = 0;
+
+		//a label owns every variable from its address up to the next label, eg all the words of an array
+		this.variableStarts = new TreeMap<>();
+		this.labelStatistics = new LinkedHashMap<>();
+		for (Map.Entry<Label, Address> l : program.labels.entrySet()) {
+			if (program.dataSegmentVariables.containsKey(l.getValue())) {
+				variableStarts.put(l.getValue().getValue(), l.getKey().getName());
+			}
+		}
+		for (String name : variableStarts.values()) {
+			labelStatistics.put(name, new CacheStatistics());
+		}
+		this.endOfStaticData = program.dataSegmentStart.getValue() + program.dataSegmentSize;
+	}
+
+	/**find the statistics for the labelled static data containing an address
+	 *
+	 * @param address the address being accessed
+	 * @return the statistics of the label, or null if the address is not in labelled static data
+	 */
+	private CacheStatistics statisticsFor(int address) {
+		Map.Entry<Integer, String> variable = variableStarts.floorEntry(address);
+		if (variable != null && address < endOfStaticData) {
+			return labelStatistics.get(variable.getValue());
+		}
+		return null;
+	}
+
+	@Override
+	public byte[] readFromMem(int address, int length) throws MemoryException, HeapException, StackException {
+		byte[] result = super.readFromMem(address, length);
+		if (dataCache != null) {
+			stallCycles += dataCache.access(address, length, false, statisticsFor(address));
+		}
+		return result;
+	}
+
+	@Override
+	public void writeToMem(int address, byte[] toWrite) throws MemoryException, HeapException, StackException {
+		super.writeToMem(address, toWrite);
+		if (dataCache != null) {
+			stallCycles += dataCache.access(address, toWrite.length, true, statisticsFor(address));
+		}
+	}
+
+	@Override
+	public Statement readFromTextSegment(Address address) throws MemoryException {
+		Statement result = super.readFromTextSegment(address);
+		if (instructionCache != null) {
+			stallCycles += instructionCache.access(address.getValue(), 4, false, null);
+		}
+		return result;
+	}
+
+	/**the cycles spent waiting for main memory since this was last called
+	 *
+	 */
+	@Override
+	public long takeStallCycles() {
+		long stalls = stallCycles;
+		stallCycles = 0;
+		return stalls;
+	}
+
+	/**get the instruction cache
+	 *
+	 * @return the instruction cache, or null if there isn't one
+	 */
+	public Cache getInstructionCache() {
+		return instructionCache;
+	}
+
+	/**get the data cache
+	 *
+	 * @return the data cache, or null if there isn't one
+	 */
+	public Cache getDataCache() {
+		return dataCache;
+	}
+
+	/**the data cache statistics for each labelled variable in the static data segment
+	 * accesses to the heap, stack and unlabelled data are only counted in the totals of the data cache
+	 * @return a map from label name to statistics, in address order
+	 */
+	public Map<String, CacheStatistics> getLabelStatistics() {
+		return Collections.unmodifiableMap(labelStatistics);
+	}
+
+	/**a summary of the cache statistics, suitable for printing after a run
+	 *
+	 * @return the summary
+	 */
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder();
+		if (instructionCache != null) {
+			sb.append("I-cache (").append(instructionCache.getConfig()).append("): ")
+					.append(instructionCache.getStatistics()).append('\n');
+		}
+		if (dataCache != null) {
+			sb.append("D-cache (").append(dataCache.getConfig()).append("): ")
+					.append(dataCache.getStatistics()).append('\n');
+			for (Map.Entry<String, CacheStatistics> e : labelStatistics.entrySet()) {
+				if (e.getValue().getAccesses() != 0) {
+					sb.append("  ").append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+				}
+			}
+		}
+		return sb.toString();
+	}
+}
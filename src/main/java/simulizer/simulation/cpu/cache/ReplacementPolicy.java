@@ -0,0 +1,37 @@
+package simulizer.simulation.cpu.cache;
+
+/**the policies a cache can use to choose which line of a set to evict
+ */
+public enum ReplacementPolicy {
+	LRU("lru"),//evict the line used longest ago
+	FIFO("fifo"),//evict the line loaded longest ago
+	RANDOM("random");//evict any line in the set
+
+	private final String settingName;
+
+	ReplacementPolicy(String settingName) {
+		this.settingName = settingName;
+	}
+
+	/**the name used to identify this policy in the settings file
+	 *
+	 * @return the setting name
+	 */
+	public String getSettingName() {
+		return settingName;
+	}
+
+	/**get the policy with the given setting name
+	 *
+	 * @param name the name used in the settings file
+	 * @return the matching policy, or LRU if no policy matches
+	 */
+	public static ReplacementPolicy fromSettingName(String name) {
+		for (ReplacementPolicy p : values()) {
+			if (p.settingName.equals(name)) {
+				return p;
+			}
+		}
+		return LRU;
+	}
+}
@@ -0,0 +1,41 @@
+package simulizer.simulation.cpu.cache;
+
+/**the policies a cache can use when a write hits or misses
+ */
+public enum WritePolicy {
+	/**writes only update the cache (allocating the line on a miss),
+	 * a dirty line is written back to memory when it is evicted
+	 */
+	WRITE_BACK("write-back"),
+	/**every write goes straight to memory, a write miss does not allocate a line
+	 */
+	WRITE_THROUGH("write-through");
+
+	private final String settingName;
+
+	WritePolicy(String settingName) {
+		this.settingName = settingName;
+	}
+
+	/**the name used to identify this policy in the settings file
+	 *
+	 * @return the setting name
+	 */
+	public String getSettingName() {
+		return settingName;
+	}
+
+	/**get the policy with the given setting name
+	 *
+	 * @param name the name used in the settings file
+	 * @return the matching policy, or WRITE_BACK if no policy matches
+	 */
+	public static WritePolicy fromSettingName(String name) {
+		for (WritePolicy p : values()) {
+			if (p.settingName.equals(name)) {
+				return p;
+			}
+		}
+		return WRITE_BACK;
+	}
+}
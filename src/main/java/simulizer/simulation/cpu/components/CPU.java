@@ -13,7 +13,11 @@ import simulizer.assembler.representation.Program;
 import simulizer.assembler.representation.Register;
 import simulizer.assembler.representation.Statement;
 import simulizer.assembler.representation.operand.Operand;
+import simulizer.simulation.cpu.cache.CacheConfig;
+import simulizer.simulation.cpu.cache.CachedMainMemory;
 import simulizer.simulation.cpu.user_interaction.IO;
+import simulizer.simulation.cpu.vm.MMU;
+import simulizer.simulation.cpu.vm.MMUConfig;
 import simulizer.simulation.data.representation.DataConverter;
 import simulizer.simulation.data.representation.Word;
 import simulizer.simulation.exceptions.*;
@@ -54,6 +58,7 @@ public class CPU {
 	private ALU Alu;
 	protected final Clock clock;
 	protected long cycles;
+	protected long instructionsRetired;
 	/**
 	 * used for resume for single cycle
 	 */
@@ -61,6 +66,10 @@ public class CPU {
 
 	private Word[] registers;
 	private MainMemory memory;
+	private CacheConfig instructionCacheConfig;// null when there is no instruction cache
+	private CacheConfig dataCacheConfig;// null when there is no data cache
+	private MMUConfig mmuConfig;// null when addresses are not translated
+	private MMU mmu;
 
 	private Decoder decoder;
 	private Executor executor;
@@ -87,6 +96,7 @@ public class CPU {
 		this.clearRegisters();
 		this.clock = new Clock();
 		this.cycles = 0;
+		this.instructionsRetired = 0;
 		this.breakAfterCycle = false;
 		this.isRunning = false;
 		this.io = io;
@@ -266,7 +276,13 @@ public class CPU {
 		Address stackPointer = new Address((int) DataConverter.decodeAsSigned(this.program.initialSP.getWord()));
 		byte[] staticDataSegment = this.program.dataSegment;
 		Map<Address, Statement> textSegment = this.program.textSegment;
-		this.memory = new MainMemory(textSegment, staticDataSegment, textSegmentStart, dataSegmentStart, dynamicSegmentStart, stackPointer);
+		if (instructionCacheConfig != null || dataCacheConfig != null) {
+			this.memory = new CachedMainMemory(program, stackPointer, instructionCacheConfig, dataCacheConfig);
+		} else {
+			this.memory = new MainMemory(textSegment, this.program.textImage, staticDataSegment, this.program.dataSegmentSize, textSegmentStart, dataSegmentStart, dynamicSegmentStart, stackPointer);
+		}
+
+		this.mmu = mmuConfig == null ? null : new MMU(mmuConfig);
 
 		labels = new HashMap<>();
 		labelMetaData = new HashMap<>();
@@ -295,6 +311,29 @@ public class CPU {
 		sendMessage(new SimulationMessage(SimulationMessage.Detail.PROGRAM_LOADED));
 	}
 
+	/**
+	 * sets the caches placed in front of main memory, takes effect when the next program is loaded
+	 *
+	 * @param instructionCache
+	 *            the instruction cache configuration, null for no instruction cache
+	 * @param dataCache
+	 *            the data cache configuration, null for no data cache
+	 */
+	public void setCacheConfig(CacheConfig instructionCache, CacheConfig dataCache) {
+		this.instructionCacheConfig = instructionCache;
+		this.dataCacheConfig = dataCache;
+	}
+
+	/**
+	 * sets the MMU translating addresses for loads and stores, takes effect when the next program is loaded
+	 *
+	 * @param mmuConfig
+	 *            the MMU configuration, null for no address translation
+	 */
+	public void setMMUConfig(MMUConfig mmuConfig) {
+		this.mmuConfig = mmuConfig;
+	}
+
 	/**
 	 * this method resets the registers in the memory
 	 * it then initialises them to some default value
@@ -353,6 +392,29 @@ public class CPU {
 		return this.decoder.decode(instruction, operandList);
 	}
 
+	/**
+	 * decodes the instruction at an address from the machine code of the
+	 * text segment, or from the statement's operands if there is no machine code
+	 * 
+	 * @param address
+	 *            the address of the instruction
+	 * @param statement
+	 *            the statement at that address
+	 * @return InstructionFormat the instruction ready for execution
+	 * @throws DecodeException
+	 *             if something goes wrong during decode
+	 */
+	protected InstructionFormat decode(Address address, Statement statement) throws DecodeException {
+		int[] textImage = this.memory.getTextImage();
+		if (textImage != null) {
+			int index = (address.getValue() - this.program.textSegmentStart.getValue()) / 4;
+			if (index >= 0 && index < textImage.length) {
+				return this.decoder.decode(textImage[index], address, statement);
+			}
+		}
+		return decode(statement.getInstruction(), statement.getOperandList());
+	}
+
 	/**
 	 * this method will execute the instruction given to it
 	 * wrapper for method in Executor, gives nice inheritance layout
@@ -393,16 +455,17 @@ public class CPU {
 
 		waitForNextTick();
 
-		InstructionFormat instruction = decode(this.instructionRegister.getInstruction(), this.instructionRegister.getOperandList());
+		InstructionFormat instruction = decode(thisInstruction, this.instructionRegister);
 		sendMessage(new PipelineStateMessage(null, thisInstruction, null));
 
 		waitForNextTick();
 
 		execute(instruction);
+		instructionsRetired++;
 		sendMessage(new PipelineStateMessage(null, null, thisInstruction));
 
 		if (annotations.containsKey(thisInstruction)) {
-			sendMessage(new AnnotationMessage(annotations.get(thisInstruction), thisInstruction));
+			sendMessage(new AnnotationMessage(annotations.get(thisInstruction), thisInstruction, getRegisters().clone()));
 		}
 
 		waitForNextTick();
@@ -435,6 +498,7 @@ public class CPU {
 		breakAfterCycle = false;
 		clock.resetTicks();
 		cycles = 0;
+		instructionsRetired = 0;
 
 		messageManager.waitForAll();
 
@@ -457,6 +521,10 @@ public class CPU {
 
 			try {
 				this.runSingleCycle();// run one loop of Fetch,Decode,Execute
+				cycles += memory.takeStallCycles();// charge any cache miss penalties
+				if (mmu != null) {
+					cycles += mmu.takeStallCycles();// charge any TLB miss and page fault penalties
+				}
 			} catch(EndedException ignored) {
 			} catch (MemoryException | DecodeException | InstructionException
 					| ExecuteException | HeapException | StackException e) {
@@ -486,6 +554,14 @@ public class CPU {
 		return memory;
 	}
 
+	/**returns the MMU used by loads and stores
+	 *
+	 * @return the MMU, or null if addresses are not being translated
+	 */
+	public MMU getMMU() {
+		return mmu;
+	}
+
 	public Address getProgramCounter() {
 		return programCounter;
 	}
@@ -502,6 +578,38 @@ public class CPU {
 		return program;
 	}
 
+	/**returns the number of cycles completed since the program started
+	 *
+	 * @return the cycle count
+	 */
+	public long getCycles() {
+		return cycles;
+	}
+
+	/**returns the number of instructions completed since the program started
+	 *
+	 * @return the number of retired instructions
+	 */
+	public long getInstructionsRetired() {
+		return instructionsRetired;
+	}
+
+	/**returns the number of cycles the pipeline stalled since the program started
+	 *
+	 * @return 0, the non-pipelined cpu never stalls (overridden in CPUPipeline)
+	 */
+	public long getPipelineStalls() {
+		return 0;
+	}
+
+	/**returns the number of times the pipeline was flushed since the program started
+	 *
+	 * @return 0, the non-pipelined cpu has nothing to flush (overridden in CPUPipeline)
+	 */
+	public long getPipelineFlushes() {
+		return 0;
+	}
+
 	/**method states that cpu is not pipelined
 	 * 
 	 * @return false
@@ -509,4 +617,21 @@ public class CPU {
 	public boolean isPipelined() {
 		return false; // overridden in CPUPipeline
 	}
+
+	/**method states which model of CPU this is
+	 *
+	 * @return the type of this cpu
+	 */
+	public CPUType getType() {
+		return CPUType.NON_PIPELINED; // overridden in subclasses
+	}
+
+	/**the names of the stages an instruction passes through, in the order
+	 * they appear in PipelineStateMessages sent by this cpu
+	 *
+	 * @return the names of the stages
+	 */
+	public String[] getPipelineStageNames() {
+		return new String[]{"Fetch", "Decode", "Execute"};
+	}
 }
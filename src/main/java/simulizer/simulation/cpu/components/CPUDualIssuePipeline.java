@@ -0,0 +1,393 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.List;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Register;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.operand.OperandFormat;
+import simulizer.simulation.cpu.user_interaction.IO;
+import simulizer.simulation.exceptions.*;
+import simulizer.simulation.instructions.AddressMode;
+import simulizer.simulation.instructions.InstructionFormat;
+import simulizer.simulation.messages.AnnotationMessage;
+import simulizer.simulation.messages.PipelineHazardMessage;
+import simulizer.simulation.messages.PipelineHazardMessage.Hazard;
+import simulizer.simulation.messages.PipelineStateMessage;
+import simulizer.simulation.messages.ProblemMessage;
+
+/**this class models an in-order superscalar version of the three stage pipeline
+ * which fetches, decodes and executes up to two instructions per cycle
+ * the features of this pipeline are as follows:
+ * results are forwarded to decode, so an instruction never waits for the packet in execute
+ * the second instruction of a packet is only issued alongside the first if it is independent of it:
+ * it must not read or write a register written by the first, the two instructions cannot both
+ * access memory (there is a single memory port), the first cannot be a branch or jump and
+ * neither can be a syscall. Otherwise the second instruction waits to be issued first in the next cycle
+ * a taken branch flushes the instructions behind it, as in the three stage pipeline
+ */
+public class CPUDualIssuePipeline extends CPUPipeline {
+
+	public static final int ISSUE_WIDTH = 2;
+
+	/**the reasons that only a single instruction can be issued in a cycle
+	 *
+	 */
+	public enum SingleIssueReason {
+		NO_SECOND_INSTRUCTION("only one instruction was ready"),
+		RAW_DEPENDENCY("the second instruction reads a register written by the first"),
+		WAW_DEPENDENCY("both instructions write the same register"),
+		MEMORY_PORT("both instructions access memory"),
+		CONTROL_FLOW("the first instruction is a branch or jump"),
+		SYSCALL("one of the instructions is a syscall");
+
+		private final String description;
+
+		SingleIssueReason(String description) {
+			this.description = description;
+		}
+
+		@Override
+		public String toString() {
+			return description;
+		}
+	}
+
+	//IF/ID pipeline register, holds up to two statements in program order (null slots are empty)
+	private final Statement[] ifidStatements = new Statement[ISSUE_WIDTH];
+	private final Address[] ifidAddresses = new Address[ISSUE_WIDTH];
+	//ID/EX pipeline register, the issued packet
+	private final InstructionFormat[] idexInstructions = new InstructionFormat[ISSUE_WIDTH];
+	private final Address[] idexAddresses = new Address[ISSUE_WIDTH];
+
+	private long instructionsExecuted;
+	private long dualIssueCycles;//cycles where a full packet was issued
+	private long controlFlushes;//number of taken branches/jumps which flushed the pipeline
+	private final long[] singleIssueCycles = new long[SingleIssueReason.values().length];//indexed by reason
+
+	/**constructor calls the super constructor
+	 * and sets up empty pipeline registers
+	 * @param io the io class being used for syscall IO
+	 */
+	public CPUDualIssuePipeline(IO io) {
+		super(io);
+		clearPipelineRegisters();
+	}
+
+	/**empties all of the pipeline registers and resets the statistics
+	 *
+	 */
+	private void clearPipelineRegisters() {
+		for(int i = 0; i < ISSUE_WIDTH; i++) {
+			this.ifidStatements[i] = null;
+			this.ifidAddresses[i] = null;
+			this.idexInstructions[i] = null;
+			this.idexAddresses[i] = null;
+		}
+		for(int i = 0; i < singleIssueCycles.length; i++) {
+			this.singleIssueCycles[i] = 0;
+		}
+		this.instructionsExecuted = 0;
+		this.dualIssueCycles = 0;
+		this.controlFlushes = 0;
+	}
+
+	/**checks whether an instruction reads from or writes to memory
+	 *
+	 * @param instruction the decoded instruction
+	 * @return whether the instruction uses the memory port
+	 */
+	private boolean accessesMemory(InstructionFormat instruction) {
+		if(!instruction.mode.equals(AddressMode.LSTYPE) || instruction.getInstruction().equals(Instruction.la)) {
+			return false;//la only computes an address
+		}
+		OperandFormat format = instruction.getInstruction().getOperandFormat();
+		return format.equals(OperandFormat.destAddr) || format.equals(OperandFormat.srcAddr);
+	}
+
+	/**checks whether an instruction may change the flow of control
+	 *
+	 * @param instruction the decoded instruction
+	 * @return whether the instruction is a branch or jump
+	 */
+	private boolean isControlFlow(InstructionFormat instruction) {
+		return instruction.mode.equals(AddressMode.JTYPE) || instruction.mode.equals(AddressMode.ITYPE);
+	}
+
+	/**checks whether an instruction must be issued on its own
+	 *
+	 * @param instruction the instruction
+	 * @return whether the instruction is a syscall (or break)
+	 */
+	private boolean isSerialising(Instruction instruction) {
+		return instruction.equals(Instruction.syscall) || instruction.equals(Instruction.BREAK);
+	}
+
+	/**decides whether the second instruction waiting in decode can be issued alongside the first
+	 *
+	 * @param first the decoded first instruction
+	 * @param second the statement of the second instruction
+	 * @return the reason the second instruction can't be issued, or null if it can
+	 */
+	private SingleIssueReason canPair(InstructionFormat first, Statement second) {
+		if(isSerialising(first.getInstruction())) {
+			return SingleIssueReason.SYSCALL;
+		}
+		if(second == null) {
+			return SingleIssueReason.NO_SECOND_INSTRUCTION;
+		}
+		if(isSerialising(second.getInstruction())) {
+			return SingleIssueReason.SYSCALL;
+		}
+		if(isControlFlow(first)) {
+			return SingleIssueReason.CONTROL_FLOW;
+		}
+		List<Register> firstWrites = registersBeingWritten(first);
+		if(needToBubble(registersRead(second), firstWrites)) {
+			return SingleIssueReason.RAW_DEPENDENCY;
+		}
+		return null;
+	}
+
+	/**the checks on a pair which need the second instruction to be decoded
+	 *
+	 * @param first the decoded first instruction
+	 * @param second the decoded second instruction
+	 * @return the reason the second instruction can't be issued, or null if it can
+	 */
+	private SingleIssueReason canPair(InstructionFormat first, InstructionFormat second) {
+		if(needToBubble(registersBeingWritten(second), registersBeingWritten(first))) {
+			return SingleIssueReason.WAW_DEPENDENCY;
+		}
+		if(accessesMemory(first) && accessesMemory(second)) {
+			return SingleIssueReason.MEMORY_PORT;
+		}
+		return null;
+	}
+
+	/**method will overwrite the method in the CPU class for running a cycle
+	 * a single call moves every packet in the pipeline on by one stage
+	 */
+	@Override
+	protected void runSingleCycle() throws MemoryException, DecodeException, InstructionException,
+			ExecuteException, HeapException, StackException, EndedException {
+
+		boolean endOfText = this.programCounter.getValue() == this.lastAddress.getValue() + 4;
+		boolean empty = ifidStatements[0] == null && idexInstructions[0] == null;
+		if(endOfText && empty && this.isRunning) {//everything has drained from the pipeline
+			//exiting cleanly but representing that in reality an error would be thrown
+			sendMessage(new ProblemMessage(
+					new MemoryException(
+							"Program tried to execute a program outside the text segment.\n" +
+									"  This could be because you forgot to exit cleanly.\n" +
+									"  To exit cleanly please call syscall with code 10.\n", programCounter)));
+			stopRunning();
+			return;
+		}
+
+		//EX: execute the packet in program order, only the last instruction of a packet can jump
+		Address[] executeAddresses = idexAddresses.clone();
+		boolean jumped = false;
+		for(int i = 0; i < ISSUE_WIDTH && idexInstructions[i] != null; i++) {
+			InstructionFormat toExecute = idexInstructions[i];
+			execute(toExecute);
+			this.instructionsExecuted++;
+
+			//jumped checks if either an unconditional jump is made or, a branch returning true
+			jumped = toExecute.mode.equals(AddressMode.JTYPE) || (toExecute.mode.equals(AddressMode.ITYPE) && ALU.branchFlag);
+
+			if(annotations.containsKey(executeAddresses[i])) {
+				sendMessage(new AnnotationMessage(annotations.get(executeAddresses[i]), executeAddresses[i], getRegisters().clone()));
+			}
+		}
+
+		//ID: issue the waiting instructions which can be issued together
+		Address[] decodeAddresses = new Address[ISSUE_WIDTH];
+		clear(idexInstructions, idexAddresses);
+		if(jumped) {//the instructions waiting to be decoded came from the wrong path
+			clear(ifidStatements, ifidAddresses);
+		} else if(ifidStatements[0] != null) {
+			idexInstructions[0] = setLinkAddress(decode(ifidAddresses[0], ifidStatements[0]), ifidAddresses[0]);
+			idexAddresses[0] = ifidAddresses[0];
+
+			SingleIssueReason reason = canPair(idexInstructions[0], ifidStatements[1]);
+			if(reason == null) {
+				InstructionFormat second = setLinkAddress(decode(ifidAddresses[1], ifidStatements[1]), ifidAddresses[1]);
+				reason = canPair(idexInstructions[0], second);
+				if(reason == null) {
+					idexInstructions[1] = second;
+					idexAddresses[1] = ifidAddresses[1];
+				}
+			}
+
+			if(reason == null) {
+				this.dualIssueCycles++;
+				clear(ifidStatements, ifidAddresses);
+			} else {
+				this.singleIssueCycles[reason.ordinal()]++;
+				if(reason == SingleIssueReason.RAW_DEPENDENCY) {
+					sendMessage(new PipelineHazardMessage(Hazard.RAW));
+				} else if(reason == SingleIssueReason.WAW_DEPENDENCY) {
+					sendMessage(new PipelineHazardMessage(Hazard.WAW));
+				}
+				//the second instruction (if any) moves up to be issued first next cycle
+				ifidStatements[0] = ifidStatements[1];
+				ifidAddresses[0] = ifidAddresses[1];
+				ifidStatements[1] = null;
+				ifidAddresses[1] = null;
+			}
+			System.arraycopy(idexAddresses, 0, decodeAddresses, 0, ISSUE_WIDTH);
+		}
+
+		//IF: fill the free slots of IF/ID
+		Address[] fetchAddresses = new Address[ISSUE_WIDTH];
+		if(jumped) {//the program counter already holds the target, the slots fetched this cycle are lost
+			sendMessage(new PipelineHazardMessage(Hazard.CONTROL));
+			this.controlFlushes++;
+		} else {
+			for(int i = 0; i < ISSUE_WIDTH; i++) {
+				if(ifidStatements[i] == null && this.programCounter.getValue() != this.lastAddress.getValue() + 4) {
+					fetchAddresses[i] = this.programCounter;
+					fetch();
+					ifidStatements[i] = this.instructionRegister;
+					ifidAddresses[i] = fetchAddresses[i];
+				}
+			}
+		}
+
+		Address[] stages = new Address[3 * ISSUE_WIDTH];
+		System.arraycopy(fetchAddresses, 0, stages, 0, ISSUE_WIDTH);
+		System.arraycopy(decodeAddresses, 0, stages, ISSUE_WIDTH, ISSUE_WIDTH);
+		System.arraycopy(executeAddresses, 0, stages, 2 * ISSUE_WIDTH, ISSUE_WIDTH);
+		sendMessage(new PipelineStateMessage(stages, ISSUE_WIDTH));
+
+		waitForNextTick();
+
+		cycles++;
+		if(breakAfterCycle) {
+			pause();
+		}
+	}
+
+	/**empties a pipeline register
+	 *
+	 * @param contents the instructions held by the register
+	 * @param addresses the addresses of the instructions
+	 */
+	private static void clear(Object[] contents, Address[] addresses) {
+		for(int i = 0; i < contents.length; i++) {
+			contents[i] = null;
+			addresses[i] = null;
+		}
+	}
+
+	/**overwriting the run program method to empty the pipeline before execution
+	 *
+	 */
+	@Override
+	public void runProgram() {
+		clearPipelineRegisters();
+		super.runProgram();
+	}
+
+	/**the number of instructions executed in the last run
+	 *
+	 * @return the number of instructions
+	 */
+	public long getInstructionsExecuted() {
+		return instructionsExecuted;
+	}
+
+	/**override getInstructionsRetired in CPU
+	 *
+	 */
+	@Override
+	public long getInstructionsRetired() {
+		return instructionsExecuted;
+	}
+
+	/**override getPipelineStalls in CPUPipeline, counts the cycles where the second slot was lost to a dependency
+	 *
+	 */
+	@Override
+	public long getPipelineStalls() {
+		return getSingleIssueCycles(SingleIssueReason.RAW_DEPENDENCY) + getSingleIssueCycles(SingleIssueReason.WAW_DEPENDENCY);
+	}
+
+	/**override getPipelineFlushes in CPUPipeline
+	 *
+	 */
+	@Override
+	public long getPipelineFlushes() {
+		return controlFlushes;
+	}
+
+	/**the average number of instructions executed per cycle in the last run
+	 *
+	 * @return the IPC, 0 if no cycles have been run
+	 */
+	public double getIPC() {
+		return cycles == 0 ? 0 : (double) instructionsExecuted / cycles;
+	}
+
+	/**the proportion of issue slots which were filled with an instruction in the last run
+	 *
+	 * @return the utilisation between 0 and 1, 0 if no cycles have been run
+	 */
+	public double getIssueSlotUtilisation() {
+		return cycles == 0 ? 0 : (double) instructionsExecuted / (cycles * ISSUE_WIDTH);
+	}
+
+	/**the number of cycles in which two instructions were issued in the last run
+	 *
+	 * @return the number of dual issue cycles
+	 */
+	public long getDualIssueCycles() {
+		return dualIssueCycles;
+	}
+
+	/**the number of cycles in which only one instruction was issued for a given reason in the last run
+	 *
+	 * @param reason the reason only one instruction could be issued
+	 * @return the number of cycles
+	 */
+	public long getSingleIssueCycles(SingleIssueReason reason) {
+		return singleIssueCycles[reason.ordinal()];
+	}
+
+	/**a summary of the issue statistics, suitable for printing after a run
+	 *
+	 * @return the summary
+	 */
+	public String getIssueSummary() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("IPC: %.3f (%d instructions in %d cycles), issue slot utilisation: %.1f%%%n",
+				getIPC(), instructionsExecuted, cycles, getIssueSlotUtilisation() * 100));
+		sb.append("Dual issue cycles: ").append(dualIssueCycles).append('\n');
+		for(SingleIssueReason reason : SingleIssueReason.values()) {
+			if(singleIssueCycles[reason.ordinal()] != 0) {
+				sb.append("Single issue because ").append(reason).append(": ")
+						.append(singleIssueCycles[reason.ordinal()]).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**override getType in CPUPipeline
+	 *
+	 */
+	@Override
+	public CPUType getType() {
+		return CPUType.DUAL_ISSUE_PIPELINED;
+	}
+
+	/**override getPipelineStageNames in CPU
+	 *
+	 */
+	@Override
+	public String[] getPipelineStageNames() {
+		return new String[]{"Fetch (Slot 1)", "Fetch (Slot 2)", "Decode (Slot 1)", "Decode (Slot 2)",
+				"Execute (Slot 1)", "Execute (Slot 2)"};
+	}
+}
@@ -0,0 +1,244 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.List;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Register;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.operand.OperandFormat;
+import simulizer.simulation.cpu.user_interaction.IO;
+import simulizer.simulation.exceptions.*;
+import simulizer.simulation.instructions.AddressMode;
+import simulizer.simulation.instructions.InstructionFormat;
+import simulizer.simulation.messages.AnnotationMessage;
+import simulizer.simulation.messages.PipelineHazardMessage;
+import simulizer.simulation.messages.PipelineHazardMessage.Hazard;
+import simulizer.simulation.messages.PipelineStateMessage;
+import simulizer.simulation.messages.ProblemMessage;
+
+/**this class models the classic five stage MIPS pipeline:
+ * IF (fetch), ID (decode), EX (execute), MEM (memory access) and WB (write back)
+ * the features of this pipeline are as follows:
+ * results are forwarded to the decode stage, so the only data hazard which causes a stall
+ * is a load followed immediately by an instruction reading the loaded register (load-use hazard)
+ * branches and jumps are resolved in execute, so a taken branch flushes the two
+ * instructions behind it
+ *
+ * the simulator carries out the effects of an instruction (including its memory access
+ * and register write) in the execute stage, the memory and write back stages are modelled
+ * for timing only. Stages are processed from the back of the pipeline to the front
+ * each cycle so the architectural results are identical to the non pipelined cpu
+ */
+public class CPUFiveStagePipeline extends CPUPipeline {
+
+	private Statement ifidStatement;//IF/ID pipeline register, null when holding a bubble
+	private Address ifidAddress;
+	private InstructionFormat idexInstruction;//ID/EX pipeline register, null when holding a bubble
+	private Address idexAddress;
+	private Address exmemAddress;//EX/MEM pipeline register
+	private Address memwbAddress;//MEM/WB pipeline register
+
+	private long loadUseStalls;//number of cycles lost to load-use hazards
+	private long controlFlushes;//number of taken branches/jumps which flushed the pipeline
+
+	/**constructor calls the super constructor
+	 * and sets up empty pipeline registers
+	 * @param io the io class being used for syscall IO
+	 */
+	public CPUFiveStagePipeline(IO io) {
+		super(io);
+		clearPipelineRegisters();
+	}
+
+	/**empties all of the pipeline registers and resets the statistics
+	 *
+	 */
+	private void clearPipelineRegisters() {
+		this.ifidStatement = null;
+		this.ifidAddress = null;
+		this.idexInstruction = null;
+		this.idexAddress = null;
+		this.exmemAddress = null;
+		this.memwbAddress = null;
+		this.loadUseStalls = 0;
+		this.controlFlushes = 0;
+		this.instructionsRetired = 0;
+	}
+
+	/**checks whether an instruction reads from memory into a register
+	 * since the loaded value is only available after the memory stage
+	 * @param instruction the decoded instruction
+	 * @return whether the instruction is a load
+	 */
+	private boolean isLoad(InstructionFormat instruction) {
+		return instruction.mode.equals(AddressMode.LSTYPE)
+				&& instruction.getInstruction().getOperandFormat().equals(OperandFormat.destAddr)
+				&& !instruction.getInstruction().equals(Instruction.la);//la only computes an address
+	}
+
+	/**method will overwrite the method in the CPU class for running a cycle
+	 * a single call moves every instruction in the pipeline on by one stage
+	 */
+	@Override
+	protected void runSingleCycle() throws MemoryException, DecodeException, InstructionException,
+			ExecuteException, HeapException, StackException, EndedException {
+
+		boolean endOfText = this.programCounter.getValue() == this.lastAddress.getValue() + 4;
+		boolean empty = ifidStatement == null && idexInstruction == null && exmemAddress == null && memwbAddress == null;
+		if(endOfText && empty && this.isRunning) {//everything has drained from the pipeline
+			//exiting cleanly but representing that in reality an error would be thrown
+			sendMessage(new ProblemMessage(
+					new MemoryException(
+							"Program tried to execute a program outside the text segment.\n" +
+									"  This could be because you forgot to exit cleanly.\n" +
+									"  To exit cleanly please call syscall with code 10.\n", programCounter)));
+			stopRunning();
+			return;
+		}
+
+		//WB: the instruction has finished
+		Address writeBackAddress = this.memwbAddress;
+		if(writeBackAddress != null) {
+			this.instructionsRetired++;
+		}
+
+		//MEM
+		Address memoryAddress = this.exmemAddress;
+		this.memwbAddress = memoryAddress;
+
+		//EX
+		Address executeAddress = this.idexAddress;
+		InstructionFormat toExecute = this.idexInstruction;
+		List<Register> loadDestinations = null;//registers which won't be ready until after the memory stage
+		boolean jumped = false;
+		if(toExecute != null) {
+			if(isLoad(toExecute)) {
+				loadDestinations = registersBeingWritten(toExecute);
+			}
+
+			boolean wasRunning = this.isRunning;
+			execute(toExecute);
+			if(wasRunning && !this.isRunning) {
+				//the exit syscall ends the run from EX, so it and the instruction ahead of it
+				//in MEM are counted as retired rather than left in the pipeline
+				this.instructionsRetired += memoryAddress != null ? 2 : 1;
+			}
+
+			//jumped checks if either an unconditional jump is made or, a branch returning true
+			jumped = toExecute.mode.equals(AddressMode.JTYPE) || (toExecute.mode.equals(AddressMode.ITYPE) && ALU.branchFlag);
+
+			if(annotations.containsKey(executeAddress)) {
+				sendMessage(new AnnotationMessage(annotations.get(executeAddress), executeAddress, getRegisters().clone()));
+			}
+		}
+		this.exmemAddress = executeAddress;
+
+		//ID
+		Address decodeAddress = null;
+		boolean stalled = false;
+		if(jumped) {//the instruction waiting to be decoded came from the wrong path
+			this.ifidStatement = null;
+			this.ifidAddress = null;
+			this.idexInstruction = null;
+			this.idexAddress = null;
+		} else if(this.ifidStatement != null) {
+			if(loadDestinations != null && needToBubble(registersRead(this.ifidStatement), loadDestinations)) {
+				sendMessage(new PipelineHazardMessage(Hazard.RAW));
+				this.idexInstruction = null;//insert a bubble, keep the instruction in IF/ID
+				this.idexAddress = null;
+				this.loadUseStalls++;
+				stalled = true;
+			} else {
+				decodeAddress = this.ifidAddress;
+				InstructionFormat decoded = decode(this.ifidAddress, this.ifidStatement);
+				this.idexInstruction = setLinkAddress(decoded, decodeAddress);
+				this.idexAddress = decodeAddress;
+				this.ifidStatement = null;
+				this.ifidAddress = null;
+			}
+		} else {
+			this.idexInstruction = null;
+			this.idexAddress = null;
+		}
+
+		//IF
+		Address fetchAddress = null;
+		if(jumped) {//the program counter already holds the target, the slot fetched this cycle is lost
+			sendMessage(new PipelineHazardMessage(Hazard.CONTROL));
+			this.controlFlushes++;
+		} else if(!stalled && this.ifidStatement == null
+				&& this.programCounter.getValue() != this.lastAddress.getValue() + 4) {
+			fetchAddress = this.programCounter;
+			fetch();
+			this.ifidStatement = this.instructionRegister;
+			this.ifidAddress = fetchAddress;
+		}
+
+		sendMessage(new PipelineStateMessage(new Address[]{fetchAddress, decodeAddress, executeAddress, memoryAddress, writeBackAddress}));
+
+		waitForNextTick();
+
+		cycles++;
+		if(breakAfterCycle) {
+			pause();
+		}
+	}
+
+	/**overwriting the run program method to empty the pipeline before execution
+	 *
+	 */
+	@Override
+	public void runProgram() {
+		clearPipelineRegisters();
+		super.runProgram();
+	}
+
+	/**the number of cycles lost to load-use hazards in the last run
+	 *
+	 * @return the number of stalls
+	 */
+	public long getLoadUseStalls() {
+		return loadUseStalls;
+	}
+
+	/**the number of times the pipeline was flushed by a taken branch or jump in the last run
+	 *
+	 * @return the number of flushes
+	 */
+	public long getControlFlushes() {
+		return controlFlushes;
+	}
+
+	/**override getPipelineStalls in CPUPipeline, only load-use hazards stall this pipeline
+	 *
+	 */
+	@Override
+	public long getPipelineStalls() {
+		return loadUseStalls;
+	}
+
+	/**override getPipelineFlushes in CPUPipeline
+	 *
+	 */
+	@Override
+	public long getPipelineFlushes() {
+		return controlFlushes;
+	}
+
+	/**override getType in CPUPipeline
+	 *
+	 */
+	@Override
+	public CPUType getType() {
+		return CPUType.FIVE_STAGE_PIPELINED;
+	}
+
+	/**override getPipelineStageNames in CPU
+	 *
+	 */
+	@Override
+	public String[] getPipelineStageNames() {
+		return new String[]{"Fetch", "Decode", "Execute", "Memory", "Write Back"};
+	}
+}
@@ -0,0 +1,459 @@
+package simulizer.simulation.cpu.components;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Register;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.operand.OperandFormat;
+import simulizer.simulation.cpu.user_interaction.IO;
+import simulizer.simulation.exceptions.*;
+import simulizer.simulation.instructions.InstructionFormat;
+import simulizer.simulation.messages.AnnotationMessage;
+import simulizer.simulation.messages.ProblemMessage;
+import simulizer.simulation.messages.ReorderBufferMessage;
+import simulizer.simulation.messages.ReorderBufferMessage.State;
+
+/**this class models an out of order cpu in the style of Tomasulo's algorithm:
+ * instructions are dispatched in order into a reorder buffer and a reservation station
+ * for their kind of functional unit, with their source registers renamed to the
+ * reorder buffer entries which will produce them. An instruction is issued to a free unit
+ * as soon as all of its operands have been produced, takes the latency of that unit to
+ * execute and is committed in program order once it and all older instructions have completed
+ *
+ * the features of this model are as follows:
+ * there is no speculation, dispatch stops after a branch or jump until it has executed
+ * syscalls are serialising, they wait for the reorder buffer to empty and nothing is
+ * dispatched behind them until they commit
+ * loads and stores wait for the previous store, since addresses are not compared
+ *
+ * like many architecture simulators the results of an instruction are computed when it
+ * is dispatched (in program order) and the rest of the model only accounts for timing,
+ * which guarantees the same architectural results as the non pipelined cpu
+ */
+public class CPUOutOfOrder extends CPUPipeline {
+
+	/**an instruction in flight
+	 *
+	 */
+	private static class ROBEntry {
+		final Address address;
+		final Instruction instruction;
+		final FunctionalUnit unit;
+		final List<ROBEntry> producers;//entries producing the operands of this instruction
+		final List<Register> writes;
+		State state;
+		int cyclesRemaining;
+
+		ROBEntry(Address address, Instruction instruction, FunctionalUnit unit, List<ROBEntry> producers, List<Register> writes) {
+			this.address = address;
+			this.instruction = instruction;
+			this.unit = unit;
+			this.producers = producers;
+			this.writes = writes;
+			this.state = State.WAITING;
+			this.cyclesRemaining = 0;
+		}
+
+		/**whether all of the operands of the instruction have been produced
+		 *
+		 * @return whether the instruction can be issued
+		 */
+		boolean operandsReady() {
+			for (ROBEntry producer : producers) {
+				if (producer.state != State.COMPLETED) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private OutOfOrderConfig config;
+
+	private final ArrayDeque<ROBEntry> reorderBuffer;//oldest at the head
+	private final ROBEntry[] renameTable;//the newest in flight producer of each register, indexed by register id
+	private ROBEntry lastStore;//the newest store in flight
+	private ROBEntry unresolvedControl;//dispatch waits for this branch or jump to execute
+	private ROBEntry serialising;//dispatch waits for this syscall to commit
+	private int[] freeUnits;//indexed by FunctionalUnit ordinal
+	private int[] reservationStations;//number of waiting instructions for each kind of unit
+
+	private long instructionsCommitted;
+	private long[] unitBusyCycles;//indexed by FunctionalUnit ordinal
+	private long reorderBufferFullCycles;
+	private long reservationStationFullCycles;
+	private long controlStallCycles;
+	private long serialisingStallCycles;
+
+	/**constructor calls the super constructor
+	 * and uses the default configuration
+	 * @param io the io class being used for syscall IO
+	 */
+	public CPUOutOfOrder(IO io) {
+		super(io);
+		this.reorderBuffer = new ArrayDeque<>();
+		this.renameTable = new ROBEntry[Register.values().length];
+		this.config = new OutOfOrderConfig();
+		reset();
+	}
+
+	/**sets the sizes, widths and latencies of the cpu, takes effect when the next program is run
+	 *
+	 * @param config the new configuration
+	 */
+	public void setConfig(OutOfOrderConfig config) {
+		this.config = config;
+	}
+
+	/**get the configuration of the cpu
+	 *
+	 * @return the configuration
+	 */
+	public OutOfOrderConfig getConfig() {
+		return config;
+	}
+
+	/**empties the reorder buffer and reservation stations and resets the statistics
+	 *
+	 */
+	private void reset() {
+		int units = FunctionalUnit.values().length;
+		this.reorderBuffer.clear();
+		for (int i = 0; i < renameTable.length; i++) {
+			this.renameTable[i] = null;
+		}
+		this.lastStore = null;
+		this.unresolvedControl = null;
+		this.serialising = null;
+		this.freeUnits = new int[units];
+		for (FunctionalUnit unit : FunctionalUnit.values()) {
+			this.freeUnits[unit.ordinal()] = config.getUnitCount(unit);
+		}
+		this.reservationStations = new int[units];
+
+		this.instructionsCommitted = 0;
+		this.unitBusyCycles = new long[units];
+		this.reorderBufferFullCycles = 0;
+		this.reservationStationFullCycles = 0;
+		this.controlStallCycles = 0;
+		this.serialisingStallCycles = 0;
+	}
+
+	/**method will overwrite the method in the CPU class for running a cycle
+	 * the stages are processed from the back of the machine to the front:
+	 * commit, complete, issue then dispatch
+	 */
+	@Override
+	protected void runSingleCycle() throws MemoryException, DecodeException, InstructionException,
+			ExecuteException, HeapException, StackException, EndedException {
+
+		boolean endOfText = this.programCounter.getValue() == this.lastAddress.getValue() + 4;
+		if(endOfText && reorderBuffer.isEmpty() && this.isRunning) {//everything has been committed
+			//exiting cleanly but representing that in reality an error would be thrown
+			sendMessage(new ProblemMessage(
+					new MemoryException(
+							"Program tried to execute a program outside the text segment.\n" +
+									"  This could be because you forgot to exit cleanly.\n" +
+									"  To exit cleanly please call syscall with code 10.\n", programCounter)));
+			stopRunning();
+			return;
+		}
+
+		commit();
+		complete();
+		issue();
+		dispatch();
+
+		sendMessage(new ReorderBufferMessage(snapshot(), config.reorderBufferSize, cycles));
+
+		waitForNextTick();
+
+		cycles++;
+		if(breakAfterCycle) {
+			pause();
+		}
+	}
+
+	/**retires completed instructions from the head of the reorder buffer in program order
+	 *
+	 */
+	private void commit() {
+		for(int i = 0; i < config.commitWidth && !reorderBuffer.isEmpty(); i++) {
+			ROBEntry head = reorderBuffer.peekFirst();
+			if(head.state != State.COMPLETED) {
+				break;
+			}
+			reorderBuffer.pollFirst();
+			for(Register r : head.writes) {//the architectural register now holds the value
+				if(renameTable[r.getID()] == head) {
+					renameTable[r.getID()] = null;
+				}
+			}
+			if(lastStore == head) {
+				lastStore = null;
+			}
+			if(serialising == head) {
+				serialising = null;
+			}
+			instructionsCommitted++;
+		}
+	}
+
+	/**advances every executing instruction by a cycle, freeing the units of those which finish
+	 *
+	 */
+	private void complete() {
+		for(ROBEntry entry : reorderBuffer) {
+			if(entry.state == State.EXECUTING) {
+				unitBusyCycles[entry.unit.ordinal()]++;
+				entry.cyclesRemaining--;
+				if(entry.cyclesRemaining == 0) {//result broadcast to waiting instructions
+					entry.state = State.COMPLETED;
+					freeUnits[entry.unit.ordinal()]++;
+					if(unresolvedControl == entry) {
+						unresolvedControl = null;
+					}
+				}
+			}
+		}
+	}
+
+	/**starts executing the oldest waiting instructions whose operands are ready, if a unit is free
+	 *
+	 */
+	private void issue() {
+		for(ROBEntry entry : reorderBuffer) {
+			int unit = entry.unit.ordinal();
+			if(entry.state == State.WAITING && freeUnits[unit] > 0 && entry.operandsReady()) {
+				entry.state = State.EXECUTING;
+				entry.cyclesRemaining = config.getLatency(entry.unit);
+				freeUnits[unit]--;
+				reservationStations[unit]--;
+			}
+		}
+	}
+
+	/**fetches and decodes instructions in program order, renames their operands
+	 * and places them in the reorder buffer and a reservation station
+	 * this is also where the instruction takes effect on the architectural state
+	 */
+	private void dispatch() throws MemoryException, DecodeException, InstructionException,
+			ExecuteException, HeapException, StackException {
+		for(int i = 0; i < config.dispatchWidth && this.isRunning; i++) {
+			if(serialising != null) {
+				serialisingStallCycles++;
+				return;
+			}
+			if(unresolvedControl != null) {
+				controlStallCycles++;
+				return;
+			}
+			if(this.programCounter.getValue() == this.lastAddress.getValue() + 4) {
+				return;
+			}
+			if(reorderBuffer.size() >= config.reorderBufferSize) {
+				reorderBufferFullCycles++;
+				return;
+			}
+
+			//find the unit from the program rather than fetching the instruction, so that
+			//a stalled dispatch does not fetch (and access the instruction cache) every cycle
+			Address address = this.programCounter;
+			Statement next = getProgram().textSegment.get(address);
+			if(next != null) {
+				FunctionalUnit unit = FunctionalUnit.forInstruction(next.getInstruction());
+				boolean syscall = next.getInstruction().equals(Instruction.syscall) || next.getInstruction().equals(Instruction.BREAK);
+				if(syscall && !reorderBuffer.isEmpty()) {
+					serialisingStallCycles++;
+					return;
+				}
+				if(reservationStations[unit.ordinal()] >= config.reservationStationSize) {
+					reservationStationFullCycles++;
+					return;
+				}
+			}
+
+			fetch();//throws if the address is outside the text segment
+			Statement statement = this.instructionRegister;
+			InstructionFormat decoded = decode(address, statement);
+			FunctionalUnit unit = FunctionalUnit.forInstruction(statement.getInstruction());
+			boolean syscall = statement.getInstruction().equals(Instruction.syscall) || statement.getInstruction().equals(Instruction.BREAK);
+
+			//renaming: depend on the newest in flight producer of each source
+			List<ROBEntry> producers = new ArrayList<>();
+			for(Register r : registersRead(statement)) {
+				if(renameTable[r.getID()] != null) {
+					producers.add(renameTable[r.getID()]);
+				}
+			}
+			boolean store = statement.getInstruction().getOperandFormat().equals(OperandFormat.srcAddr);
+			if(unit == FunctionalUnit.MEMORY && lastStore != null) {
+				producers.add(lastStore);
+			}
+			List<Register> writes = registersBeingWritten(decoded);//before execution since syscalls read $v0
+
+			execute(decoded);
+			if(!this.isRunning) {//exit syscall, the reorder buffer was already empty so it commits immediately
+				instructionsCommitted++;
+				return;
+			}
+
+			ROBEntry entry = new ROBEntry(address, statement.getInstruction(), unit, producers, writes);
+			reorderBuffer.addLast(entry);
+			reservationStations[unit.ordinal()]++;
+			for(Register r : writes) {
+				if(r != Register.zero) {
+					renameTable[r.getID()] = entry;
+				}
+			}
+			if(store) {
+				lastStore = entry;
+			}
+			if(unit == FunctionalUnit.BRANCH) {
+				unresolvedControl = entry;
+			}
+			if(syscall) {
+				serialising = entry;
+			}
+
+			if(annotations.containsKey(address)) {
+				//no more instructions this cycle so the annotation sees the state just after this instruction
+				sendMessage(new AnnotationMessage(annotations.get(address), address, getRegisters().clone()));
+				return;
+			}
+		}
+	}
+
+	/**creates an immutable copy of the reorder buffer to be sent to listeners
+	 *
+	 * @return the entries, oldest first
+	 */
+	private List<ReorderBufferMessage.Entry> snapshot() {
+		List<ReorderBufferMessage.Entry> entries = new ArrayList<>(reorderBuffer.size());
+		for(ROBEntry e : reorderBuffer) {
+			entries.add(new ReorderBufferMessage.Entry(e.address, e.instruction, e.unit, e.state, e.cyclesRemaining));
+		}
+		return entries;
+	}
+
+	/**overwriting the run program method to empty the machine before execution
+	 *
+	 */
+	@Override
+	public void runProgram() {
+		reset();
+		super.runProgram();
+	}
+
+	/**the number of instructions committed in the last run
+	 *
+	 * @return the number of instructions
+	 */
+	public long getInstructionsCommitted() {
+		return instructionsCommitted;
+	}
+
+	/**override getInstructionsRetired in CPU
+	 *
+	 */
+	@Override
+	public long getInstructionsRetired() {
+		return instructionsCommitted;
+	}
+
+	/**override getPipelineStalls in CPUPipeline, counts the cycles dispatch stopped for any reason
+	 *
+	 */
+	@Override
+	public long getPipelineStalls() {
+		return reorderBufferFullCycles + reservationStationFullCycles + controlStallCycles + serialisingStallCycles;
+	}
+
+	/**override getPipelineFlushes in CPUPipeline, dispatch waits for branches rather than speculating
+	 * so nothing is ever flushed
+	 */
+	@Override
+	public long getPipelineFlushes() {
+		return 0;
+	}
+
+	/**the average number of instructions committed per cycle in the last run
+	 *
+	 * @return the IPC, 0 if no cycles have been run
+	 */
+	public double getIPC() {
+		return cycles == 0 ? 0 : (double) instructionsCommitted / cycles;
+	}
+
+	/**the proportion of cycles the units of a given kind were busy in the last run
+	 *
+	 * @param unit the kind of unit
+	 * @return the occupancy between 0 and 1, 0 if no cycles have been run
+	 */
+	public double getUnitOccupancy(FunctionalUnit unit) {
+		return cycles == 0 ? 0 : (double) unitBusyCycles[unit.ordinal()] / (cycles * config.getUnitCount(unit));
+	}
+
+	/**the number of cycles dispatch stopped because the reorder buffer was full in the last run
+	 *
+	 * @return the number of cycles
+	 */
+	public long getReorderBufferFullCycles() {
+		return reorderBufferFullCycles;
+	}
+
+	/**the number of cycles dispatch stopped because a reservation station was full in the last run
+	 *
+	 * @return the number of cycles
+	 */
+	public long getReservationStationFullCycles() {
+		return reservationStationFullCycles;
+	}
+
+	/**the number of cycles dispatch waited for a branch or jump to execute in the last run
+	 *
+	 * @return the number of cycles
+	 */
+	public long getControlStallCycles() {
+		return controlStallCycles;
+	}
+
+	/**the number of cycles dispatch waited either side of a syscall in the last run
+	 *
+	 * @return the number of cycles
+	 */
+	public long getSerialisingStallCycles() {
+		return serialisingStallCycles;
+	}
+
+	/**a summary of the statistics, suitable for printing after a run
+	 *
+	 * @return the summary
+	 */
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("IPC: %.3f (%d instructions in %d cycles)%n", getIPC(), instructionsCommitted, cycles));
+		for(FunctionalUnit unit : FunctionalUnit.values()) {
+			sb.append(String.format("%s occupancy: %.1f%% (%d unit(s), %d cycle latency)%n", unit,
+					getUnitOccupancy(unit) * 100, config.getUnitCount(unit), config.getLatency(unit)));
+		}
+		sb.append("Dispatch stalls: ")
+				.append(reorderBufferFullCycles).append(" reorder buffer full, ")
+				.append(reservationStationFullCycles).append(" reservation station full, ")
+				.append(controlStallCycles).append(" waiting for branches, ")
+				.append(serialisingStallCycles).append(" waiting for syscalls\n");
+		return sb.toString();
+	}
+
+	/**override getType in CPUPipeline
+	 *
+	 */
+	@Override
+	public CPUType getType() {
+		return CPUType.OUT_OF_ORDER;
+	}
+}
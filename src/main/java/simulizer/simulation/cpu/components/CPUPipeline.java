@@ -35,6 +35,8 @@ public class CPUPipeline extends CPU {
 	private int isFinished;//used for testing end of program
 	private int nopCount;//used to check for pipeline hazards when sending messages
 	private boolean rawOccured;//used to check if a raw hazard has just occured
+	private long rawStalls;//number of bubbles inserted for RAW hazards
+	private long controlFlushes;//number of taken branches/jumps which flushed the pipeline
 	
 	/**constructor calls the super constructor
 	 * as well as initialising the new pipeline related fields
@@ -75,7 +77,7 @@ public class CPUPipeline extends CPU {
 	 * @param statement the statement to be decoded and then executed
 	 * @return the list of registers to be read
 	 */
-	private List<Register> registersRead(Statement statement) {
+	protected List<Register> registersRead(Statement statement) {
 		ArrayList<Register> registers = new ArrayList<>();
 		
 		//now to get all registers read out from the statement
@@ -119,7 +121,7 @@ public class CPUPipeline extends CPU {
 	 * @param instruction the instruction being checked
 	 * @return the registers being written to due to this instruction
 	 */
-	private List<Register> registersBeingWritten(InstructionFormat instruction) {
+	protected List<Register> registersBeingWritten(InstructionFormat instruction) {
 		ArrayList<Register> registers = new ArrayList<>();
 		switch(instruction.mode) {
 			case RTYPE://all rtype instructions have a destination register
@@ -142,6 +144,9 @@ public class CPUPipeline extends CPU {
 					long syscallCode = DataConverter.decodeAsSigned(getRegisters()[Register.v0.getID()].getWord());
 					if(syscallCode == 5||syscallCode==8||syscallCode==9||syscallCode==12) {//these syscall codes write to v0
 						registers.add(Register.v0);
+					} else if(syscallCode >= 100 && syscallCode <= 102) {//the counter syscalls write to v0 and v1
+						registers.add(Register.v0);
+						registers.add(Register.v1);
 					}
 				}
 				break;
@@ -160,7 +165,7 @@ public class CPUPipeline extends CPU {
 	 * @param writes the registers being written
 	 * @return whether or not there is a crossover between the two lists
 	 */
-	private <A> boolean needToBubble(List<A> reads, List<A> writes) {
+	protected <A> boolean needToBubble(List<A> reads, List<A> writes) {
 		for (A write : writes) {
 			for (A read : reads) {
 				if (write.equals(read)) {
@@ -175,7 +180,7 @@ public class CPUPipeline extends CPU {
 	 * 
 	 * @return the dummy nop statement
 	 */
-	private Statement createNopStatement() {
+	protected Statement createNopStatement() {
 		return new Statement(Instruction.nop,new ArrayList<>(),-1);
 	}
 	
@@ -183,7 +188,7 @@ public class CPUPipeline extends CPU {
 	 * when using bubbling
 	 * @return the dummy nop instruction
 	 */
-	private SpecialInstruction createNopInstruction() {
+	protected SpecialInstruction createNopInstruction() {
 		return new SpecialInstruction(Instruction.nop);
 	}
 	
@@ -225,12 +230,13 @@ public class CPUPipeline extends CPU {
 			Statement nopBubble = createNopStatement();
 			ID = decode(nopBubble.getInstruction(),nopBubble.getOperandList());
 			this.canFetch = false;
+			this.rawStalls++;
 		} else {
 			ID = decode(IF.getInstruction(), IF.getOperandList());
 			IF = instructionRegister;//updating IF
 		}
 		
-		execute(oldIDToExecute);
+		execute(correctLinkAddress(oldIDToExecute));
 	    
 		//jumped checks if either an unconditional jump is made or, a branch returning true
 		boolean jumped = oldIDToExecute.mode.equals(AddressMode.JTYPE) || (oldIDToExecute.mode.equals(AddressMode.ITYPE) && ALU.branchFlag);
@@ -238,6 +244,7 @@ public class CPUPipeline extends CPU {
 		if(jumped)//flush pipeline and allow continuation of running
 		{
 			sendMessage(new PipelineHazardMessage(Hazard.CONTROL));
+			this.controlFlushes++;
 			this.isFinished = 0;//considering edge case where jump on last instruction
 			this.isRunning = true;//keep the program running
 			IF = createNopStatement();
@@ -245,8 +252,11 @@ public class CPUPipeline extends CPU {
 		}
 
 		Address executingAddress = new Address(thisInstruction.getValue()-8);//has to be -8 to counter pipeline (i.e back two steps of 4 bytes each)
+		if(this.nopCount==0) {//a real instruction rather than a bubble was executed
+			this.instructionsRetired++;
+		}
 		if(annotations.containsKey(executingAddress)&&this.nopCount==0) {//checking for annotations (not when a fake nop is executed)
-			sendMessage(new AnnotationMessage(annotations.get(executingAddress), executingAddress));
+			sendMessage(new AnnotationMessage(annotations.get(executingAddress), executingAddress, getRegisters().clone()));
 		}
 		
 		//Dealing with pipeline state messages
@@ -298,30 +308,58 @@ public class CPUPipeline extends CPU {
 		this.isFinished = 0;
 		this.nopCount = 2;//decode and execute bubbled initially
 		this.rawOccured = false;
+		this.rawStalls = 0;
+		this.controlFlushes = 0;
 		this.IF = createNopStatement();
 		this.ID = createNopInstruction();
 		super.runProgram();//calling original run program
 	}
 
-	/**overwriting instruction for pipeline due to problem with jal instruction getting incorrect program counter value
-	 * @throws StackException 
-	 * @throws HeapException 
-	 * @throws MemoryException 
-	 * @throws ExecuteException 
-	 * @throws InstructionException 
-	 * 
+	/**the decoder uses the program counter as the return address for jal,
+	 * this sets it explicitly so that it does not depend on how far ahead fetch has got
+	 * @param instruction the decoded instruction
+	 * @param address the address the instruction was fetched from
+	 * @return the instruction with the correct link address (if it is a jal)
+	 */
+	protected InstructionFormat setLinkAddress(InstructionFormat instruction, Address address) {
+		if(instruction.getInstruction().equals(Instruction.jal)) {
+			Optional<Word> returnAddress = Optional.of(new Word(DataConverter.encodeAsUnsigned(address.getValue() + 4)));
+			return new JTypeInstruction(Instruction.jal, instruction.asJType().getJumpAddress(), returnAddress);
+		}
+		return instruction;
+	}
+
+	/**fixing instruction for pipeline due to problem with jal instruction getting incorrect program counter value
+	 * the program counter is one instruction further ahead at decode than in the non pipelined cpu
+	 * @param instruction the decoded instruction about to be executed
+	 * @return the instruction with the link address corrected (if it is a jal)
 	 */
-	protected void execute(InstructionFormat instruction) throws InstructionException, ExecuteException, MemoryException, HeapException, StackException {
+	private InstructionFormat correctLinkAddress(InstructionFormat instruction) {
 		if(instruction.getInstruction().equals(Instruction.jal)) {//jal by default will take incorrect PC value, this needs to be dealt with
 			long newCurrentAddress = DataConverter.decodeAsUnsigned(instruction.asJType().getCurrentAddress().get().getWord())-4;
 			Optional<Word> trueCurrent = Optional.of(new Word(DataConverter.encodeAsUnsigned(newCurrentAddress)));
-			instruction = new JTypeInstruction(Instruction.jal,instruction.asJType().getJumpAddress(),trueCurrent);
+			return new JTypeInstruction(Instruction.jal,instruction.asJType().getJumpAddress(),trueCurrent);
 		}
-		
-		super.execute(instruction);
+		return instruction;
 	}
 
 	
+	/**override getPipelineStalls in CPU, counts the bubbles inserted for RAW hazards
+	 *
+	 */
+	@Override
+	public long getPipelineStalls() {
+		return rawStalls;
+	}
+
+	/**override getPipelineFlushes in CPU, counts the taken branches and jumps
+	 *
+	 */
+	@Override
+	public long getPipelineFlushes() {
+		return controlFlushes;
+	}
+
 	/**override isPipelined in CPU
 	 * 
 	 */
@@ -329,4 +367,12 @@ public class CPUPipeline extends CPU {
 	public boolean isPipelined() {
 		return true;
 	}
+
+	/**override getType in CPU
+	 *
+	 */
+	@Override
+	public CPUType getType() {
+		return CPUType.PIPELINED;
+	}
 }
@@ -0,0 +1,69 @@
+package simulizer.simulation.cpu.components;
+
+import simulizer.simulation.cpu.user_interaction.IO;
+
+/**the different models of CPU which can be simulated
+ * the setting name is the value used in the settings file to select the model
+ */
+public enum CPUType {
+	NON_PIPELINED("non-pipelined", "Non-Pipelined"),
+	PIPELINED("pipelined", "Pipelined (3 Stage)"),
+	FIVE_STAGE_PIPELINED("five-stage", "Pipelined (5 Stage)"),
+	DUAL_ISSUE_PIPELINED("dual-issue", "Superscalar (Dual Issue)"),
+	OUT_OF_ORDER("out-of-order", "Out of Order (Tomasulo)");
+
+	private final String settingName;
+	private final String description;
+
+	CPUType(String settingName, String description) {
+		this.settingName = settingName;
+		this.description = description;
+	}
+
+	/**creates a new cpu of this type
+	 *
+	 * @param io the io used by the cpu for syscalls
+	 * @return the new cpu
+	 */
+	public CPU createCPU(IO io) {
+		switch (this) {
+			case PIPELINED:
+				return new CPUPipeline(io);
+			case FIVE_STAGE_PIPELINED:
+				return new CPUFiveStagePipeline(io);
+			case DUAL_ISSUE_PIPELINED:
+				return new CPUDualIssuePipeline(io);
+			case OUT_OF_ORDER:
+				return new CPUOutOfOrder(io);
+			default:
+				return new CPU(io);
+		}
+	}
+
+	/**the name used to identify this type in the settings file
+	 *
+	 * @return the setting name
+	 */
+	public String getSettingName() {
+		return settingName;
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+	/**get the cpu type with the given setting name
+	 *
+	 * @param name the name used in the settings file
+	 * @return the matching cpu type, or NON_PIPELINED if no type matches
+	 */
+	public static CPUType fromSettingName(String name) {
+		for (CPUType t : values()) {
+			if (t.settingName.equals(name)) {
+				return t;
+			}
+		}
+		return NON_PIPELINED;
+	}
+}
@@ -5,7 +5,9 @@ import java.util.Optional;
 
 import simulizer.assembler.representation.Address;
 import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.MachineCode;
 import simulizer.assembler.representation.Register;
+import simulizer.assembler.representation.Statement;
 import simulizer.assembler.representation.operand.AddressOperand;
 import simulizer.assembler.representation.operand.IntegerOperand;
 import simulizer.assembler.representation.operand.Operand;
@@ -174,6 +176,108 @@ public class Decoder {
         }
     }
 	
+	/**this method carries out the decode of the FDE cycle using the machine code of
+	 * the instruction rather than its operands (see MachineCode), giving the same
+	 * result as decoding the statement. Statements without machine code of their
+	 * own (such as pseudo-instructions) are decoded from their operands
+	 * @param word the machine code of the instruction
+	 * @param address the address of the instruction
+	 * @param statement the statement at that address
+	 * @return InstructionFormat the instruction ready for execution
+	 * @throws DecodeException if something goes wrong during decode
+	 */
+	protected InstructionFormat decode(int word, Address address, Statement statement) throws DecodeException {
+		Instruction instruction = MachineCode.instructionOf(word);
+		if(instruction == null) {//refers to the statement
+			return decode(statement.getInstruction(), statement.getOperandList());
+		}
+
+		cpu.sendMessage(new StageEnterMessage(Stage.Decode));//signal start of decode
+		Word[] registers = cpu.getRegisters();
+		OperandFormat format = instruction.getOperandFormat();
+
+		if(format == OperandFormat.destSrcSrc) {
+			// R-type instruction: 2 src, 1 dest
+			Register destinationRegister = Register.fromID(MachineCode.rd(word));
+			int first = MachineCode.rs(word);
+			int second = MachineCode.rt(word);
+			if(instruction == Instruction.sllv || instruction == Instruction.srlv || instruction == Instruction.srav) {
+				// the value to shift is in rt and the amount in rs
+				first = MachineCode.rt(word);
+				second = MachineCode.rs(word);
+			}
+			Optional<Word> src1 = Optional.of(registers[first]);
+			cpu.sendMessage(new DataMovementMessage(src1,Optional.empty()));
+			Optional<Word> src2 = Optional.of(registers[second]);
+			cpu.sendMessage(new DataMovementMessage(src2,Optional.empty()));
+			return new RTypeInstruction(instruction, Optional.empty(), destinationRegister, src1, src2);
+		}
+		else if(format == OperandFormat.destSrcImm || format == OperandFormat.destSrcImmU) {
+			Register destinationRegister;
+			Optional<Word> srcRegister;
+			Optional<Word> immValue;
+			if(instruction == Instruction.sll || instruction == Instruction.srl || instruction == Instruction.sra) {
+				destinationRegister = Register.fromID(MachineCode.rd(word));
+				srcRegister = Optional.of(registers[MachineCode.rt(word)]);
+				immValue = Optional.of(new Word(DataConverter.encodeAsSigned((long)MachineCode.shamt(word))));
+			} else {
+				destinationRegister = Register.fromID(MachineCode.rt(word));
+				srcRegister = Optional.of(registers[MachineCode.rs(word)]);
+				immValue = Optional.of(new Word(DataConverter.encodeAsSigned((long)MachineCode.immediate(instruction, word))));
+			}
+			cpu.sendMessage(new DataMovementMessage(srcRegister,Optional.empty()));
+			return new RTypeInstruction(instruction, Optional.empty(), destinationRegister, srcRegister, immValue);
+		}
+		else if(format == OperandFormat.destImm) {//lui
+			Optional<Register> destinationRegister = Optional.of(Register.fromID(MachineCode.rt(word)));
+			Optional<Word> immValue = Optional.of(new Word(DataConverter.encodeAsSigned((long)MachineCode.immediate(instruction, word))));
+			return new LSInstruction(instruction,Optional.empty(),destinationRegister,Optional.empty(),immValue);
+		}
+		else if(format == OperandFormat.noArguments || instruction.equals(Instruction.BREAK)) {//syscall, nop, break
+			return new SpecialInstruction(instruction);
+		}
+		else if(format == OperandFormat.label) {//jal, j
+			Optional<Address> goToAddress = Optional.of(new Address(MachineCode.jumpTarget(word, address.getValue())));
+			Optional<Word> currentAddress = Optional.of(new Word(DataConverter.encodeAsSigned((long)this.cpu.getProgramCounter().getValue())));
+			return new JTypeInstruction(instruction,goToAddress,currentAddress);
+		}
+		else if(format == OperandFormat.register) {//jr
+			Word registerContents = registers[MachineCode.rs(word)];
+			cpu.sendMessage(new DataMovementMessage(Optional.of(registerContents),Optional.empty()));
+			Optional<Address> registerAddress = Optional.of(new Address((int)DataConverter.decodeAsUnsigned(registerContents.getWord())));
+			return new JTypeInstruction(instruction,registerAddress,Optional.empty());
+		}
+		else if(format == OperandFormat.cmpCmpLabel) {//beq, bne
+			Optional<Word> cmp1 = Optional.of(registers[MachineCode.rs(word)]);
+			cpu.sendMessage(new DataMovementMessage(cmp1,Optional.empty()));
+			Optional<Word> cmp2 = Optional.of(registers[MachineCode.rt(word)]);
+			cpu.sendMessage(new DataMovementMessage(cmp2,Optional.empty()));
+			Optional<Address> branchAddr = Optional.of(new Address(MachineCode.branchTarget(word, address.getValue())));
+			return new ITypeInstruction(instruction,cmp1,cmp2,branchAddr);
+		}
+		else if(format == OperandFormat.cmpLabel) {//bltz etc
+			Optional<Word> cmp = Optional.of(registers[MachineCode.rs(word)]);
+			cpu.sendMessage(new DataMovementMessage(cmp,Optional.empty()));
+			Optional<Address> branchAddr = Optional.of(new Address(MachineCode.branchTarget(word, address.getValue())));
+			return new ITypeInstruction(instruction,cmp,Optional.empty(),branchAddr);
+		}
+		else if(format == OperandFormat.srcAddr || format == OperandFormat.destAddr) {//loads and stores: base-offset addressing
+			int base = (int) DataConverter.decodeAsUnsigned(registers[MachineCode.rs(word)].getWord());
+			Optional<Address> memAddress = Optional.of(new Address(base + MachineCode.immediate(instruction, word)));
+			if(format == OperandFormat.srcAddr) {
+				Optional<Word> src = Optional.of(registers[MachineCode.rt(word)]);//word to store
+				cpu.sendMessage(new DataMovementMessage(src,Optional.empty()));
+				return new LSInstruction(instruction,src,Optional.empty(),memAddress,Optional.empty());
+			} else {
+				Optional<Register> loadInto = Optional.of(Register.fromID(MachineCode.rt(word)));
+				return new LSInstruction(instruction,Optional.empty(),loadInto,memAddress,Optional.empty());
+			}
+		}
+		else {
+			throw new DecodeException("Invalid instruction format.", null);
+		}
+	}
+
 	/**this method will decode an integer operand into a 4 byte word
     *
     * @param operand the operand to decode
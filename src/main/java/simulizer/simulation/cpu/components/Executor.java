@@ -7,6 +7,7 @@ import simulizer.assembler.representation.Instruction;
 import simulizer.assembler.representation.Register;
 import simulizer.assembler.representation.operand.OperandFormat;
 import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.simulation.cpu.vm.MMU;
 import simulizer.simulation.data.representation.DataConverter;
 import simulizer.simulation.data.representation.Word;
 import simulizer.simulation.exceptions.ExecuteException;
@@ -130,6 +131,7 @@ public class Executor {
 	                    	length = 2;
 	                    }
 	                    read = cpu.getMainMemory().readFromMem(retrieveAddress, length);//read bytes from memory
+	                    translate(retrieveAddress, length);//only valid accesses reach the MMU
 	                    cpu.sendMessage(new DataMovementMessage(Optional.of(new Word(read)),Optional.empty()));
 	                    
 	                    if(instruction.getInstruction().equals(Instruction.lb)||instruction.getInstruction().equals(Instruction.lh)) {//unsigned vs signed
@@ -159,6 +161,7 @@ public class Executor {
                 	
                 	int storeAddress = instruction.asLSType().getMemAddress().get().getValue();
 	                cpu.getMainMemory().writeToMem(storeAddress, toStore);
+	                translate(storeAddress, toStore.length);//only valid accesses reach the MMU
 	                cpu.sendMessage(new DataMovementMessage(Optional.of(new Word(toStore)),Optional.empty()));
                 }
                 else {
@@ -171,6 +174,31 @@ public class Executor {
     	return toReturn;
     }
 
+    /**passes the address of a load or store through the MMU (if there is one)
+     * 
+     * @param address the virtual address being accessed
+     * @param length the number of bytes being accessed
+     */
+    private void translate(int address, int length) {
+    	MMU mmu = cpu.getMMU();
+    	if(mmu != null) {
+    		mmu.access(address, length);
+    	}
+    }
+
+    /**stores the result of a syscall which does not fit in a word,
+     * the low 32 bits in v0 and the high 32 bits in v1
+     *
+     * @param value the result of the syscall
+     */
+    private void writeLongResult(long value) {
+    	cpu.getRegisters()[Register.v0.getID()] = new Word(DataConverter.encodeAsUnsigned(value & 0xFFFFFFFFL));
+    	cpu.getRegisters()[Register.v1.getID()] = new Word(DataConverter.encodeAsUnsigned(value >>> 32));
+    	cpu.sendMessage(new DataMovementMessage(Optional.of(cpu.getRegisters()[Register.v0.getID()]),Optional.empty()));
+    	cpu.sendMessage(new RegisterChangedMessage(Register.v0));
+    	cpu.sendMessage(new RegisterChangedMessage(Register.v1));
+    }
+
     /**will use IO to enable the use of system calls with the user
      * 
      * @param v0 the syscall code retrieved from the v0 register
@@ -245,6 +273,15 @@ public class Executor {
     			cpu.sendMessage(new DataMovementMessage(Optional.of(cpu.getRegisters()[Register.v0.getID()]),Optional.empty()));
     			cpu.sendMessage(new RegisterChangedMessage(Register.v0));
     			break;
+    		case 100://cycle count (extension)
+    			writeLongResult(cpu.getCycles());
+    			break;
+    		case 101://retired instruction count (extension)
+    			writeLongResult(cpu.getInstructionsRetired());
+    			break;
+    		case 102://host time in milliseconds (extension)
+    			writeLongResult(System.currentTimeMillis());
+    			break;
     		case 67697865://AND HIS NAME IS...
 				UIUtils.openURL("https://www.youtube.com/watch?v=5LitDGyxFh4");
 				UIUtils.showInfoDialog("And His Name Is", "JOHN CENA!!!");
@@ -0,0 +1,59 @@
+package simulizer.simulation.cpu.components;
+
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.operand.OperandFormat;
+
+/**the kinds of functional unit in the out of order cpu
+ * each instruction is executed by exactly one kind of unit
+ */
+public enum FunctionalUnit {
+	INTEGER("Integer ALU"),
+	MULTIPLY("Multiplier"),
+	DIVIDE("Divider"),
+	MEMORY("Load/Store"),
+	BRANCH("Branch");
+
+	private final String description;
+
+	FunctionalUnit(String description) {
+		this.description = description;
+	}
+
+	/**works out which unit executes an instruction, from the instruction alone
+	 * so that it is known before the instruction is fetched
+	 *
+	 * @param i the instruction
+	 * @return the unit which executes it
+	 */
+	public static FunctionalUnit forInstruction(Instruction i) {
+		switch (i) {
+			case mul:
+			case mulo:
+			case mulou:
+				return MULTIPLY;
+			case div:
+			case divu:
+			case rem:
+			case remu:
+				return DIVIDE;
+			case la://only computes an address
+				return INTEGER;
+			default:
+				break;
+		}
+		OperandFormat format = i.getOperandFormat();
+		if (format.equals(OperandFormat.label) || format.equals(OperandFormat.register)
+				|| format.equals(OperandFormat.cmpLabel) || format.equals(OperandFormat.cmpCmpLabel)) {//jumps and branches
+			return BRANCH;
+		}
+		if (format.equals(OperandFormat.destAddr) || format.equals(OperandFormat.srcAddr)) {
+			return MEMORY;
+		}
+		return INTEGER;
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+}
@@ -27,7 +27,11 @@ public class MainMemory {
 
 
 	private Map<Address,Statement> textSegment;
-	private byte[] staticDataSegment;
+	private int[] textImage;//machine code of the text segment, may be null
+	private static final int PAGE_SIZE = 4096;
+	private byte[] initialStaticData;//the initial state of the static data segment, the bytes after it are zero
+	private byte[][] staticDataPages;//pages of the static data segment, null until first written to
+	private int staticDataSize;
 	private DynamicDataSegment heap;
 	private StackSegment stack;
 
@@ -35,9 +39,11 @@ public class MainMemory {
 	/**
 	 * this constructor just initialises the memory and then initialises all
 	 * partitions in it
+	 * the static data segment is copied a page at a time when it is written to,
+	 * so large zeroed areas (such as .space buffers) cost nothing until used
 	 *
 	 */
-	public MainMemory(Map<Address,Statement> textSegment, byte[] staticDataSegment, Address startTextSegment, Address startOfStaticData, Address startOfDynamicData, Address stackPointer) {
+	public MainMemory(Map<Address,Statement> textSegment, int[] textImage, byte[] staticDataSegment, int staticDataSize, Address startTextSegment, Address startOfStaticData, Address startOfDynamicData, Address stackPointer) {
 		this.startOfTextSegment = startTextSegment;
 		this.startOfStaticData = startOfStaticData;
 		this.startOfDynamicData = startOfDynamicData;
@@ -46,7 +52,10 @@ public class MainMemory {
 		this.megabyte = new Address(1048576);
 
 		this.textSegment = textSegment;
-		this.staticDataSegment = staticDataSegment;
+		this.textImage = textImage;
+		this.initialStaticData = staticDataSegment;//the program may be run again, so this is never written to
+		this.staticDataSize = staticDataSize;
+		this.staticDataPages = new byte[(staticDataSize + PAGE_SIZE - 1) / PAGE_SIZE][];
 		this.heap = new DynamicDataSegment(this.startOfDynamicData);
 		this.stack = new StackSegment(this.startOfStack, new Address(this.startOfDynamicData.getValue() + this.megabyte.getValue() + 1));
 
@@ -70,19 +79,42 @@ public class MainMemory {
 	 */
 	public byte[] readFromMem(int address, int length) throws MemoryException, HeapException, StackException
 	{
-		if((address >=  this.startOfStaticData.getValue() && address < this.startOfStaticData.getValue() + this.staticDataSegment.length))//if in the static data part of memory
+		return this.read(address, length);
+	}
+
+	/**reads memory on behalf of an annotation or the debugger rather than the program
+	 * subclasses cannot override this, so the access is not counted (eg it bypasses any caches)
+	 * @param address the start address to read from
+	 * @param length the number of bytes to read
+	 * @return those bytes from memory
+	 * @throws StackException if invalid use of stack
+	 */
+	public final byte[] inspectMem(int address, int length) throws MemoryException, HeapException, StackException
+	{
+		return this.read(address, length);
+	}
+
+	private byte[] read(int address, int length) throws MemoryException, HeapException, StackException
+	{
+		if((address >=  this.startOfStaticData.getValue() && address < this.startOfStaticData.getValue() + this.staticDataSize))//if in the static data part of memory
+		{
+			int offset = address-this.startOfStaticData.getValue();
+			if(offset + length > this.staticDataSize)
+			{
+				throw new MemoryException("Reading from invalid area of memory", new Address(this.startOfStaticData.getValue() + this.staticDataSize));//the first byte past the end
+			}
+			byte[] result = new byte[length];
+			this.readStaticData(offset, result);//reading from the static data segment
+			return result;
+		}
+		else if(this.textImage != null && address >= this.startOfTextSegment.getValue()
+				&& address + length <= this.startOfTextSegment.getValue() + 4 * this.textImage.length)//reading the machine code of the program
 		{
 			byte[] result = new byte[length];
 			for(int i = 0; i < length; i++)
 			{
-				if(address-this.startOfStaticData.getValue()+i < this.startOfStaticData.getValue() + this.staticDataSegment.length)
-				{
-					result[i] = this.staticDataSegment[address-this.startOfStaticData.getValue()+i];//reading from the static data segment
-				}
-				else
-				{
-					throw new MemoryException("Reading from invalid area of memory", new Address(address-this.startOfStaticData.getValue()+i));
-				}
+				int offset = address - this.startOfTextSegment.getValue() + i;
+				result[i] = (byte)(this.textImage[offset / 4] >>> (8 * (3 - offset % 4)));//big endian
 			}
 			return result;
 		}
@@ -112,13 +144,31 @@ public class MainMemory {
 	 */
 	public void writeToMem(int address, byte[] toWrite) throws MemoryException, HeapException, StackException
 	{
-		if(address >= this.startOfStaticData.getValue() && address < this.startOfStaticData.getValue()+ this.staticDataSegment.length)//if in static data segment
+		this.write(address, toWrite);
+	}
+
+	/**writes memory on behalf of an annotation or the debugger rather than the program
+	 * subclasses cannot override this, so the access is not counted (eg it bypasses any caches)
+	 * @param address the address to start writing to
+	 * @param toWrite the bytes to write
+	 * @throws MemoryException
+	 * @throws HeapException
+	 * @throws StackException
+	 */
+	public final void modifyMem(int address, byte[] toWrite) throws MemoryException, HeapException, StackException
+	{
+		this.write(address, toWrite);
+	}
+
+	private void write(int address, byte[] toWrite) throws MemoryException, HeapException, StackException
+	{
+		if(address >= this.startOfStaticData.getValue() && address < this.startOfStaticData.getValue()+ this.staticDataSize)//if in static data segment
 		{
 			for(int i = 0; i < toWrite.length; i++)
 			{
-				if(address + i < this.startOfStaticData.getValue()+ this.staticDataSegment.length)
+				if(address + i < this.startOfStaticData.getValue()+ this.staticDataSize)
 				{
-					this.staticDataSegment[address-this.startOfStaticData.getValue() + i] = toWrite[i];
+					this.writeStaticData(address-this.startOfStaticData.getValue() + i, toWrite[i]);
 				}
 				else
 				{
@@ -147,6 +197,53 @@ public class MainMemory {
 		}
 	}
 	
+	/**reads a range of the static data segment a page at a time
+	 *
+	 * @param offset the offset from the start of the static data segment
+	 * @param result the array to fill with the bytes from that offset
+	 */
+	private void readStaticData(int offset, byte[] result)
+	{
+		int done = 0;
+		while(done < result.length)
+		{
+			int start = offset + done;
+			int count = Math.min(result.length - done, PAGE_SIZE - start % PAGE_SIZE);
+			byte[] page = this.staticDataPages[start / PAGE_SIZE];
+			if(page != null)
+			{
+				System.arraycopy(page, start % PAGE_SIZE, result, done, count);
+			}
+			else if(start < this.initialStaticData.length)
+			{
+				System.arraycopy(this.initialStaticData, start, result, done, Math.min(count, this.initialStaticData.length - start));
+			}
+			done += count;
+		}
+	}
+
+	/**writes a byte of the static data segment, copying its page on the first write
+	 *
+	 * @param offset the offset from the start of the static data segment
+	 * @param value the byte to write
+	 */
+	private void writeStaticData(int offset, byte value)
+	{
+		int pageIndex = offset / PAGE_SIZE;
+		byte[] page = this.staticDataPages[pageIndex];
+		if(page == null)
+		{
+			page = new byte[PAGE_SIZE];
+			int pageStart = pageIndex * PAGE_SIZE;
+			if(pageStart < this.initialStaticData.length)
+			{
+				System.arraycopy(this.initialStaticData, pageStart, page, 0, Math.min(PAGE_SIZE, this.initialStaticData.length - pageStart));
+			}
+			this.staticDataPages[pageIndex] = page;
+		}
+		page[offset % PAGE_SIZE] = value;
+	}
+
 	/**separate method for reading from the text segment of the memory
 	 *
 	 * @param address the address to retrieve from
@@ -165,4 +262,22 @@ public class MainMemory {
 		}
 	}
 
+	/**the machine code of the text segment
+	 *
+	 * @return one word for each statement, or null if the program has no machine code
+	 */
+	public int[] getTextImage()
+	{
+		return this.textImage;
+	}
+
+	/**the number of cycles spent waiting for memory since this was last called
+	 * plain main memory is accessed within a single cycle so never stalls, see CachedMainMemory
+	 * @return the number of stall cycles
+	 */
+	public long takeStallCycles()
+	{
+		return 0;
+	}
+
 }
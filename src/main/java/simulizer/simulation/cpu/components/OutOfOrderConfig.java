@@ -0,0 +1,72 @@
+package simulizer.simulation.cpu.components;
+
+/**the sizes, widths and latencies of the out of order cpu
+ */
+public class OutOfOrderConfig {
+
+	public final int reorderBufferSize;
+	public final int reservationStationSize;//entries per kind of functional unit
+	public final int dispatchWidth;//instructions dispatched per cycle
+	public final int commitWidth;//instructions committed per cycle
+	private final int[] unitCounts;//indexed by FunctionalUnit ordinal
+	private final int[] latencies;//indexed by FunctionalUnit ordinal
+
+	/**creates the default configuration: a 16 entry reorder buffer, 4 entry reservation stations,
+	 * dispatching and committing 2 instructions per cycle, with 2 integer ALUs and one of every other unit.
+	 * The latencies are 1 cycle for integer and branch instructions, 2 for loads and stores,
+	 * 4 for multiplication and 12 for division
+	 */
+	public OutOfOrderConfig() {
+		this(16, 4, 2, 2, new int[]{2, 1, 1, 1, 1}, new int[]{1, 4, 12, 2, 1});
+	}
+
+	/**creates a new configuration
+	 *
+	 * @param reorderBufferSize the number of instructions which can be in flight
+	 * @param reservationStationSize the number of instructions which can wait for each kind of unit
+	 * @param dispatchWidth the number of instructions dispatched per cycle
+	 * @param commitWidth the number of instructions committed per cycle
+	 * @param unitCounts the number of units of each kind, indexed by FunctionalUnit ordinal
+	 * @param latencies the cycles taken by each kind of unit, indexed by FunctionalUnit ordinal
+	 * @throws IllegalArgumentException if any of the values are not positive
+	 */
+	public OutOfOrderConfig(int reorderBufferSize, int reservationStationSize, int dispatchWidth, int commitWidth,
+			int[] unitCounts, int[] latencies) {
+		int units = FunctionalUnit.values().length;
+		if (unitCounts.length != units || latencies.length != units) {
+			throw new IllegalArgumentException("Expected a unit count and latency for each of the " + units + " kinds of functional unit");
+		}
+		if (reorderBufferSize < 1 || reservationStationSize < 1 || dispatchWidth < 1 || commitWidth < 1) {
+			throw new IllegalArgumentException("Buffer sizes and widths must be positive");
+		}
+		for (int i = 0; i < units; i++) {
+			if (unitCounts[i] < 1 || latencies[i] < 1) {
+				throw new IllegalArgumentException("Unit counts and latencies must be positive");
+			}
+		}
+		this.reorderBufferSize = reorderBufferSize;
+		this.reservationStationSize = reservationStationSize;
+		this.dispatchWidth = dispatchWidth;
+		this.commitWidth = commitWidth;
+		this.unitCounts = unitCounts.clone();
+		this.latencies = latencies.clone();
+	}
+
+	/**the number of units of a given kind
+	 *
+	 * @param unit the kind of unit
+	 * @return the number of units
+	 */
+	public int getUnitCount(FunctionalUnit unit) {
+		return unitCounts[unit.ordinal()];
+	}
+
+	/**the number of cycles a given kind of unit takes to execute an instruction
+	 *
+	 * @param unit the kind of unit
+	 * @return the latency in cycles
+	 */
+	public int getLatency(FunctionalUnit unit) {
+		return latencies[unit.ordinal()];
+	}
+}
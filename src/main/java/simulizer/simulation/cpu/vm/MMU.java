@@ -0,0 +1,191 @@
+package simulizer.simulation.cpu.vm;
+
+import simulizer.simulation.cpu.cache.Cache;
+import simulizer.simulation.cpu.cache.CacheConfig;
+import simulizer.simulation.cpu.cache.CacheStatistics;
+import simulizer.simulation.cpu.cache.WritePolicy;
+
+/**this class models a memory management unit with demand paging
+ * the TLB is checked first, on a miss the two level page table is walked,
+ * and if the page is not in physical memory a page fault brings it in
+ * (evicting the page which was brought in longest ago if memory is full)
+ *
+ * main memory is addressed by segment rather than by frame, so the MMU does not
+ * relocate accesses: it only tracks which pages are resident and counts the cost
+ * of the translations. Everything is stored in arrays allocated up front
+ * (apart from second level page tables, allocated on the first fault in their region)
+ * so it is cheap enough to leave enabled for long runs
+ */
+public class MMU {
+
+	private final MMUConfig config;
+	private final int offsetBits;//bits of an address selecting a byte in a page
+	private final int secondLevelBits;//bits of a page number indexing a second level table
+
+	private final Cache tlb;//a cache with one page per line holds the translations
+	private final int[][] pageTable;//directory of second level tables, entries hold frame + 1 (0 if not resident)
+	private final int[] framePages;//the page held in each frame
+	private int framesUsed;
+	private int nextVictim;//frames are replaced in the order they were filled
+
+	private long pageFaults;
+	private long pageEvictions;
+	private long stallCycles;//penalty cycles not yet charged to the cpu
+
+	/**creates an MMU with an empty TLB and no resident pages
+	 *
+	 * @param config the page size, physical memory and TLB configuration
+	 */
+	public MMU(MMUConfig config) {
+		this.config = config;
+		this.offsetBits = Integer.numberOfTrailingZeros(config.pageSize);
+		int pageBits = 32 - offsetBits;
+		this.secondLevelBits = pageBits / 2;
+		this.pageTable = new int[1 << (pageBits - secondLevelBits)][];
+		this.framePages = new int[config.physicalFrames];
+		this.framesUsed = 0;
+		this.nextVictim = 0;
+
+		// TLB lookups are read only so the write policy is irrelevant
+		this.tlb = new Cache(new CacheConfig(config.tlbEntries * config.pageSize, config.pageSize,
+				config.tlbAssociativity, config.tlbReplacement, WritePolicy.WRITE_BACK, config.tlbMissPenalty));
+	}
+
+	/**translates every page touched by an access
+	 * an access which runs past the top of the address space wraps around to page 0
+	 * @param address the first byte accessed
+	 * @param length the number of bytes accessed
+	 */
+	public void access(int address, int length) {
+		int pageMask = (int) ((1L << (32 - offsetBits)) - 1);
+		int first = pageNumber(address);
+		int last = pageNumber(address + Math.max(length, 1) - 1);
+		int pages = ((last - first) & pageMask) + 1;
+		for (int i = 0; i < pages; i++) {
+			translate((first + i) & pageMask);
+		}
+	}
+
+	/**the page number of an address
+	 *
+	 * @param address the virtual address
+	 * @return the page number, treating the address as unsigned
+	 */
+	private int pageNumber(int address) {
+		return address >>> offsetBits;
+	}
+
+	/**looks up the translation for a single page, handling a page fault if necessary
+	 *
+	 * @param page the virtual page number
+	 */
+	private void translate(int page) {
+		CacheStatistics tlbStatistics = tlb.getStatistics();
+		long missesBefore = tlbStatistics.getMisses();
+		stallCycles += tlb.access(page << offsetBits, 1, false, null);
+		if (tlbStatistics.getMisses() == missesBefore) {
+			return;//TLB hit, entries for evicted pages are invalidated so the page must be resident
+		}
+
+		int[] table = pageTable[page >>> secondLevelBits];
+		if (table == null) {
+			table = new int[1 << secondLevelBits];
+			pageTable[page >>> secondLevelBits] = table;
+		}
+		int index = page & ((1 << secondLevelBits) - 1);
+		if (table[index] != 0) {
+			return;//resident, the page table walk was all that was needed
+		}
+
+		pageFaults++;
+		stallCycles += config.pageFaultPenalty;
+		int frame;
+		if (framesUsed < framePages.length) {
+			frame = framesUsed++;
+		} else {
+			frame = nextVictim;
+			nextVictim = (nextVictim + 1) % framePages.length;
+			evict(framePages[frame]);
+		}
+		framePages[frame] = page;
+		table[index] = frame + 1;
+	}
+
+	/**removes a page from physical memory
+	 *
+	 * @param page the virtual page number of the page to remove
+	 */
+	private void evict(int page) {
+		pageEvictions++;
+		pageTable[page >>> secondLevelBits][page & ((1 << secondLevelBits) - 1)] = 0;
+		tlb.invalidate(page << offsetBits);
+	}
+
+	/**the cycles spent on TLB misses and page faults since this was last called
+	 *
+	 * @return the number of stall cycles
+	 */
+	public long takeStallCycles() {
+		long stalls = stallCycles;
+		stallCycles = 0;
+		return stalls;
+	}
+
+	public MMUConfig getConfig() {
+		return config;
+	}
+
+	/**the hits and misses of the TLB, evictions are entries replaced by other translations
+	 *
+	 * @return the TLB statistics
+	 */
+	public CacheStatistics getTLBStatistics() {
+		return tlb.getStatistics();
+	}
+
+	/**the number of accesses to pages which were not resident
+	 *
+	 * @return the number of page faults
+	 */
+	public long getPageFaults() {
+		return pageFaults;
+	}
+
+	/**the number of pages removed from physical memory to make room for another
+	 *
+	 * @return the number of page evictions
+	 */
+	public long getPageEvictions() {
+		return pageEvictions;
+	}
+
+	/**the number of pages currently in physical memory
+	 *
+	 * @return the number of resident pages
+	 */
+	public int getResidentPages() {
+		return framesUsed;
+	}
+
+	/**checks whether a page is in physical memory
+	 *
+	 * @param address any address within the page
+	 * @return whether the page holding the address is resident
+	 */
+	public boolean isResident(int address) {
+		int page = pageNumber(address);
+		int[] table = pageTable[page >>> secondLevelBits];
+		return table != null && table[page & ((1 << secondLevelBits) - 1)] != 0;
+	}
+
+	/**a summary of the MMU statistics, suitable for printing after a run
+	 *
+	 * @return the summary
+	 */
+	public String getSummary() {
+		return "MMU (" + config + "):\n"
+				+ "  TLB: " + tlb.getStatistics() + "\n"
+				+ "  " + pageFaults + " page faults, " + pageEvictions + " page evictions, "
+				+ framesUsed + "/" + framePages.length + " frames used\n";
+	}
+}
@@ -0,0 +1,64 @@
+package simulizer.simulation.cpu.vm;
+
+import simulizer.simulation.cpu.cache.ReplacementPolicy;
+
+/**describes the page size, physical memory and TLB of a simulated MMU
+ */
+public class MMUConfig {
+
+	public final int pageSize;//bytes per page
+	public final int physicalFrames;//number of pages which fit in physical memory
+	public final int tlbEntries;
+	public final int tlbAssociativity;//entries per set, tlbEntries for a fully associative TLB
+	public final ReplacementPolicy tlbReplacement;
+	public final int tlbMissPenalty;//cycles taken to walk the page table
+	public final int pageFaultPenalty;//cycles taken to bring a page into physical memory
+
+	/**creates a new MMU configuration
+	 *
+	 * @param pageSize the number of bytes in a page
+	 * @param physicalFrames the number of pages which fit in physical memory
+	 * @param tlbEntries the number of translations the TLB holds
+	 * @param tlbAssociativity the number of entries in each set of the TLB
+	 * @param tlbReplacement how to choose a TLB entry to evict
+	 * @param tlbMissPenalty the number of cycles taken to walk the page table
+	 * @param pageFaultPenalty the number of cycles taken to handle a page fault
+	 * @throws IllegalArgumentException if the configuration is invalid
+	 */
+	public MMUConfig(int pageSize, int physicalFrames, int tlbEntries, int tlbAssociativity,
+			ReplacementPolicy tlbReplacement, int tlbMissPenalty, int pageFaultPenalty) {
+		if (!isPowerOfTwo(pageSize) || pageSize < 16) {
+			throw new IllegalArgumentException("Page size must be a power of 2 and at least 16 bytes");
+		}
+		if (physicalFrames < 1) {
+			throw new IllegalArgumentException("Physical memory must have at least one frame");
+		}
+		if (!isPowerOfTwo(tlbEntries) || !isPowerOfTwo(tlbAssociativity) || tlbAssociativity > tlbEntries) {
+			throw new IllegalArgumentException("TLB entries and associativity must be powers of 2, with associativity <= entries");
+		}
+		if ((long) tlbEntries * pageSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("TLB covers more than the address space");
+		}
+		if (tlbMissPenalty < 0 || pageFaultPenalty < 0) {
+			throw new IllegalArgumentException("Penalties cannot be negative");
+		}
+		this.pageSize = pageSize;
+		this.physicalFrames = physicalFrames;
+		this.tlbEntries = tlbEntries;
+		this.tlbAssociativity = tlbAssociativity;
+		this.tlbReplacement = tlbReplacement;
+		this.tlbMissPenalty = tlbMissPenalty;
+		this.pageFaultPenalty = pageFaultPenalty;
+	}
+
+	private static boolean isPowerOfTwo(int n) {
+		return n > 0 && (n & (n - 1)) == 0;
+	}
+
+	@Override
+	public String toString() {
+		return pageSize + "B pages, " + physicalFrames + " frames, " + tlbEntries + " entry "
+				+ tlbAssociativity + "-way " + tlbReplacement.getSettingName() + " TLB, "
+				+ tlbMissPenalty + " cycle TLB miss penalty, " + pageFaultPenalty + " cycle page fault penalty";
+	}
+}
@@ -160,5 +160,46 @@ public class DataConverter {
         return truncate(value, 4);
     }
 
+    /**
+     * decode a sequence of integers of the same size, as stored in memory
+     * @param data the bytes to decode (big endian)
+     * @param size the number of bytes of each integer (1, 2 or 4)
+     * @param signed whether to interpret the integers as signed
+     * @return the decoded integers
+     */
+    public static long[] decodeArray(byte[] data, int size, boolean signed) {
+        assert size == 1 || size == 2 || size == 4;
+        assert data.length % size == 0;
+
+        long[] values = new long[data.length / size];
+        int shift = Long.SIZE - 8*size;
+        for(int i = 0, offset = 0; i < values.length; i++, offset += size) {
+            long value = 0;
+            for(int j = 0; j < size; j++) {
+                value = (value << 8) | (data[offset + j] & 0xFF);
+            }
+            // move the most significant bit of the integer to the sign bit and back to sign extend it
+            values[i] = signed ? (value << shift) >> shift : value;
+        }
+        return values;
+    }
 
+    /**
+     * encode a sequence of integers of the same size, to be stored in memory.
+     * The integers are truncated if they are too large to fit.
+     * @param values the values to encode
+     * @param size the number of bytes of each integer (1, 2 or 4)
+     * @return the encoded integers (big endian)
+     */
+    public static byte[] encodeArray(long[] values, int size) {
+        assert size == 1 || size == 2 || size == 4;
+
+        byte[] data = new byte[values.length * size];
+        for(int i = 0, offset = 0; i < values.length; i++, offset += size) {
+            for(int j = 0; j < size; j++) {
+                data[offset + j] = (byte) (values[i] >> 8*(size-1-j));
+            }
+        }
+        return data;
+    }
 }
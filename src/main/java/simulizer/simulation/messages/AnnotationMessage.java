@@ -2,6 +2,7 @@ package simulizer.simulation.messages;
 
 import simulizer.assembler.representation.Address;
 import simulizer.assembler.representation.Annotation;
+import simulizer.simulation.data.representation.Word;
 
 /**
  * A message stating that an annotation has been met
@@ -10,9 +11,15 @@ import simulizer.assembler.representation.Annotation;
 public class AnnotationMessage extends Message {
 	public final Annotation annotation; // the annotation that was met
 	public final Address boundAddress; // null if initial annotation
+	public final Word[] registers; // copy of the registers when the annotation was met (null if not taken)
 
 	public AnnotationMessage(Annotation annotation, Address boundAddress) {
+		this(annotation, boundAddress, null);
+	}
+
+	public AnnotationMessage(Annotation annotation, Address boundAddress, Word[] registers) {
 		this.annotation = annotation;
 		this.boundAddress = boundAddress;
+		this.registers = registers;
 	}
 }
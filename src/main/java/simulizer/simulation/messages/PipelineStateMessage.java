@@ -5,14 +5,15 @@ import simulizer.assembler.representation.Address;
 
 /**class represents a message which gives the information on the state
  * of the pipeline at a given tick
+ * the stages are ordered from the front of the pipeline (fetch) to the back,
+ * a null address represents a stage holding a bubble
  * @author Charlie Street
  *
  */
 public class PipelineStateMessage extends Message{
 
-	private Address fetched;
-	private Address decoded;
-	private Address executed;
+	private Address[] stages;
+	private int width;//number of instructions held by each stage
 
 	/**method will initialise all fields of information for the message
 	 *
@@ -21,33 +22,82 @@ public class PipelineStateMessage extends Message{
 	 * @param executed the address of the instruction just executed
 	 */
 	public PipelineStateMessage(Address fetched, Address decoded, Address executed) {
-		this.fetched = fetched;
-		this.decoded = decoded;
-		this.executed = executed;
+		this(new Address[]{fetched, decoded, executed});
+	}
+
+	/**method will initialise the message for a pipeline with any number of stages
+	 *
+	 * @param stages the address of the instruction in each stage, in pipeline order
+	 */
+	public PipelineStateMessage(Address[] stages) {
+		this(stages, 1);
+	}
+
+	/**method will initialise the message for a pipeline which holds multiple instructions in each stage
+	 * the addresses of a stage are adjacent, eg fetch slot 1, fetch slot 2, decode slot 1...
+	 * @param stages the address of the instruction in each slot of each stage, in pipeline order
+	 * @param width the number of instructions each stage holds
+	 */
+	public PipelineStateMessage(Address[] stages, int width) {
+		this.stages = stages;
+		this.width = width;
+	}
+
+	/**get the number of instructions each stage can hold
+	 *
+	 * @return 1 for a scalar pipeline, more for a superscalar one
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**get the number of stages in the pipeline
+	 *
+	 * @return the number of stages
+	 */
+	public int getStageCount() {
+		return this.stages.length;
+	}
+
+	/**get the address of the instruction in a given stage
+	 *
+	 * @param stage the index of the stage (0 is fetch)
+	 * @return the address in that stage
+	 */
+	public Address getStage(int stage) {
+		return this.stages[stage];
+	}
+
+	/**get the address of the instruction in every stage
+	 *
+	 * @return a copy of the addresses in pipeline order
+	 */
+	public Address[] getStages() {
+		return this.stages.clone();
 	}
 
 	/**get the fetched address
 	 *
-	 * @return the fetched address
+	 * @return the fetched address (of the first slot for a superscalar pipeline)
 	 */
 	public Address getFetched() {
-		return this.fetched;
+		return this.stages[0];
 	}
 
 	/**get the decoded address
 	 *
-	 * @return the decoded address
+	 * @return the decoded address (of the first slot for a superscalar pipeline)
 	 */
 	public Address getDecoded() {
-		return this.decoded;
+		return this.stages[this.width];
 	}
 
 	/**get the executed address
 	 *
-	 * @return the executed address
+	 * @return the executed address (of the first slot for a superscalar pipeline)
 	 */
 	public Address getExecuted() {
-		return this.executed;
+		return this.stages[2 * this.width];
 	}
 
 }
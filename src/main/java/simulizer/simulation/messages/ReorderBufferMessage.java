@@ -0,0 +1,93 @@
+package simulizer.simulation.messages;
+
+import java.util.Collections;
+import java.util.List;
+
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Instruction;
+import simulizer.simulation.cpu.components.FunctionalUnit;
+
+/**class represents a message giving the contents of the reorder buffer
+ * of the out of order cpu at the end of a cycle
+ */
+public class ReorderBufferMessage extends Message {
+
+	/**the progress of an instruction in the reorder buffer
+	 *
+	 */
+	public enum State {
+		WAITING("Waiting"),//in a reservation station, waiting for operands or a free unit
+		EXECUTING("Executing"),
+		COMPLETED("Completed");//waiting to be committed
+
+		private final String description;
+
+		State(String description) {
+			this.description = description;
+		}
+
+		@Override
+		public String toString() {
+			return description;
+		}
+	}
+
+	/**a snapshot of a single reorder buffer entry
+	 *
+	 */
+	public static class Entry {
+		public final Address address;
+		public final Instruction instruction;
+		public final FunctionalUnit unit;
+		public final State state;
+		public final int cyclesRemaining;//cycles until the instruction completes (0 unless executing)
+
+		public Entry(Address address, Instruction instruction, FunctionalUnit unit, State state, int cyclesRemaining) {
+			this.address = address;
+			this.instruction = instruction;
+			this.unit = unit;
+			this.state = state;
+			this.cyclesRemaining = cyclesRemaining;
+		}
+	}
+
+	private final List<Entry> entries;
+	private final int capacity;
+	private final long cycle;
+
+	/**method will initialise all fields of information for the message
+	 *
+	 * @param entries the entries of the reorder buffer, oldest first
+	 * @param capacity the maximum number of entries in the reorder buffer
+	 * @param cycle the cycle the snapshot was taken at the end of
+	 */
+	public ReorderBufferMessage(List<Entry> entries, int capacity, long cycle) {
+		this.entries = Collections.unmodifiableList(entries);
+		this.capacity = capacity;
+		this.cycle = cycle;
+	}
+
+	/**get the entries of the reorder buffer
+	 *
+	 * @return the entries, oldest (next to commit) first
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**get the maximum number of entries
+	 *
+	 * @return the capacity of the reorder buffer
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**get the cycle this snapshot was taken in
+	 *
+	 * @return the cycle number
+	 */
+	public long getCycle() {
+		return cycle;
+	}
+}
@@ -23,6 +23,8 @@ public abstract class SimulationListener {
             processPipelineStateMessage((PipelineStateMessage) m);
         } else if (m instanceof ProblemMessage) {
             processProblemMessage((ProblemMessage) m);
+        } else if (m instanceof ReorderBufferMessage) {
+            processReorderBufferMessage((ReorderBufferMessage) m);
         } else if (m instanceof RegisterChangedMessage) {
             processRegisterChangedMessage((RegisterChangedMessage) m);
         } else if (m instanceof SimulationMessage) {
@@ -43,6 +45,7 @@ public abstract class SimulationListener {
     public void processPipelineHazardMessage(PipelineHazardMessage m) {}
     public void processProblemMessage(ProblemMessage m) {}
     public void processRegisterChangedMessage(RegisterChangedMessage m) {}
+    public void processReorderBufferMessage(ReorderBufferMessage m) {}
     public void processSimulationMessage(SimulationMessage m) {}
     public void processStageEnterMessage(StageEnterMessage m) {}
     public void processPipelineStateMessage(PipelineStateMessage m) {}
@@ -1,5 +1,6 @@
 package simulizer.ui;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
@@ -15,15 +16,24 @@ import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 import simulizer.Simulizer;
 import simulizer.annotations.AnnotationManager;
-import simulizer.assembler.Assembler;
+import simulizer.assembler.Linker;
+import simulizer.assembler.ModuleCache;
+import simulizer.assembler.ProgramCache;
 import simulizer.assembler.extractor.problem.StoreProblemLogger;
 import simulizer.assembler.representation.Program;
 import simulizer.highlevel.models.HLVisualManager;
 import simulizer.settings.Settings;
 import simulizer.simulation.cpu.CPUChangedListener;
+import simulizer.simulation.cpu.cache.CacheConfig;
+import simulizer.simulation.cpu.cache.ReplacementPolicy;
+import simulizer.simulation.cpu.cache.WritePolicy;
 import simulizer.simulation.cpu.components.CPU;
-import simulizer.simulation.cpu.components.CPUPipeline;
+import simulizer.simulation.cpu.components.CPUOutOfOrder;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.components.FunctionalUnit;
+import simulizer.simulation.cpu.components.OutOfOrderConfig;
 import simulizer.simulation.cpu.user_interaction.LoggerIO;
+import simulizer.simulation.cpu.vm.MMUConfig;
 import simulizer.ui.components.AssemblingDialog;
 import simulizer.ui.components.MainMenuBar;
 import simulizer.ui.components.UISimulationListener;
@@ -59,6 +69,8 @@ public class WindowManager extends GridPane {
 	private final AnnotationManager annotationManager;
 	private HLVisualManager hlvisual;
 	private final MainMenuBar menuBar;
+	private final ProgramCache programCache;
+	private final ModuleCache moduleCache;
 
 	private Application app;
 
@@ -89,9 +101,16 @@ public class WindowManager extends GridPane {
 			shutdown();
 		});
 
+		// Assembled programs are shared by continuous assembly and running
+		programCache = new ProgramCache((int) settings.get("assembler.cache-size"));
+		String cacheDirectory = (String) settings.get("assembler.cache-directory");
+		if (cacheDirectory != null && !cacheDirectory.isEmpty())
+			programCache.setDirectory(new File(cacheDirectory));
+		moduleCache = new ModuleCache((int) settings.get("assembler.cache-size"));
+
 		// Creates CPU Simulation
 		io = new LoggerIO(workspace);
-		newCPU((boolean) settings.get("simulation.pipelined"));
+		newCPU(CPUType.fromSettingName((String) settings.get("simulation.cpu-type")));
 
 		// Set the theme
 		themes = new Themes((String) settings.get("workspace.theme"));
@@ -216,13 +235,16 @@ public class WindowManager extends GridPane {
 		primaryStage.setTitle("Simulizer v" + Simulizer.VERSION + " - Assembling Program");
 
 		final String programText = Editor.getText();
+		// files are included relative to the program's file
+		File backingFile = Editor.getBackingFile();
+		final Linker linker = Linker.forDirectory(backingFile == null ? new File(".") : backingFile.getAbsoluteFile().getParentFile(), moduleCache);
 
 		// avoid lots of work on the JavaFX thread
 		Thread assembleThread = new Thread(() -> {
 			StoreProblemLogger log = new StoreProblemLogger();
 
 			try {
-				final Program p = Assembler.assemble(programText, log);
+				final Program p = programCache.assemble(programText, log, linker);
 				// doing as little as possible in the FX thread
 				if(getWorkspace().windowIsOpen(WindowEnum.EDITOR)) {
 					getWorkspace().openEditorWithCallback((editor2) -> {
@@ -308,6 +330,13 @@ public class WindowManager extends GridPane {
 		return io;
 	}
 
+	/**
+	 * @return the cache of assembled programs
+	 */
+	public ProgramCache getProgramCache() {
+		return programCache;
+	}
+
 	/**
 	 * @return the annotation manager
 	 */
@@ -316,24 +345,25 @@ public class WindowManager extends GridPane {
 	}
 
 	/**
-	 * Creates a new CPU. Used to switch between pipelined and non pipelined CPU
+	 * Creates a new CPU. Used to switch between the different models of CPU
 	 * 
-	 * @param pipelined
-	 *            whether the new cpu should be pipelined
+	 * @param type
+	 *            the model of cpu to create
 	 */
-	public void newCPU(boolean pipelined) {
+	public void newCPU(CPUType type) {
 		double oldCycleFreq = -1;
 		if (cpu != null) {
 			cpu.shutdown();
 			oldCycleFreq = cpu.getCycleFreq();
 		}
 
-		if (pipelined) {
-			cpu = new CPUPipeline(io);
-		} else {
-			cpu = new CPU(io);
-		}
+		cpu = type.createCPU(io);
 		cpu.registerListener(simListener);
+		cpu.setCacheConfig(cacheConfig("simulation.cache.instruction", false), cacheConfig("simulation.cache.data", true));
+		cpu.setMMUConfig(mmuConfig());
+		if (cpu instanceof CPUOutOfOrder) {
+			((CPUOutOfOrder) cpu).setConfig(outOfOrderConfig());
+		}
 		if (oldCycleFreq < 0) {
 			cpu.setCycleFreq((Double) settings.get("simulation.default-CPU-frequency"));
 		} else {
@@ -345,6 +375,71 @@ public class WindowManager extends GridPane {
 		}
 	}
 
+	/**
+	 * Reads the configuration of a cache from the settings
+	 * 
+	 * @param path
+	 *            the path to the cache settings eg "simulation.cache.data"
+	 * @param hasWritePolicy
+	 *            whether the cache has a write policy setting (the instruction cache is never written)
+	 * @return the cache configuration, or null if the cache is disabled or its settings are invalid
+	 */
+	private CacheConfig cacheConfig(String path, boolean hasWritePolicy) {
+		if (!(boolean) settings.get(path + ".enabled"))
+			return null;
+
+		try {
+			return new CacheConfig((int) settings.get(path + ".size"), (int) settings.get(path + ".line-size"), (int) settings.get(path + ".associativity"),
+					ReplacementPolicy.fromSettingName((String) settings.get(path + ".replacement")),
+					hasWritePolicy ? WritePolicy.fromSettingName((String) settings.get(path + ".write-policy")) : WritePolicy.WRITE_BACK,
+					(int) settings.get(path + ".miss-penalty"));
+		} catch (IllegalArgumentException e) {
+			UIUtils.showErrorDialog("Invalid Cache Settings", path + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the configuration of the MMU from the settings
+	 * 
+	 * @return the MMU configuration, or null if the MMU is disabled or its settings are invalid
+	 */
+	private MMUConfig mmuConfig() {
+		if (!(boolean) settings.get("simulation.mmu.enabled"))
+			return null;
+
+		try {
+			return new MMUConfig((int) settings.get("simulation.mmu.page-size"), (int) settings.get("simulation.mmu.physical-frames"),
+					(int) settings.get("simulation.mmu.tlb-entries"), (int) settings.get("simulation.mmu.tlb-associativity"),
+					ReplacementPolicy.fromSettingName((String) settings.get("simulation.mmu.tlb-replacement")),
+					(int) settings.get("simulation.mmu.tlb-miss-penalty"), (int) settings.get("simulation.mmu.page-fault-penalty"));
+		} catch (IllegalArgumentException e) {
+			UIUtils.showErrorDialog("Invalid Virtual Memory Settings", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the configuration of the out of order CPU from the settings
+	 * 
+	 * @return the out of order configuration
+	 */
+	private OutOfOrderConfig outOfOrderConfig() {
+		int[] unitCounts = new int[FunctionalUnit.values().length];
+		int[] latencies = new int[FunctionalUnit.values().length];
+		for (FunctionalUnit unit : FunctionalUnit.values()) {
+			unitCounts[unit.ordinal()] = 1;
+			latencies[unit.ordinal()] = 1;
+		}
+		unitCounts[FunctionalUnit.INTEGER.ordinal()] = (int) settings.get("simulation.out-of-order.integer-units");
+		latencies[FunctionalUnit.MULTIPLY.ordinal()] = (int) settings.get("simulation.out-of-order.multiply-latency");
+		latencies[FunctionalUnit.DIVIDE.ordinal()] = (int) settings.get("simulation.out-of-order.divide-latency");
+		latencies[FunctionalUnit.MEMORY.ordinal()] = (int) settings.get("simulation.out-of-order.memory-latency");
+
+		return new OutOfOrderConfig((int) settings.get("simulation.out-of-order.rob-size"), (int) settings.get("simulation.out-of-order.rs-size"),
+				(int) settings.get("simulation.out-of-order.dispatch-width"), (int) settings.get("simulation.out-of-order.commit-width"), unitCounts, latencies);
+	}
+
 	/**
 	 * Adds a CPU changed listener
 	 * 
@@ -9,7 +9,9 @@ import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
 import javafx.scene.input.KeyCombination;
@@ -20,6 +22,7 @@ import simulizer.assembler.Assembler;
 import simulizer.assembler.representation.Program;
 import simulizer.assembler.representation.ProgramStringBuilder;
 import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUType;
 import simulizer.simulation.cpu.components.Clock;
 import simulizer.ui.WindowManager;
 import simulizer.ui.interfaces.InternalWindow;
@@ -359,10 +362,16 @@ public class MainMenuBar extends MenuBar {
 				wm.stopSimulation();
 		});
 
-		CheckMenuItem togglePipeline = new CheckMenuItem("Toggle CPU Pipelining");
-		togglePipeline.setDisable(cpu.isRunning());
-		togglePipeline.setSelected(cpu.isPipelined());
-		togglePipeline.setOnAction(e -> wm.newCPU(togglePipeline.isSelected()));
+		Menu cpuType = new Menu("CPU Type");
+		cpuType.setDisable(cpu.isRunning());
+		ToggleGroup cpuTypeGroup = new ToggleGroup();
+		for (CPUType type : CPUType.values()) {
+			RadioMenuItem item = new RadioMenuItem(type.toString());
+			item.setToggleGroup(cpuTypeGroup);
+			item.setSelected(cpu.getType() == type);
+			item.setOnAction(e -> wm.newCPU(type));
+			cpuType.getItems().add(item);
+		}
 
 		MenuItem setClockSpeed = new MenuItem("Set Clock Speed");
 		setClockSpeed.setOnAction(e -> {
@@ -376,7 +385,7 @@ public class MainMenuBar extends MenuBar {
 			});
 		});
 
-		runMenu.getItems().addAll(assembleAndRun, pauseResume, singleStep, stop, togglePipeline, setClockSpeed);
+		runMenu.getItems().addAll(assembleAndRun, pauseResume, singleStep, stop, cpuType, setClockSpeed);
 	}
 
 	/**
@@ -6,7 +6,10 @@ import javafx.application.Platform;
 import simulizer.Simulizer;
 import simulizer.assembler.representation.Address;
 import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.cache.CachedMainMemory;
 import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUDualIssuePipeline;
+import simulizer.simulation.cpu.components.CPUOutOfOrder;
 import simulizer.simulation.cpu.user_interaction.IOStream;
 import simulizer.simulation.messages.AnnotationMessage;
 import simulizer.simulation.messages.PipelineHazardMessage;
@@ -51,14 +54,14 @@ public class UISimulationListener extends SimulationListener {
 					wm.getWorkspace().openEditorWithCallback((editor) -> {
 						System.out.println("Simulation Started - running '" + Editor.getBackingFilename() + "'"
 								+ (editor.hasOutstandingChanges() ? " with outstanding changes" : "")
-								+ (wm.getCPU().isPipelined() ? " (Pipelined CPU)" : " (Non-Pipelined CPU)"));
+								+ " (" + wm.getCPU().getType() + " CPU)");
 
 						editor.executeMode();
 					});
 				} else {
 					System.out.println("Simulation Started - running '" + Editor.getBackingFilename() + "'"
 							+ " with the editor closed"
-							+ (wm.getCPU().isPipelined() ? " (Pipelined CPU)" : " (Non-Pipelined CPU)"));
+							+ " (" + wm.getCPU().getType() + " CPU)");
 				}
 
 				// Clear the pipeline model when a new simulation starts
@@ -77,6 +80,8 @@ public class UISimulationListener extends SimulationListener {
 				wm.getAnnotationManager().onEndProgram();
 
 				System.out.println("Total annotations fired: " + count);
+				System.out.print(wm.getAnnotationManager().getProfileSummary());
+				System.out.print(wm.getAnnotationManager().getRegionSummary());
 				long duration = System.currentTimeMillis() - startTime;
 				long ticks = wm.getCPU().getClock().getTicks();
 				System.out.println("Total time: " + (duration / 1000.0) + " seconds");
@@ -84,6 +89,22 @@ public class UISimulationListener extends SimulationListener {
 				if (ticks != 0) { // this is actually possible (.text;main:nop)
 					System.out.println("Average time per tick: " + (duration / ticks) + " ms");
 				}
+				CPU cpu = wm.getCPU();
+				if (cpu.getMainMemory() instanceof CachedMainMemory || cpu.getMMU() != null) {
+					System.out.println("Total cycles (including memory penalties): " + cpu.getCycles());
+				}
+				if (cpu.getMainMemory() instanceof CachedMainMemory) {
+					System.out.print(((CachedMainMemory) cpu.getMainMemory()).getSummary());
+				}
+				if (cpu.getMMU() != null) {
+					System.out.print(cpu.getMMU().getSummary());
+				}
+				if (cpu instanceof CPUDualIssuePipeline) {
+					System.out.print(((CPUDualIssuePipeline) cpu).getIssueSummary());
+				}
+				if (cpu instanceof CPUOutOfOrder) {
+					System.out.print(((CPUOutOfOrder) cpu).getSummary());
+				}
 
 				final Editor e = (Editor) wm.getWorkspace().findInternalWindow(WindowEnum.EDITOR);
 				if (e != null) {
@@ -100,7 +121,7 @@ public class UISimulationListener extends SimulationListener {
 
 	@Override
 	public void processAnnotationMessage(AnnotationMessage m) {
-		// the annotations should all be completed before moving on to the next cycle
+		// the annotations should all be completed before moving on to the next cycle (unless run asynchronously)
 		count++;
 		wm.getAnnotationManager().processAnnotationMessage(m);
 	}
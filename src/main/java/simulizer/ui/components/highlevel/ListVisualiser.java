@@ -24,6 +24,7 @@ import simulizer.highlevel.models.ListModel.HighlightAction;
 import simulizer.highlevel.models.ListModel.ListAction;
 import simulizer.highlevel.models.ListModel.MarkerAction;
 import simulizer.highlevel.models.ListModel.SwapAction;
+import simulizer.highlevel.models.ListModel.UpdateAction;
 import simulizer.highlevel.models.ModelAction;
 import simulizer.ui.windows.HighLevelVisualisation;
 
@@ -402,6 +403,11 @@ public class ListVisualiser extends DataStructureVisualiser {
 					markers.clear();
 				}
 			}
+		} else if (action instanceof UpdateAction) {
+			// Elements changed
+			synchronized (this.list) {
+				this.list = ((UpdateAction) action).structure;
+			}
 		}
 
 		if (timeline != null) {
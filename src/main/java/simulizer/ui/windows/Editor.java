@@ -4,7 +4,9 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
@@ -29,8 +31,11 @@ import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import netscape.javascript.JSObject;
 import simulizer.assembler.Assembler;
+import simulizer.assembler.IncrementalAssembler;
 import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
 import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Program;
 import simulizer.assembler.representation.Register;
 import simulizer.settings.Settings;
 import simulizer.ui.WindowManager;
@@ -97,7 +102,11 @@ public class Editor extends InternalWindow {
 	private boolean continuousAssemblyInProgress; // used to set the window title
 	private final ScheduledExecutorService continuousAssembly;
 	private ScheduledFuture<?> assembleTask;
-	private int lastProgramHash; // used to avoid wasted effort if the file has not changed
+	private volatile boolean continuousAssemblyActive; // whether changes are being sent to the assembler
+	private boolean incrementalAssemblyEnabled; // only re-parse the lines which have changed
+	private final IncrementalAssembler incrementalAssembler; // holds a copy of the document, kept up to date with changes
+	private final Queue<DocumentChange> pendingChanges; // changes which have not been given to the assembler
+	private volatile boolean resyncRequired; // whether the assembler's copy of the document is out of date
 
 	/**
 	 * Communication between this class and the javascript running in the webview
@@ -111,15 +120,57 @@ public class Editor extends InternalWindow {
 			this.editor = editor;
 		}
 
-		public void onChange() {
+		/**
+		 * called by the editor whenever the document changes
+		 * @param action "insert" or "remove", anything else means the whole document should be fetched
+		 * @param startRow the line the change starts on (0-based)
+		 * @param startColumn the column the change starts at
+		 * @param endRow the line the change ends on (0-based)
+		 * @param endColumn the column the change ends at
+		 * @param text the text which was inserted or removed
+		 */
+		public void onChange(String action, int startRow, int startColumn, int endRow, int endColumn, String text) {
 			if (!editor.changedSinceLastSave) {
 				editor.setEdited(true);
 			}
+			editor.documentChanged(new DocumentChange(action, startRow, startColumn, endRow, endColumn, text));
 		}
 	}
 
 	private Bridge bridge;
 
+	/**
+	 * a change made to the document, as reported by ace
+	 */
+	private static class DocumentChange {
+		final String action;
+		final int startRow, startColumn, endRow, endColumn;
+		final String text;
+
+		DocumentChange(String action, int startRow, int startColumn, int endRow, int endColumn, String text) {
+			this.action = action;
+			this.startRow = startRow;
+			this.startColumn = startColumn;
+			this.endRow = endRow;
+			this.endColumn = endColumn;
+			this.text = text;
+		}
+
+		/**
+		 * @return whether the change could be applied
+		 */
+		boolean applyTo(IncrementalAssembler assembler) {
+			switch(action) {
+				case "insert":
+					return assembler.insert(startRow, startColumn, text);
+				case "remove":
+					return assembler.remove(startRow, startColumn, endRow, endColumn);
+				default:
+					return false;
+			}
+		}
+	}
+
 	public Editor() {
 		editor = this;
 		WebView view = new WebView();
@@ -163,7 +214,10 @@ public class Editor extends InternalWindow {
 				new ThreadUtils.NamedThreadFactory("Continuous-Assembly"));
 		continuousAssemblyInProgress = false;
 		assembleTask = null;
-		lastProgramHash = 0;
+		continuousAssemblyActive = false;
+		incrementalAssembler = new IncrementalAssembler();
+		pendingChanges = new ConcurrentLinkedQueue<>();
+		resyncRequired = true;
 
 		getContentPane().getChildren().add(view);
 	}
@@ -252,55 +306,120 @@ public class Editor extends InternalWindow {
 	}
 
 
+	/**
+	 * assemble the program now, then again whenever the user stops typing
+	 */
 	public void startContinuousAssembly() {
-		if(assembleTask != null) {
-			assembleTask.cancel(false); // wait to finish
+		continuousAssemblyActive = true;
+		scheduleAssembly(0);
+	}
+
+	public void stopContinuousAssembly() {
+		continuousAssemblyActive = false;
+		resyncRequired = true;
+		synchronized (continuousAssembly) {
+			if(assembleTask != null) {
+				assembleTask.cancel(true);
+				assembleTask = null;
+			}
 		}
-		if(!continuousAssembly.isShutdown()) {
-			assembleTask = continuousAssembly.scheduleAtFixedRate(() -> {
-				if(!continuousAssemblyEnabled || mode == Mode.EXECUTE_MODE)
-					return;
-
-				try {
-					FutureTask<String> text = new FutureTask<>(() -> {
-						try {
-							return getText();
-						} catch(Exception e) {
-							return null;
-						}
-					});
-					Platform.runLater(text);
-
-					String program = text.get(100, TimeUnit.MILLISECONDS);
-					if(program == null) return;
-					int thisProgramHash = program.hashCode();
-
-					if (lastProgramHash != thisProgramHash) {
-						continuousAssemblyInProgress = true;
-						Platform.runLater(this::refreshTitle);
-
-						//DebugUtils.Timer t = new DebugUtils.Timer("Continuous Assembly");
-						final List<Problem> problems = Assembler.checkForProblems(program);
-						Platform.runLater(() -> setProblems(problems));
-						lastProgramHash = thisProgramHash;
-						//t.stopAndPrint();
-					}
-				} catch(TimeoutException | InterruptedException ignored) {
-					// its fine, just don't compile
-				} catch (Exception e) {
-					UIUtils.showExceptionDialog(e);
-				} finally {
-					continuousAssemblyInProgress = false;
-					Platform.runLater(this::refreshTitle);
-				}
-			}, 0, continuousAssemblyRefreshPeriod, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * called (from the JavaFX thread) with every change made to the document
+	 * @param change the change which was made
+	 */
+	private void documentChanged(DocumentChange change) {
+		if(!continuousAssemblyActive) {
+			// the changes won't be applied, so fetch the whole document next time
+			resyncRequired = true;
+			return;
 		}
+		pendingChanges.add(change);
+		scheduleAssembly(continuousAssemblyRefreshPeriod);
 	}
 
-	public void stopContinuousAssembly() {
-		if(assembleTask != null) {
-			assembleTask.cancel(true);
-			assembleTask = null;
+	/**
+	 * assemble the program after a delay, replacing any assembly which is
+	 * already waiting so that the program is only assembled once typing pauses
+	 * @param delay the delay in milliseconds
+	 */
+	private void scheduleAssembly(int delay) {
+		synchronized (continuousAssembly) {
+			if(continuousAssembly.isShutdown())
+				return;
+			if(assembleTask != null) {
+				assembleTask.cancel(false); // let a running assembly finish
+			}
+			assembleTask = continuousAssembly.schedule(this::assembleChanges, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * apply the pending changes to the assembler's copy of the document and check it for problems
+	 * runs on the continuous assembly thread
+	 */
+	private void assembleChanges() {
+		if(!continuousAssemblyEnabled || mode == Mode.EXECUTE_MODE)
+			return;
+
+		try {
+			continuousAssemblyInProgress = true;
+			Platform.runLater(this::refreshTitle);
+
+			DocumentChange change;
+			while(!resyncRequired && (change = pendingChanges.poll()) != null) {
+				if(!change.applyTo(incrementalAssembler)) {
+					resyncRequired = true;
+				}
+			}
+
+			if(resyncRequired) {
+				// the changes and the text are both accessed from the JavaFX thread, so nothing is missed or applied twice
+				FutureTask<String> text = new FutureTask<>(() -> {
+					try {
+						pendingChanges.clear();
+						return getText();
+					} catch(Exception e) {
+						return null;
+					}
+				});
+				Platform.runLater(text);
+
+				String program = text.get(100, TimeUnit.MILLISECONDS);
+				if(program == null) return;
+				incrementalAssembler.setText(program);
+				resyncRequired = false;
+			}
+
+			//DebugUtils.Timer t = new DebugUtils.Timer("Continuous Assembly");
+			final List<Problem> problems;
+			Program p;
+			if(incrementalAssemblyEnabled) {
+				problems = incrementalAssembler.checkForProblems();
+				p = problems.isEmpty() ? incrementalAssembler.assemble() : null;
+			} else {
+				StoreProblemLogger log = new StoreProblemLogger();
+				p = Assembler.assemble(incrementalAssembler.getText(), log);
+				problems = log.getProblems();
+			}
+			Platform.runLater(() -> setProblems(problems));
+
+			// running the program won't need to assemble it again
+			if(p != null && getWindowManager() != null) {
+				getWindowManager().getProgramCache().putSource(incrementalAssembler.getText(), p);
+			}
+			//t.stopAndPrint();
+		} catch(TimeoutException ignored) {
+			// the JavaFX thread is busy, try again later
+			scheduleAssembly(continuousAssemblyRefreshPeriod);
+		} catch(InterruptedException ignored) {
+			// its fine, just don't compile
+		} catch (Exception e) {
+			UIUtils.showExceptionDialog(e);
+		} finally {
+			continuousAssemblyInProgress = false;
+			Platform.runLater(this::refreshTitle);
 		}
 	}
 
@@ -366,6 +485,7 @@ public class Editor extends InternalWindow {
 
 		continuousAssemblyEnabled = (boolean) settings.get("editor.continuous-assembly");
 		continuousAssemblyRefreshPeriod = (int) settings.get("editor.continuous-assembly-refresh-period");
+		incrementalAssemblyEnabled = (boolean) settings.get("editor.incremental-assembly");
 
 		if(initialLoad) {
 			String initialFilename = (String) settings.get("editor.initial-file");
@@ -554,6 +674,9 @@ public class Editor extends InternalWindow {
 	public static boolean hasBackingFile() {
 		return currentFile != null;
 	}
+	public static File getBackingFile() {
+		return currentFile;
+	}
 	public static String getBackingFilename() {
 		return currentFile == null ? "Untitled" : currentFile.getName();
 	}
@@ -589,6 +712,7 @@ public class Editor extends InternalWindow {
 
 		updateObservers();
 
+		resyncRequired = true;
 		if(continuousAssemblyEnabled)
 			startContinuousAssembly();
 	}
@@ -601,6 +725,7 @@ public class Editor extends InternalWindow {
 
 		updateObservers();
 
+		resyncRequired = true;
 		if(continuousAssemblyEnabled)
 			startContinuousAssembly();
 	}
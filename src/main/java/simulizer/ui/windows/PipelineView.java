@@ -47,7 +47,7 @@ import simulizer.ui.interfaces.WindowEnum;
 import simulizer.utils.ColorUtils;
 
 /**
- * Visualises the instructions during each stage of the pipeline (fetch, decode, execute).
+ * Visualises the instructions during each stage of the pipeline (e.g. fetch, decode, execute).
  * If the CPU is pipelined, the waiting instructions will be drawn above the instructions
  * in the pipeline and the completed instructions will be drawn below. Different
  * instructions are drawn in different colours, but an instruction will remain the same
@@ -88,6 +88,7 @@ public class PipelineView extends InternalWindow implements Observer {
 
 	private boolean isPipelined;
 	private boolean isRunning;
+	private String[] stageNames = { "Fetch", "Decode", "Execute" };
 
 	// Dimensions used for calculations
 	private double rectWidth;
@@ -183,7 +184,7 @@ public class PipelineView extends InternalWindow implements Observer {
 
 			double x = e.getX(), y = e.getY();
 			// Don't show information above and below the pipeline if non-pipelined
-			if (!isPipelined && (y < rectGap / 2 + 3 * (rectGap + rectWidth) || y > rectGap / 2 + 6 * (rectGap + rectWidth))) {
+			if (!isPipelined && (y < rectGap / 2 + 3 * (rectGap + rectWidth) || y > rectGap / 2 + (3 + stageNames.length) * (rectGap + rectWidth))) {
 				newText = DEFAULT_INSTR;
 			} else {
 				Optional<Pair<Integer, Address>> cycleAndAddress = getAddressAtPoint(x, y);
@@ -264,14 +265,14 @@ public class PipelineView extends InternalWindow implements Observer {
 
 			yTop = rectGap / 2 + 3 * (rectGap + rectWidth);
 
-			List<Address> pipeline = Arrays.asList(state.fetched, state.decoded, state.executed);
+			List<Address> pipeline = Arrays.asList(state.stages);
 			for (Address stage : pipeline) {
 				if (y >= yTop && y < yTop + rectWidth) {
 					return Optional.of(new Pair<>(cycle, stage));
 				} else yTop += rectGap + rectWidth;
 			}
 
-			yTop = rectGap / 2 + 6 * (rectGap + rectWidth);
+			yTop = rectGap / 2 + (3 + stageNames.length) * (rectGap + rectWidth);
 
 			List<Address> after = state.after;
 			for (Address addr : after) {
@@ -314,10 +315,13 @@ public class PipelineView extends InternalWindow implements Observer {
 		this.w = realW - x0;
 		this.h = 0.95 * realH;
 
-		rectWidth = 2. / 21 * h;
+		// each row holds one rectangle and the gap after it. There are
+		// 3 rows for the waiting instructions, 1 for each stage of the
+		// pipeline and 3 for the completed instructions
+		double rowHeight = h / (stageNames.length + 6);
+		rectWidth = 6. / 7 * rowHeight;
 		cycleWidth = 3. / 2 * rectWidth;
-		// TODO figure out a proper calculation
-		rectGap = (h - 8 * rectWidth) / 15;
+		rectGap = rowHeight - rectWidth;
 
 		setStartCycle(startCycle); // will reset startCycle to 0 if model has been reset
 
@@ -348,8 +352,8 @@ public class PipelineView extends InternalWindow implements Observer {
 			double xEnd = x0 + numColumnsToDraw * cycleWidth;
 			// Draw the horizontal dividers
 			gc.setStroke(Color.BLACK);
-			double y0 = h / 3;
-			double y1 = 2 * h / 3;
+			double y0 = 3 * (rectGap + rectWidth);
+			double y1 = (3 + stageNames.length) * (rectGap + rectWidth);
 			gc.strokeLine(0, y0, xEnd, y0);
 			gc.strokeLine(0, y1, xEnd, y1);
 		}
@@ -367,23 +371,21 @@ public class PipelineView extends InternalWindow implements Observer {
 
 		double x = 0.95 * x0;
 		double maxWidth = 0.90 * x0;
-		double y = h / 6;
+		double rowHeight = rectGap + rectWidth;
+		double y = 1.5 * rowHeight;
 
 		gc.setFill(Paint.valueOf("black"));
 
 		gc.beginPath();
 		gc.fillText("Waiting\nInstructions", x, y, maxWidth);
 
-		y = h / 3 + rectGap / 2 + rectWidth / 2;
-		gc.fillText("Stage 1: Fetch", x, y, maxWidth);
-
-		y += rectGap + rectWidth;
-		gc.fillText("Stage 2: Decode", x, y, maxWidth);
-
-		y += rectGap + rectWidth;
-		gc.fillText("Stage 3: Execute", x, y, maxWidth);
+		y = 3 * rowHeight + rectGap / 2 + rectWidth / 2;
+		for (int i = 0; i < stageNames.length; ++i) {
+			gc.fillText("Stage " + (i + 1) + ": " + stageNames[i], x, y, maxWidth);
+			y += rowHeight;
+		}
 
-		y = 5 * h / 6;
+		y = (4.5 + stageNames.length) * rowHeight;
 		gc.fillText("Completed\nInstructions", x, y, maxWidth);
 
 		gc.closePath();
@@ -395,6 +397,7 @@ public class PipelineView extends InternalWindow implements Observer {
 	public void update(Observable o, Object pipelineState) {
 		this.isPipelined = getWindowManager().getCPU().isPipelined();
 		this.isRunning = getWindowManager().getCPU().isRunning();
+		this.stageNames = getWindowManager().getCPU().getPipelineStageNames();
 
 		this.snapToEnd = followCheckBox.isSelected();
 		repaint();
@@ -450,15 +453,15 @@ public class PipelineView extends InternalWindow implements Observer {
 		for (int col = 0, cycle = startCycle; col < numColumnsToDraw; ++col, ++cycle) {
 			PipelineHistoryModel.PipelineState state = history.get(cycle);
 
-			double yTracker = h / 3 + rectGap / 2; // starts at top of first rect to draw
+			double yTracker = 3 * (rectGap + rectWidth) + rectGap / 2; // starts at top of first rect to draw
 			double yCenter = yTracker + rectWidth / 2;
 
 			double xCenter = x0 + (col + 0.5) * cycleWidth;
 			double xLeft = xCenter - rectWidth / 2;
 
-			Address[] parts = { state.fetched, state.decoded, state.executed };
+			Address[] parts = state.stages;
 
-			for (int a = 0; a < 3; ++a) {
+			for (int a = 0; a < parts.length; ++a) {
 				Color bg = ColorUtils.getColor(parts[a]);
 				gc.setFill(bg);
 				if (parts[a] == null) drawBorderedOval(gc, xLeft, yTracker, rectWidth, rectWidth);
@@ -482,7 +485,7 @@ public class PipelineView extends InternalWindow implements Observer {
 			for (int col = 0, cycle = startCycle; col < numColumnsToDraw; ++col, ++cycle) {
 				List<Address> after = history.get(cycle).after;
 
-				double yTracker = 2 * h / 3 + rectGap / 2;
+				double yTracker = (3 + stageNames.length) * (rectGap + rectWidth) + rectGap / 2;
 				double yCenter = yTracker + rectWidth / 2;
 
 				double xCenter = x0 + (col + 0.5) * cycleWidth;
@@ -510,6 +513,7 @@ public class PipelineView extends InternalWindow implements Observer {
 		super.ready();
 		isPipelined = getWindowManager().getCPU().isPipelined();
 		isRunning = getWindowManager().getCPU().isRunning();
+		stageNames = getWindowManager().getCPU().getPipelineStageNames();
 		this.snapToEnd = true;
 		repaint();
 		this.snapToEnd = false;
@@ -18,7 +18,10 @@ public class SyscallReference extends SimpleTablePairWindow {
 			{"9", "sbrk (no. bytes to allocate in a0) (address of start of block in v0)"},
 			{"10", "stops execution (only way to exit cleanly)"},
 			{"11", "print char (in a0)"},
-			{"12", "read char (stores in v0)"}
+			{"12", "read char (stores in v0)"},
+			{"100", "cycle count since the program started (low 32 bits in v0, high 32 bits in v1)"},
+			{"101", "number of instructions retired since the program started (low 32 bits in v0, high 32 bits in v1)"},
+			{"102", "host time in milliseconds, for timing with a stopwatch (low 32 bits in v0, high 32 bits in v1)"}
 		});
 	}
 	//@formatter:on
@@ -0,0 +1,169 @@
+package simulizer.utils.runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+
+/**
+ * Runs the programs in work/code/benchmarks over a range of input sizes and
+ * reports the instructions, cycles and host time of each run, to compare the
+ * CPU models and to measure the simulator on programs of a known complexity.
+ *
+ * The output of every run is checked, so a change which breaks the simulator
+ * is not mistaken for one which speeds it up.
+ *
+ * usage: BenchmarkCorpus [-cpu TYPE] [-program NAME] [-sizes N,N,...] [-dir DIR] [-csv]
+ */
+public class BenchmarkCorpus {
+
+	/**
+	 * a program of the corpus
+	 */
+	public static class Benchmark {
+		public final String name;
+		public final int[] sizes;
+		private final IntFunction<String> expected;
+
+		/**
+		 * @param name the name of the program file, without the .s extension
+		 * @param sizes the default sizes to run the program at
+		 * @param expected the output the program should give for each size
+		 */
+		Benchmark(String name, int[] sizes, IntFunction<String> expected) {
+			this.name = name;
+			this.sizes = sizes;
+			this.expected = expected;
+		}
+
+		/**
+		 * @param size the size of the input
+		 * @return the output the program should give
+		 */
+		public String getExpectedOutput(int size) {
+			return expected.apply(size) + "\n";
+		}
+	}
+
+	public static final List<Benchmark> corpus = Arrays.asList(
+		new Benchmark("bubble-sort",     new int[] {16, 32, 64, 128},              n -> "1"),
+		new Benchmark("quick-sort",      new int[] {64, 128, 256, 512, 1024},      n -> "1"),
+		new Benchmark("linear-search",   new int[] {16, 32, 64, 128},              n -> String.valueOf((n + 1) / 2)),
+		new Benchmark("binary-search",   new int[] {64, 128, 256, 512, 1024},      n -> String.valueOf((n + 1) / 2)),
+		new Benchmark("fibonacci",       new int[] {8, 10, 12, 14, 16},            n -> String.valueOf(fibonacci(n))),
+		new Benchmark("strings",         new int[] {256, 512, 1024, 2048, 4096},   n -> String.valueOf(vowels(n))),
+		new Benchmark("matrix-multiply", new int[] {4, 8, 16},                     n -> String.valueOf(n * n * (n - 1))),
+		new Benchmark("linked-list",     new int[] {16, 32, 64, 128},              n -> String.valueOf(n))
+	);
+
+	private static int fibonacci(int n) {
+		int a = 0, b = 1;
+		for(int i = 0; i < n; i++) {
+			int t = a + b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	private static int vowels(int n) {
+		// the string is 'a' + (7i mod 26) for each index i
+		int count = 0;
+		for(int i = 0; i < n; i++) {
+			if("aeiou".indexOf('a' + (7 * i) % 26) != -1) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param name the name of the program
+	 * @return the program of the corpus with the name, or null if there is none
+	 */
+	public static Benchmark get(String name) {
+		for(Benchmark b : corpus) {
+			if(b.name.equals(name)) {
+				return b;
+			}
+		}
+		return null;
+	}
+
+	public static void main(String[] args) {
+		CPUType type = CPUType.NON_PIPELINED;
+		String only = null;
+		int[] sizes = null;
+		File dir = new File("work/code/benchmarks");
+		boolean csv = false;
+
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-csv")) {
+				csv = true;
+			} else if(i + 1 >= args.length) {
+				throw new IllegalArgumentException("invalid command line arguments");
+			} else {
+				switch(args[i]) {
+					case "-cpu":     type = CPUType.fromSettingName(args[++i]); break;
+					case "-program": only = args[++i]; break;
+					case "-sizes":   sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+					case "-dir":     dir = new File(args[++i]); break;
+					default:
+						throw new IllegalArgumentException("invalid command line arguments");
+				}
+			}
+		}
+
+		List<Benchmark> benchmarks = new ArrayList<>(corpus);
+		if(only != null) {
+			Benchmark b = get(only);
+			if(b == null) {
+				throw new IllegalArgumentException("no benchmark called " + only);
+			}
+			benchmarks = Arrays.asList(b);
+		}
+
+		if(csv) {
+			System.out.println("program,size,instructions,cycles,nanos");
+		} else {
+			System.out.println("CPU: " + type);
+			System.out.printf("%-16s %8s %14s %14s %8s %12s %14s%n", "program", "size", "instructions", "cycles", "CPI", "time (ms)", "instructions/s");
+		}
+
+		boolean failed = false;
+		for(Benchmark b : benchmarks) {
+			StoreProblemLogger log = new StoreProblemLogger();
+			Program p = SizeSweep.load(new File(dir, b.name + ".s"), log);
+			if(p == null) {
+				for(Problem problem : log.getProblems()) {
+					System.err.println(b.name + ": " + problem);
+				}
+				failed = true;
+				continue;
+			}
+
+			SizeSweep sweep = new SizeSweep(p, type, SizeSweep::sizeInput);
+			for(SizeSweep.Run r : sweep.sweep(sizes == null ? b.sizes : sizes)) {
+				if(r.problem != null || !r.output.equals(b.getExpectedOutput(r.size))) {
+					System.err.printf("%s failed for size %d: %s%n", b.name, r.size,
+							r.problem != null ? r.problem : "wrong output \"" + r.output.trim() + "\"");
+					failed = true;
+				}
+				if(csv) {
+					System.out.printf("%s,%d,%d,%d,%d%n", b.name, r.size, r.instructions, r.cycles, r.nanos);
+				} else {
+					System.out.printf("%-16s %8d %14d %14d %8.3f %12.2f %14.0f%n", b.name, r.size, r.instructions,
+							r.cycles, r.getCPI(), r.nanos / 1e6, r.instructions / (r.nanos / 1e9));
+				}
+			}
+		}
+
+		System.exit(failed ? 1 : 0); // the simulation may leave threads running
+	}
+}
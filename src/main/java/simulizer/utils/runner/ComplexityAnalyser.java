@@ -0,0 +1,310 @@
+package simulizer.utils.runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+
+/**
+ * Estimates the time complexity of a program by running it on inputs of
+ * increasing size and fitting the number of instructions it retires against
+ * common complexity classes. Because the simulator counts instructions exactly
+ * there is no timing noise, so a handful of sizes is enough to tell eg a binary
+ * search from a linear one.
+ *
+ * Each class f(n) is fitted as a + c*f(n), where a is the fixed overhead of the
+ * program (eg printing its result) and c is the constant factor. The fit minimises
+ * the error relative to each measurement, so that the small sizes count as much
+ * as the large ones. The best fit is the simplest class whose error is close to
+ * the smallest.
+ *
+ * Only the work after the program last reads its input is measured (see
+ * SizeSweep), so a program which reads n sorted numbers (-input sorted) and then
+ * searches them once is O(log n) for a binary search and O(n) for a linear one.
+ * A program which generates its own n numbers after reading the size is still
+ * at least O(n), so to check a search in that case have the program search for
+ * every element (as work/code/benchmarks/binary-search.s does), which is
+ * O(n log n) for a binary search and O(n^2) for a linear one.
+ *
+ * usage: ComplexityAnalyser [-cpu TYPE] [-sizes N,N,...] [-input size|sorted|random] [-expect CLASS] PROGRAM
+ */
+public class ComplexityAnalyser {
+
+	/**
+	 * a complexity class, in order of growth
+	 */
+	public enum Model {
+		CONSTANT("O(1)"),
+		LOGARITHMIC("O(log n)"),
+		LINEAR("O(n)"),
+		LINEARITHMIC("O(n log n)"),
+		QUADRATIC("O(n^2)"),
+		EXPONENTIAL("O(2^n)");
+
+		private final String name;
+
+		Model(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @param n the size of the input
+		 * @return the growth of the class at n
+		 */
+		public double apply(double n) {
+			switch(this) {
+				case LOGARITHMIC:  return log2(n);
+				case LINEAR:       return n;
+				case LINEARITHMIC: return n * log2(n);
+				case QUADRATIC:    return n * n;
+				case EXPONENTIAL:  return Math.pow(2, n);
+				default:           return 0; // only the overhead remains
+			}
+		}
+
+		private static double log2(double n) {
+			return n <= 1 ? 0 : Math.log(n) / Math.log(2);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+
+		/**
+		 * @param name the name of the class, eg "O(n log n)" or "n log n"
+		 * @return the class with the name, or null if there is none
+		 */
+		public static Model fromName(String name) {
+			String stripped = name.replace(" ", "");
+			for(Model m : values()) {
+				String mName = m.name.replace(" ", "");
+				if(mName.equals(stripped) || mName.equals("O(" + stripped + ")")) {
+					return m;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * the fit of the measurements against a complexity class
+	 */
+	public static class Fit {
+		public final Model model;
+		public final double factor; // the constant factor, or the constant for O(1)
+		public final double overhead; // the instructions not dependent on the size
+		public final double error; // the root mean square error relative to the measurements
+
+		public Fit(Model model, double factor, double overhead, double error) {
+			this.model = model;
+			this.factor = factor;
+			this.overhead = overhead;
+			this.error = error;
+		}
+
+		/**
+		 * @param n the size of the input
+		 * @return the number of instructions predicted by the fit
+		 */
+		public double predict(double n) {
+			return model == Model.CONSTANT ? factor : overhead + factor * model.apply(n);
+		}
+	}
+
+	/**
+	 * the fits of a program against every complexity class
+	 */
+	public static class Result {
+		public final List<SizeSweep.Run> runs;
+		public final List<Fit> fits; // in the same order as the models
+		public final Fit best;
+
+		Result(List<SizeSweep.Run> runs, List<Fit> fits, Fit best) {
+			this.runs = runs;
+			this.fits = fits;
+			this.best = best;
+		}
+
+		/**
+		 * @param expected the class the program should be in
+		 * @return whether the best fit grows faster than the expected class
+		 */
+		public boolean exceeds(Model expected) {
+			return best.model.compareTo(expected) > 0;
+		}
+
+		/**
+		 * a table of the measurements and the fits, with the best fit marked
+		 * @return the summary
+		 */
+		public String getSummary() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("  %8s %14s %14s%n", "size", "instructions", "cycles"));
+			for(SizeSweep.Run r : runs) {
+				sb.append(String.format("  %8d %14d %14d%n", r.size, r.instructions, r.cycles));
+			}
+			sb.append(String.format("%n  %-12s %12s %12s %10s%n", "class", "factor", "overhead", "error"));
+			for(Fit f : fits) {
+				sb.append(String.format("  %-12s %12.4g %12.1f %9.2f%%%s%n", f.model, f.factor, f.overhead,
+						100 * f.error, f == best ? "  <- best fit" : ""));
+			}
+			sb.append(String.format("%nbest fit: %s with a constant factor of %.4g%n", best.model, best.factor));
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * a fit within this much (absolute) relative error of the smallest is considered as good
+	 */
+	private static final double tolerance = 0.01;
+
+	/**
+	 * fit the measurements of a program against every complexity class
+	 * @param runs the measurements, at least three of them with different sizes
+	 * @return the fits and the best of them
+	 */
+	public static Result analyse(List<SizeSweep.Run> runs) {
+		if(runs.stream().mapToInt(r -> r.size).distinct().count() < 3) {
+			throw new IllegalArgumentException("at least three different sizes are required");
+		}
+
+		List<Fit> fits = new ArrayList<>();
+		for(Model m : Model.values()) {
+			fits.add(fit(m, runs));
+		}
+
+		double smallest = fits.stream().mapToDouble(f -> f.error).min().getAsDouble();
+		Fit best = null;
+		for(Fit f : fits) {
+			if(f.error <= smallest + tolerance) {
+				best = f; // the simplest model which fits well enough
+				break;
+			}
+		}
+		return new Result(runs, fits, best);
+	}
+
+	/**
+	 * least squares fit of instructions = a + c*f(n), weighting each measurement
+	 * by the inverse of its square so the relative errors are minimised
+	 */
+	private static Fit fit(Model model, List<SizeSweep.Run> runs) {
+		double s = 0, sf = 0, sff = 0, sy = 0, sfy = 0;
+		for(SizeSweep.Run r : runs) {
+			double f = model.apply(r.size);
+			if(Double.isInfinite(f)) {
+				return new Fit(model, 0, 0, Double.POSITIVE_INFINITY);
+			}
+			double y = r.instructions;
+			double w = y == 0 ? 1 : 1 / (y * y);
+			s += w;
+			sf += w * f;
+			sff += w * f * f;
+			sy += w * y;
+			sfy += w * f * y;
+		}
+
+		double det = s * sff - sf * sf;
+		double c = det <= 1e-12 * s * sff ? 0 : (s * sfy - sf * sy) / det;
+		if(c < 0) {
+			c = 0; // the program does not get slower as its input grows
+		}
+		double a = (sy - c * sf) / s;
+
+		double error = 0;
+		for(SizeSweep.Run r : runs) {
+			double y = r.instructions;
+			double residual = y - (a + c * model.apply(r.size));
+			error += y == 0 ? residual * residual : (residual / y) * (residual / y);
+		}
+		error = Math.sqrt(error / runs.size());
+
+		return model == Model.CONSTANT ? new Fit(model, a, 0, error) : new Fit(model, c, a, error);
+	}
+
+	/**
+	 * run a program at each size and fit the instructions it retires
+	 * @param program the program to analyse
+	 * @param type the CPU to run the program on
+	 * @param input creates the input for each size
+	 * @param sizes the sizes to run the program at
+	 * @return the fits and the best of them
+	 * @throws IllegalStateException if a run of the program has a problem
+	 */
+	public static Result analyse(Program program, CPUType type, SizeSweep.InputGenerator input, int[] sizes) {
+		List<SizeSweep.Run> runs = new SizeSweep(program, type, input).sweep(sizes);
+		for(SizeSweep.Run r : runs) {
+			if(r.problem != null) {
+				throw new IllegalStateException("the program failed for size " + r.size + ": " + r.problem);
+			}
+		}
+		return analyse(runs);
+	}
+
+	public static void main(String[] args) {
+		CPUType type = CPUType.NON_PIPELINED;
+		int[] sizes = {16, 32, 64, 128, 256};
+		SizeSweep.InputGenerator input = SizeSweep::sizeInput;
+		Model expected = null;
+		File file = null;
+
+		for(int i = 0; i < args.length; i++) {
+			if(!args[i].startsWith("-") && file == null) {
+				file = new File(args[i]);
+			} else if(i + 1 >= args.length) {
+				throw new IllegalArgumentException("invalid command line arguments");
+			} else {
+				switch(args[i]) {
+					case "-cpu":   type = CPUType.fromSettingName(args[++i]); break;
+					case "-sizes": sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+					case "-input":
+						switch(args[++i]) {
+							case "size":   input = SizeSweep::sizeInput; break;
+							case "sorted": input = SizeSweep::sortedInput; break;
+							case "random": input = SizeSweep::randomInput; break;
+							default:
+								throw new IllegalArgumentException("unknown input: " + args[i]);
+						}
+						break;
+					case "-expect":
+						expected = Model.fromName(args[++i]);
+						if(expected == null) {
+							throw new IllegalArgumentException("unknown complexity class: " + args[i]);
+						}
+						break;
+					default:
+						throw new IllegalArgumentException("invalid command line arguments");
+				}
+			}
+		}
+		if(file == null) {
+			System.err.println("usage: ComplexityAnalyser [-cpu TYPE] [-sizes N,N,...] [-input size|sorted|random] [-expect CLASS] PROGRAM");
+			System.exit(2);
+		}
+
+		StoreProblemLogger log = new StoreProblemLogger();
+		Program p = SizeSweep.load(file, log);
+		if(p == null) {
+			for(Problem problem : log.getProblems()) {
+				System.err.println(problem);
+			}
+			System.exit(1);
+		}
+
+		Result result = analyse(p, type, input, sizes);
+		System.out.print(result.getSummary());
+
+		int status = 0;
+		if(expected != null && result.exceeds(expected)) {
+			System.out.println("expected " + expected + " but the program grows as " + result.best.model);
+			status = 1;
+		}
+		System.exit(status); // the simulation may leave threads running
+	}
+}
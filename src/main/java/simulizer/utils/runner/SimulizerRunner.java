@@ -1,12 +1,23 @@
 package simulizer.utils.runner;
 
-import simulizer.assembler.Assembler;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import simulizer.assembler.Linker;
+import simulizer.assembler.ModuleCache;
+import simulizer.assembler.ProgramCache;
+import simulizer.assembler.extractor.problem.Problem;
 import simulizer.assembler.extractor.problem.StoreProblemLogger;
 import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramImage;
 import simulizer.simulation.cpu.components.CPU;
-import simulizer.simulation.cpu.components.CPUPipeline;
+import simulizer.simulation.cpu.components.CPUType;
 import simulizer.simulation.cpu.user_interaction.BufferIO;
 import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.utils.FileUtils;
 
 /**
  * execute Simulizer with a given program and catch the output for analysis
@@ -14,14 +25,27 @@ import simulizer.simulation.cpu.user_interaction.IOStream;
  */
 public class SimulizerRunner {
 
+	/**
+	 * programs are often run many times with different inputs, so only assemble each once
+	 */
+	private static final ProgramCache programCache = new ProgramCache(64);
+	/**
+	 * files included by programs are often shared between many of them
+	 */
+	private static final ModuleCache moduleCache = new ModuleCache(64);
+
 	public StoreProblemLogger problemLogger;
 	public CPU cpu;
 	public BufferIO io;
 
 	public SimulizerRunner(boolean pipelined) {
+		this(pipelined ? CPUType.PIPELINED : CPUType.NON_PIPELINED);
+	}
+
+	public SimulizerRunner(CPUType type) {
 		problemLogger = new StoreProblemLogger();
 		io = new BufferIO();
-		cpu = pipelined ? new CPUPipeline(io) : new CPU(io);
+		cpu = type.createCPU(io);
 	}
 
 	/**
@@ -31,14 +55,25 @@ public class SimulizerRunner {
 	 * @return the captured output
 	 */
 	public String run(String program, String input) {
-		io.feedInput(input);
-
-		Program p = Assembler.assemble(program, problemLogger);
+		Program p = programCache.assemble(program, problemLogger);
 
 		if(!problemLogger.getProblems().isEmpty()) {
 			return null;
 		}
 
+		return run(p, input);
+	}
+
+	/**
+	 * Run an assembled program (for example one loaded from a program image)
+	 * in Simulizer with the given input and return the captured output
+	 * @param p the assembled program, which is not modified
+	 * @param input the input to the program
+	 * @return the captured output
+	 */
+	public String run(Program p, String input) {
+		io.feedInput(input);
+
 		cpu.loadProgram(p);
 
 		cpu.runProgram();
@@ -47,4 +82,71 @@ public class SimulizerRunner {
 
 		return io.getOutput(IOStream.STANDARD);
 	}
+
+	/**
+	 * Run a program from the command line without the user interface. The
+	 * input to the program is read from stdin and its output is written to stdout.
+	 *
+	 * usage: SimulizerRunner [-cpu TYPE] [-save-image IMAGE] PROGRAM
+	 *
+	 * PROGRAM is either source code or a program image (ending in .simp-image),
+	 * which is loaded without assembling the program again. TYPE is the setting
+	 * name of the CPU to simulate (eg non-pipelined). -save-image writes the
+	 * assembled program to IMAGE so that later runs can load it instead.
+	 * @param args the command line arguments
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		CPUType type = CPUType.NON_PIPELINED;
+		File saveImage = null;
+		File program = null;
+
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-cpu") && i + 1 < args.length) {
+				type = CPUType.fromSettingName(args[++i]);
+			} else if(args[i].equals("-save-image") && i + 1 < args.length) {
+				saveImage = new File(args[++i]);
+			} else if(program == null && !args[i].startsWith("-")) {
+				program = new File(args[i]);
+			} else {
+				throw new IllegalArgumentException("invalid command line arguments");
+			}
+		}
+		if(program == null) {
+			System.err.println("usage: SimulizerRunner [-cpu TYPE] [-save-image IMAGE] PROGRAM");
+			System.exit(2);
+		}
+
+		SimulizerRunner runner = new SimulizerRunner(type);
+		Program p;
+		if(program.getName().endsWith(ProgramImage.EXTENSION)) {
+			p = ProgramImage.load(program);
+		} else {
+			Linker linker = Linker.forDirectory(program.getAbsoluteFile().getParentFile(), moduleCache);
+			p = programCache.assemble(FileUtils.getFileContent(program), runner.problemLogger, linker);
+			if(p == null) {
+				for(Problem problem : runner.problemLogger.getProblems()) {
+					System.err.println(problem);
+				}
+				System.exit(1);
+			}
+		}
+		if(saveImage != null) {
+			ProgramImage.save(p, saveImage);
+		}
+
+		System.out.print(runner.run(p, readAll(System.in)));
+		System.out.flush();
+		System.exit(0); // the simulation may leave threads running
+	}
+
+	private static String readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while((n = in.read(buffer)) != -1) {
+			bytes.write(buffer, 0, n);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
 }
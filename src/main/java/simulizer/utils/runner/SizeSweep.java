@@ -0,0 +1,219 @@
+package simulizer.utils.runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import simulizer.assembler.Assembler;
+import simulizer.assembler.Linker;
+import simulizer.assembler.ModuleCache;
+import simulizer.assembler.extractor.problem.ProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.user_interaction.BufferIO;
+import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.simulation.messages.ProblemMessage;
+import simulizer.simulation.messages.SimulationListener;
+import simulizer.utils.FileUtils;
+
+/**
+ * Runs a program many times with inputs of increasing size and records the
+ * performance counters of the CPU for each run, to see how the cost of the
+ * program grows with the size of its input.
+ *
+ * The measurements only cover the work the program does after it last reads
+ * its input, so that the cost of reading n numbers does not hide the cost of
+ * what the program does with them. A program which does not read any input is
+ * measured from the start.
+ *
+ * Each run uses a fresh CPU so nothing carries over between runs. The host
+ * time does not include assembling or loading the program, but includes the
+ * fixed cost of stopping the clock (and of starting it, if the program reads no
+ * input), so it is only meaningful for runs of more than a few thousand
+ * instructions.
+ */
+public class SizeSweep {
+
+	/**
+	 * creates the input given to the program for a size
+	 */
+	public interface InputGenerator {
+		String generate(int size);
+	}
+
+	/**
+	 * the measurements of a single run of the program, from when it last read its input
+	 */
+	public static class Run {
+		public final int size;
+		public final long instructions;
+		public final long cycles;
+		public final long nanos;
+		public final String output;
+		public final String problem; // null if the program ran without problems
+
+		public Run(int size, long instructions, long cycles, long nanos, String output, String problem) {
+			this.size = size;
+			this.instructions = instructions;
+			this.cycles = cycles;
+			this.nanos = nanos;
+			this.output = output;
+			this.problem = problem;
+		}
+
+		/**
+		 * @return the average number of cycles per instruction, 0 if no instructions were retired
+		 */
+		public double getCPI() {
+			return instructions == 0 ? 0 : (double) cycles / instructions;
+		}
+	}
+
+	/**
+	 * records the counters of the CPU each time the program reads its input
+	 */
+	private static class RecordingIO extends BufferIO {
+		private CPU cpu;
+		private long instructions = 0;
+		private long cycles = 0;
+		private long nanos;
+
+		RecordingIO(String input) {
+			super(input);
+		}
+
+		private void record() {
+			instructions = cpu.getInstructionsRetired();
+			cycles = cpu.getCycles();
+			nanos = System.nanoTime();
+		}
+
+		@Override public String readString(IOStream stream) {
+			String s = super.readString(stream);
+			record();
+			return s;
+		}
+
+		@Override public int readInt(IOStream stream) {
+			int i = super.readInt(stream);
+			record();
+			return i;
+		}
+
+		@Override public char readChar(IOStream stream) {
+			char c = super.readChar(stream);
+			record();
+			return c;
+		}
+	}
+
+	private static final ModuleCache moduleCache = new ModuleCache(16);
+
+	private final Program program;
+	private final CPUType type;
+	private final InputGenerator input;
+
+	/**
+	 * @param program the program to run, which is not modified
+	 * @param type the CPU to run the program on
+	 * @param input creates the input for each size
+	 */
+	public SizeSweep(Program program, CPUType type, InputGenerator input) {
+		this.program = program;
+		this.type = type;
+		this.input = input;
+	}
+
+	/**
+	 * the input of the programs in the benchmark corpus: the size on a line of its own
+	 * @param size the size of the input
+	 * @return the input
+	 */
+	public static String sizeInput(int size) {
+		return size + "\n";
+	}
+
+	/**
+	 * the size followed by the numbers 0 to size-1 in ascending order, one per line
+	 * @param size the size of the input
+	 * @return the input
+	 */
+	public static String sortedInput(int size) {
+		StringBuilder sb = new StringBuilder().append(size).append('\n');
+		for(int i = 0; i < size; i++) {
+			sb.append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * the size followed by that many pseudo-random numbers between 0 and 9999, one per line.
+	 * The numbers are the same each time for a given size
+	 * @param size the size of the input
+	 * @return the input
+	 */
+	public static String randomInput(int size) {
+		Random r = new Random(size);
+		StringBuilder sb = new StringBuilder().append(size).append('\n');
+		for(int i = 0; i < size; i++) {
+			sb.append(r.nextInt(10000)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * assemble a program from a file, resolving any .include directives relative to the file
+	 * @param file the program source file
+	 * @param log the logger to record problems with
+	 * @return the assembled program, or null if it has problems
+	 */
+	public static Program load(File file, ProblemLogger log) {
+		Linker linker = Linker.forDirectory(file.getAbsoluteFile().getParentFile(), moduleCache);
+		return Assembler.assemble(FileUtils.getFileContent(file), log, linker);
+	}
+
+	/**
+	 * run the program once
+	 * @param size the size to generate the input for
+	 * @return the measurements of the run
+	 */
+	public Run run(int size) {
+		RecordingIO io = new RecordingIO(input.generate(size));
+		CPU cpu = type.createCPU(io);
+		io.cpu = cpu;
+
+		String[] problem = {null};
+		cpu.registerListener(new SimulationListener() {
+			@Override
+			public void processProblemMessage(ProblemMessage m) {
+				if(problem[0] == null) {
+					problem[0] = m.e.getMessage();
+				}
+			}
+		});
+
+		cpu.loadProgram(program);
+		io.nanos = System.nanoTime();
+		cpu.runProgram();
+		long end = System.nanoTime();
+		cpu.shutdown();
+
+		return new Run(size, cpu.getInstructionsRetired() - io.instructions, cpu.getCycles() - io.cycles,
+				end - io.nanos, io.getOutput(IOStream.STANDARD), problem[0]);
+	}
+
+	/**
+	 * run the program once for each size
+	 * @param sizes the sizes to generate the inputs for
+	 * @return the measurements of each run, in the same order as the sizes
+	 */
+	public List<Run> sweep(int[] sizes) {
+		List<Run> runs = new ArrayList<>(sizes.length);
+		for(int size : sizes) {
+			runs.add(run(size));
+		}
+		return runs;
+	}
+}
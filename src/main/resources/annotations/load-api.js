@@ -21,6 +21,8 @@ assert = function(cond){debug.assertTrue(cond);};
 pause    = function(){simulation.pause();};
 stop     = function(){simulation.stop();};
 setSpeed = function(s){simulation.setSpeed(s);};
+startRegion = function(name){simulation.startRegion(''+name);};
+endRegion   = function(name){simulation.endRegion(''+name);};
 
 // global bindings for each register are added later
 // eg $s0 = {id:Register.s0, get: function to get the current s0 value}
@@ -0,0 +1,123 @@
+package simulizer.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import javax.script.CompiledScript;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.assembler.Assembler;
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Annotation;
+import simulizer.assembler.representation.Program;
+
+/**
+ * Test that the AnnotationExecutor compiles annotations once, keeps the globals they assign,
+ * and forgets everything when it is reset
+ */
+@Category({UnitTests.class})
+public class AnnotationExecutorTest {
+
+	/**
+	 * @return the script compiled for the annotation bound to an address, or null if there is none
+	 */
+	private static CompiledScript compiledScript(AnnotationExecutor ex, Address address) throws Exception {
+		Field compiledField = AnnotationExecutor.class.getDeclaredField("compiled");
+		compiledField.setAccessible(true);
+		Object c = ((Map<?, ?>) compiledField.get(ex)).get(address);
+		if(c == null) {
+			return null;
+		}
+		Field scriptField = c.getClass().getDeclaredField("script");
+		scriptField.setAccessible(true);
+		return (CompiledScript) scriptField.get(c);
+	}
+
+	private static int getInt(AnnotationExecutor ex, String name) {
+		return ex.getGlobal(name, Number.class).intValue();
+	}
+
+	@Test
+	public void testCompiled() throws Exception {
+		Program p = Assembler.assemble(".text\nmain:\n" +
+				"nop # @{ count = (typeof count === 'undefined' ? 0 : count) + 1; }@\n" +
+				"li $v0, 10\nsyscall\n", null);
+		Address a = p.textSegmentStart;
+		Annotation annotation = p.annotations.get(a);
+
+		AnnotationExecutor ex = new AnnotationExecutor();
+		ex.compile(p);
+		CompiledScript script = compiledScript(ex, a);
+		assertNotNull(script);
+
+		// the compiled script is reused, and the global it assigns persists between executions
+		ex.exec(annotation, a);
+		ex.exec(annotation, a);
+		assertSame(script, compiledScript(ex, a));
+		assertEquals(2, getInt(ex, "count"));
+		assertEquals(2, ex.getProfiler().getProfile(a).getCount());
+
+		// globals (including those declared with var) are shared with other annotations
+		ex.exec(new Annotation("var total = count * 10;"));
+		assertEquals(22, ((Number) ex.exec(new Annotation("total + count;"))).intValue());
+
+		// a different annotation at the same address is compiled again
+		assertEquals(102, ((Number) ex.exec(new Annotation("count + 100;"), a)).intValue());
+		assertNotSame(script, compiledScript(ex, a));
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		Program p = Assembler.assemble(".text\nmain:\nnop # @{ var z = 1; }@\nli $v0, 10\nsyscall\n", null);
+		Address a = p.textSegmentStart;
+
+		AnnotationExecutor ex = new AnnotationExecutor();
+		ex.compile(p);
+		ex.exec(p.annotations.get(a), a);
+		ex.exec(new Annotation("print = function(s) { return 'overridden'; };"));
+		assertEquals(1, getInt(ex, "z"));
+
+		ex.reset();
+		assertNull(ex.getGlobal("z", Object.class));
+		assertEquals("undefined", ex.exec(new Annotation("typeof z;")));
+		// the API is loaded again, so print is back to the API's version
+		assertEquals(true, ex.exec(new Annotation("print === log;")));
+		assertNull(compiledScript(ex, a));
+		assertNull(ex.getProfiler().getProfile(a));
+
+		// still usable afterwards
+		ex.exec(new Annotation("var y = 5;"));
+		assertTrue(ex.getGlobal("y", Number.class).intValue() == 5);
+	}
+
+	@Test
+	public void testPool() throws Exception {
+		AnnotationExecutorPool pool = new AnnotationExecutorPool(1);
+		AnnotationExecutor ex = pool.take();
+		assertNotNull(ex);
+		ex.exec(new Annotation("var leftover = 1;"));
+
+		// a released executor is reset and handed out again
+		pool.release(ex);
+		assertEquals(1, pool.getIdleCount());
+		AnnotationExecutor again = pool.take();
+		assertSame(ex, again);
+		assertEquals(0, pool.getIdleCount());
+		assertEquals("undefined", again.exec(new Annotation("typeof leftover;")));
+
+		// an empty pool still hands out a fresh executor
+		AnnotationExecutor other = pool.take();
+		assertNotSame(again, other);
+		assertEquals("undefined", other.exec(new Annotation("typeof leftover;")));
+	}
+}
@@ -0,0 +1,113 @@
+package simulizer.annotations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.assembler.Assembler;
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Annotation;
+import simulizer.assembler.representation.Program;
+import simulizer.highlevel.models.ListModel;
+
+/**
+ * Test the timings recorded by the AnnotationProfiler
+ */
+@Category({UnitTests.class})
+public class AnnotationProfilerTest {
+
+	@Test
+	public void testRecord() {
+		AnnotationProfiler profiler = new AnnotationProfiler();
+		profiler.setBudget(2);
+		Address a = new Address(0x00400000);
+
+		profiler.start();
+		assertFalse(profiler.record(a, 1000000));
+		profiler.start();
+		long start = profiler.enterBridge();
+		assertEquals(-1, profiler.enterBridge()); // nested calls are only timed once
+		profiler.exitBridge(-1);
+		profiler.exitBridge(start);
+		assertTrue(profiler.record(a, 3000000));
+		assertFalse(profiler.record(a, 4000000)); // only warned about once
+
+		AnnotationProfiler.Profile p = profiler.getProfile(a);
+		assertEquals(3, p.getCount());
+		assertEquals(8000000, p.getTotalNanos());
+		assertEquals(4000000, p.getMaxNanos());
+		assertTrue(p.getBridgeNanos() > 0);
+		assertNull(profiler.getProfile(null));
+
+		profiler.clear();
+		assertNull(profiler.getProfile(a));
+		assertEquals("", profiler.getSummary(null));
+	}
+
+	@Test
+	public void testSummary() {
+		Program p = Assembler.assemble(".text\nmain:\nnop # @{ }@\nnop\nnop # @{ }@\nli $v0, 10\nsyscall\n", null);
+		Address first = p.textSegmentStart;
+		Address third = new Address(first.getValue() + 8);
+
+		AnnotationProfiler profiler = new AnnotationProfiler();
+		profiler.record(null, 1000);
+		profiler.record(first, 2000);
+		profiler.record(third, 5000000);
+
+		String[] lines = profiler.getSummary(p).split("\n");
+		assertEquals(5, lines.length);
+		// slowest first, identified by their line numbers
+		assertTrue(lines[2].trim().startsWith("5 "));
+		assertTrue(lines[3].trim().startsWith("3 "));
+		assertTrue(lines[4].trim().startsWith("init "));
+	}
+
+	/**
+	 * a model which takes a while to update
+	 */
+	public static class SlowModel extends ListModel {
+		public SlowModel() {
+			super(null);
+		}
+
+		public void sleep(int ms) throws InterruptedException {
+			Thread.sleep(ms);
+		}
+	}
+
+	public static class SlowBridge {
+		public SlowModel load() {
+			return new SlowModel();
+		}
+
+		public long first(ListModel model) {
+			return model.getList()[0];
+		}
+	}
+
+	@Test
+	public void testBridgeCalls() throws Exception {
+		AnnotationExecutor ex = new AnnotationExecutor();
+		ex.bindBridge("vis", new SlowBridge());
+		Address a = new Address(0x00400000);
+
+		// calls on the models returned by a bridge count as time spent in the bridges
+		ex.exec(new Annotation("m = vis.load(); m.update([3, 1]); m.swap(0, 1); m.set(0, 5); m.sleep(20);"), a);
+		AnnotationProfiler.Profile p = ex.getProfiler().getProfile(a);
+		assertTrue(p.getBridgeNanos() >= 20000000);
+		assertTrue(p.getBridgeNanos() <= p.getTotalNanos());
+
+		// the model can be passed back to the bridge
+		ex.exec(new Annotation("l = m.getList(); first = vis.first(m);"), a);
+		assertArrayEquals(new long[]{5, 3}, ex.getGlobal("l", long[].class));
+		assertEquals(5, ex.getGlobal("first", Number.class).intValue());
+		assertEquals(2, ex.getProfiler().getProfile(a).getCount());
+	}
+}
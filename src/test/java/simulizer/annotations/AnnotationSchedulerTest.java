@@ -0,0 +1,176 @@
+package simulizer.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.script.ScriptException;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.assembler.Assembler;
+import simulizer.assembler.representation.Address;
+import simulizer.assembler.representation.Annotation;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.user_interaction.BufferIO;
+import simulizer.simulation.data.representation.Word;
+import simulizer.simulation.messages.AnnotationMessage;
+import simulizer.simulation.messages.SimulationListener;
+
+/**
+ * Test that the AnnotationScheduler runs annotations in order, and only lets the annotations which read the
+ * registers run behind the simulation
+ */
+@Category({UnitTests.class})
+public class AnnotationSchedulerTest {
+
+	@Test
+	public void testControlsSimulation() {
+		for(String code : Arrays.asList("pause();", "$t0.set(1);", "$s0 .setU(2);", "sim.writeWords(0x10010000, [1]);",
+				"sim.readMem(0x10010000, 4, 1, false);", "sim.readWords(0x10010000, 4);",
+				"sim.readUnsignedWords(0x10010000, 4);", "sim.readUnsignedWordsFromMem(0x10010000, 0x1001000c);",
+				"sim.readMemInto(0x10010000, a, 4, true);", "binding.update();", "sim.getCycles()")) {
+			assertTrue(code, AnnotationScheduler.controlsSimulation(code));
+		}
+		for(String code : Arrays.asList("log($t0.get());", "var updated = true;", "sim.bindList(l, 0x10010000, 4);",
+				"update();", "list.set(0, 1);")) {
+			assertFalse(code, AnnotationScheduler.controlsSimulation(code));
+		}
+	}
+
+	@Test
+	public void testAsynchronous() throws Exception {
+		String program = ".data\n" +
+				"num: .word 7\n" +
+				".text\n" +
+				"main:\n" +
+				"la $t1, num\n" +
+				"li $t0, 1 # @{ seen.add('t0=' + $t0.get()); }@\n" +
+				"li $t0, 2 # @{ seen.add('num=' + sim.readWords($t1.get(), 1)[0]); }@\n" +
+				"sw $t0, 0($t1)\n" +
+				"li $t0, 3 # @{ seen.add('t0=' + $t0.get()); }@\n" +
+				"li $t0, 4\n" +
+				"li $v0, 10\n" +
+				"syscall\n";
+		Program p = Assembler.assemble(program, null);
+
+		AnnotationExecutor ex = new AnnotationExecutor();
+		SimulationBridge bridge = new SimulationBridge();
+		List<String> seen = Collections.synchronizedList(new ArrayList<>());
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		List<Boolean> copied = Collections.synchronizedList(new ArrayList<>());
+		ex.bindBridge("sim", bridge);
+		ex.bindBridge("simulation", bridge);
+		ex.bindGlobal("seen", seen);
+
+		AnnotationScheduler scheduler = new AnnotationScheduler();
+		scheduler.onNewProgram(p, true);
+
+		CPU cpu = CPUType.NON_PIPELINED.createCPU(new BufferIO(""));
+		bridge.cpu = cpu;
+		cpu.registerListener(new SimulationListener() {
+			@Override
+			public void processAnnotationMessage(AnnotationMessage m) {
+				scheduler.submit(m, registers -> {
+					copied.add(registers != null);
+					try {
+						if(registers != null) {
+							Thread.sleep(50); // fall behind the simulation
+						}
+						bridge.registers = registers;
+						ex.exec(m.annotation, m.boundAddress);
+					} catch(Throwable e) {
+						errors.add(e);
+					} finally {
+						bridge.registers = null;
+					}
+				});
+			}
+		});
+		cpu.loadProgram(p);
+		cpu.runProgram();
+		scheduler.waitForAll();
+		cpu.shutdown();
+
+		assertEquals(Collections.emptyList(), errors);
+		// the annotations which only read registers see the copy taken when they were met, even though
+		// the simulation has moved on, and the memory read is made before the simulation overwrites num
+		assertEquals(Arrays.asList("t0=1", "num=7", "t0=3"), seen);
+		assertEquals(Arrays.asList(true, false, true), copied);
+	}
+
+	@Test
+	public void testIndirectAccess() throws Exception {
+		// a call made through a function defined in another annotation is refused with an exception the
+		// scheduler can recognise
+		AnnotationExecutor ex = new AnnotationExecutor();
+		SimulationBridge bridge = new SimulationBridge();
+		bridge.cpu = CPUType.NON_PIPELINED.createCPU(new BufferIO(""));
+		ex.bindBridge("sim", bridge);
+		ex.bindBridge("simulation", bridge);
+		ex.exec(new Annotation("read = function() { return sim.readWords(0x10010000, 1)[0]; };"));
+		Annotation annotation = new Annotation("read();");
+		assertFalse(AnnotationScheduler.controlsSimulation(annotation.code));
+		bridge.registers = new Word[32];
+		try {
+			ex.exec(annotation);
+			fail();
+		} catch(ScriptException e) {
+			assertTrue(AsynchronousAccessException.causedBy(e));
+		}
+		bridge.cpu.shutdown();
+
+		// the refused annotation is run again against the state of the simulation, then waited for
+		AnnotationScheduler scheduler = new AnnotationScheduler();
+		scheduler.onNewProgram(null, true);
+		AnnotationMessage msg = new AnnotationMessage(annotation, new Address(0x00400000), new Word[32]);
+		List<Boolean> copied = Collections.synchronizedList(new ArrayList<>());
+		Consumer<Word[]> task = registers -> {
+			copied.add(registers != null);
+			if(registers != null)
+				throw new AsynchronousAccessException("refused");
+		};
+		scheduler.submit(msg, task);
+		scheduler.waitForAll();
+		assertEquals(Arrays.asList(true, false), copied);
+		scheduler.submit(msg, task); // has finished by the time submit returns
+		assertEquals(Arrays.asList(true, false, false), copied);
+
+		// a new program starts afresh
+		scheduler.onNewProgram(null, true);
+		scheduler.submit(msg, task);
+		scheduler.waitForAll();
+		assertEquals(Arrays.asList(true, false, false, true, false), copied);
+	}
+
+	@Test
+	public void testAsynchronousCounters() {
+		// the counters carry on counting, so an annotation running behind the simulation cannot read them
+		SimulationBridge bridge = new SimulationBridge();
+		bridge.cpu = CPUType.NON_PIPELINED.createCPU(new BufferIO(""));
+		bridge.registers = new Word[32];
+		List<Runnable> calls = Arrays.asList(bridge::getCycles, bridge::getInstructionsRetired, bridge::getStalls,
+				bridge::getFlushes, () -> bridge.getSimulatedTime(1e9), () -> bridge.startRegion("r"), () -> bridge.endRegion("r"));
+		for(Runnable call : calls) {
+			try {
+				call.run();
+				fail();
+			} catch(AsynchronousAccessException expected) {
+			}
+		}
+		assertNull(bridge.regions.getRegion("r"));
+		bridge.cpu.shutdown();
+	}
+}
@@ -0,0 +1,81 @@
+package simulizer.annotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+
+/**
+ * Test the counters accumulated by PerformanceRegions
+ */
+@Category({UnitTests.class})
+public class PerformanceRegionsTest {
+
+	private static PerformanceRegions.Counters at(long cycles, long instructions) {
+		return new PerformanceRegions.Counters(cycles, instructions, cycles / 10, cycles / 100);
+	}
+
+	@Test
+	public void testAccumulate() {
+		PerformanceRegions regions = new PerformanceRegions();
+
+		// a loop body visited twice, nested inside a region for the whole loop
+		regions.start("loop", at(100, 50));
+		regions.start("body", at(110, 55));
+		regions.end("body", at(210, 105));
+		regions.start("body", at(220, 110));
+		regions.end("body", at(320, 160));
+		regions.end("loop", at(400, 200));
+
+		PerformanceRegions.Region body = regions.getRegion("body");
+		assertEquals(2, body.getCount());
+		assertEquals(200, body.getCycles());
+		assertEquals(100, body.getInstructions());
+		assertEquals(2.0, body.getCPI(), 1e-9);
+		assertEquals(20, body.getStalls());
+		assertEquals(2, body.getFlushes());
+
+		PerformanceRegions.Region loop = regions.getRegion("loop");
+		assertEquals(1, loop.getCount());
+		assertEquals(300, loop.getCycles());
+		assertEquals(150, loop.getInstructions());
+
+		String[] lines = regions.getSummary().split("\n");
+		assertEquals(4, lines.length);
+		assertTrue(lines[2].trim().startsWith("loop "));
+		assertTrue(lines[3].trim().startsWith("body "));
+
+		regions.clear();
+		assertNull(regions.getRegion("loop"));
+		assertEquals("", regions.getSummary());
+	}
+
+	@Test
+	public void testEndAll() {
+		PerformanceRegions regions = new PerformanceRegions();
+		regions.start("a", at(0, 0));
+		regions.start("b", at(10, 5));
+		regions.endAll(at(30, 15));
+		assertEquals(30, regions.getRegion("a").getCycles());
+		assertEquals(20, regions.getRegion("b").getCycles());
+
+		// both regions are closed, so can be started again
+		regions.start("a", at(40, 20));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStartedTwice() {
+		PerformanceRegions regions = new PerformanceRegions();
+		regions.start("a", at(0, 0));
+		regions.start("a", at(10, 5));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNotStarted() {
+		new PerformanceRegions().end("a", at(0, 0));
+	}
+}
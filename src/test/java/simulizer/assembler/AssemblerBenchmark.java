@@ -0,0 +1,122 @@
+package simulizer.assembler;
+
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import simulizer.assembler.extractor.ProgramExtractor;
+import simulizer.assembler.extractor.problem.ProblemCountLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.parser.SimpParser;
+
+/**
+ * Measures the throughput of the assembler on programs from ProgramGenerator,
+ * as a baseline to compare optimisations of the assembler against.
+ *
+ * Reports the lines per second of Assembler.assemble and
+ * Assembler.checkForProblems, and of lexing, parsing and extraction on their
+ * own. Each measurement is repeated and the median reported, after some
+ * warm up runs to let the JIT compile the assembler.
+ *
+ * usage: AssemblerBenchmark [-lines N] [-iterations N] [-warmup N] [-seed N]
+ * @author mbway
+ */
+public class AssemblerBenchmark {
+
+    private final String program;
+    private final int lines;
+    private final int iterations;
+    private final int warmup;
+
+    private AssemblerBenchmark(String program, int iterations, int warmup) {
+        this.program = program;
+        this.iterations = iterations;
+        this.warmup = warmup;
+        int count = 0;
+        for(int i = program.indexOf('\n'); i != -1; i = program.indexOf('\n', i + 1)) {
+            count++;
+        }
+        lines = count;
+    }
+
+    private interface Phase {
+        void run();
+    }
+
+    /**
+     * time a phase of assembling the program
+     * @return the median time of one run in nanoseconds
+     */
+    private long time(Phase phase) {
+        for(int i = 0; i < warmup; i++) {
+            phase.run();
+        }
+        long[] times = new long[iterations];
+        for(int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            phase.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[iterations / 2];
+    }
+
+    private void report(String name, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-20s %10.2f ms %14.0f lines/s%n", name, seconds * 1000, lines / seconds);
+    }
+
+    private void run() {
+        String input = program + '\n';
+
+        // make sure the program is valid, so every phase does the full amount of work
+        ProblemCountLogger counter = new ProblemCountLogger(null);
+        Program p = Assembler.assemble(program, counter);
+        if(p == null || counter.problemCount != 0) {
+            throw new IllegalStateException("the generated program has problems");
+        }
+
+        CommonTokenStream tokens = ParserPool.tokenize(input);
+        SimpParser.ProgramContext tree = ParserPool.parse(tokens);
+
+        System.out.printf("%d lines, %d statements, %d tokens%n", lines, p.textSegment.size(), tokens.size());
+
+        report("lex", time(() -> ParserPool.tokenize(input)));
+        report("parse", time(() -> {
+            tokens.seek(0);
+            ParserPool.parse(tokens);
+        }));
+        report("extract", time(() ->
+            ParseTreeWalker.DEFAULT.walk(new ProgramExtractor(new ProblemCountLogger(null)), tree)));
+        report("checkForProblems", time(() -> Assembler.checkForProblems(program)));
+        report("assemble", time(() -> Assembler.assemble(program, null)));
+    }
+
+    public static void main(String[] args) {
+        int lines = 20000;
+        int iterations = 10;
+        int warmup = 5;
+        long seed = 0;
+
+        for(int i = 0; i < args.length; i++) {
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("invalid command line arguments");
+            }
+            switch(args[i]) {
+                case "-lines":      lines = Integer.parseInt(args[++i]); break;
+                case "-iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "-warmup":     warmup = Integer.parseInt(args[++i]); break;
+                case "-seed":       seed = Long.parseLong(args[++i]); break;
+                default:
+                    throw new IllegalArgumentException("invalid command line arguments");
+            }
+        }
+        if(iterations < 1) {
+            throw new IllegalArgumentException("at least one iteration is required");
+        }
+
+        String program = new ProgramGenerator(seed).generate(lines);
+        new AssemblerBenchmark(program, iterations, warmup).run();
+    }
+}
@@ -0,0 +1,171 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramStringBuilder;
+import simulizer.utils.FileUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * test that checking a program incrementally finds the same problems as
+ * checking the whole program
+ */
+@Category({UnitTests.class})
+public class IncrementalAssemblerTest {
+
+    /**
+     * labels are stored in a hash map keyed by identity, so sort the dump
+     * to compare programs which were assembled separately
+     */
+    private static String dump(Program p) {
+        String[] lines = ProgramStringBuilder.dumpToString(p).split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    private static String describe(List<Problem> problems) {
+        StringBuilder sb = new StringBuilder();
+        for(Problem p : problems) {
+            sb.append(p.toString()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * check a version of the program incrementally and from scratch
+     * @return the problems found
+     */
+    private List<Problem> assertSameProblems(IncrementalAssembler inc, String program) {
+        List<Problem> expected = Assembler.checkForProblems(program);
+        List<Problem> actual = inc.checkForProblems(program);
+        assertEquals(describe(expected), describe(actual));
+        return actual;
+    }
+
+    @Test
+    public void testSamplePrograms() {
+        String[] samples = {"add.s", "count.s", "count2.s", "annotation-example.s",
+                            "binary-search.s", "bubblesort.s", "quick-sort.s", "tower-of-hanoi.s"};
+
+        for(String sample : samples) {
+            String program = FileUtils.getFileContent("work/code/" + sample);
+            IncrementalAssembler inc = new IncrementalAssembler();
+            assertSameProblems(inc, program);
+
+            // nothing changed
+            assertSameProblems(inc, program);
+            assertEquals(0, inc.getLinesParsed());
+
+            // the program built from the lines is the same as the one assembled in one go
+            assertEquals(dump(Assembler.assemble(program, null)),
+                         dump(inc.assemble()));
+        }
+    }
+
+    @Test
+    public void testEdits() {
+        IncrementalAssembler inc = new IncrementalAssembler();
+
+        String program =
+            ".data\n" +
+            "num: .word 7\n" +
+            ".text\n" +
+            "main:\n" +
+            "    lw $t0, num\n" +
+            "    li $v0, 10\n" +
+            "    syscall\n";
+        assertTrue(assertSameProblems(inc, program).isEmpty());
+
+        // change a single line
+        String edited = program.replace("lw $t0, num", "lw $t0, num, num");
+        List<Problem> problems = assertSameProblems(inc, edited);
+        assertEquals(1, inc.getLinesParsed());
+        assertEquals(1, problems.size());
+        assertEquals(5, problems.get(0).lineNum);
+
+        // insert lines above the problem, its position should move with it
+        edited = "# a comment\n# another\n" + edited;
+        problems = assertSameProblems(inc, edited);
+        assertEquals(2, inc.getLinesParsed());
+        assertEquals(7, problems.get(0).lineNum);
+
+        // problems which depend on other lines
+        edited = edited.replace("main:", "num:");
+        problems = assertSameProblems(inc, edited);
+        assertEquals(1, inc.getLinesParsed());
+        assertTrue(problems.stream().anyMatch(p -> p.message.contains("is taken")));
+        assertTrue(problems.stream().anyMatch(p -> p.message.contains("no 'main' label")));
+
+        // annotations bind to the end of the text segment
+        edited = edited.replace("num:\n", "main:\n") + "    # @{ }@\n.data\nother: .word 1\n";
+        assertSameProblems(inc, edited);
+
+        // remove everything
+        assertSameProblems(inc, "");
+        assertSameProblems(inc, program);
+    }
+
+    @Test
+    public void testChanges() {
+        IncrementalAssembler inc = new IncrementalAssembler();
+        String program = FileUtils.getFileContent("work/code/bubblesort.s");
+
+        // type the program in as a single insertion into the empty document
+        assertTrue(inc.insert(0, 0, program));
+        assertEquals(program, inc.getText());
+        List<Problem> problems = inc.checkForProblems();
+        assertEquals(describe(Assembler.checkForProblems(program)), describe(problems));
+
+        // insert a line in the middle of another
+        String[] lines = program.split("\\n", -1);
+        int row = lines.length / 2;
+        assertTrue(inc.insert(row, 0, "li $t0, 1\n"));
+        program = inc.getText();
+        assertEquals("li $t0, 1", program.split("\\n", -1)[row]);
+        assertEquals(describe(Assembler.checkForProblems(program)), describe(inc.checkForProblems()));
+        assertEquals(2, inc.getLinesParsed());
+
+        // remove it again
+        assertTrue(inc.remove(row, 0, row + 1, 0));
+        assertEquals(String.join("\n", lines), inc.getText());
+        inc.checkForProblems();
+        assertEquals(1, inc.getLinesParsed());
+
+        // remove across several lines
+        assertTrue(inc.remove(1, 2, 3, 1));
+        String expected = lines[0] + "\n" + lines[1].substring(0, 2) + lines[3].substring(1);
+        assertTrue(inc.getText().startsWith(expected + "\n"));
+        assertEquals(describe(Assembler.checkForProblems(inc.getText())), describe(inc.checkForProblems()));
+
+        // changes outside the document are rejected
+        assertFalse(inc.insert(lines.length + 5, 0, "x"));
+        assertFalse(inc.insert(0, 1000, "x"));
+        assertFalse(inc.remove(2, 0, 1, 0));
+        assertFalse(inc.remove(0, 0, lines.length + 5, 0));
+    }
+
+    @Test
+    public void testSyntaxError() {
+        IncrementalAssembler inc = new IncrementalAssembler();
+        String program =
+            ".text\n" +
+            "main:\n" +
+            "    li $v0, 10\n" +
+            "    syscall\n";
+        inc.checkForProblems(program);
+
+        List<Problem> problems = inc.checkForProblems(program.replace("li $v0, 10", "li $v0, 10 :: ("));
+        assertFalse(problems.isEmpty());
+        assertTrue(problems.stream().allMatch(p -> p.lineNum == 3 || p.lineNum == Problem.NO_LINE_NUM));
+
+        // fixing the line removes the problems
+        assertTrue(inc.checkForProblems(program).isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.runner.SimulizerRunner;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * test linking programs with the files they include
+ */
+@Category({UnitTests.class})
+public class LinkerTest {
+
+    private static final String printLib =
+            "# @{ var printed = 0; }@\n" +
+            ".data\n" +
+            "newline: .asciiz \"\\n\"\n" +
+            ".text\n" +
+            "print_int_line: # @{ printed++; }@\n" +
+            "    li $v0, 1\n" +
+            "    syscall\n" +
+            "    li $v0, 4\n" +
+            "    la $a0, newline\n" +
+            "    syscall\n" +
+            "    jr $ra\n";
+
+    private static final String squareLib =
+            ".include \"print.s\"\n" +
+            ".text\n" +
+            "print_square:\n" +
+            "    addi $sp, $sp, -4\n" +
+            "    sw $ra, 0($sp)\n" +
+            "    mul $a0, $a0, $a0\n" +
+            "    jal print_int_line\n" +
+            "    lw $ra, 0($sp)\n" +
+            "    addi $sp, $sp, 4\n" +
+            "    jr $ra\n";
+
+    private static final String program =
+            ".include \"square.s\"\n" +
+            ".include \"print.s\"\n" +
+            ".data\n" +
+            "value: .word 7\n" +
+            "buffer: .space 64\n" +
+            ".text\n" +
+            "main:\n" +
+            "    lw $a0, value\n" +
+            "    jal print_int_line\n" +
+            "    lw $a0, value\n" +
+            "    jal print_square\n" +
+            "    li $v0, 10\n" +
+            "    syscall\n";
+
+    private final Map<String, String> files = new HashMap<>();
+    private final Linker.SourceReader reader = name -> {
+        String source = files.get(name);
+        if(source == null) {
+            throw new FileNotFoundException(name);
+        }
+        return source;
+    };
+
+    public LinkerTest() {
+        files.put("print.s", printLib);
+        files.put("square.s", squareLib);
+    }
+
+    private List<Problem> problems(String program, Linker linker) {
+        StoreProblemLogger log = new StoreProblemLogger();
+        assertNull(Assembler.assemble(program, log, linker));
+        assertFalse(log.getProblems().isEmpty());
+        return log.getProblems();
+    }
+
+    @Test
+    public void testLink() {
+        ModuleCache cache = new ModuleCache(8);
+        Program p = Assembler.assemble(program, null, new Linker(reader, cache));
+        assertNotNull(p);
+        assertEquals("7\n49\n", new SimulizerRunner(CPUType.NON_PIPELINED).run(p, ""));
+
+        // the program first, then the modules in the order they are first included, each once
+        assertEquals(6 + 7 + 6, p.textSegment.size());
+        assertEquals(4 + 64 + 2, p.dataSegmentSize);
+        // statements of modules are given the line they were included from
+        assertEquals(Integer.valueOf(0), p.lineNumbers.get(p.textSegmentLast));
+        assertEquals(" var printed = 0; \n", p.initAnnotation.code);
+        assertEquals(1, p.annotations.size());
+
+        // the modules are cached, the same contents under another name are not assembled again
+        assertEquals(2, cache.getMisses());
+        files.put("other.s", printLib);
+        assertNotNull(Assembler.assemble(program.replace("\"print.s\"", "\"other.s\""), null, new Linker(reader, cache)));
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testCycle() {
+        files.put("a.s", ".include \"b.s\"\n.text\na: jr $ra\n");
+        files.put("b.s", ".include \"a.s\"\n.text\nb: jr $ra\n");
+        Program p = Assembler.assemble(".include \"a.s\"\n.text\nmain: jal a\njal b\nli $v0, 10\nsyscall\n",
+                                       null, new Linker(reader, new ModuleCache(8)));
+        assertNotNull(p);
+        assertEquals(6, p.textSegment.size());
+    }
+
+    @Test
+    public void testProblems() {
+        Linker linker = new Linker(reader, new ModuleCache(8));
+
+        // included files must be read by a linker
+        List<Problem> problems = problems(program, null);
+        assertEquals(2, problems.size());
+        assertEquals(1, problems.get(0).lineNum);
+
+        problems = problems(".text\nmain:\nli $v0, 10\n.include \"missing.s\"\n", linker);
+        assertEquals(1, problems.size());
+        assertEquals(4, problems.get(0).lineNum);
+        assertTrue(problems.get(0).message.contains("missing.s"));
+
+        // problems with included files are reported where they are included from
+        files.put("bad.s", ".text\nf: add $t0\n");
+        files.put("indirect.s", ".include \"bad.s\"\n");
+        problems = problems(".text\nmain:\nli $v0, 10\n.include \"indirect.s\"\n", linker);
+        assertEquals(1, problems.size());
+        assertEquals(4, problems.get(0).lineNum);
+        assertTrue(problems.get(0).message.contains("indirect.s > bad.s"));
+        assertTrue(problems.get(0).message.contains("(line 2)"));
+
+        // the same label defined by the program and a module
+        problems = problems(program.replace("main:", "main:\nnewline:"), linker);
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).message.contains("newline"));
+
+        // a label used by a module which nothing defines
+        files.put("uses.s", ".text\nf: j undefined_label\n");
+        problems = problems(".text\nmain:\nli $v0, 10\n.include \"uses.s\"\n", linker);
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).message.contains("undefined_label"));
+
+        problems = problems(".include 5\n.text\nmain:\nli $v0, 10\n", linker);
+        assertEquals(1, problems.size());
+    }
+}
@@ -0,0 +1,120 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.MachineCode;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.components.MainMemory;
+import simulizer.utils.FileUtils;
+import simulizer.utils.runner.SimulizerRunner;
+
+import static org.junit.Assert.*;
+
+/**
+ * test the machine code encoding of the text segment
+ */
+@Category({UnitTests.class})
+public class MachineCodeTest {
+
+    /**
+     * assemble a program consisting of main followed by the given lines
+     */
+    private static int[] encode(String lines) {
+        Program p = Assembler.assemble(".text\nmain:\n" + lines, null);
+        assertNotNull(p);
+        assertNotNull(p.textImage);
+        assertEquals(p.textSegment.size(), p.textImage.length);
+        return p.textImage;
+    }
+
+    @Test
+    public void testEncodings() {
+        // compared against SPIM
+        int[] words = encode(
+                "add $t0, $t1, $t2\n" +
+                "addi $t0, $t0, -1\n" +
+                "syscall\n" +
+                "jr $ra\n" +
+                "lw $t0, 4($sp)\n" +
+                "sw $ra, 0($sp)\n" +
+                "sll $t0, $t1, 2\n" +
+                "jal main\n" +
+                "beq $t0, $zero, main\n" +
+                "nop\n");
+        assertEquals(0x012A4020, words[0]);
+        assertEquals(0x2108FFFF, words[1]);
+        assertEquals(0x0000000C, words[2]);
+        assertEquals(0x03E00008, words[3]);
+        assertEquals(0x8FA80004, words[4]);
+        assertEquals(0xAFBF0000, words[5]);
+        assertEquals(0x00094080, words[6]);
+        assertEquals(0x0C100000, words[7]);
+        assertEquals(0x1100FFF7, words[8]);
+        assertEquals(MachineCode.NOP, words[9]);
+
+        assertEquals(Instruction.add, MachineCode.instructionOf(words[0]));
+        assertEquals(Instruction.jal, MachineCode.instructionOf(words[7]));
+        assertEquals(Instruction.nop, MachineCode.instructionOf(words[9]));
+        assertEquals(-1, MachineCode.immediate(Instruction.addi, words[1]));
+        assertEquals(0x00400000, MachineCode.jumpTarget(words[7], 0x0040001C));
+        assertEquals(0x00400000, MachineCode.branchTarget(words[8], 0x00400020));
+    }
+
+    @Test
+    public void testPseudoInstructions() {
+        int[] words = encode(
+                "li $t0, 5\n" +
+                "la $t1, main\n" +
+                "move $t2, $t0\n" +
+                "addi $t0, $t0, 70000\n" + // immediate too large
+                "lw $t0, main\n" +         // address given by a label
+                "sll $zero, $zero, 0\n");  // the same machine code as nop
+        for(int i = 0; i < words.length; i++) {
+            assertEquals(MachineCode.PSEUDO_OPCODE, MachineCode.opcode(words[i]));
+            assertEquals(i, MachineCode.statementIndex(words[i]));
+            assertNull(MachineCode.instructionOf(words[i]));
+        }
+    }
+
+    @Test
+    public void testSameBehaviour() {
+        String[][] samples = {
+                {"add.s", ""},
+                {"count.s", ""},
+                {"count2.s", ""},
+                {"annotation-example.s", ""},
+                {"bubblesort.s", "5\n3\n9\n1\n7\n0\n"},
+                {"quick-sort.s", "5\n3\n9\n1\n7\n0\n"},
+                {"binary-search.s", "1\n3\n5\n8\n13\n0\n8\n4\n0\n"},
+                {"tower-of-hanoi.s", "4\n"}
+        };
+        for(CPUType type : CPUType.values()) {
+            for(String[] sample : samples) {
+                String program = FileUtils.getFileContent("work/code/" + sample[0]);
+
+                Program withoutImage = Assembler.assemble(program, null);
+                withoutImage.textImage = null;
+                String expected = new SimulizerRunner(type).run(withoutImage, sample[1]);
+
+                String actual = new SimulizerRunner(type).run(Assembler.assemble(program, null), sample[1]);
+                assertEquals(type + " " + sample[0], expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testReadTextSegment() throws Exception {
+        SimulizerRunner runner = new SimulizerRunner(CPUType.NON_PIPELINED);
+        Program p = Assembler.assemble(".text\nmain:\nadd $t0, $t1, $t2\nli $v0, 10\nsyscall\n", null);
+        runner.run(p, "");
+
+        MainMemory memory = runner.cpu.getMainMemory();
+        // big endian
+        assertArrayEquals(new byte[]{0x01, 0x2A, 0x40, 0x20}, memory.readFromMem(0x00400000, 4));
+        assertArrayEquals(new byte[]{0x40, 0x20}, memory.readFromMem(0x00400002, 2));
+        assertArrayEquals(new byte[]{0x00, 0x00, 0x00, 0x0C}, memory.readFromMem(0x00400008, 4));
+    }
+}
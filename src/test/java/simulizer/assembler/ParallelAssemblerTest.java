@@ -0,0 +1,135 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.assembler.extractor.problem.Problem;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramStringBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * test that assembling large programs in parallel gives the same result as
+ * assembling them as a whole
+ */
+@Category({UnitTests.class})
+public class ParallelAssemblerTest {
+
+    /**
+     * labels are stored in a hash map keyed by identity, so sort the dump
+     * to compare programs which were assembled separately
+     */
+    private static String dump(Program p) {
+        String[] lines = ProgramStringBuilder.dumpToString(p).split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines) + "\ninit: " + (p.initAnnotation == null ? null : p.initAnnotation.code);
+    }
+
+    private static String describe(List<Problem> problems) {
+        StringBuilder sb = new StringBuilder();
+        for(Problem p : problems) {
+            sb.append(p.toString()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * generate a program with alternating data and text segments, labels,
+     * annotations and strings containing the characters used to find chunk boundaries
+     * @param blocks the number of blocks of the program (each block is 14 lines)
+     */
+    private static String generate(int blocks) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# @{ var calls = 0; }@\n");
+        sb.append(".text\n");
+        sb.append("main:\n");
+        sb.append("    jal f0\n");
+        sb.append("    li $v0, 10\n");
+        sb.append("    syscall\n");
+        for(int i = 0; i < blocks; i++) {
+            sb.append(".data\n");
+            sb.append("d").append(i).append(": .word ").append(i).append(", 2, 3\n");
+            sb.append("s").append(i).append(": .asciiz \"block ").append(i).append(": #\"\n");
+            sb.append("    .space 3\n");
+            sb.append(".text\n");
+            sb.append("f").append(i).append(":\n");
+            sb.append("    addi $t0, $zero, ").append(i).append(" # @{ calls++; }@\n");
+            sb.append("l").append(i).append(":\n");
+            sb.append("    addi $t0, $t0, -1\n");
+            sb.append("    # @{ log(calls); }@\n");
+            sb.append("    bne $t0, $zero, l").append(i).append("\n");
+            sb.append("    lw $t1, d").append(i).append("\n");
+            sb.append("    la $t2, s").append(i).append("\n");
+            sb.append("    jr $ra\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * assemble a program with Assembler.assemble and as a whole
+     * @return the program assembled in parallel (or null if it could not be)
+     */
+    private static Program assertSameAsSequential(String program) {
+        StoreProblemLogger expectedLog = new StoreProblemLogger();
+        Program expected = Assembler.assembleSequentially(program + '\n', expectedLog);
+
+        StoreProblemLogger log = new StoreProblemLogger();
+        Program actual = Assembler.assemble(program, log);
+        assertEquals(describe(expectedLog.getProblems()), describe(log.getProblems()));
+        if(expected == null) {
+            assertNull(actual);
+        } else {
+            assertEquals(dump(expected), dump(actual));
+        }
+
+        Program parallel = ParallelAssembler.assemble(program + '\n');
+        if(parallel != null) {
+            assertNotNull(expected);
+            assertEquals(dump(expected), dump(parallel));
+        }
+        return parallel;
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        for(int blocks : new int[]{1, 100, 800}) {
+            assertNotNull(assertSameAsSequential(generate(blocks)));
+        }
+    }
+
+    @Test
+    public void testProblems() {
+        String program = generate(800);
+
+        // a syntax error in the middle of the program
+        int middle = program.indexOf("f400:");
+        String bad = program.substring(0, middle) + "add $t0 $t1 ::\n" + program.substring(middle);
+        assertNull(assertSameAsSequential(bad));
+
+        // a label defined in two chunks
+        bad = program + "d10: .word 1\n";
+        assertNull(assertSameAsSequential(bad));
+
+        // no main label
+        bad = program.replace("main:", "notmain:");
+        assertNull(assertSameAsSequential(bad));
+    }
+
+    @Test
+    public void testNoGoodBoundaries() {
+        // every line is either a label or an annotation, so the labels and
+        // annotations at the end of each chunk bind to the next
+        StringBuilder sb = new StringBuilder(".text\nmain:\n");
+        for(int i = 0; i < 3000; i++) {
+            sb.append("l").append(i).append(":\n");
+            sb.append("    addi $t0, $t0, 1 # @{ }@\n");
+        }
+        sb.append("    li $v0, 10\n    syscall\n");
+        assertSameAsSequential(sb.toString());
+    }
+}
@@ -0,0 +1,71 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.parser.SimpLexer;
+import simulizer.parser.SimpParser;
+import simulizer.utils.FileUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * test that the two stage parser gives the same parse trees as a new parser
+ * using full LL prediction
+ */
+@Category({UnitTests.class})
+public class ParserPoolTest {
+
+    private static String parseLL(String input) {
+        SimpLexer lexer = new SimpLexer(new ANTLRInputStream(input));
+        SimpParser parser = new SimpParser(new CommonTokenStream(lexer));
+        lexer.removeErrorListeners();
+        parser.removeErrorListeners();
+        return parser.program().toStringTree(parser);
+    }
+
+    private static String parsePooled(String input) {
+        return ParserPool.parse(input).toStringTree(new SimpParser(null));
+    }
+
+    @Test
+    public void testSamePrograms() {
+        String[] samples = {"add.s", "count.s", "count2.s", "annotation-example.s",
+                            "binary-search.s", "bubblesort.s", "quick-sort.s", "tower-of-hanoi.s"};
+
+        for(String sample : samples) {
+            String program = FileUtils.getFileContent("work/code/" + sample) + '\n';
+            assertEquals(parseLL(program), parsePooled(program));
+        }
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        // these fall back to LL parsing with error recovery
+        String[] programs = {
+            ".text\nmain: li $v0, 10 :: (\nsyscall\n",
+            ".data\nx: .word 1 2 3,,\n.text\nmain: lw $t0, x + + 4\n",
+            "\"unterminated\n.text\nmain:\n",
+            ".text\nmain: add $t0, $t1, lbl + 4($s0)\n"
+        };
+        for(String program : programs) {
+            assertEquals(parseLL(program), parsePooled(program));
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        String first = ".text\nmain:\n    li $v0, 10\n    syscall\n";
+        String second = ".data\nmsg: .asciiz \"hello\"\n";
+
+        SimpParser.ProgramContext firstTree = ParserPool.parse(first);
+        String firstString = firstTree.toStringTree(new SimpParser(null));
+
+        // parsing another program must not affect the first tree
+        ParserPool.parse(second);
+        assertEquals(firstString, firstTree.toStringTree(new SimpParser(null)));
+        assertTrue(firstTree.getText().startsWith(".text\nmain:\nli$v0,10\nsyscall\n"));
+    }
+}
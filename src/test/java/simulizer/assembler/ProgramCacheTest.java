@@ -0,0 +1,122 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramStringBuilder;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.FileUtils;
+import simulizer.utils.runner.SimulizerRunner;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * test the cache of assembled programs
+ */
+@Category({UnitTests.class})
+public class ProgramCacheTest {
+
+    /**
+     * labels are stored in a hash map keyed by identity, so sort the dump
+     * to compare programs which were assembled separately
+     */
+    private static String dump(Program p) {
+        String[] lines = ProgramStringBuilder.dumpToString(p).split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[] samples = {"add.s", "count.s", "count2.s", "annotation-example.s",
+                                             "binary-search.s", "bubblesort.s", "quick-sort.s", "tower-of-hanoi.s"};
+
+    @Test
+    public void testMemoryCache() {
+        ProgramCache cache = new ProgramCache(2);
+        String a = FileUtils.getFileContent("work/code/add.s");
+        String b = FileUtils.getFileContent("work/code/count.s");
+        String c = FileUtils.getFileContent("work/code/bubblesort.s");
+
+        Program pa = cache.assemble(a, null);
+        assertNotNull(pa);
+        assertSame(pa, cache.assemble(a, null));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // a is the least recently used once c is added
+        Program pb = cache.assemble(b, null);
+        cache.assemble(c, null);
+        assertEquals(2, cache.size());
+        assertSame(pb, cache.assemble(b, null));
+        assertNotSame(pa, cache.assemble(a, null));
+
+        // programs with problems are not cached, so their problems are always reported
+        String bad = ".text\nmain:\n    add $t0\n";
+        for(int i = 0; i < 2; i++) {
+            StoreProblemLogger log = new StoreProblemLogger();
+            assertNull(cache.assemble(bad, log));
+            assertFalse(log.getProblems().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDiskCache() throws Exception {
+        File dir = new File(folder.getRoot(), "cache");
+
+        ProgramCache cache = new ProgramCache(16);
+        cache.setDirectory(dir);
+        for(String sample : samples) {
+            cache.assemble(FileUtils.getFileContent("work/code/" + sample), null);
+        }
+
+        // a new cache (eg after restarting) finds the programs on disk
+        ProgramCache restarted = new ProgramCache(16);
+        restarted.setDirectory(dir);
+        for(String sample : samples) {
+            String source = FileUtils.getFileContent("work/code/" + sample);
+            Program p = restarted.get(ProgramCache.digest(source));
+            assertNotNull(p);
+            assertEquals(dump(Assembler.assemble(source, null)),
+                         dump(p));
+        }
+        assertEquals(samples.length, restarted.getHits());
+
+        // a corrupt image is ignored
+        String source = FileUtils.getFileContent("work/code/add.s");
+        FileUtils.writeToFile(new File(dir, ProgramCache.digest(source) + ".simp-image"), "garbage");
+        ProgramCache corrupt = new ProgramCache(16);
+        corrupt.setDirectory(dir);
+        assertNull(corrupt.get(ProgramCache.digest(source)));
+        assertNotNull(corrupt.assemble(source, null));
+    }
+
+    @Test
+    public void testCachedProgramRunsAgain() {
+        // the program modifies its static data, which must not affect the next run
+        String program =
+            ".data\n" +
+            "num: .word 7\n" +
+            ".text\n" +
+            "main:\n" +
+            "    lw $a0, num\n" +
+            "    addi $t0, $a0, 1\n" +
+            "    sw $t0, num\n" +
+            "    li $v0, 1\n" +
+            "    syscall\n" +
+            "    li $v0, 10\n" +
+            "    syscall\n";
+
+        for(int i = 0; i < 3; i++) {
+            assertEquals("7", new SimulizerRunner(CPUType.NON_PIPELINED).run(program, ""));
+        }
+    }
+}
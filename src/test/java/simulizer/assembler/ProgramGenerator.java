@@ -0,0 +1,258 @@
+package simulizer.assembler;
+
+import java.util.Random;
+
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Variable;
+import simulizer.assembler.representation.operand.OperandFormat;
+
+/**
+ * Generates synthetic programs which assemble without problems, for
+ * measuring the performance of the assembler.
+ *
+ * Statements cycle through every instruction and variables cycle through
+ * every type of variable, so a program of more than a few hundred lines uses
+ * them all. The operands, labels, comments and annotations are chosen from a
+ * seeded random number generator, so the same generator settings always
+ * produce the same program. The programs are meant to be assembled, not run.
+ * @author mbway
+ */
+public class ProgramGenerator {
+
+    private static final String[] registers = {
+        "$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9",
+        "$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7",
+        "$a0", "$a1", "$a2", "$a3", "$v0", "$v1", "$8", "$16"
+    };
+    private static final String[] words = {
+        "loop", "sum", "count", "the", "value", "of", "each", "element", "is", "stored", "here"
+    };
+
+    private final long seed;
+    private double dataFraction;
+    private double labelFraction;
+    private double commentFraction;
+    private double annotationFraction;
+    private int blockLines;
+
+    /**
+     * @param seed the seed for choosing operands, labels and comments
+     */
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+        dataFraction = 0.2;
+        labelFraction = 0.1;
+        commentFraction = 0.1;
+        annotationFraction = 0.02;
+        blockLines = 200;
+    }
+
+    /**
+     * @param fraction the fraction of lines which declare variables rather than statements
+     * @return this generator
+     */
+    public ProgramGenerator setDataFraction(double fraction) {
+        dataFraction = checkFraction(fraction);
+        return this;
+    }
+
+    /**
+     * @param fraction the fraction of statements and variables which are given a label
+     * @return this generator
+     */
+    public ProgramGenerator setLabelFraction(double fraction) {
+        labelFraction = checkFraction(fraction);
+        return this;
+    }
+
+    /**
+     * @param fraction the fraction of lines with a comment
+     * @return this generator
+     */
+    public ProgramGenerator setCommentFraction(double fraction) {
+        commentFraction = checkFraction(fraction);
+        return this;
+    }
+
+    /**
+     * @param fraction the fraction of statements with an annotation
+     * @return this generator
+     */
+    public ProgramGenerator setAnnotationFraction(double fraction) {
+        annotationFraction = checkFraction(fraction);
+        return this;
+    }
+
+    /**
+     * @param lines the number of lines in each block of statements or variables,
+     *              the program alternates between .text and .data blocks
+     * @return this generator
+     */
+    public ProgramGenerator setBlockLines(int lines) {
+        if(lines < 1) {
+            throw new IllegalArgumentException("blocks must have at least one line");
+        }
+        blockLines = lines;
+        return this;
+    }
+
+    private static double checkFraction(double fraction) {
+        if(fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        }
+        return fraction;
+    }
+
+    /**
+     * generate a program
+     * @param lines the approximate number of lines of the program
+     * @return the program source
+     */
+    public String generate(int lines) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 24);
+        Instruction[] instructions = Instruction.values();
+        Variable.Type[] types = Variable.Type.values();
+
+        int textLabels = 0;
+        int dataLabels = 1;
+        int statements = 0;
+        int variables = 0;
+
+        sb.append("# a generated program\n");
+        sb.append("# @{ var generated = true; }@\n");
+        sb.append(".data\n");
+        sb.append("d0: .word 0\n");
+        sb.append(".text\n");
+        sb.append(".globl main\n");
+        sb.append("main:\n");
+        int line = 7;
+
+        int dataLines = (int) (blockLines * dataFraction);
+        int textLines = blockLines - dataLines;
+        while(line < lines - 2) {
+            for(int i = 0; i < textLines && line < lines - 2; i++, line++) {
+                if(r.nextDouble() < labelFraction) {
+                    sb.append('l').append(textLabels++).append(": ");
+                } else {
+                    sb.append("    ");
+                }
+                Instruction instruction = instructions[statements++ % instructions.length];
+                sb.append(instruction);
+                appendOperands(sb, instruction, r, textLabels, dataLabels);
+                if(statements > 1 && r.nextDouble() < annotationFraction) {
+                    sb.append(" # @{ generated = !generated; }@");
+                } else {
+                    appendComment(sb, r);
+                }
+                sb.append('\n');
+            }
+
+            if(dataLines > 0 && line < lines - 2) {
+                sb.append(".data\n");
+                line++;
+                for(int i = 0; i < dataLines && line < lines - 2; i++, line++) {
+                    if(r.nextDouble() < labelFraction) {
+                        sb.append('d').append(dataLabels++).append(": ");
+                    } else {
+                        sb.append("    ");
+                    }
+                    appendVariable(sb, types[variables++ % types.length], r);
+                    appendComment(sb, r);
+                    sb.append('\n');
+                }
+                sb.append(".text\n");
+                line++;
+            }
+        }
+
+        sb.append("    li $v0, 10\n");
+        sb.append("    syscall\n");
+        return sb.toString();
+    }
+
+    private void appendComment(StringBuilder sb, Random r) {
+        if(r.nextDouble() < commentFraction) {
+            sb.append(" # ").append(words[r.nextInt(words.length)]).append(' ').append(words[r.nextInt(words.length)]);
+        }
+    }
+
+    private static String register(Random r) {
+        return registers[r.nextInt(registers.length)];
+    }
+
+    private static String textLabel(Random r, int textLabels) {
+        return textLabels == 0 ? "main" : "l" + r.nextInt(textLabels);
+    }
+
+    private static String address(Random r, int dataLabels) {
+        switch(r.nextInt(4)) {
+            case 0:
+                return "d" + r.nextInt(dataLabels);
+            case 1:
+                return "d" + r.nextInt(dataLabels) + "+" + 4 * r.nextInt(4);
+            case 2:
+                return 4 * r.nextInt(16) + "(" + register(r) + ")";
+            default:
+                return "(" + register(r) + ")";
+        }
+    }
+
+    private static void appendOperands(StringBuilder sb, Instruction instruction, Random r,
+                                       int textLabels, int dataLabels) {
+        OperandFormat f = instruction.getOperandFormat();
+        if(instruction == Instruction.BREAK) {
+            sb.append(' ').append(r.nextInt(16));
+        } else if(f == OperandFormat.destSrcSrc) {
+            sb.append(' ').append(register(r)).append(", ").append(register(r)).append(", ").append(register(r));
+        } else if(f == OperandFormat.destSrcImm) {
+            boolean shift = instruction == Instruction.sll || instruction == Instruction.srl || instruction == Instruction.sra;
+            int imm = shift ? r.nextInt(32) : r.nextInt(2001) - 1000;
+            sb.append(' ').append(register(r)).append(", ").append(register(r)).append(", ").append(imm);
+        } else if(f == OperandFormat.destSrcImmU) {
+            sb.append(' ').append(register(r)).append(", ").append(register(r)).append(", 0x").append(Integer.toHexString(r.nextInt(0x10000)));
+        } else if(f == OperandFormat.destSrc) {
+            sb.append(' ').append(register(r)).append(", ").append(register(r));
+        } else if(f == OperandFormat.destImm) {
+            int imm = instruction == Instruction.lui ? r.nextInt(0x10000) : r.nextInt();
+            sb.append(' ').append(register(r)).append(", ").append(imm);
+        } else if(f == OperandFormat.label) {
+            sb.append(' ').append(textLabel(r, textLabels));
+        } else if(f == OperandFormat.register) {
+            sb.append(' ').append(register(r));
+        } else if(f == OperandFormat.cmpLabel) {
+            sb.append(' ').append(register(r)).append(", ").append(textLabel(r, textLabels));
+        } else if(f == OperandFormat.cmpCmpLabel) {
+            sb.append(' ').append(register(r)).append(", ").append(register(r)).append(", ").append(textLabel(r, textLabels));
+        } else if(f == OperandFormat.srcAddr || f == OperandFormat.destAddr) {
+            sb.append(' ').append(register(r)).append(", ").append(address(r, dataLabels));
+        } else if(f != OperandFormat.noArguments) {
+            throw new IllegalStateException("no operands can be generated for " + instruction);
+        }
+    }
+
+    private static void appendVariable(StringBuilder sb, Variable.Type type, Random r) {
+        switch(type) {
+            case Byte:
+                sb.append(".byte ").append(r.nextInt(256) - 128).append(", ").append(r.nextInt(128));
+                break;
+            case Half:
+                sb.append(".half ").append(r.nextInt(65536) - 32768);
+                break;
+            case Word:
+                sb.append(".word ").append(r.nextInt()).append(", 0x").append(Integer.toHexString(r.nextInt(Integer.MAX_VALUE)));
+                break;
+            case ASCII:
+                sb.append(".ascii \"").append(words[r.nextInt(words.length)]).append("\\t\"");
+                break;
+            case ASCIIZ:
+                sb.append(".asciiz \"").append(words[r.nextInt(words.length)]).append(" \\\"quoted\\\"\\n\"");
+                break;
+            case Space:
+                sb.append(".space ").append(1 + r.nextInt(64));
+                break;
+            default:
+                throw new IllegalStateException("no variable can be generated for " + type);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Instruction;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.Statement;
+import simulizer.assembler.representation.Variable;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * test that generated programs are valid and cover every instruction and variable type
+ */
+@Category({UnitTests.class})
+public class ProgramGeneratorTest {
+
+    @Test
+    public void testValid() {
+        ProgramGenerator[] generators = {
+            new ProgramGenerator(0),
+            new ProgramGenerator(1).setDataFraction(0).setCommentFraction(1),
+            new ProgramGenerator(2).setDataFraction(0.9).setLabelFraction(1).setBlockLines(7),
+            new ProgramGenerator(3).setAnnotationFraction(1).setLabelFraction(0)
+        };
+        for(ProgramGenerator g : generators) {
+            String program = g.generate(3000);
+            assertEquals(program, g.generate(3000));
+
+            StoreProblemLogger log = new StoreProblemLogger();
+            Program p = Assembler.assemble(program, log);
+            assertTrue(log.getProblems().isEmpty());
+            assertNotNull(p);
+            assertEquals(3000, program.split("\n").length, 3);
+        }
+    }
+
+    @Test
+    public void testCoverage() {
+        Program p = Assembler.assemble(new ProgramGenerator(0).generate(1000), null);
+
+        Set<Instruction> instructions = EnumSet.noneOf(Instruction.class);
+        for(Statement s : p.textSegment.values()) {
+            instructions.add(s.getInstruction());
+        }
+        assertEquals(EnumSet.allOf(Instruction.class), instructions);
+
+        Set<Variable.Type> types = EnumSet.noneOf(Variable.Type.class);
+        for(Variable v : p.dataSegmentVariables.values()) {
+            types.add(v.getType());
+        }
+        assertEquals(EnumSet.allOf(Variable.Type.class), types);
+    }
+}
@@ -0,0 +1,102 @@
+package simulizer.assembler;
+
+import category.UnitTests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import simulizer.assembler.representation.Program;
+import simulizer.assembler.representation.ProgramImage;
+import simulizer.assembler.representation.ProgramStringBuilder;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.FileUtils;
+import simulizer.utils.runner.SimulizerRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * test saving and loading program images
+ */
+@Category({UnitTests.class})
+public class ProgramImageTest {
+
+    /**
+     * labels are stored in a hash map keyed by identity, so sort the dump
+     * to compare programs which were assembled separately
+     */
+    private static String dump(Program p) {
+        String[] lines = ProgramStringBuilder.dumpToString(p).split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines) + "\ninit: " + (p.initAnnotation == null ? null : p.initAnnotation.code);
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[] samples = {"add.s", "count.s", "count2.s", "annotation-example.s",
+                                             "binary-search.s", "bubblesort.s", "quick-sort.s", "tower-of-hanoi.s"};
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        for(String sample : samples) {
+            Program p = Assembler.assemble(FileUtils.getFileContent("work/code/" + sample), null);
+            assertNotNull(p);
+
+            File f = new File(folder.getRoot(), sample + ProgramImage.EXTENSION);
+            ProgramImage.save(p, f);
+            assertEquals(dump(p), dump(ProgramImage.load(f)));
+
+            // replacing an existing image
+            ProgramImage.save(p, f);
+            assertEquals(dump(p), dump(ProgramImage.load(f)));
+        }
+        // no temporary files are left behind
+        assertEquals(samples.length, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testInvalidImages() throws IOException {
+        Program p = Assembler.assemble(FileUtils.getFileContent("work/code/bubblesort.s"), null);
+        File f = new File(folder.getRoot(), "bubblesort" + ProgramImage.EXTENSION);
+        ProgramImage.save(p, f);
+        byte[] image = Files.readAllBytes(f.toPath());
+
+        // truncated at many points
+        for(int l = image.length - 1; l >= 0; l -= 7) {
+            File truncated = new File(folder.getRoot(), "truncated-" + l + ProgramImage.EXTENSION);
+            Files.write(truncated.toPath(), Arrays.copyOf(image, l));
+            try {
+                ProgramImage.load(truncated);
+                fail("loaded an image truncated to " + l + " bytes");
+            } catch(IOException e) {
+                // expected
+            }
+        }
+
+        FileUtils.writeToFile(f, "not an image at all");
+        try {
+            ProgramImage.load(f);
+            fail("loaded an invalid image");
+        } catch(IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRunImage() throws IOException {
+        String program = FileUtils.getFileContent("work/code/add.s");
+        File f = new File(folder.getRoot(), "add" + ProgramImage.EXTENSION);
+        ProgramImage.save(Assembler.assemble(program, null), f);
+
+        String expected = new SimulizerRunner(CPUType.NON_PIPELINED).run(program, "");
+        assertEquals("11", expected);
+        for(int i = 0; i < 3; i++) {
+            assertEquals(expected, new SimulizerRunner(CPUType.NON_PIPELINED).run(ProgramImage.load(f), ""));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+
+import java.util.function.Consumer;
+
+import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.utils.FileUtils;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**shared checks for the cpu models: every model should give the same results as
+ * the non pipelined cpu, which is the reference for how a program behaves
+ */
+final class CPUComparison {
+
+	private CPUComparison() {
+	}
+
+	/**runs a program on both the non pipelined cpu and another model and checks the outputs match
+	 *
+	 * @param type the model of cpu to compare against the non pipelined cpu
+	 * @param program the program source
+	 * @param input the input to feed the program
+	 * @return the runner used for the cpu being compared
+	 */
+	static SimulizerRunner assertSameOutput(CPUType type, String program, String input) {
+		return assertSameOutput(type, program, input, cpu -> {});
+	}
+
+	/**runs a program on both the non pipelined cpu and another model and checks the outputs match
+	 *
+	 * @param type the model of cpu to compare against the non pipelined cpu
+	 * @param program the program source
+	 * @param input the input to feed the program
+	 * @param configure configures the cpu being compared before the program is run
+	 * @return the runner used for the cpu being compared
+	 */
+	static SimulizerRunner assertSameOutput(CPUType type, String program, String input, Consumer<CPU> configure) {
+		SimulizerRunner reference = new SimulizerRunner(CPUType.NON_PIPELINED);
+		String expected = reference.run(program, input);
+
+		SimulizerRunner runner = new SimulizerRunner(type);
+		configure.accept(runner.cpu);
+		String actual = runner.run(program, input);
+
+		assertTrue(runner.problemLogger.getProblems().isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(reference.io.getOutput(IOStream.ERROR), runner.io.getOutput(IOStream.ERROR));
+		return runner;
+	}
+
+	/**runs the sample programs on both the non pipelined cpu and another model and checks the outputs match
+	 *
+	 * @param type the model of cpu to compare against the non pipelined cpu
+	 * @param configure configures the cpu being compared before each program is run
+	 * @return the runner used for the last (and longest running) program, tower of hanoi
+	 */
+	static SimulizerRunner assertSamplePrograms(CPUType type, Consumer<CPU> configure) {
+		assertSameOutput(type, FileUtils.getFileContent("work/code/add.s"), "", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/count.s"), "", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/count2.s"), "", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/annotation-example.s"), "", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/bubblesort.s"), "5\n3\n9\n1\n7\n0\n", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/quick-sort.s"), "5\n3\n9\n1\n7\n0\n", configure);
+		assertSameOutput(type, FileUtils.getFileContent("work/code/binary-search.s"), "1\n3\n5\n8\n13\n0\n8\n4\n0\n", configure);
+		return assertSameOutput(type, FileUtils.getFileContent("work/code/tower-of-hanoi.s"), "4\n", configure);
+	}
+
+	/**wraps some instructions in a main routine which exits cleanly,
+	 * with a word labelled num in the data segment for loads and stores
+	 *
+	 * @param instructions the body of main
+	 * @return the program source
+	 */
+	static String program(String instructions) {
+		return ".data\n" +
+			   "num: .word 7\n" +
+			   ".text\n" +
+			   "main:\n" +
+			   instructions +
+			   "li $v0, 10\n" +
+			   "syscall\n";
+	}
+}
@@ -0,0 +1,169 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.cache.Cache;
+import simulizer.simulation.cpu.cache.CacheConfig;
+import simulizer.simulation.cpu.cache.CacheStatistics;
+import simulizer.simulation.cpu.cache.CachedMainMemory;
+import simulizer.simulation.cpu.cache.ReplacementPolicy;
+import simulizer.simulation.cpu.cache.WritePolicy;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the cache simulator: the replacement and write policies,
+ * and that a cache changes the cycle count of a program but not its output
+ */
+@Category({UnitTests.class})
+public class CacheTest {
+
+	/**a cache with a single set of two 16 byte lines
+	 *
+	 * @param replacement the replacement policy to use
+	 * @param writePolicy the write policy to use
+	 * @return the new cache
+	 */
+	private Cache twoLineCache(ReplacementPolicy replacement, WritePolicy writePolicy) {
+		return new Cache(new CacheConfig(32, 16, 2, replacement, writePolicy, 10));
+	}
+
+	@Test
+	public void testReplacementPolicies() {
+		// A, B, A, C: LRU evicts B so A still hits, FIFO evicts A so A misses
+		Cache lru = twoLineCache(ReplacementPolicy.LRU, WritePolicy.WRITE_BACK);
+		assertEquals(10, lru.access(0, 4, false, null));
+		assertEquals(10, lru.access(16, 4, false, null));
+		assertEquals(0, lru.access(4, 4, false, null));
+		assertEquals(10, lru.access(32, 4, false, null));
+		assertEquals(0, lru.access(0, 4, false, null));
+		assertEquals(3, lru.getStatistics().getMisses());
+		assertEquals(1, lru.getStatistics().getEvictions());
+
+		Cache fifo = twoLineCache(ReplacementPolicy.FIFO, WritePolicy.WRITE_BACK);
+		fifo.access(0, 4, false, null);
+		fifo.access(16, 4, false, null);
+		fifo.access(4, 4, false, null);
+		fifo.access(32, 4, false, null);
+		assertEquals(10, fifo.access(0, 4, false, null));
+		assertEquals(4, fifo.getStatistics().getMisses());
+
+		// an access spanning two lines touches both
+		Cache span = twoLineCache(ReplacementPolicy.LRU, WritePolicy.WRITE_BACK);
+		assertEquals(20, span.access(12, 8, false, null));
+		assertEquals(2, span.getStatistics().getAccesses());
+	}
+
+	@Test
+	public void testWritePolicies() {
+		// write back: the write allocates, evicting the dirty line costs a write back
+		CacheStatistics stats = new CacheStatistics();
+		Cache writeBack = twoLineCache(ReplacementPolicy.LRU, WritePolicy.WRITE_BACK);
+		assertEquals(10, writeBack.access(0, 4, true, stats));
+		assertEquals(0, writeBack.access(0, 4, true, stats));
+		writeBack.access(16, 4, false, null);
+		assertEquals(20, writeBack.access(32, 4, false, null));
+		assertEquals(1, writeBack.getStatistics().getWriteBacks());
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+
+		// write through: every write goes to memory and a write miss does not allocate
+		Cache writeThrough = twoLineCache(ReplacementPolicy.LRU, WritePolicy.WRITE_THROUGH);
+		assertEquals(10, writeThrough.access(0, 4, true, null));
+		assertEquals(10, writeThrough.access(0, 4, false, null));
+		assertEquals(10, writeThrough.access(0, 4, true, null));
+		assertEquals(0, writeThrough.getStatistics().getWriteBacks());
+		assertEquals(1, writeThrough.getStatistics().getHits());
+	}
+
+	@Test
+	public void testEvictionStatistics() {
+		// evictions are recorded against the label whose line is evicted, not the label evicting it
+		CacheStatistics first = new CacheStatistics();
+		CacheStatistics second = new CacheStatistics();
+		Cache cache = twoLineCache(ReplacementPolicy.LRU, WritePolicy.WRITE_BACK);
+		cache.access(0, 4, true, first);
+		cache.access(16, 4, false, first);
+		assertEquals(20, cache.access(32, 4, false, second));//evicts the dirty line at 0
+		assertEquals(1, first.getEvictions());
+		assertEquals(1, first.getWriteBacks());
+		assertEquals(0, second.getEvictions());
+
+		cache.access(48, 4, false, null);//evicts the line at 16
+		assertEquals(2, first.getEvictions());
+		assertEquals(1, first.getWriteBacks());
+		cache.access(64, 4, false, null);//evicts the line at 32
+		assertEquals(1, second.getEvictions());
+		assertEquals(0, second.getWriteBacks());
+		assertEquals(3, cache.getStatistics().getEvictions());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConfig() {
+		new CacheConfig(1000, 16, 2, ReplacementPolicy.LRU, WritePolicy.WRITE_BACK, 10);
+	}
+
+	@Test
+	public void testProgramStatistics() throws Exception {
+		String program = ".data\n" +
+				"array: .word 1, 2, 3, 4, 5, 6, 7, 8\n" +
+				"total: .word 0\n" +
+				"buffer: .space 32\n" +
+				".text\n" +
+				"main:\n" +
+				"la $t0, array\n" +
+				"li $t1, 8\n" +
+				"li $a0, 0\n" +
+				"loop:\n" +
+				"lw $t2, 0($t0)\n" +
+				"add $a0, $a0, $t2\n" +
+				"addi $t0, $t0, 4\n" +
+				"addi $t1, $t1, -1\n" +
+				"bgtz $t1, loop\n" +
+				"sw $a0, total\n" +
+				"sw $a0, buffer\n" +
+				"sw $a0, buffer+16\n" +
+				"li $v0, 1\n" +
+				"syscall\n" +
+				"li $v0, 10\n" +
+				"syscall\n";
+
+		SimulizerRunner uncached = new SimulizerRunner(CPUType.NON_PIPELINED);
+		assertEquals("36", uncached.run(program, ""));
+
+		SimulizerRunner cached = new SimulizerRunner(CPUType.NON_PIPELINED);
+		CacheConfig config = new CacheConfig(256, 16, 1, ReplacementPolicy.LRU, WritePolicy.WRITE_BACK, 10);
+		cached.cpu.setCacheConfig(config, config);
+		assertEquals("36", cached.run(program, ""));
+
+		CachedMainMemory memory = (CachedMainMemory) cached.cpu.getMainMemory();
+		// 32 bytes of array span 2 lines, total is on a third
+		CacheStatistics array = memory.getLabelStatistics().get("array");
+		assertEquals(8, array.getAccesses());
+		assertEquals(2, array.getMisses());
+		CacheStatistics total = memory.getLabelStatistics().get("total");
+		assertEquals(1, total.getMisses());
+		// a trailing .space buffer is not stored in the program but is still labelled static data,
+		// its first word shares the line of total
+		CacheStatistics buffer = memory.getLabelStatistics().get("buffer");
+		assertEquals(2, buffer.getAccesses());
+		assertEquals(1, buffer.getMisses());
+		assertEquals(4, memory.getDataCache().getStatistics().getMisses());
+
+		// every miss in either cache is charged to the cycle count
+		long misses = memory.getDataCache().getStatistics().getMisses()
+				+ memory.getInstructionCache().getStatistics().getMisses();
+		assertEquals(uncached.cpu.getCycles() + misses * 10, cached.cpu.getCycles());
+
+		// accesses on behalf of annotations bypass the caches
+		int arrayAddress = cached.cpu.getProgram().dataSegmentStart.getValue();
+		memory.modifyMem(arrayAddress, new byte[] {1, 2, 3, 4});
+		assertEquals(1, memory.inspectMem(arrayAddress, 4)[0]);
+		assertEquals(8, array.getAccesses());
+		assertEquals(4, memory.getDataCache().getStatistics().getMisses());
+		assertEquals(0, memory.takeStallCycles());
+	}
+}
@@ -0,0 +1,77 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+import static simulizer.simulation.components.CPUComparison.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.components.CPUDualIssuePipeline;
+import simulizer.simulation.cpu.components.CPUDualIssuePipeline.SingleIssueReason;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the dual issue pipeline: it should give the same results as the
+ * non pipelined cpu, and only pair instructions which are independent
+ */
+@Category({UnitTests.class})
+public class DualIssuePipelineTest {
+
+	private static CPUDualIssuePipeline dualIssue(SimulizerRunner r) {
+		return (CPUDualIssuePipeline) r.cpu;
+	}
+
+	@Test
+	public void testSamplePrograms() {
+		CPUDualIssuePipeline cpu = dualIssue(assertSamplePrograms(CPUType.DUAL_ISSUE_PIPELINED, c -> {}));
+		assertTrue(cpu.getDualIssueCycles() > 0);
+		assertTrue(cpu.getIPC() > 0 && cpu.getIPC() <= 2);
+	}
+
+	@Test
+	public void testPairing() {
+		// independent instructions are issued in pairs
+		CPUDualIssuePipeline cpu = dualIssue(assertSameOutput(CPUType.DUAL_ISSUE_PIPELINED, program(
+				"li $t0, 1\n" +
+				"li $t1, 2\n" +
+				"li $t2, 3\n" +
+				"li $t3, 4\n"), ""));
+		assertEquals(6, cpu.getInstructionsExecuted());
+		assertEquals(2, cpu.getDualIssueCycles());
+		assertEquals(2, cpu.getSingleIssueCycles(SingleIssueReason.SYSCALL));
+		assertEquals(0, cpu.getSingleIssueCycles(SingleIssueReason.RAW_DEPENDENCY));
+
+		// a chain of dependent instructions must be issued one at a time,
+		// only the move and the independent li after it are paired
+		cpu = dualIssue(assertSameOutput(CPUType.DUAL_ISSUE_PIPELINED, program(
+				"li $t0, 1\n" +
+				"addi $t0, $t0, 1\n" +
+				"addi $t0, $t0, 1\n" +
+				"move $a0, $t0\n" +
+				"li $v0, 1\n" +
+				"syscall\n"), ""));
+		assertEquals(1, cpu.getDualIssueCycles());
+		assertEquals(3, cpu.getSingleIssueCycles(SingleIssueReason.RAW_DEPENDENCY));
+
+		// two memory accesses share a single port
+		cpu = dualIssue(assertSameOutput(CPUType.DUAL_ISSUE_PIPELINED, program(
+				"lw $t0, num\n" +
+				"sw $t1, num\n" +
+				"add $a0, $t0, $zero\n" +
+				"li $v0, 1\n" +
+				"syscall\n"), ""));
+		assertEquals(1, cpu.getSingleIssueCycles(SingleIssueReason.MEMORY_PORT));
+
+		// nothing is issued alongside a branch, the instructions behind a taken branch are flushed
+		cpu = dualIssue(assertSameOutput(CPUType.DUAL_ISSUE_PIPELINED, program(
+				"j skip\n" +
+				"li $a0, 1\n" +
+				"skip:\n" +
+				"li $a0, 4\n" +
+				"li $v0, 1\n" +
+				"syscall\n"), ""));
+		assertEquals(1, cpu.getSingleIssueCycles(SingleIssueReason.CONTROL_FLOW));
+		assertEquals(6, cpu.getInstructionsExecuted());
+	}
+}
@@ -0,0 +1,68 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+import static simulizer.simulation.components.CPUComparison.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.components.CPUFiveStagePipeline;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.user_interaction.IOStream;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the five stage pipeline: it should give the same results as the
+ * non pipelined cpu, while taking the number of cycles predicted by the
+ * classic IF/ID/EX/MEM/WB model
+ */
+@Category({UnitTests.class})
+public class FiveStagePipelineTest {
+
+	@Test
+	public void testSamplePrograms() {
+		assertSamplePrograms(CPUType.FIVE_STAGE_PIPELINED, cpu -> {});
+	}
+
+	@Test
+	public void testCycleCounts() {
+		// 5 instructions with no hazards: the first executes in cycle 3
+		// and the exit syscall executes in cycle 7
+		SimulizerRunner r = assertSameOutput(CPUType.FIVE_STAGE_PIPELINED, program(
+				"li $t0, 1\n" +
+				"li $t1, 2\n" +
+				"add $t2, $t0, $t1\n"), "");
+		CPUFiveStagePipeline cpu = (CPUFiveStagePipeline) r.cpu;
+		assertEquals(7, cpu.getCycles());
+		assertEquals(0, cpu.getLoadUseStalls());
+		// the exit syscall and the instruction ahead of it retire when the program exits
+		assertEquals(5, cpu.getInstructionsRetired());
+		assertEquals(0, cpu.getControlFlushes());
+
+		// load followed by a use of the loaded register stalls for one cycle
+		r = assertSameOutput(CPUType.FIVE_STAGE_PIPELINED, program(
+				"lw $t0, num\n" +
+				"addi $a0, $t0, 1\n" +
+				"li $v0, 1\n" +
+				"syscall\n"), "");
+		cpu = (CPUFiveStagePipeline) r.cpu;
+		assertEquals("8", r.io.getOutput(IOStream.STANDARD));
+		assertEquals(1, cpu.getLoadUseStalls());
+		assertEquals(9, cpu.getCycles());
+
+		// a taken branch flushes the two instructions behind it
+		r = assertSameOutput(CPUType.FIVE_STAGE_PIPELINED, program(
+				"j skip\n" +
+				"li $t0, 1\n" +
+				"li $t1, 1\n" +
+				"skip:\n" +
+				"li $a0, 4\n" +
+				"li $v0, 1\n" +
+				"syscall\n"), "");
+		cpu = (CPUFiveStagePipeline) r.cpu;
+		assertEquals("4", r.io.getOutput(IOStream.STANDARD));
+		assertEquals(1, cpu.getControlFlushes());
+		assertEquals(0, cpu.getLoadUseStalls());
+		assertEquals(10, cpu.getCycles());
+	}
+}
@@ -0,0 +1,117 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.cache.ReplacementPolicy;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.vm.MMU;
+import simulizer.simulation.cpu.vm.MMUConfig;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the MMU: TLB hits and misses, page faults and page replacement
+ */
+@Category({UnitTests.class})
+public class MMUTest {
+
+	@Test
+	public void testTranslation() {
+		// 2 frames, 2 entry fully associative TLB
+		MMU mmu = new MMU(new MMUConfig(4096, 2, 2, 2, ReplacementPolicy.LRU, 20, 1000));
+
+		mmu.access(0x10010000, 4);// fault
+		mmu.access(0x10010004, 4);// TLB hit
+		assertEquals(1, mmu.getPageFaults());
+		assertEquals(1, mmu.getTLBStatistics().getHits());
+		assertEquals(1020, mmu.takeStallCycles());
+		assertEquals(0, mmu.takeStallCycles());
+
+		// an access spanning two pages translates both
+		mmu.access(0x10010ffe, 4);
+		assertEquals(2, mmu.getPageFaults());
+		assertEquals(2, mmu.getResidentPages());
+		assertTrue(mmu.isResident(0x10011000));
+
+		// a third page evicts the first page brought in
+		mmu.access(0x7fffeffc, 4);
+		assertEquals(3, mmu.getPageFaults());
+		assertEquals(1, mmu.getPageEvictions());
+		assertFalse(mmu.isResident(0x10010000));
+
+		// the evicted page's translation must have left the TLB too
+		mmu.access(0x10010000, 4);
+		assertEquals(4, mmu.getPageFaults());
+		assertTrue(mmu.isResident(0x10010000));
+	}
+
+	@Test
+	public void testWrappingAccess() {
+		MMU mmu = new MMU(new MMUConfig(4096, 4, 4, 4, ReplacementPolicy.LRU, 20, 1000));
+
+		// the last two bytes of the address space and the first two
+		mmu.access(0xFFFFFFFE, 4);
+		assertEquals(2, mmu.getPageFaults());
+		assertTrue(mmu.isResident(0xFFFFF000));
+		assertTrue(mmu.isResident(0));
+	}
+
+	@Test
+	public void testInvalidAccess() {
+		String program = ".text\n" +
+				"main:\n" +
+				"lw $t0, -2($zero)\n" +
+				"li $v0, 10\n" +
+				"syscall\n";
+
+		SimulizerRunner runner = new SimulizerRunner(CPUType.NON_PIPELINED);
+		runner.cpu.setMMUConfig(new MMUConfig(4096, 8, 4, 4, ReplacementPolicy.LRU, 20, 1000));
+		assertEquals("", runner.run(program, ""));
+
+		// the access failed, so it is not translated
+		MMU mmu = runner.cpu.getMMU();
+		assertEquals(0, mmu.getPageFaults());
+		assertEquals(0, mmu.getTLBStatistics().getAccesses());
+		assertFalse(mmu.isResident(0xFFFFF000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConfig() {
+		new MMUConfig(4096, 16, 12, 4, ReplacementPolicy.LRU, 20, 1000);
+	}
+
+	@Test
+	public void testProgram() {
+		// a loop over a word in the data segment and a word on the stack
+		String program = ".data\n" +
+				"num: .word 5\n" +
+				".text\n" +
+				"main:\n" +
+				"li $t1, 10\n" +
+				"loop:\n" +
+				"lw $t0, num\n" +
+				"sw $t0, -4($sp)\n" +
+				"addi $t1, $t1, -1\n" +
+				"bgtz $t1, loop\n" +
+				"lw $a0, -4($sp)\n" +
+				"li $v0, 1\n" +
+				"syscall\n" +
+				"li $v0, 10\n" +
+				"syscall\n";
+
+		SimulizerRunner plain = new SimulizerRunner(CPUType.NON_PIPELINED);
+		assertEquals("5", plain.run(program, ""));
+
+		SimulizerRunner translated = new SimulizerRunner(CPUType.NON_PIPELINED);
+		translated.cpu.setMMUConfig(new MMUConfig(4096, 8, 4, 4, ReplacementPolicy.LRU, 20, 1000));
+		assertEquals("5", translated.run(program, ""));
+
+		MMU mmu = translated.cpu.getMMU();
+		assertEquals(2, mmu.getPageFaults());
+		assertEquals(2, mmu.getTLBStatistics().getMisses());
+		assertEquals(19, mmu.getTLBStatistics().getHits());
+		assertEquals(plain.cpu.getCycles() + 2 * 1020, translated.cpu.getCycles());
+	}
+}
@@ -145,6 +145,19 @@ public class MemoryTest {
 			}
 		}
 		
+		{//test reading past the end of the static data reports the first byte out of range
+			Field size = MainMemory.class.getDeclaredField("staticDataSize");
+			size.setAccessible(true);
+			int staticDataEnd = dataSegStart.getValue() + (int)size.get(memory);
+			try {
+				memory.readFromMem(staticDataEnd-2,4);
+				fail();
+			} catch(MemoryException e) {
+				assertTrue(e.getMessage().equals("Reading from invalid area of memory"));
+				assertEquals(staticDataEnd,e.getErrorAddress().getValue());
+			}
+		}
+		
 		{//test writing at end of data segment going into heap (invalid write)
 			try {
 				memory.writeToMem(dynamicSegStart.getValue()-3,new byte[]{0x11,0x12,0x13,0x14});
@@ -262,4 +275,68 @@ public class MemoryTest {
 
 		cpu.shutdown();
 	}
+
+	/**this method will test that large .space buffers are not stored by the assembler
+	 * and are zero in memory until written to, leaving the program unchanged
+	 * @throws MemoryException
+	 * @throws HeapException
+	 * @throws StackException
+	 */
+	@Test
+	public void testSpace() throws MemoryException, HeapException, StackException
+	{
+		String program = ".data\n" +
+						 "first: .word 7\n" +
+						 "gap: .space 10000\n" +
+						 "last: .byte 3\n" +
+						 "buffer: .space 100000\n" +
+						 ".text\n" +
+						 "main:\n" +
+						 "li $v0, 10\n" +
+						 "syscall\n";
+		Program p = Assembler.assemble(program, null);
+		assertEquals(10005, p.dataSegment.length);//the trailing buffer is not stored
+		assertEquals(110005, p.dataSegmentSize);
+		assertEquals(3, p.dataSegment[10004]);
+
+		for(int run = 0; run < 2; run++)//the second run should not see the writes of the first
+		{
+			CPU cpu = new CPU(new IOTest());
+			cpu.loadProgram(p);
+			MainMemory memory = cpu.getMainMemory();
+			int start = p.dataSegmentStart.getValue();
+
+			assertArrayEquals(new byte[]{0,0,0,7}, memory.readFromMem(start, 4));
+			assertArrayEquals(new byte[]{0,3,0}, memory.readFromMem(start+10003, 3));
+			assertArrayEquals(new byte[4], memory.readFromMem(start+110001, 4));
+
+			memory.writeToMem(start+10004, new byte[]{1,2});//across the initialised bytes and the buffer
+			memory.writeToMem(start+110001, new byte[]{4,5,6,7});
+			assertArrayEquals(new byte[]{0,0,0,7}, memory.readFromMem(start, 4));
+			assertArrayEquals(new byte[]{0,1,2}, memory.readFromMem(start+10003, 3));
+			assertArrayEquals(new byte[]{4,5,6,7}, memory.readFromMem(start+110001, 4));
+
+			byte[] all = memory.readFromMem(start, 110005);//across written, unwritten and uninitialised pages
+			assertEquals(7, all[3]);
+			assertEquals(1, all[10004]);
+			assertEquals(2, all[10005]);
+			assertEquals(0, all[50000]);
+			assertEquals(7, all[110004]);
+			try {
+				memory.readFromMem(start+110002, 4);
+				fail();
+			} catch(MemoryException e) {
+				assertTrue(e.getMessage().equals("Reading from invalid area of memory"));
+			}
+
+			try {
+				memory.writeToMem(start+110002, new byte[]{1,2,3,4});
+				fail();
+			} catch(MemoryException e) {
+				assertTrue(e.getMessage().equals("Writing to an invalid area of memory"));
+			}
+			cpu.shutdown();
+		}
+		assertEquals(3, p.dataSegment[10004]);
+	}
 }
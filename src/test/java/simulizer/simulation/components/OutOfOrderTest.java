@@ -0,0 +1,102 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+import static simulizer.simulation.components.CPUComparison.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.cache.CacheConfig;
+import simulizer.simulation.cpu.cache.CachedMainMemory;
+import simulizer.simulation.cpu.cache.ReplacementPolicy;
+import simulizer.simulation.cpu.cache.WritePolicy;
+import simulizer.simulation.cpu.components.CPUOutOfOrder;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.simulation.cpu.components.FunctionalUnit;
+import simulizer.simulation.cpu.components.OutOfOrderConfig;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the out of order cpu: it should give the same results as the
+ * non pipelined cpu, with timing determined by the dependencies between instructions
+ */
+@Category({UnitTests.class})
+public class OutOfOrderTest {
+
+	private static CPUOutOfOrder outOfOrder(SimulizerRunner r) {
+		return (CPUOutOfOrder) r.cpu;
+	}
+
+	/**runs a program on both the non pipelined and out of order cpus and checks the outputs match
+	 *
+	 * @param program the program source
+	 * @param config the configuration of the out of order cpu
+	 * @return the out of order cpu after running the program
+	 */
+	private static CPUOutOfOrder runOutOfOrder(String program, OutOfOrderConfig config) {
+		return outOfOrder(assertSameOutput(CPUType.OUT_OF_ORDER, program, "", cpu -> ((CPUOutOfOrder) cpu).setConfig(config)));
+	}
+
+	@Test
+	public void testSamplePrograms() {
+		CPUOutOfOrder cpu = outOfOrder(assertSamplePrograms(CPUType.OUT_OF_ORDER, c -> ((CPUOutOfOrder) c).setConfig(new OutOfOrderConfig())));
+		assertTrue(cpu.getIPC() > 0);
+	}
+
+	@Test
+	public void testLatencies() {
+		// a slow divide followed by an independent add and a dependent add
+		String program = program(
+				"li $t0, 100\n" +
+				"li $t1, 5\n" +
+				"div $t2, $t0, $t1\n" +
+				"add $t3, $t0, $t1\n" +
+				"add $t4, $t2, $t1\n");
+
+		CPUOutOfOrder fast = runOutOfOrder(program, new OutOfOrderConfig(16, 4, 2, 2, new int[]{2, 1, 1, 1, 1}, new int[]{1, 1, 1, 1, 1}));
+		CPUOutOfOrder slow = runOutOfOrder(program, new OutOfOrderConfig(16, 4, 2, 2, new int[]{2, 1, 1, 1, 1}, new int[]{1, 1, 20, 1, 1}));
+
+		// the dependent add waits for the divide, so the extra latency is added to the run time
+		assertEquals(fast.getCycles() + 19, slow.getCycles());
+		assertEquals(7, slow.getInstructionsCommitted());
+		assertTrue(slow.getUnitOccupancy(FunctionalUnit.DIVIDE) > fast.getUnitOccupancy(FunctionalUnit.DIVIDE));
+	}
+
+	@Test
+	public void testReorderBuffer() {
+		// independent instructions commit two per cycle
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			sb.append("li $t").append(i).append(", ").append(i).append('\n');
+		}
+		CPUOutOfOrder wide = runOutOfOrder(program(sb.toString()), new OutOfOrderConfig());
+		assertTrue(wide.getIPC() > 1);
+
+		// a reorder buffer with room for one instruction removes all parallelism
+		CPUOutOfOrder narrow = runOutOfOrder(program(sb.toString()), new OutOfOrderConfig(1, 4, 2, 2, new int[]{2, 1, 1, 1, 1}, new int[]{1, 4, 12, 2, 1}));
+		assertTrue(narrow.getIPC() < 1);
+		assertTrue(narrow.getReorderBufferFullCycles() > 0);
+	}
+
+	@Test
+	public void testReservationStationStalls() {
+		// a chain of multiplies, each waiting for the last, against a reservation station with room for one
+		String program = program(
+				"li $t0, 3\n" +
+				"mul $t0, $t0, $t0\n" +
+				"mul $t0, $t0, $t0\n" +
+				"mul $t0, $t0, $t0\n" +
+				"mul $t0, $t0, $t0\n");
+		CacheConfig cache = new CacheConfig(256, 16, 1, ReplacementPolicy.LRU, WritePolicy.WRITE_BACK, 10);
+		CPUOutOfOrder cpu = outOfOrder(assertSameOutput(CPUType.OUT_OF_ORDER, program, "", c -> {
+			((CPUOutOfOrder) c).setConfig(new OutOfOrderConfig(16, 1, 2, 2, new int[]{2, 1, 1, 1, 1}, new int[]{1, 4, 12, 2, 1}));
+			c.setCacheConfig(cache, null);
+		}));
+
+		assertTrue(cpu.getReservationStationFullCycles() > 0);
+		// a stalled instruction is not fetched again, so each instruction is fetched once
+		CachedMainMemory memory = (CachedMainMemory) cpu.getMainMemory();
+		assertEquals(7, memory.getInstructionCache().getStatistics().getAccesses());
+		assertEquals(7, cpu.getInstructionsCommitted());
+	}
+}
@@ -0,0 +1,96 @@
+package simulizer.simulation.components;
+
+import static org.junit.Assert.*;
+import static simulizer.simulation.components.CPUComparison.program;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.simulation.cpu.components.CPU;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.runner.SimulizerRunner;
+
+/**tests for the performance counters: the instructions retired, cycles, stalls
+ * and flushes counted by each model of cpu, and the syscalls which read them
+ */
+@Category({UnitTests.class})
+public class PerformanceCountersTest {
+
+	@Test
+	public void testCounters() {
+		// one load-use stall and one taken jump, 7 instructions are executed
+		String program = program(
+				"lw $t0, num\n" +
+				"addi $a0, $t0, 1\n" +
+				"j skip\n" +
+				"li $t1, 1\n" +
+				"skip:\n" +
+				"li $v0, 1\n" +
+				"syscall\n");
+		for(CPUType type : CPUType.values()) {
+			SimulizerRunner r = new SimulizerRunner(type);
+			r.run(program, "");
+			CPU cpu = r.cpu;
+			assertEquals(type.toString(), 7, cpu.getInstructionsRetired());
+
+			if(type == CPUType.NON_PIPELINED) {
+				assertEquals(0, cpu.getPipelineStalls());
+				assertEquals(0, cpu.getPipelineFlushes());
+			} else if(type == CPUType.OUT_OF_ORDER) {
+				assertTrue(cpu.getPipelineStalls() > 0);
+				assertEquals(0, cpu.getPipelineFlushes());
+			} else {
+				assertEquals(type.toString(), 1, cpu.getPipelineStalls());
+				assertEquals(type.toString(), 1, cpu.getPipelineFlushes());
+			}
+		}
+	}
+
+	@Test
+	public void testCounterSyscalls() {
+		// count the instructions and cycles of a loop which runs 3 times, printing:
+		// <instructions> <cycles> <high bits of the instruction count>
+		String program = program(
+				"li $v0, 101\n" +
+				"syscall\n" +
+				"move $s0, $v0\n" +
+				"li $v0, 100\n" +
+				"syscall\n" +
+				"move $s1, $v0\n" +
+				"li $t0, 3\n" +
+				"loop:\n" +
+				"addi $t0, $t0, -1\n" +
+				"bne $t0, $zero, loop\n" +
+				"li $v0, 100\n" +
+				"syscall\n" +
+				"sub $s1, $v0, $s1\n" +
+				"li $v0, 101\n" +
+				"syscall\n" +
+				"sub $a0, $v0, $s0\n" +
+				"li $v0, 1\n" +
+				"syscall\n" +
+				"li $a0, 32\n" +
+				"li $v0, 11\n" +
+				"syscall\n" +
+				"move $a0, $s1\n" +
+				"li $v0, 1\n" +
+				"syscall\n" +
+				"li $a0, 32\n" +
+				"li $v0, 11\n" +
+				"syscall\n" +
+				"move $a0, $v1\n" +
+				"li $v0, 1\n" +
+				"syscall\n");
+		for(CPUType type : CPUType.values()) {
+			SimulizerRunner r = new SimulizerRunner(type);
+			String[] output = r.run(program, "").split(" ");
+			// 16 instructions from the first syscall 101 up to the second
+			assertEquals(type.toString(), "16", output[0]);
+			// at least one cycle per instruction from the first syscall 100 up to the second
+			assertTrue(type.toString(), Integer.parseInt(output[1]) >= 10);
+			// the high 32 bits of a small count
+			assertEquals("0", output[2]);
+		}
+	}
+}
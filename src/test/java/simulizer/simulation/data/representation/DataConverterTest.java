@@ -167,4 +167,28 @@ public class DataConverterTest {
             assertEquals(DataConverter.decodeAsUnsigned(b), DataConverter.decodeAsUnsigned(processed));
         }
     }
+
+    @Test
+    public void testArrays() {
+        byte ff = (byte) 0xFF;
+        byte[] data = {0, 0, 0, 10, ff, ff, ff, -10, (byte) 0x80, 0, 0, 1};
+
+        assertArrayEquals(new long[] {10, -10, -po2(31) + 1}, DataConverter.decodeArray(data, 4, true));
+        assertArrayEquals(new long[] {10, po2(32) - 10, po2(31) + 1}, DataConverter.decodeArray(data, 4, false));
+        assertArrayEquals(new long[] {0, 10, -1, -10, -po2(15), 1}, DataConverter.decodeArray(data, 2, true));
+        assertArrayEquals(new long[] {0, 10, po2(16) - 1, po2(16) - 10, po2(15), 1}, DataConverter.decodeArray(data, 2, false));
+        assertEquals(-10, DataConverter.decodeArray(data, 1, true)[7]);
+        assertEquals(246, DataConverter.decodeArray(data, 1, false)[7]);
+        assertEquals(0, DataConverter.decodeArray(new byte[0], 4, true).length);
+
+        for(int size : new int[] {1, 2, 4}) {
+            assertArrayEquals(data, DataConverter.encodeArray(DataConverter.decodeArray(data, size, true), size));
+            assertArrayEquals(data, DataConverter.encodeArray(DataConverter.decodeArray(data, size, false), size));
+            for(int i = 0; i < data.length; i += size) {
+                byte[] element = Arrays.copyOfRange(data, i, i + size);
+                assertEquals(DataConverter.decodeAsSigned(element), DataConverter.decodeArray(data, size, true)[i / size]);
+                assertEquals(DataConverter.decodeAsUnsigned(element), DataConverter.decodeArray(data, size, false)[i / size]);
+            }
+        }
+    }
 }
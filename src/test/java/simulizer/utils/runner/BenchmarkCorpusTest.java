@@ -0,0 +1,52 @@
+package simulizer.utils.runner;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.assembler.extractor.problem.StoreProblemLogger;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+
+/**
+ * test that the benchmark programs give the expected output at small sizes
+ */
+@Category({UnitTests.class})
+public class BenchmarkCorpusTest {
+
+	private static Program load(String name) {
+		StoreProblemLogger log = new StoreProblemLogger();
+		Program p = SizeSweep.load(new File("work/code/benchmarks/" + name + ".s"), log);
+		assertTrue(name + ": " + log.getProblems(), log.getProblems().isEmpty());
+		return p;
+	}
+
+	@Test
+	public void testOutputs() {
+		int[] sizes = {1, 2, 7};
+		for(BenchmarkCorpus.Benchmark b : BenchmarkCorpus.corpus) {
+			SizeSweep sweep = new SizeSweep(load(b.name), CPUType.NON_PIPELINED, SizeSweep::sizeInput);
+			for(SizeSweep.Run r : sweep.sweep(sizes)) {
+				assertNull(b.name, r.problem);
+				assertEquals(b.name + " " + r.size, b.getExpectedOutput(r.size), r.output);
+			}
+		}
+	}
+
+	@Test
+	public void testGrowth() {
+		// bubble sort is O(n^2), so doubling the size more than doubles the instructions
+		for(CPUType type : new CPUType[] {CPUType.NON_PIPELINED, CPUType.PIPELINED}) {
+			List<SizeSweep.Run> runs = new SizeSweep(load("bubble-sort"), type, SizeSweep::sizeInput).sweep(new int[] {4, 8});
+			assertEquals(4, runs.get(0).size);
+			assertTrue(runs.get(0).instructions > 0);
+			assertTrue(runs.get(1).instructions > 2 * runs.get(0).instructions);
+			assertTrue(runs.get(1).cycles >= runs.get(1).instructions);
+		}
+	}
+}
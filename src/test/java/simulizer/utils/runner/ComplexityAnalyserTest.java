@@ -0,0 +1,164 @@
+package simulizer.utils.runner;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import category.UnitTests;
+import simulizer.assembler.Assembler;
+import simulizer.assembler.representation.Program;
+import simulizer.simulation.cpu.components.CPUType;
+import simulizer.utils.runner.ComplexityAnalyser.Model;
+import simulizer.utils.runner.ComplexityAnalyser.Result;
+
+/**
+ * test that the complexity of programs is identified from their instruction counts
+ */
+@Category({UnitTests.class})
+public class ComplexityAnalyserTest {
+
+	private static List<SizeSweep.Run> runs(Model model, double factor, double overhead, int... sizes) {
+		List<SizeSweep.Run> runs = new ArrayList<>();
+		for(int size : sizes) {
+			long instructions = Math.round(overhead + factor * model.apply(size));
+			runs.add(new SizeSweep.Run(size, instructions, instructions, 0, "", null));
+		}
+		return runs;
+	}
+
+	@Test
+	public void testModels() {
+		int[] sizes = {16, 32, 64, 128, 256, 512};
+		for(Model m : Model.values()) {
+			int[] s = m == Model.EXPONENTIAL ? new int[] {4, 6, 8, 10, 12} : sizes;
+			Result r = ComplexityAnalyser.analyse(runs(m, 3, 50, s));
+			assertEquals(m, r.best.model);
+			assertEquals(m == Model.CONSTANT ? 50 : 3, r.best.factor, 0.1);
+			assertEquals(0, r.best.error, 0.001);
+			assertFalse(r.exceeds(m));
+		}
+
+		// the overhead hides the growth at small sizes
+		Result r = ComplexityAnalyser.analyse(runs(Model.LINEAR, 2, 1000, sizes));
+		assertEquals(Model.LINEAR, r.best.model);
+		assertEquals(1000, r.best.overhead, 1);
+		assertEquals(1000 + 2 * 1024, r.best.predict(1024), 1);
+		assertTrue(r.exceeds(Model.LOGARITHMIC));
+	}
+
+	@Test
+	public void testNames() {
+		assertEquals(Model.LINEARITHMIC, Model.fromName("O(n log n)"));
+		assertEquals(Model.LINEARITHMIC, Model.fromName("nlogn"));
+		assertEquals(Model.QUADRATIC, Model.fromName("n^2"));
+		assertEquals(Model.CONSTANT, Model.fromName("O(1)"));
+		assertNull(Model.fromName("n^3"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooFewSizes() {
+		ComplexityAnalyser.analyse(runs(Model.LINEAR, 1, 0, 8, 16, 16));
+	}
+
+	/**
+	 * a program which reads n followed by n sorted numbers into an array, then searches the array
+	 * once for the last number and prints its index
+	 * @param search finds the key $a1 in the array of $s0 words at $s1, leaving its index in $a0
+	 */
+	private static Program searchOnce(String search) {
+		return Assembler.assemble(".text\n" +
+				"main:\n" +
+				"li $v0, 5\n" +
+				"syscall\n" +
+				"move $s0, $v0\n" +
+				"sll $a0, $s0, 2\n" +
+				"li $v0, 9\n" +
+				"syscall\n" +
+				"move $s1, $v0\n" +
+				"move $t0, $zero\n" +
+				"move $t1, $s1\n" +
+				"read:\n" +
+				"bge $t0, $s0, search\n" +
+				"li $v0, 5\n" +
+				"syscall\n" +
+				"sw $v0, 0($t1)\n" +
+				"addi $t0, $t0, 1\n" +
+				"addi $t1, $t1, 4\n" +
+				"j read\n" +
+				"search:\n" +
+				"addi $a1, $s0, -1\n" +
+				search +
+				"li $v0, 1\n" +
+				"syscall\n" +
+				"li $v0, 10\n" +
+				"syscall\n", null);
+	}
+
+	@Test
+	public void testSearchOnce() {
+		// reading the input is O(n) for both, but only the search is measured
+		int[] sizes = {16, 64, 256, 1024};
+		Program binary = searchOnce(
+				"move $t0, $zero\n" +
+				"addi $t1, $s0, -1\n" +
+				"loop:\n" +
+				"add $t2, $t0, $t1\n" +
+				"srl $a0, $t2, 1\n" +
+				"sll $t3, $a0, 2\n" +
+				"add $t3, $t3, $s1\n" +
+				"lw $t4, 0($t3)\n" +
+				"beq $t4, $a1, found\n" +
+				"blt $t4, $a1, higher\n" +
+				"addi $t1, $a0, -1\n" +
+				"j loop\n" +
+				"higher:\n" +
+				"addi $t0, $a0, 1\n" +
+				"j loop\n" +
+				"found:\n");
+		Program linear = searchOnce(
+				"move $a0, $zero\n" +
+				"move $t3, $s1\n" +
+				"loop:\n" +
+				"lw $t4, 0($t3)\n" +
+				"beq $t4, $a1, found\n" +
+				"addi $a0, $a0, 1\n" +
+				"addi $t3, $t3, 4\n" +
+				"j loop\n" +
+				"found:\n");
+
+		Result r = ComplexityAnalyser.analyse(binary, CPUType.NON_PIPELINED, SizeSweep::sortedInput, sizes);
+		assertEquals(Model.LOGARITHMIC, r.best.model);
+		assertFalse(r.exceeds(Model.LOGARITHMIC));
+		for(SizeSweep.Run run : r.runs) {
+			assertEquals(String.valueOf(run.size - 1), run.output);
+		}
+
+		r = ComplexityAnalyser.analyse(linear, CPUType.NON_PIPELINED, SizeSweep::sortedInput, sizes);
+		assertEquals(Model.LINEAR, r.best.model);
+		assertTrue(r.exceeds(Model.LOGARITHMIC));
+		for(SizeSweep.Run run : r.runs) {
+			assertEquals(String.valueOf(run.size - 1), run.output);
+		}
+	}
+
+	@Test
+	public void testSearch() {
+		// both search for every element of a sorted array
+		int[] sizes = {8, 16, 32, 64};
+		Program binary = SizeSweep.load(new File("work/code/benchmarks/binary-search.s"), null);
+		Program linear = SizeSweep.load(new File("work/code/benchmarks/linear-search.s"), null);
+
+		Result r = ComplexityAnalyser.analyse(binary, CPUType.NON_PIPELINED, SizeSweep::sizeInput, sizes);
+		assertEquals(Model.LINEARITHMIC, r.best.model);
+		assertFalse(r.exceeds(Model.LINEARITHMIC));
+
+		r = ComplexityAnalyser.analyse(linear, CPUType.NON_PIPELINED, SizeSweep::sizeInput, sizes);
+		assertEquals(Model.QUADRATIC, r.best.model);
+		assertTrue(r.exceeds(Model.LINEARITHMIC));
+	}
+}
@@ -0,0 +1,65 @@
+# Binary search for each of the numbers 0 to n-1 in a sorted array of the
+# first n even numbers, O(n log n)
+# input: n
+# output: the number of searches which found their key
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        move $a0, $s0
+        jal alloc_words
+        move $s1, $v0           # s1 = the array
+
+        move $t0, $zero         # a[i] = 2i
+        move $t1, $s1
+init:
+        bge $t0, $s0, search_all
+        sll $t2, $t0, 1
+        sw $t2, 0($t1)
+        addi $t0, $t0, 1
+        addi $t1, $t1, 4
+        j init
+
+search_all:
+        move $s2, $zero         # s2 = the key
+        move $s3, $zero         # s3 = the number found
+next_key:
+        bge $s2, $s0, done
+        move $a0, $s2
+        jal search
+        add $s3, $s3, $v0
+        addi $s2, $s2, 1
+        j next_key
+done:
+        move $a0, $s3
+        jal print_result
+
+# search: $v0 = 1 if $a0 is in the sorted array of $s0 words at $s1, otherwise 0
+search:
+        move $t0, $zero         # t0 = low
+        addi $t1, $s0, -1       # t1 = high
+search_loop:
+        bgt $t0, $t1, not_found
+        add $t2, $t0, $t1
+        srl $t2, $t2, 1         # t2 = middle
+        sll $t3, $t2, 2
+        add $t3, $t3, $s1
+        lw $t4, 0($t3)
+        beq $t4, $a0, found
+        blt $t4, $a0, search_upper
+        addi $t1, $t2, -1
+        j search_loop
+search_upper:
+        addi $t0, $t2, 1
+        j search_loop
+found:
+        li $v0, 1
+        jr $ra
+not_found:
+        move $v0, $zero
+        jr $ra
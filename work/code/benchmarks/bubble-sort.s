@@ -0,0 +1,45 @@
+# Bubble sort of n pseudo-random words, O(n^2)
+# input: n
+# output: 1 if the array is sorted afterwards
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        move $a0, $s0
+        jal alloc_words
+        move $s1, $v0           # s1 = the array
+        move $a0, $s1
+        move $a1, $s0
+        jal fill
+
+        addi $t0, $s0, -1       # t0 = the number of pairs left to compare
+outer:
+        blez $t0, sorted
+        move $t1, $zero         # t1 = j
+        move $t2, $s1           # t2 = the address of a[j]
+inner:
+        bge $t1, $t0, next_pass
+        lw $t3, 0($t2)
+        lw $t4, 4($t2)
+        ble $t3, $t4, no_swap
+        sw $t4, 0($t2)          # swap a[j] and a[j+1]
+        sw $t3, 4($t2)
+no_swap:
+        addi $t1, $t1, 1
+        addi $t2, $t2, 4
+        j inner
+next_pass:
+        addi $t0, $t0, -1
+        j outer
+
+sorted:
+        move $a0, $s1
+        move $a1, $s0
+        jal is_sorted
+        move $a0, $v0
+        jal print_result
@@ -0,0 +1,85 @@
+# Routines shared by the benchmark programs
+#
+# The benchmarks read the size of their input (n) with syscall 5 and generate
+# the input themselves, so that they can be run at any size by typing a single
+# number. Each prints a single result which depends only on n.
+
+.text
+
+# read_size: read the size of the input into $v0
+read_size:
+        li $v0, 5               # read int
+        syscall
+        jr $ra
+
+# print_result: print $a0 followed by a newline and exit the program
+print_result:
+        li $v0, 1               # print int
+        syscall
+        li $a0, 10              # newline
+        li $v0, 11              # print char
+        syscall
+        li $v0, 10              # exit
+        syscall
+
+# rand: a pseudo-random number between 0 and 65535 in $v0 (xorshift)
+# $s7 holds the state, which is seeded on the first call
+rand:
+        bne $s7, $zero, rand_next
+        li $s7, 88172645        # seed
+rand_next:
+        sll $t8, $s7, 13
+        xor $s7, $s7, $t8
+        srl $t8, $s7, 17
+        xor $s7, $s7, $t8
+        sll $t8, $s7, 5
+        xor $s7, $s7, $t8
+        andi $v0, $s7, 0xFFFF
+        jr $ra
+
+# alloc_words: allocate $a0 words on the heap, the address of the first in $v0
+alloc_words:
+        sll $a0, $a0, 2
+        li $v0, 9               # sbrk
+        syscall
+        jr $ra
+
+# fill: fill the array of $a1 words at $a0 with pseudo-random numbers
+fill:
+        addi $sp, $sp, -12
+        sw $ra, 8($sp)
+        sw $s0, 4($sp)
+        sw $s1, 0($sp)
+        move $s0, $a0           # the next element
+        sll $s1, $a1, 2
+        add $s1, $s1, $a0       # the end of the array
+fill_loop:
+        bge $s0, $s1, fill_done
+        jal rand
+        sw $v0, 0($s0)
+        addi $s0, $s0, 4
+        j fill_loop
+fill_done:
+        lw $s1, 0($sp)
+        lw $s0, 4($sp)
+        lw $ra, 8($sp)
+        addi $sp, $sp, 12
+        jr $ra
+
+# is_sorted: $v0 = 1 if the array of $a1 words at $a0 is in ascending order, otherwise 0
+is_sorted:
+        li $v0, 1
+        sll $t1, $a1, 2
+        add $t1, $t1, $a0
+        addi $t1, $t1, -4       # the last element
+sorted_loop:
+        bge $a0, $t1, sorted_done
+        lw $t2, 0($a0)
+        lw $t3, 4($a0)
+        bgt $t2, $t3, not_sorted
+        addi $a0, $a0, 4
+        j sorted_loop
+not_sorted:
+        move $v0, $zero
+sorted_done:
+        jr $ra
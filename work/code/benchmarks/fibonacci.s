@@ -0,0 +1,39 @@
+# The nth Fibonacci number calculated by naive recursion, O(2^n)
+# input: n
+# output: fib(n)
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $a0, $v0
+        jal fib
+        move $a0, $v0
+        jal print_result
+
+# fib: $v0 = fib($a0)
+fib:
+        slti $t0, $a0, 2
+        bne $t0, $zero, fib_base
+        addi $sp, $sp, -12
+        sw $ra, 8($sp)
+        sw $s0, 4($sp)
+        sw $s1, 0($sp)
+        move $s0, $a0
+        addi $a0, $s0, -1
+        jal fib
+        move $s1, $v0           # fib(n-1)
+        addi $a0, $s0, -2
+        jal fib
+        add $v0, $v0, $s1       # fib(n-1) + fib(n-2)
+        lw $s1, 0($sp)
+        lw $s0, 4($sp)
+        lw $ra, 8($sp)
+        addi $sp, $sp, 12
+        jr $ra
+fib_base:
+        move $v0, $a0
+        jr $ra
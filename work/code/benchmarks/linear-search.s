@@ -0,0 +1,58 @@
+# Linear search for each of the numbers 0 to n-1 in a sorted array of the
+# first n even numbers, O(n^2). The same result as binary-search.s, for comparison
+# input: n
+# output: the number of searches which found their key
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        move $a0, $s0
+        jal alloc_words
+        move $s1, $v0           # s1 = the array
+
+        move $t0, $zero         # a[i] = 2i
+        move $t1, $s1
+init:
+        bge $t0, $s0, search_all
+        sll $t2, $t0, 1
+        sw $t2, 0($t1)
+        addi $t0, $t0, 1
+        addi $t1, $t1, 4
+        j init
+
+search_all:
+        move $s2, $zero         # s2 = the key
+        move $s3, $zero         # s3 = the number found
+next_key:
+        bge $s2, $s0, done
+        move $a0, $s2
+        jal search
+        add $s3, $s3, $v0
+        addi $s2, $s2, 1
+        j next_key
+done:
+        move $a0, $s3
+        jal print_result
+
+# search: $v0 = 1 if $a0 is in the array of $s0 words at $s1, otherwise 0
+search:
+        move $t0, $s1           # t0 = the next element
+        sll $t1, $s0, 2
+        add $t1, $t1, $s1       # t1 = the end of the array
+search_loop:
+        bge $t0, $t1, not_found
+        lw $t2, 0($t0)
+        beq $t2, $a0, found
+        addi $t0, $t0, 4
+        j search_loop
+found:
+        li $v0, 1
+        jr $ra
+not_found:
+        move $v0, $zero
+        jr $ra
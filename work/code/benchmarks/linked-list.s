@@ -0,0 +1,66 @@
+# Inserts n pseudo-random numbers into a sorted linked list, allocating each
+# node on the heap, O(n^2)
+# input: n
+# output: the length of the list, or -1 if it is not sorted
+
+.include "common.s"
+
+.text
+.globl main
+
+# each node is two words: the value, then the address of the next node (0 at the end)
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        move $s1, $zero         # s1 = the head of the list
+        move $s2, $zero         # s2 = the number inserted
+
+insert_next:
+        bge $s2, $s0, inserted
+        jal rand
+        move $s3, $v0           # s3 = the value to insert
+        li $a0, 2
+        jal alloc_words
+        move $t0, $v0           # t0 = the new node
+        sw $s3, 0($t0)
+
+        beqz $s1, insert_head
+        lw $t1, 0($s1)
+        bge $t1, $s3, insert_head
+        move $t1, $s1           # t1 = the node to insert after
+find:
+        lw $t2, 4($t1)          # t2 = the node after it
+        beqz $t2, insert_after
+        lw $t3, 0($t2)
+        bge $t3, $s3, insert_after
+        move $t1, $t2
+        j find
+insert_after:
+        sw $t2, 4($t0)
+        sw $t0, 4($t1)
+        j insert_done
+insert_head:
+        sw $s1, 4($t0)
+        move $s1, $t0
+insert_done:
+        addi $s2, $s2, 1
+        j insert_next
+
+inserted:
+        move $t0, $s1           # t0 = the current node
+        move $t1, $zero         # t1 = the length
+        li $t2, -1              # t2 = the previous value
+walk:
+        beqz $t0, walked
+        lw $t3, 0($t0)
+        blt $t3, $t2, unsorted
+        move $t2, $t3
+        addi $t1, $t1, 1
+        lw $t0, 4($t0)
+        j walk
+walked:
+        move $a0, $t1
+        jal print_result
+unsorted:
+        li $a0, -1
+        jal print_result
@@ -0,0 +1,97 @@
+# Multiplies two n by n matrices, A[i][j] = i + j and B[i][j] = 1, O(n^3)
+# input: n
+# output: the trace of the product, n^2(n-1)
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        mul $s1, $s0, $s0       # s1 = the number of elements in each matrix
+        move $a0, $s1
+        jal alloc_words
+        move $s2, $v0           # s2 = A
+        move $a0, $s1
+        jal alloc_words
+        move $s3, $v0           # s3 = B
+        move $a0, $s1
+        jal alloc_words
+        move $s4, $v0           # s4 = C = AB
+
+        move $t0, $zero         # t0 = i
+init_row:
+        bge $t0, $s0, multiply
+        move $t1, $zero         # t1 = j
+init_column:
+        bge $t1, $s0, init_next_row
+        mul $t2, $t0, $s0
+        add $t2, $t2, $t1
+        sll $t2, $t2, 2         # the offset of [i][j]
+        add $t3, $t2, $s2
+        add $t4, $t0, $t1
+        sw $t4, 0($t3)          # A[i][j] = i + j
+        add $t3, $t2, $s3
+        li $t4, 1
+        sw $t4, 0($t3)          # B[i][j] = 1
+        addi $t1, $t1, 1
+        j init_column
+init_next_row:
+        addi $t0, $t0, 1
+        j init_row
+
+multiply:
+        move $t0, $zero         # t0 = i
+multiply_row:
+        bge $t0, $s0, trace
+        move $t1, $zero         # t1 = j
+multiply_column:
+        bge $t1, $s0, multiply_next_row
+        move $t5, $zero         # t5 = the sum
+        move $t2, $zero         # t2 = k
+dot_product:
+        bge $t2, $s0, store
+        mul $t3, $t0, $s0
+        add $t3, $t3, $t2
+        sll $t3, $t3, 2
+        add $t3, $t3, $s2
+        lw $t3, 0($t3)          # A[i][k]
+        mul $t4, $t2, $s0
+        add $t4, $t4, $t1
+        sll $t4, $t4, 2
+        add $t4, $t4, $s3
+        lw $t4, 0($t4)          # B[k][j]
+        mul $t3, $t3, $t4
+        add $t5, $t5, $t3
+        addi $t2, $t2, 1
+        j dot_product
+store:
+        mul $t3, $t0, $s0
+        add $t3, $t3, $t1
+        sll $t3, $t3, 2
+        add $t3, $t3, $s4
+        sw $t5, 0($t3)          # C[i][j]
+        addi $t1, $t1, 1
+        j multiply_column
+multiply_next_row:
+        addi $t0, $t0, 1
+        j multiply_row
+
+trace:
+        move $t0, $zero         # t0 = i
+        move $t1, $s4           # t1 = the address of C[i][i]
+        addi $t2, $s0, 1
+        sll $t2, $t2, 2         # t2 = the distance between diagonal elements
+        move $s5, $zero         # s5 = the trace
+trace_loop:
+        bge $t0, $s0, done
+        lw $t3, 0($t1)
+        add $s5, $s5, $t3
+        addi $t0, $t0, 1
+        add $t1, $t1, $t2
+        j trace_loop
+done:
+        move $a0, $s5
+        jal print_result
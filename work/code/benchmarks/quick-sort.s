@@ -0,0 +1,71 @@
+# Quick sort of n pseudo-random words, O(n log n) on average
+# input: n
+# output: 1 if the array is sorted afterwards
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        move $a0, $s0
+        jal alloc_words
+        move $s1, $v0           # s1 = the array
+        move $a0, $s1
+        move $a1, $s0
+        jal fill
+
+        move $a0, $s1
+        sll $a1, $s0, 2
+        add $a1, $a1, $s1
+        addi $a1, $a1, -4       # the last element
+        jal qsort
+
+        move $a0, $s1
+        move $a1, $s0
+        jal is_sorted
+        move $a0, $v0
+        jal print_result
+
+# qsort: sort the elements from address $a0 to address $a1 (inclusive)
+qsort:
+        bge $a0, $a1, qsort_return
+        addi $sp, $sp, -12
+        sw $ra, 8($sp)
+        sw $a1, 4($sp)
+
+        # partition around the last element
+        lw $t0, 0($a1)          # t0 = the pivot
+        addi $t1, $a0, -4       # t1 = the end of the elements <= the pivot
+        move $t2, $a0           # t2 = the next element to partition
+partition:
+        bge $t2, $a1, partitioned
+        lw $t3, 0($t2)
+        bgt $t3, $t0, partition_next
+        addi $t1, $t1, 4
+        lw $t4, 0($t1)
+        sw $t3, 0($t1)
+        sw $t4, 0($t2)
+partition_next:
+        addi $t2, $t2, 4
+        j partition
+partitioned:
+        addi $t1, $t1, 4        # the final position of the pivot
+        lw $t4, 0($t1)
+        sw $t0, 0($t1)
+        sw $t4, 0($a1)
+        sw $t1, 0($sp)
+
+        addi $a1, $t1, -4
+        jal qsort               # sort the elements before the pivot
+        lw $t1, 0($sp)
+        addi $a0, $t1, 4
+        lw $a1, 4($sp)
+        jal qsort               # sort the elements after the pivot
+
+        lw $ra, 8($sp)
+        addi $sp, $sp, 12
+qsort_return:
+        jr $ra
@@ -0,0 +1,80 @@
+# Builds a string of n lowercase letters, finds its length, reverses it in
+# place and counts its vowels, O(n)
+# input: n
+# output: the number of vowels in the string
+
+.include "common.s"
+
+.text
+.globl main
+
+main:
+        jal read_size
+        move $s0, $v0           # s0 = n
+        addi $a0, $s0, 4        # room for the null terminator, rounded to a whole number of words
+        srl $a0, $a0, 2
+        jal alloc_words
+        move $s1, $v0           # s1 = the string
+
+        # s[i] = 'a' + (7i mod 26)
+        move $t0, $s1
+        add $t1, $s1, $s0       # the end of the string
+        move $t2, $zero         # 7i mod 26
+        li $t3, 26
+build:
+        bge $t0, $t1, built
+        addi $t4, $t2, 97       # 'a'
+        sb $t4, 0($t0)
+        addi $t0, $t0, 1
+        addi $t2, $t2, 7
+        blt $t2, $t3, build
+        sub $t2, $t2, $t3
+        j build
+built:
+        sb $zero, 0($t0)        # null terminator
+
+        # the length, as strlen would find it
+        move $t0, $s1
+length:
+        lb $t1, 0($t0)
+        beqz $t1, reverse
+        addi $t0, $t0, 1
+        j length
+
+reverse:
+        addi $t1, $t0, -1       # the last character
+        move $t0, $s1           # the first character
+reverse_loop:
+        bge $t0, $t1, count
+        lb $t2, 0($t0)
+        lb $t3, 0($t1)
+        sb $t3, 0($t0)
+        sb $t2, 0($t1)
+        addi $t0, $t0, 1
+        addi $t1, $t1, -1
+        j reverse_loop
+
+count:
+        move $t0, $s1
+        move $s2, $zero         # s2 = the number of vowels
+count_loop:
+        lb $t1, 0($t0)
+        beqz $t1, counted
+        addi $t0, $t0, 1
+        li $t2, 97              # 'a'
+        beq $t1, $t2, vowel
+        li $t2, 101             # 'e'
+        beq $t1, $t2, vowel
+        li $t2, 105             # 'i'
+        beq $t1, $t2, vowel
+        li $t2, 111             # 'o'
+        beq $t1, $t2, vowel
+        li $t2, 117             # 'u'
+        beq $t1, $t2, vowel
+        j count_loop
+vowel:
+        addi $s2, $s2, 1
+        j count_loop
+counted:
+        move $a0, $s2
+        jal print_result